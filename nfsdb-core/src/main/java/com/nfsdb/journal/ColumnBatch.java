@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal;
+
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.utils.Unsafe;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+
+/**
+ * Column-oriented container of rows for JournalWriter#appendBatch. Each column is backed by
+ * a primitive array (or String[] / ByteBuffer[] for variable length columns and symbols),
+ * which the writer copies into partition files one column at a time.
+ * <p/>
+ * Columns that are not set are written as nulls. Arrays are held by reference, so the same
+ * batch can be refilled and re-appended without allocation.
+ * <p/>
+ * Fixed width primitive columns can also be backed by off-heap memory, which is copied to
+ * column files directly.
+ */
+public class ColumnBatch {
+    private final JournalMetadata<?> metadata;
+    private final Object[] values;
+    private final long[] addresses;
+    private final int[] counts;
+    private int size;
+
+    public ColumnBatch(JournalMetadata<?> metadata) {
+        this.metadata = metadata;
+        this.values = new Object[metadata.getColumnCount()];
+        this.addresses = new long[values.length];
+        this.counts = new int[values.length];
+    }
+
+    public ColumnBatch setBooleans(String column, boolean[] values) {
+        return set(column, values, values.length, ColumnType.BOOLEAN);
+    }
+
+    public ColumnBatch setBytes(String column, byte[] values) {
+        return set(column, values, values.length, ColumnType.BYTE);
+    }
+
+    public ColumnBatch setShorts(String column, short[] values) {
+        return set(column, values, values.length, ColumnType.SHORT);
+    }
+
+    public ColumnBatch setInts(String column, int[] values) {
+        return set(column, values, values.length, ColumnType.INT);
+    }
+
+    public ColumnBatch setLongs(String column, long[] values) {
+        return set(column, values, values.length, ColumnType.LONG);
+    }
+
+    public ColumnBatch setDoubles(String column, double[] values) {
+        return set(column, values, values.length, ColumnType.DOUBLE);
+    }
+
+    /**
+     * Sets values of STRING, FIXED_STRING or SYMBOL column. Null elements are written as nulls.
+     */
+    public ColumnBatch setStrings(String column, String[] values) {
+        int columnIndex = metadata.getColumnIndex(column);
+        ColumnType type = metadata.getColumnMetadata(columnIndex).type;
+        if (type != ColumnType.STRING && type != ColumnType.FIXED_STRING && type != ColumnType.SYMBOL) {
+            throw new JournalRuntimeException("Column %s is %s, cannot set strings", column, type);
+        }
+        return set(columnIndex, values, values.length);
+    }
+
+    public ColumnBatch setBuffers(String column, ByteBuffer[] values) {
+        return set(column, values, values.length, ColumnType.BINARY);
+    }
+
+    /**
+     * Sets values of fixed width primitive column to off-heap memory. Values must be laid out
+     * the same way as in Java array of column type. Memory is read when batch is appended and must
+     * remain valid until then.
+     *
+     * @param column  name of BOOLEAN, BYTE, SHORT, INT, LONG or DOUBLE column
+     * @param address address of first value
+     * @param count   number of values
+     * @return this batch
+     */
+    public ColumnBatch setAddress(String column, long address, int count) {
+        int columnIndex = metadata.getColumnIndex(column);
+        ColumnType type = metadata.getColumnMetadata(columnIndex).type;
+        if (!type.primitive() || type == ColumnType.SYMBOL) {
+            throw new JournalRuntimeException("Column %s is %s, cannot set address", column, type);
+        }
+        if (address == 0) {
+            throw new JournalRuntimeException("Invalid address of column %s", column);
+        }
+        set(columnIndex, null, count);
+        addresses[columnIndex] = address;
+        counts[columnIndex] = count;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets number of rows in batch. All set columns must have at least this many elements.
+     *
+     * @param size number of rows
+     * @return this batch
+     */
+    public ColumnBatch size(int size) {
+        for (int i = 0; i < values.length; i++) {
+            if ((values[i] != null && Array.getLength(values[i]) < size) || (addresses[i] != 0 && counts[i] < size)) {
+                throw new JournalRuntimeException("Column %s has fewer than %d values", metadata.getColumnMetadata(i).name, size);
+            }
+        }
+        this.size = size;
+        return this;
+    }
+
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+            addresses[i] = 0;
+        }
+        size = 0;
+    }
+
+    public JournalMetadata<?> getMetadata() {
+        return metadata;
+    }
+
+    Object getValues(int columnIndex) {
+        return values[columnIndex];
+    }
+
+    /**
+     * @return address of off-heap values or 0 when column is not backed by memory
+     */
+    long getAddress(int columnIndex) {
+        return addresses[columnIndex];
+    }
+
+    boolean isSet(int columnIndex) {
+        return values[columnIndex] != null || addresses[columnIndex] != 0;
+    }
+
+    long getLong(int columnIndex, int row) {
+        Object v = values[columnIndex];
+        return v != null ? ((long[]) v)[row] : Unsafe.getUnsafe().getLong(addresses[columnIndex] + row * 8L);
+    }
+
+    private ColumnBatch set(String column, Object array, int length, ColumnType type) {
+        int columnIndex = metadata.getColumnIndex(column);
+        if (metadata.getColumnMetadata(columnIndex).type != type) {
+            throw new JournalRuntimeException("Column %s is %s, not %s", column, metadata.getColumnMetadata(columnIndex).type, type);
+        }
+        return set(columnIndex, array, length);
+    }
+
+    private ColumnBatch set(int columnIndex, Object array, int length) {
+        values[columnIndex] = array;
+        addresses[columnIndex] = 0;
+        if (size == 0 || length < size) {
+            size = length;
+        }
+        return this;
+    }
+}
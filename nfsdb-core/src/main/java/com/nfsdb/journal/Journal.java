@@ -17,8 +17,12 @@
 package com.nfsdb.journal;
 
 import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.ContiguousMappedFile;
 import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.column.MappedFile;
+import com.nfsdb.journal.column.MappedFileImpl;
 import com.nfsdb.journal.column.SymbolTable;
+import com.nfsdb.journal.concurrent.Prefetcher;
 import com.nfsdb.journal.concurrent.TimerCache;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
@@ -27,6 +31,7 @@ import com.nfsdb.journal.factory.JournalClosingListener;
 import com.nfsdb.journal.factory.NullsAdaptor;
 import com.nfsdb.journal.factory.configuration.Constants;
 import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.index.LatestRowIDTable;
 import com.nfsdb.journal.iterators.ConcurrentIterator;
 import com.nfsdb.journal.iterators.JournalPeekingIterator;
 import com.nfsdb.journal.iterators.JournalRowBufferedIterator;
@@ -37,6 +42,7 @@ import com.nfsdb.journal.query.api.Query;
 import com.nfsdb.journal.query.spi.QueryImpl;
 import com.nfsdb.journal.tx.Tx;
 import com.nfsdb.journal.tx.TxLog;
+import com.nfsdb.journal.utils.ByteBuffers;
 import com.nfsdb.journal.utils.Dates;
 import com.nfsdb.journal.utils.Rows;
 import com.nfsdb.journal.utils.Unsafe;
@@ -76,6 +82,7 @@ public class Journal<T> implements Iterable<T>, Closeable {
     };
     private final NullsAdaptor<T> nullsAdaptor;
     private final BitSet inactiveColumns;
+    private final LatestRowIDTable latestRowIDTables[];
     private boolean open;
     private ColumnMetadata columnMetadata[];
     private Partition<T> irregularPartition;
@@ -92,6 +99,7 @@ public class Journal<T> implements Iterable<T>, Closeable {
         this.timestampOffset = getMetadata().getTimestampColumnMetadata() == null ? -1 : getMetadata().getTimestampColumnMetadata().offset;
         this.nullsAdaptor = getMetadata().getNullsAdaptor();
         this.inactiveColumns = new BitSet(metadata.getColumnCount());
+        this.latestRowIDTables = new LatestRowIDTable[metadata.getColumnCount()];
 
         configure();
     }
@@ -117,6 +125,11 @@ public class Journal<T> implements Iterable<T>, Closeable {
             }
 
             closePartitions();
+            for (LatestRowIDTable table : latestRowIDTables) {
+                if (table != null) {
+                    table.close();
+                }
+            }
             for (SymbolTable tab : symbolTables) {
                 tab.close();
             }
@@ -132,7 +145,12 @@ public class Journal<T> implements Iterable<T>, Closeable {
             txLog.head(tx);
             refreshInternal();
             for (int i = 0; i < symbolTables.size(); i++) {
-                symbolTables.get(i).applyTx(tx.symbolTableSizes[i], tx.symbolTableIndexPointers[i]);
+                symbolTables.get(i).applyTx(tx.symbolTableSizes[i]);
+            }
+            for (LatestRowIDTable table : latestRowIDTables) {
+                if (table != null) {
+                    table.releaseRetired();
+                }
             }
             return true;
         }
@@ -242,6 +260,38 @@ public class Journal<T> implements Iterable<T>, Closeable {
         }
     }
 
+    /**
+     * Latest row IDs of keys of symbol column, which writer maintains on commit for columns configured
+     * with {@link com.nfsdb.journal.factory.configuration.SymbolBuilder#latestRowIDs()}.
+     *
+     * @param columnIndex the column index
+     * @return the table or null if column doesn't have the table or it hasn't been created yet
+     * @throws com.nfsdb.journal.exceptions.JournalException if table file cannot be opened
+     */
+    public LatestRowIDTable getLatestRowIDTable(int columnIndex) throws JournalException {
+        LatestRowIDTable table = latestRowIDTables[columnIndex];
+        if (table == null) {
+            com.nfsdb.journal.factory.configuration.ColumnMetadata m = metadata.getColumnMetadata(columnIndex);
+            if (m.type != ColumnType.SYMBOL || !m.latestRowIDs) {
+                return null;
+            }
+            File file = new File(location, m.name + ".lr");
+            if (!file.exists() && (getMode() == JournalMode.READ || getMode() == JournalMode.BULK_READ)) {
+                return null;
+            }
+            MappedFile mappedFile;
+            switch (metadata.getMappedFileType()) {
+                case CONTIGUOUS:
+                    mappedFile = new ContiguousMappedFile(file, ByteBuffers.getBitHint(8, m.distinctCountHint), getMode());
+                    break;
+                default:
+                    mappedFile = new MappedFileImpl(file, ByteBuffers.getBitHint(8, m.distinctCountHint), getMode());
+            }
+            table = latestRowIDTables[columnIndex] = new LatestRowIDTable(mappedFile);
+        }
+        return table;
+    }
+
     public Partition<T> getIrregularPartition() {
         return irregularPartition;
     }
@@ -389,6 +439,7 @@ public class Journal<T> implements Iterable<T>, Closeable {
                         Unsafe.getUnsafe().putLong(obj, m.offset, 0L);
                         break;
                     case STRING:
+                    case FIXED_STRING:
                     case SYMBOL:
                         Unsafe.getUnsafe().putObject(obj, m.offset, null);
                         break;
@@ -628,6 +679,13 @@ public class Journal<T> implements Iterable<T>, Closeable {
         return timerCache;
     }
 
+    /**
+     * @return prefetcher for sequential reads of column files, null when journal does not prefetch.
+     */
+    Prefetcher getPrefetcher() {
+        return null;
+    }
+
     private void configureColumns() throws JournalException {
         int columnCount = getMetadata().getColumnCount();
         columnMetadata = new ColumnMetadata[columnCount];
@@ -637,8 +695,7 @@ public class Journal<T> implements Iterable<T>, Closeable {
             if (meta.type == ColumnType.SYMBOL && meta.sameAs == null) {
                 int tabIndex = symbolTables.size();
                 int tabSize = tx.symbolTableSizes.length > tabIndex ? tx.symbolTableSizes[tabIndex] : 0;
-                long indexTxAddress = tx.symbolTableIndexPointers.length > tabIndex ? tx.symbolTableIndexPointers[tabIndex] : 0;
-                SymbolTable tab = new SymbolTable(meta.distinctCountHint, meta.avgSize, getMetadata().getTxCountHint(), location, meta.name, getMode(), tabSize, indexTxAddress);
+                SymbolTable tab = new SymbolTable(meta.distinctCountHint, meta.avgSize, location, meta.name, getMode(), tabSize);
                 symbolTables.add(tab);
                 symbolTableMap.put(meta.name, tab);
                 columnMetadata[i].symbolTable = tab;
@@ -16,11 +16,15 @@
 
 package com.nfsdb.journal;
 
+import com.nfsdb.journal.concurrent.Prefetcher;
 import com.nfsdb.journal.concurrent.TimerCache;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.factory.configuration.JournalMetadata;
 
 public class JournalBulkReader<T> extends Journal<T> {
+    // created lazily, partitions can be opened from super constructor
+    private Prefetcher prefetcher;
+
     public JournalBulkReader(JournalMetadata<T> metadata, JournalKey<T> key, TimerCache timerCache) throws JournalException {
         super(metadata, key, timerCache);
     }
@@ -29,4 +33,22 @@ public class JournalBulkReader<T> extends Journal<T> {
     public JournalMode getMode() {
         return JournalMode.BULK_READ;
     }
+
+    @Override
+    public void close() {
+        super.close();
+        // close listener can keep journal open
+        if (!isOpen() && prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+    }
+
+    @Override
+    Prefetcher getPrefetcher() {
+        if (prefetcher == null && getMetadata().getPrefetchDepth() > 0) {
+            prefetcher = new Prefetcher(getLocation().getName(), getMetadata().getPrefetchDepth());
+        }
+        return prefetcher;
+    }
 }
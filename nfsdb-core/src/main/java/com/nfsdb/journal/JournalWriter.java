@@ -16,6 +16,8 @@
 
 package com.nfsdb.journal;
 
+import com.nfsdb.journal.collections.IntArrayList;
+import com.nfsdb.journal.column.ColumnType;
 import com.nfsdb.journal.column.FixedColumn;
 import com.nfsdb.journal.column.SymbolTable;
 import com.nfsdb.journal.concurrent.PartitionCleaner;
@@ -24,6 +26,8 @@ import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.factory.configuration.Constants;
 import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.index.LatestRowIDTable;
 import com.nfsdb.journal.iterators.ConcurrentIterator;
 import com.nfsdb.journal.iterators.MergingIterator;
 import com.nfsdb.journal.iterators.PeekingIterator;
@@ -39,10 +43,13 @@ import org.joda.time.Interval;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 
 public class JournalWriter<T> extends Journal<T> {
@@ -123,6 +130,13 @@ public class JournalWriter<T> extends Journal<T> {
         // partitions need to be dealt with first to make sure new lag is assigned a correct partitionIndex
         rollbackPartitions(tx);
 
+        for (int i = 0, n = getMetadata().getColumnCount(); i < n; i++) {
+            LatestRowIDTable table = getLatestRowIDTable(i);
+            if (table != null && table.getCoveredRowID() > tx.journalMaxRowID) {
+                truncateLatestRowIDs(table, i, tx.journalMaxRowID);
+            }
+        }
+
         Partition<T> lag = getIrregularPartition();
         if (tx.lagName != null && tx.lagName.length() > 0 && (lag == null || !tx.lagName.equals(lag.getName()))) {
             Partition<T> newLag = createTempPartition(tx.lagName);
@@ -247,9 +261,76 @@ public class JournalWriter<T> extends Journal<T> {
     }
 
     public void rebuildIndexes() throws JournalException {
+        rebuildIndexes(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Rebuilds indexes of all partitions on fork-join pool of given parallelism. Every indexed column of every
+     * partition is rebuilt by its own task, except for nullable fixed width string columns, which share nulls
+     * column of partition and are rebuilt one after another. Last partition and lag partition size their indexes
+     * from statistics of partition preceding them, so these are rebuilt once all other partitions are done.
+     *
+     * @param parallelism number of threads, 1 rebuilds indexes on calling thread
+     * @throws com.nfsdb.journal.exceptions.JournalException if any of the indexes cannot be rebuilt
+     */
+    public void rebuildIndexes(int parallelism) throws JournalException {
+        final List<RebuildIndexTask> tasks = new ArrayList<>();
+        final List<RebuildIndexTask> tail = new ArrayList<>();
+        JournalMetadata<T> meta = getMetadata();
         for (int i = 0; i < getPartitionCount(); i++) {
-            getPartition(i, true).rebuildIndexes();
+            Partition<T> partition = getPartition(i, true);
+            List<RebuildIndexTask> list = i < nonLagPartitionCount() - 1 ? tasks : tail;
+            int[] shared = new int[0];
+            for (int k = 0; k < meta.getColumnCount(); k++) {
+                com.nfsdb.journal.factory.configuration.ColumnMetadata m = meta.getColumnMetadata(k);
+                if (!m.indexed) {
+                    continue;
+                }
+                if (m.type == ColumnType.FIXED_STRING && !m.notNull) {
+                    shared = Arrays.copyOf(shared, shared.length + 1);
+                    shared[shared.length - 1] = k;
+                } else {
+                    list.add(new RebuildIndexTask(partition, k));
+                }
+            }
+            if (shared.length > 0) {
+                list.add(new RebuildIndexTask(partition, shared));
+            }
+        }
+
+        if (parallelism < 2 || tasks.size() < 2) {
+            for (int i = 0, n = tasks.size(); i < n; i++) {
+                tasks.get(i).rebuild();
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, tasks.size()));
+            try {
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            } catch (JournalRuntimeException e) {
+                throw new JournalException(e.getCause() != null ? e.getCause() : e);
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        for (int i = 0, n = tail.size(); i < n; i++) {
+            tail.get(i).rebuild();
+        }
+
+        // tables of latest row IDs are derived from the same rows as indexes, rebuild them too
+        for (int i = 0, n = meta.getColumnCount(); i < n; i++) {
+            LatestRowIDTable table = getLatestRowIDTable(i);
+            if (table != null) {
+                table.clear();
+            }
         }
+        Partition<T> last = lastNonEmptyNonLag();
+        updateLatestRowIDs(last == null ? 0 : Rows.toRowID(last.getPartitionIndex(), last.size()), false);
     }
 
     public void compact() throws JournalException {
@@ -258,6 +339,18 @@ public class JournalWriter<T> extends Journal<T> {
         }
     }
 
+    /**
+     * Compresses columns of sealed partitions, which are all partitions except the last one and lag partition.
+     * Only columns with codec configured are compressed.
+     *
+     * @throws com.nfsdb.journal.exceptions.JournalException if there is an error
+     */
+    public void compress() throws JournalException {
+        for (int i = 0, n = nonLagPartitionCount() - 1; i < n; i++) {
+            getPartition(i, true).compress();
+        }
+    }
+
     public void truncate() throws JournalException {
         beginTx();
 
@@ -329,26 +422,7 @@ public class JournalWriter<T> extends Journal<T> {
             long timestamp = getTimestamp(obj);
 
             if (timestamp > appendTimestampHi) {
-
-                boolean computeTimestampLo = appendPartition == null;
-
-                appendPartition = getAppendPartition(timestamp);
-
-                Interval interval = appendPartition.getInterval();
-                if (interval == null) {
-                    appendTimestampHi = Long.MAX_VALUE;
-                } else {
-                    appendTimestampHi = appendPartition.getInterval().getEndMillis();
-                }
-
-                if (computeTimestampLo) {
-                    FixedColumn column = appendPartition.getTimestampColumn();
-                    if (column.size() > 0) {
-                        appendTimestampLo = column.getLong(column.size() - 1);
-                    }
-                } else {
-                    appendTimestampLo = appendPartition.getInterval().getStartMillis();
-                }
+                switchAppendPartition(timestamp);
             }
 
             if (timestamp < appendTimestampLo) {
@@ -366,6 +440,69 @@ public class JournalWriter<T> extends Journal<T> {
         }
     }
 
+    /**
+     * Add rows of column batch to the end of the Journal. Batch is split into partitions by timestamp
+     * and each part is copied column by column, with column offsets and index entries committed once
+     * per part rather than once per row.
+     *
+     * @param batch rows to add, timestamps must be in ascending order
+     * @throws com.nfsdb.journal.exceptions.JournalException if there is an error
+     */
+    public void appendBatch(ColumnBatch batch) throws JournalException {
+
+        if (!getMetadata().getModelClass().equals(batch.getMetadata().getModelClass())) {
+            throw new JournalException("Column batch is incompatible with %s", this);
+        }
+
+        int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+
+        if (!txActive) {
+            beginTx();
+        }
+
+        if (checkOrder) {
+            int tsIndex = getMetadata().getTimestampColumnIndex();
+            if (!batch.isSet(tsIndex)) {
+                throw new JournalException("Column batch does not have timestamps: %s", this);
+            }
+
+            for (int i = 1; i < size; i++) {
+                long timestamp = batch.getLong(tsIndex, i);
+                if (timestamp < batch.getLong(tsIndex, i - 1)) {
+                    throw new JournalException("Column batch is out of order at %d, timestamp=%d (%s): %s"
+                            , i, timestamp, Dates.toString(timestamp), this);
+                }
+            }
+
+            int lo = 0;
+            while (lo < size) {
+                long timestamp = batch.getLong(tsIndex, lo);
+                if (timestamp > appendTimestampHi) {
+                    switchAppendPartition(timestamp);
+                }
+
+                if (timestamp < appendTimestampLo) {
+                    throw new JournalException("Cannot insert records out of order. maxHardTimestamp=%d (%s), timestamp=%d (%s): %s"
+                            , appendTimestampLo, Dates.toString(appendTimestampLo), timestamp, Dates.toString(timestamp), this);
+                }
+
+                int hi = lo + 1;
+                while (hi < size && batch.getLong(tsIndex, hi) <= appendTimestampHi) {
+                    hi++;
+                }
+
+                appendPartition.appendBatch(batch, lo, hi);
+                appendTimestampLo = batch.getLong(tsIndex, hi - 1);
+                lo = hi;
+            }
+        } else {
+            getAppendPartition().appendBatch(batch, 0, size);
+        }
+    }
+
     /**
      * Max timestamp in journal for append operation. Objects with timestamp older then
      * this will always be rejected.
@@ -651,6 +788,28 @@ public class JournalWriter<T> extends Journal<T> {
         }
     }
 
+    private void switchAppendPartition(long timestamp) throws JournalException {
+        boolean computeTimestampLo = appendPartition == null;
+
+        appendPartition = getAppendPartition(timestamp);
+
+        Interval interval = appendPartition.getInterval();
+        if (interval == null) {
+            appendTimestampHi = Long.MAX_VALUE;
+        } else {
+            appendTimestampHi = appendPartition.getInterval().getEndMillis();
+        }
+
+        if (computeTimestampLo) {
+            FixedColumn column = appendPartition.getTimestampColumn();
+            if (column.size() > 0) {
+                appendTimestampLo = column.getLong(column.size() - 1);
+            }
+        } else {
+            appendTimestampLo = appendPartition.getInterval().getStartMillis();
+        }
+    }
+
     private void notifyTxListener() {
         if (txListener != null) {
             txListener.onCommit();
@@ -695,7 +854,8 @@ public class JournalWriter<T> extends Journal<T> {
                 tab.force();
             }
             tx.symbolTableSizes[i] = tab.size();
-            tx.symbolTableIndexPointers[i] = tab.getIndexTxAddress();
+            // symbol table hash is not tx addressed, pointers are kept for tx log compatibility
+            tx.symbolTableIndexPointers[i] = 0;
         }
         tx.indexPointers = new long[getMetadata().getColumnCount()];
 
@@ -712,6 +872,8 @@ public class JournalWriter<T> extends Journal<T> {
             partition.getIndexPointers(tx.indexPointers);
         }
 
+        updateLatestRowIDs(tx.journalMaxRowID, force);
+
         tx.lagIndexPointers = new long[getMetadata().getColumnCount()];
         if (lag != null) {
             lag.commit();
@@ -725,6 +887,91 @@ public class JournalWriter<T> extends Journal<T> {
         if (force) {
             txLog.force();
         }
+
+        // partitions written to in this transaction, except for the last one, are sealed
+        for (int i = Math.max(txPartitionIndex, 0), n = nonLagPartitionCount() - 1; i < n; i++) {
+            Partition<T> sealed = getPartition(i, true);
+            sealed.buildRangeIndexes();
+            sealed.buildBloomFilters();
+            sealed.buildIndexStatistics();
+        }
+    }
+
+    /**
+     * Brings tables of latest row IDs up to date with rows of regular partitions. Table that hasn't existed
+     * before is built from all rows of journal.
+     */
+    private void updateLatestRowIDs(long maxRowID, boolean force) throws JournalException {
+        for (int i = 0, n = getMetadata().getColumnCount(); i < n; i++) {
+            LatestRowIDTable table = getLatestRowIDTable(i);
+            if (table == null) {
+                continue;
+            }
+
+            long covered = table.getCoveredRowID();
+            if (covered > maxRowID) {
+                truncateLatestRowIDs(table, i, maxRowID);
+            } else if (covered < maxRowID) {
+                int lo = Rows.toPartitionIndex(covered);
+                int hi = Rows.toPartitionIndex(maxRowID);
+                for (int p = lo; p <= hi; p++) {
+                    Partition<T> partition = getPartition(p, true);
+                    FixedColumn column = (FixedColumn) partition.getAbstractColumn(i);
+                    for (long r = p == lo ? Rows.toLocalRowID(covered) : 0, rHi = p == hi ? Rows.toLocalRowID(maxRowID) : partition.size(); r < rHi; r++) {
+                        int key = column.getInt(r);
+                        if (key >= 0) {
+                            table.put(key, Rows.toRowID(p, r));
+                        }
+                    }
+                }
+                table.setCoveredRowID(maxRowID);
+            }
+
+            if (force) {
+                table.force();
+            }
+        }
+    }
+
+    /**
+     * Removes row IDs at and above maxRowID from table and puts back previous rows of affected keys, which
+     * are looked up in indexes of partitions that are already truncated.
+     */
+    private void truncateLatestRowIDs(LatestRowIDTable table, int columnIndex, long maxRowID) throws JournalException {
+        IntArrayList keys = new IntArrayList();
+        table.truncate(maxRowID, keys);
+
+        int hi = maxRowID == 0 ? -1 : Math.min(Rows.toPartitionIndex(maxRowID), nonLagPartitionCount() - 1);
+        for (int p = hi; p >= 0 && keys.size() > 0; p--) {
+            Partition<T> partition = getPartition(p, true);
+            long size = partition.size();
+            if (size == 0) {
+                continue;
+            }
+            KVIndex index = partition.getIndexForColumn(columnIndex);
+            int k = 0;
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                int key = keys.getQuick(i);
+                long localRowID = -1;
+                if (partition.mightContain(columnIndex, key)) {
+                    KVIndex.IndexCursor cursor = index.cachedCursor(key);
+                    while (cursor.hasNext()) {
+                        long r = cursor.next();
+                        if (r < size) {
+                            localRowID = r;
+                            break;
+                        }
+                    }
+                }
+
+                if (localRowID == -1) {
+                    keys.setQuick(k++, key);
+                } else {
+                    table.put(key, Rows.toRowID(p, localRowID));
+                }
+            }
+            keys.remove(k, keys.size() - k);
+        }
     }
 
     private void rollbackPartitionDirs() throws JournalException {
@@ -749,6 +996,8 @@ public class JournalWriter<T> extends Journal<T> {
             if (partition.getPartitionIndex() == partitionIndex) {
                 partition.open();
                 partition.truncate(Rows.toLocalRowID(tx.journalMaxRowID));
+                // partition is the last one again, its filters and statistics would miss keys appended from now on
+                partition.unseal();
             } else if (partition.getPartitionIndex() > partitionIndex) {
                 it.remove();
                 partition.close();
@@ -786,4 +1035,29 @@ public class JournalWriter<T> extends Journal<T> {
     private void splitAppendMerge(Iterator<T> a, Iterator<T> b, long hard, long soft, Partition<T> temp) throws JournalException {
         splitAppend(mergingIterator.$new(a, b, getTimestampComparator()), hard, soft, temp);
     }
+
+    private static class RebuildIndexTask extends RecursiveAction {
+        private final Partition<?> partition;
+        private final int[] columns;
+
+        private RebuildIndexTask(Partition<?> partition, int... columns) {
+            this.partition = partition;
+            this.columns = columns;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                rebuild();
+            } catch (JournalException e) {
+                throw new JournalRuntimeException(e);
+            }
+        }
+
+        private void rebuild() throws JournalException {
+            for (int i = 0; i < columns.length; i++) {
+                partition.rebuildIndex(columns[i]);
+            }
+        }
+    }
 }
@@ -22,7 +22,12 @@ import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.factory.NullsAdaptor;
 import com.nfsdb.journal.factory.configuration.ColumnMetadata;
 import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.index.BitmapIndex;
+import com.nfsdb.journal.index.BloomFilter;
+import com.nfsdb.journal.index.IndexStatistics;
 import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.index.RangeIndex;
+import com.nfsdb.journal.index.RoaringBitmap;
 import com.nfsdb.journal.iterators.ConcurrentIterator;
 import com.nfsdb.journal.iterators.PartitionBufferedIterator;
 import com.nfsdb.journal.iterators.PartitionConcurrentIterator;
@@ -42,16 +47,31 @@ import java.util.concurrent.TimeUnit;
 
 public class Partition<T> implements Iterable<T>, Closeable {
     private static final Logger LOGGER = Logger.getLogger(Partition.class);
+    private static final int ZONE_MAP_BIT_HINT = 16;
     private final Journal<T> journal;
     private final ArrayList<SymbolIndexProxy<T>> indexProxies = new ArrayList<>();
     private final ArrayList<SymbolIndexProxy<T>> columnIndexProxies = new ArrayList<>();
     private final Interval interval;
     private final BitSet nulls;
+    private final BitSet readNulls;
+    // columns values of which are validated before append: NOT NULL and fixed width strings
+    private final int checkedColumns[];
+    private final boolean nullable;
     private final NullsAdaptor<T> nullsAdaptor;
     private final int columnCount;
     private final int appendKeyCache[];
     private final long appendSizeCache[];
+    // bloom filters are loaded lazily and independently of columns, partition doesn't have to be open
+    private final BloomFilter bloomFilters[];
+    private final boolean bloomFiltersLoaded[];
+    // statistics of sealed partition, loaded lazily
+    private final IndexStatistics indexStatistics[];
+    private long batchNulls[];
+    private int batchKeys[];
     private AbstractColumn[] columns;
+    private ZoneMap[] zoneMaps;
+    private RangeIndex[] rangeIndexes;
+    private FixedColumn[] fingerprints;
     private NullsColumn nullsColumn;
     private int partitionIndex;
     private File partitionDir;
@@ -60,6 +80,9 @@ public class Partition<T> implements Iterable<T>, Closeable {
     private FixedColumn timestampColumn;
     private BinarySearch.LongTimeSeriesProvider indexOfVisitor;
 
+    /**
+     * @return nulls column or null when journal does not have nullable columns
+     */
     public NullsColumn getNullsColumn() {
         return nullsColumn;
     }
@@ -69,15 +92,20 @@ public class Partition<T> implements Iterable<T>, Closeable {
         if (columns == null) {
 
             columns = new AbstractColumn[journal.getMetadata().getColumnCount()];
-
-            int nullsRecordSize = ((columns.length >>> 6) + (columns.length % 64 == 0 ? 0 : 1)) * 8;
-            nullsColumn = new NullsColumn(
-                    new MappedFileImpl(new File(partitionDir, "_nulls.d"),
-                            ByteBuffers.getBitHint(nullsRecordSize, journal.getMetadata().getRecordHint()),
-                            journal.getMode()),
-                    nullsRecordSize,
-                    columns.length
-            );
+            zoneMaps = new ZoneMap[columns.length];
+            rangeIndexes = new RangeIndex[columns.length];
+            fingerprints = new FixedColumn[columns.length];
+
+            // when every column is NOT NULL there is nothing to record in nulls file
+            if (nullable) {
+                int nullsRecordSize = ((columns.length >>> 6) + (columns.length % 64 == 0 ? 0 : 1)) * 8;
+                nullsColumn = new NullsColumn(
+                        openMappedFile(new File(partitionDir, "_nulls.d"),
+                                ByteBuffers.getBitHint(nullsRecordSize, journal.getMetadata().getRecordHint())),
+                        nullsRecordSize,
+                        columns.length
+                );
+            }
 
             for (int i = 0; i < columns.length; i++) {
                 open(i);
@@ -137,9 +165,25 @@ public class Partition<T> implements Iterable<T>, Closeable {
                     ch.close();
                 }
             }
-            nullsColumn.close();
-            nullsColumn = null;
+            for (int i = 0; i < zoneMaps.length; i++) {
+                if (zoneMaps[i] != null) {
+                    zoneMaps[i].close();
+                }
+                if (rangeIndexes[i] != null) {
+                    rangeIndexes[i].close();
+                }
+                if (fingerprints[i] != null) {
+                    fingerprints[i].close();
+                }
+            }
+            if (nullsColumn != null) {
+                nullsColumn.close();
+                nullsColumn = null;
+            }
             columns = null;
+            zoneMaps = null;
+            rangeIndexes = null;
+            fingerprints = null;
             LOGGER.trace("Partition %s closed", partitionDir);
         }
 
@@ -154,16 +198,72 @@ public class Partition<T> implements Iterable<T>, Closeable {
 
     public String getString(long localRowID, int columnIndex) {
         checkColumnIndex(columnIndex);
-        if (getNullsColumn().getBitSet(localRowID).get(columnIndex)) {
+        if (isNullInternal(localRowID, columnIndex)) {
             return null;
         } else {
-            return ((VariableColumn) columns[columnIndex]).getString(localRowID);
+            AbstractColumn column = columns[columnIndex];
+            if (column instanceof FixedStringColumn) {
+                return ((FixedStringColumn) column).getString(localRowID);
+            }
+            return ((VariableColumn) column).getString(localRowID);
+        }
+    }
+
+    /**
+     * Allocation free variant of getString(). Returned value is a flyweight over column data and
+     * is only valid until next read of the same column.
+     */
+    public DirectCharSequence getStr(long localRowID, int columnIndex) {
+        checkColumnIndex(columnIndex);
+        if (isNullInternal(localRowID, columnIndex)) {
+            return null;
+        } else {
+            AbstractColumn column = columns[columnIndex];
+            if (column instanceof FixedStringColumn) {
+                return ((FixedStringColumn) column).getStr(localRowID);
+            }
+            return ((VariableColumn) column).getStr(localRowID);
+        }
+    }
+
+    public DirectCharSequence getStr(long localRowID, int columnIndex, DirectCharSequence cs) {
+        checkColumnIndex(columnIndex);
+        if (isNullInternal(localRowID, columnIndex)) {
+            return null;
+        } else {
+            AbstractColumn column = columns[columnIndex];
+            if (column instanceof FixedStringColumn) {
+                return ((FixedStringColumn) column).getStr(localRowID, cs);
+            }
+            return ((VariableColumn) column).getStr(localRowID, cs);
+        }
+    }
+
+    /**
+     * Zero-copy access to BINARY column. Returned buffer is a read-only view over column data and
+     * is only valid until next read of the same column.
+     */
+    public ByteBuffer getBin(long localRowID, int columnIndex) {
+        checkColumnIndex(columnIndex);
+        if (isNullInternal(localRowID, columnIndex)) {
+            return null;
+        } else {
+            return ((VariableColumn) columns[columnIndex]).getBin(localRowID);
+        }
+    }
+
+    public int getBinLen(long localRowID, int columnIndex) {
+        checkColumnIndex(columnIndex);
+        if (isNullInternal(localRowID, columnIndex)) {
+            return -1;
+        } else {
+            return ((VariableColumn) columns[columnIndex]).getBufferSize(localRowID);
         }
     }
 
     public String getSymbol(long localRowID, int columnIndex) {
         checkColumnIndex(columnIndex);
-        if (getNullsColumn().getBitSet(localRowID).get(columnIndex)) {
+        if (isNullInternal(localRowID, columnIndex)) {
             return null;
         } else {
             int symbolIndex = ((FixedColumn) columns[columnIndex]).getInt(localRowID);
@@ -216,7 +316,7 @@ public class Partition<T> implements Iterable<T>, Closeable {
 
     public boolean isNull(long localRowID, int columnIndex) {
         checkColumnIndex(columnIndex);
-        return nullsColumn.getBitSet(Rows.toLocalRowID(localRowID)).get(columnIndex);
+        return isNullInternal(Rows.toLocalRowID(localRowID), columnIndex);
     }
 
 
@@ -225,6 +325,33 @@ public class Partition<T> implements Iterable<T>, Closeable {
         return columns[i];
     }
 
+    /**
+     * @param i column index
+     * @return zone map of column or null if column does not have one
+     */
+    public ZoneMap getZoneMap(int i) {
+        checkColumnIndex(i);
+        return zoneMaps[i];
+    }
+
+    /**
+     * @param i column index
+     * @return range index of column or null if column does not have one
+     */
+    public RangeIndex getRangeIndex(int i) {
+        checkColumnIndex(i);
+        return rangeIndexes[i];
+    }
+
+    /**
+     * @param i column index
+     * @return column of 64-bit value hashes or null if column is not fingerprinted
+     */
+    public FixedColumn getFingerprintColumn(int i) {
+        checkColumnIndex(i);
+        return fingerprints[i];
+    }
+
     public KVIndex getIndexForColumn(String columnName) throws JournalException {
         return getIndexForColumn(journal.getMetadata().getColumnIndex(columnName));
     }
@@ -237,6 +364,29 @@ public class Partition<T> implements Iterable<T>, Closeable {
         return h.getIndex();
     }
 
+    public BitmapIndex getBitmapIndexForColumn(String columnName) throws JournalException {
+        return getBitmapIndexForColumn(journal.getMetadata().getColumnIndex(columnName));
+    }
+
+    public BitmapIndex getBitmapIndexForColumn(final int columnIndex) throws JournalException {
+        SymbolIndexProxy<T> h = columnIndexProxies.get(columnIndex);
+        if (h == null) {
+            throw new JournalException("There is no index for column '%s' in %s", journal.getMetadata().getColumnMetadata(columnIndex).name, this);
+        }
+        return h.getBitmapIndex();
+    }
+
+    /**
+     * Bitmap of rows that have given key in indexed column. Bitmaps of columns configured with bitmap index
+     * are cached and must not be modified, other columns get a new bitmap built from the index.
+     */
+    public RoaringBitmap getBitmap(int columnIndex, int key) throws JournalException {
+        if (journal.getMetadata().getColumnMetadata(columnIndex).bitmap) {
+            return getBitmapIndexForColumn(columnIndex).getBitmap(key);
+        }
+        return BitmapIndex.build(getIndexForColumn(columnIndex), key);
+    }
+
     public T read(long localRowID) {
         T obj = journal.newObject();
         read(localRowID, obj);
@@ -245,7 +395,13 @@ public class Partition<T> implements Iterable<T>, Closeable {
 
     public void read(long localRowID, T obj) {
 
-        BitSet nulls = nullsColumn.getBitSet(localRowID);
+        BitSet nulls;
+        if (nullsColumn == null) {
+            nulls = readNulls;
+            nulls.clear();
+        } else {
+            nulls = nullsColumn.getBitSet(localRowID);
+        }
         nulls.or(journal.getInactiveColumns());
         for (int i = 0; i < columnCount; i++) {
 
@@ -279,6 +435,9 @@ public class Partition<T> implements Iterable<T>, Closeable {
                         Unsafe.getUnsafe().putObject(obj, m.meta.offset, s);
                     }
                     break;
+                case FIXED_STRING:
+                    Unsafe.getUnsafe().putObject(obj, m.meta.offset, ((FixedStringColumn) columns[i]).getString(localRowID));
+                    break;
                 case SYMBOL:
                     int symbolIndex = ((FixedColumn) columns[i]).getInt(localRowID);
                     // check if symbol was null
@@ -323,6 +482,10 @@ public class Partition<T> implements Iterable<T>, Closeable {
             checkNulls = true;
         }
 
+        if (checkedColumns.length > 0) {
+            checkValues(obj, checkNulls);
+        }
+
         for (int i = 0; i < columnCount; i++) {
             Journal.ColumnMetadata meta = journal.getColumnMetadata(i);
 
@@ -350,6 +513,9 @@ public class Partition<T> implements Iterable<T>, Closeable {
                 case STRING:
                     appendStr(obj, i, meta);
                     break;
+                case FIXED_STRING:
+                    appendFixedStr(obj, i, meta);
+                    break;
                 case SYMBOL:
                     appendSym(obj, i, meta);
                     break;
@@ -358,7 +524,9 @@ public class Partition<T> implements Iterable<T>, Closeable {
                     break;
             }
         }
-        nullsColumn.putBitSet(nulls);
+        if (nullsColumn != null) {
+            nullsColumn.putBitSet(nulls);
+        }
         commitColumns();
 
         for (int i = 0, len = appendKeyCache.length; i < len; i++) {
@@ -370,8 +538,101 @@ public class Partition<T> implements Iterable<T>, Closeable {
         applyTx(Journal.TX_LIMIT_EVAL, null);
     }
 
+    /**
+     * Appends rows lo (inclusive) to hi (exclusive) of column batch. Fixed width columns are copied
+     * with one memory copy per column, column append offsets are committed and indexes are updated once
+     * for the whole range.
+     *
+     * @param batch column batch
+     * @param lo    index of first row in batch
+     * @param hi    index of row past the last one to be appended
+     * @throws com.nfsdb.journal.exceptions.JournalException if index cannot be opened
+     */
+    public void appendBatch(ColumnBatch batch, int lo, int hi) throws JournalException {
+        int count = hi - lo;
+        if (count <= 0) {
+            return;
+        }
+
+        if (checkedColumns.length > 0) {
+            checkValues(batch, lo, hi);
+        }
+
+        long localRowID = size();
+        int wordCount = nullsColumn == null ? 0 : nullsColumn.getWordCount();
+        long nullWords[] = batchNulls(count * wordCount);
+
+        for (int i = 0; i < columnCount; i++) {
+            Journal.ColumnMetadata meta = journal.getColumnMetadata(i);
+            Object values = batch.getValues(i);
+
+            if (values == null) {
+                long address = batch.getAddress(i);
+                if (address == 0) {
+                    appendBatchNulls(i, meta, count, localRowID, nullWords, wordCount);
+                } else {
+                    appendBatchMemory(i, meta, address, lo, count, localRowID);
+                }
+                continue;
+            }
+
+            switch (meta.meta.type) {
+                case BOOLEAN:
+                    ((FixedColumn) columns[i]).putArray(values, Unsafe.BOOL_ARRAY_OFFSET + lo, count);
+                    break;
+                case BYTE:
+                    ((FixedColumn) columns[i]).putArray(values, Unsafe.BYTE_ARRAY_OFFSET + lo, count);
+                    break;
+                case SHORT:
+                    ((FixedColumn) columns[i]).putArray(values, Unsafe.SHORT_ARRAY_OFFSET + lo * 2L, count);
+                    break;
+                case DOUBLE:
+                    ((FixedColumn) columns[i]).putArray(values, Unsafe.DOUBLE_ARRAY_OFFSET + lo * 8L, count);
+                    break;
+                case LONG:
+                    ((FixedColumn) columns[i]).putArray(values, Unsafe.LONG_ARRAY_OFFSET + lo * 8L, count);
+                    break;
+                case INT:
+                    int ints[] = (int[]) values;
+                    ((FixedColumn) columns[i]).putArray(ints, Unsafe.INT_ARRAY_OFFSET + lo * 4L, count);
+                    if (meta.meta.indexed) {
+                        KVIndex index = columnIndexProxies.get(i).getIndex();
+                        for (int k = 0; k < count; k++) {
+                            index.add(ints[lo + k] % meta.meta.distinctCountHint, localRowID + k);
+                        }
+                    }
+                    break;
+                case SYMBOL:
+                    appendBatchSym((String[]) values, lo, count, i, meta, localRowID, nullWords, wordCount);
+                    break;
+                case STRING:
+                    appendBatchStr((String[]) values, lo, count, i, meta, localRowID, nullWords, wordCount);
+                    break;
+                case FIXED_STRING:
+                    appendBatchFixedStr((String[]) values, lo, count, i, meta, localRowID, nullWords, wordCount);
+                    break;
+                case BINARY:
+                    appendBatchBin((ByteBuffer[]) values, lo, count, i, nullWords, wordCount);
+                    break;
+            }
+        }
+
+        if (nullsColumn != null) {
+            nullsColumn.putArray(nullWords, Unsafe.LONG_ARRAY_OFFSET, count);
+        }
+        commitColumns();
+        applyTx(Journal.TX_LIMIT_EVAL, null);
+    }
+
     public void commitColumns() {
-        nullsColumn.commit();
+        if (nullsColumn != null) {
+            nullsColumn.commit();
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (fingerprints[i] != null) {
+                fingerprints[i].commit();
+            }
+        }
         // have to commit columns from first to last
         // this is because size of partition is calculated by size of
         // last column. If below loop is to break in the middle partition will assume smallest
@@ -382,15 +643,20 @@ public class Partition<T> implements Iterable<T>, Closeable {
                 col.commit();
             }
         }
+        releaseRetired();
     }
 
     public void applyTx(long txLimit, long[] indexTxAddresses) {
         if (this.txLimit != txLimit) {
             this.txLimit = txLimit;
+            // filter could have been rebuilt by writer since it was loaded
+            Arrays.fill(bloomFiltersLoaded, false);
+            Arrays.fill(indexStatistics, null);
             for (int i = 0, indexProxiesSize = indexProxies.size(); i < indexProxiesSize; i++) {
                 SymbolIndexProxy<T> proxy = indexProxies.get(i);
                 proxy.setTxAddress(indexTxAddresses == null ? 0 : indexTxAddresses[proxy.getColumnIndex()]);
             }
+            releaseRetired();
         }
     }
 
@@ -422,41 +688,138 @@ public class Partition<T> implements Iterable<T>, Closeable {
     }
 
     /**
-     * Rebuild the index of a column using the default keyCountHint and recordCountHint values.
+     * Rebuild the index of a column. Index of sealed partition is sized from actual number of distinct keys and rows.
+     * Last partition and lag partition can still be appended to, so their index is sized from statistics of previous
+     * partition or from metadata hints, but never smaller than its current content.
      *
      * @param columnIndex the column index
      * @throws com.nfsdb.journal.exceptions.JournalException if the operation fails
      */
     public void rebuildIndex(int columnIndex) throws JournalException {
-        JournalMetadata<T> meta = journal.getMetadata();
-        rebuildIndex(columnIndex,
-                meta.getColumnMetadata(columnIndex).distinctCountHint,
-                meta.getRecordHint(),
-                meta.getTxCountHint());
+        rebuildIndex(columnIndex, 0, 0, journal.getMetadata().getTxCountHint());
     }
 
     /**
-     * Rebuild the index of a column.
+     * Rebuild the index of a column. Rows are first ordered by key, so that row blocks of each key are
+     * allocated next to each other.
      *
      * @param columnIndex     the column index
-     * @param keyCountHint    the key count hint override
-     * @param recordCountHint the record count hint override
+     * @param keyCountHint    the key count hint override, 0 to size index automatically
+     * @param recordCountHint the record count hint override, 0 to size index automatically
+     * @param txCountHint     the tx count hint
      * @throws com.nfsdb.journal.exceptions.JournalException if the operation fails
      */
     public void rebuildIndex(int columnIndex, int keyCountHint, int recordCountHint, int txCountHint) throws JournalException {
         final long time = LOGGER.isInfoEnabled() ? System.nanoTime() : 0L;
 
-        getIndexForColumn(columnIndex).close();
+        SymbolIndexProxy<T> proxy = columnIndexProxies.get(columnIndex);
+        if (proxy == null) {
+            throw new JournalException("There is no index for column '%s' in %s", journal.getMetadata().getColumnMetadata(columnIndex).name, this);
+        }
+        // closing proxy rather than index makes it reopen rebuilt files on next access, tx address
+        // of old files is meaningless for rebuilt ones
+        proxy.close();
+        proxy.setTxAddress(0);
 
         File base = journal.getMetadata().getColumnIndexBase(partitionDir, columnIndex);
         KVIndex.delete(base);
 
-        try (KVIndex index = new KVIndex(base, keyCountHint, recordCountHint, txCountHint, JournalMode.APPEND, 0)) {
-            FixedColumn col = getFixedWidthColumn(columnIndex);
-            for (long localRowID = 0, sz = size(); localRowID < sz; localRowID++) {
-                index.add(col.getInt(localRowID), localRowID);
+        long sz = size();
+        if (sz > Integer.MAX_VALUE) {
+            throw new JournalException("Too many rows to rebuild index of %s in %s", journal.getMetadata().getColumnMetadata(columnIndex).name, this);
+        }
+        int n = (int) sz;
+
+        if (fingerprints[columnIndex] != null) {
+            fingerprints[columnIndex].truncate(0);
+            updateFingerprints(columnIndex, n);
+        }
+
+        // counting sort of row IDs by key, null key is -1, hence offset by 1
+        checkColumnIndex(columnIndex);
+        AbstractColumn col = columns[columnIndex];
+        int[] slots = new int[n];
+        int[] offsets = new int[16];
+        int slotCount = 0;
+        for (int i = 0; i < n; i++) {
+            int slot = indexKey(col, columnIndex, i) + 1;
+            if (slot >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(slot + 1, offsets.length << 1));
+            }
+            offsets[slot]++;
+            slots[i] = slot;
+            if (slot >= slotCount) {
+                slotCount = slot + 1;
+            }
+        }
+
+        int distinctKeys = 0;
+        for (int s = 0, pos = 0; s < slotCount; s++) {
+            int c = offsets[s];
+            if (c > 0) {
+                distinctKeys++;
+            }
+            offsets[s] = pos;
+            pos += c;
+        }
+
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[offsets[slots[i]]++] = i;
+        }
+
+        JournalMetadata<T> meta = journal.getMetadata();
+        long keyCount = distinctKeys;
+        long recordCount = n;
+        int blockGrowth = 0;
+        if (partitionIndex >= journal.nonLagPartitionCount() - 1) {
+            // partition is still appended to, size index for what is coming rather than for what is there
+            long keyCountGuess = meta.getColumnMetadata(columnIndex).distinctCountHint;
+            long recordCountGuess = meta.getRecordHint();
+            IndexStatistics stats = getPreviousIndexStatistics(columnIndex);
+            if (stats != null && stats.getKeyCount() > 0) {
+                int rowBlockLen = stats.getRowBlockLen();
+                keyCountGuess = stats.getKeyCount();
+                recordCountGuess = keyCountGuess * rowBlockLen;
+                blockGrowth = stats.getBlockGrowth(rowBlockLen);
+            }
+            keyCount = Math.max(keyCount, keyCountGuess);
+            recordCount = Math.max(recordCount, recordCountGuess);
+        } else {
+            if (keyCount == 0) {
+                keyCount = meta.getColumnMetadata(columnIndex).distinctCountHint;
+            }
+            if (recordCount == 0) {
+                recordCount = meta.getRecordHint();
+            }
+        }
+        if (keyCountHint > 0) {
+            keyCount = keyCountHint;
+        }
+        if (recordCountHint > 0) {
+            recordCount = recordCountHint;
+        }
+
+        try (KVIndex index = new KVIndex(base, keyCount, recordCount, txCountHint, JournalMode.APPEND, 0, blockGrowth)) {
+            // offsets now point at the end of each key range
+            for (int s = 0, i = 0; s < slotCount; s++) {
+                for (int hi = offsets[s]; i < hi; i++) {
+                    index.add(s - 1, rows[i]);
+                }
             }
             index.commit();
+
+            // keep existing filter in step with index, filters of partitions that are not sealed are never built
+            File bloomFile = getBloomFilterFile(columnIndex);
+            if (bloomFile.exists()) {
+                BloomFilter.build(index).write(bloomFile);
+                bloomFiltersLoaded[columnIndex] = false;
+            }
+            File statisticsFile = getIndexStatisticsFile(columnIndex);
+            if (statisticsFile.exists()) {
+                IndexStatistics.build(index).write(statisticsFile);
+                indexStatistics[columnIndex] = null;
+            }
         }
 
         LOGGER.debug("REBUILT %s [%dms]", base, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time));
@@ -543,18 +906,197 @@ public class Partition<T> implements Iterable<T>, Closeable {
             SymbolIndexProxy<T> proxy = indexProxies.get(i);
             proxy.getIndex().compact();
         }
+
+        for (int i = 0; i < zoneMaps.length; i++) {
+            if (zoneMaps[i] != null) {
+                zoneMaps[i].compact();
+            }
+            if (rangeIndexes[i] != null) {
+                rangeIndexes[i].compact();
+            }
+            if (fingerprints[i] != null) {
+                fingerprints[i].compact();
+            }
+        }
+    }
+
+    /**
+     * Builds range indexes of partition. Writer calls this when partition is sealed, any rows
+     * appended afterwards are not covered until index is built again.
+     */
+    void buildRangeIndexes() throws JournalException {
+        open();
+        long size = size();
+        for (int i = 0; i < rangeIndexes.length; i++) {
+            if (rangeIndexes[i] != null && rangeIndexes[i].size() < size) {
+                long time = System.nanoTime();
+                rangeIndexes[i].build((FixedColumn) columns[i], size);
+                LOGGER.debug("RANGE INDEX %s.%s [%dms]", partitionDir, journal.getMetadata().getColumnMetadata(i).name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time));
+            }
+        }
+    }
+
+    /**
+     * Builds bloom filters of indexed columns. Writer calls this when partition is sealed, filter must not
+     * be used while partition can still be appended to.
+     */
+    void buildBloomFilters() throws JournalException {
+        open();
+        for (int i = 0, n = indexProxies.size(); i < n; i++) {
+            SymbolIndexProxy<T> proxy = indexProxies.get(i);
+            long time = System.nanoTime();
+            int columnIndex = proxy.getColumnIndex();
+            BloomFilter.build(proxy.getIndex()).write(getBloomFilterFile(columnIndex));
+            bloomFiltersLoaded[columnIndex] = false;
+            LOGGER.debug("BLOOM FILTER %s.%s [%dms]", partitionDir, journal.getMetadata().getColumnMetadata(columnIndex).name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time));
+        }
+    }
+
+    /**
+     * Persists statistics of indexed columns. Writer calls this when partition is sealed.
+     */
+    void buildIndexStatistics() throws JournalException {
+        open();
+        for (int i = 0, n = indexProxies.size(); i < n; i++) {
+            SymbolIndexProxy<T> proxy = indexProxies.get(i);
+            int columnIndex = proxy.getColumnIndex();
+            IndexStatistics.build(proxy.getIndex()).write(getIndexStatisticsFile(columnIndex));
+            indexStatistics[columnIndex] = null;
+        }
+    }
+
+    /**
+     * Deletes bloom filters and index statistics, for when partition becomes the last one again and can be appended to.
+     */
+    void unseal() {
+        for (int i = 0; i < columnCount; i++) {
+            if (journal.getMetadata().getColumnMetadata(i).indexed) {
+                Files.delete(getBloomFilterFile(i));
+                Files.delete(getIndexStatisticsFile(i));
+            }
+            bloomFilters[i] = null;
+            bloomFiltersLoaded[i] = false;
+            indexStatistics[i] = null;
+        }
+    }
+
+    /**
+     * Exact statistics of key distribution in index of column. Statistics of sealed partition are read from
+     * file without opening partition, for other partitions they are counted from index.
+     *
+     * @param columnIndex the column index
+     * @return statistics of index
+     * @throws com.nfsdb.journal.exceptions.JournalException if column is not indexed or statistics cannot be read
+     */
+    public IndexStatistics getIndexStatistics(int columnIndex) throws JournalException {
+        IndexStatistics stats = indexStatistics[columnIndex];
+        if (stats == null) {
+            stats = IndexStatistics.read(getIndexStatisticsFile(columnIndex));
+            if (stats == null) {
+                return IndexStatistics.build(getIndexForColumn(columnIndex));
+            }
+            indexStatistics[columnIndex] = stats;
+        }
+        return stats;
+    }
+
+    /**
+     * Statistics of index in partition preceding this one. Keys tend to have similar frequencies from one
+     * partition to the next, which makes these a better guess for sizing index than static hints.
+     *
+     * @param columnIndex the column index
+     * @return statistics of previous partition or null when there is no previous partition
+     * @throws com.nfsdb.journal.exceptions.JournalException if previous partition cannot be opened
+     */
+    IndexStatistics getPreviousIndexStatistics(int columnIndex) throws JournalException {
+        if (partitionIndex < 1 || partitionIndex > journal.nonLagPartitionCount()) {
+            return null;
+        }
+        return journal.getPartition(partitionIndex - 1, true).getIndexStatistics(columnIndex);
+    }
+
+    /**
+     * Checks key against bloom filter of indexed column. Filter is read without opening partition
+     * or mapping index files, which makes it a cheap way to rule out partition before searching its index.
+     * Filters of last partition and of lag partition are ignored, as these can still be appended to.
+     *
+     * @param columnIndex the column index
+     * @param key         the index key
+     * @return false if partition definitely doesn't have the key, true if it might or when there is no filter
+     * @throws com.nfsdb.journal.exceptions.JournalException if filter cannot be read
+     */
+    public boolean mightContain(int columnIndex, int key) throws JournalException {
+        if (partitionIndex >= journal.nonLagPartitionCount() - 1) {
+            return true;
+        }
+        if (!bloomFiltersLoaded[columnIndex]) {
+            bloomFilters[columnIndex] = BloomFilter.read(getBloomFilterFile(columnIndex));
+            bloomFiltersLoaded[columnIndex] = true;
+        }
+        BloomFilter filter = bloomFilters[columnIndex];
+        return filter == null || filter.mightContain(key);
+    }
+
+    /**
+     * Rewrites fixed width columns that have codec configured in compressed form. Compressed columns are
+     * read-only, so partition must not be appended to or truncated afterwards.
+     *
+     * @throws com.nfsdb.journal.exceptions.JournalException if partition is closed or compressed file cannot be written
+     */
+    public void compress() throws JournalException {
+        if (columns == null || columns.length == 0) {
+            throw new JournalException("Cannot compress closed partition: %s", this);
+        }
+
+        JournalMetadata<T> meta = journal.getMetadata();
+        for (int i = 0; i < columns.length; i++) {
+            ColumnMetadata m = meta.getColumnMetadata(i);
+            if (m.codec == ColumnCodec.NONE || columns[i] instanceof CompressedFixedColumn) {
+                continue;
+            }
+
+            FixedColumn column = (FixedColumn) columns[i];
+            // write to temporary file first, so that partially written file is never mistaken for a column
+            File tmp = new File(partitionDir, m.name + ".z.tmp");
+            File compressed = new File(partitionDir, m.name + ".z");
+            MappedFile mf = new MappedFileImpl(tmp, m.bitHint, JournalMode.APPEND);
+            try {
+                CompressedFixedColumn.compress(column, mf, m.codec, CompressedFixedColumn.DEFAULT_BLOCK_ROWS);
+                mf.force();
+                mf.compact();
+            } finally {
+                mf.close();
+            }
+
+            if (!tmp.renameTo(compressed)) {
+                throw new JournalException("Cannot rename %s to %s", tmp, compressed);
+            }
+
+            column.close();
+            Files.deleteOrException(new File(partitionDir, m.name + ".d"));
+            columns[i] = new CompressedFixedColumn(openMappedFile(compressed, m.bitHint, JournalMode.READ), m.size);
+            LOGGER.debug("Compressed %s.%s with %s", partitionDir, m.name, m.codec);
+        }
+
+        int tsIndex = meta.getTimestampColumnIndex();
+        if (tsIndex >= 0) {
+            timestampColumn = getFixedWidthColumn(tsIndex);
+        }
     }
 
     // TODO: rethink visibility
     public void updateIndexes(long oldSize, long newSize) {
         if (oldSize < newSize) {
             try {
+                for (int i = 0; i < columnCount; i++) {
+                    updateFingerprints(i, newSize);
+                }
                 for (int i1 = 0, indexProxiesSize = indexProxies.size(); i1 < indexProxiesSize; i1++) {
                     SymbolIndexProxy<T> proxy = indexProxies.get(i1);
                     KVIndex index = proxy.getIndex();
-                    FixedColumn col = getFixedWidthColumn(proxy.getColumnIndex());
+                    AbstractColumn col = columns[proxy.getColumnIndex()];
                     for (long i = oldSize; i < newSize; i++) {
-                        index.add(col.getInt(i), i);
+                        index.add(indexKey(col, proxy.getColumnIndex(), i), i);
                     }
                     index.commit();
                 }
@@ -604,16 +1146,177 @@ public class Partition<T> implements Iterable<T>, Closeable {
             } else {
                 ((VariableColumn) columns[i]).putNull();
             }
+            if (fingerprints[i] != null) {
+                fingerprints[i].putLong(0);
+            }
         } else {
             nulls.clear(i);
             long offset = ((VariableColumn) columns[i]).putString(s);
-            if (meta.meta.indexed) {
+            if (fingerprints[i] != null) {
+                long fp = Checksum.fingerprint(s);
+                fingerprints[i].putLong(fp);
+                appendKeyCache[i] = Checksum.hash(fp, meta.meta.distinctCountHint);
+                appendSizeCache[i] = offset;
+            } else if (meta.meta.indexed) {
                 appendKeyCache[i] = Checksum.hash(s, meta.meta.distinctCountHint);
                 appendSizeCache[i] = offset;
             }
         }
     }
 
+    private void appendFixedStr(T obj, int i, Journal.ColumnMetadata meta) {
+        String s = (String) Unsafe.getUnsafe().getObject(obj, meta.meta.offset);
+        if (s == null) {
+            nulls.set(i);
+        } else {
+            nulls.clear(i);
+        }
+
+        long rowID = ((FixedStringColumn) columns[i]).putString(s);
+        if (meta.meta.indexed) {
+            appendKeyCache[i] = s == null ? SymbolTable.VALUE_IS_NULL : Checksum.hash(s, meta.meta.distinctCountHint);
+            appendSizeCache[i] = rowID;
+        }
+    }
+
+    private void appendBatchMemory(int i, Journal.ColumnMetadata meta, long address, int lo, int count, long localRowID) throws JournalException {
+        int size = meta.meta.type.size();
+        ((FixedColumn) columns[i]).putArray(null, address + (long) lo * size, count);
+        if (meta.meta.type == ColumnType.INT && meta.meta.indexed) {
+            KVIndex index = columnIndexProxies.get(i).getIndex();
+            for (int k = 0; k < count; k++) {
+                index.add(Unsafe.getUnsafe().getInt(address + (long) (lo + k) * 4) % meta.meta.distinctCountHint, localRowID + k);
+            }
+        }
+    }
+
+    private void appendBatchNulls(int i, Journal.ColumnMetadata meta, int count, long localRowID, long[] nullWords, int wordCount) throws JournalException {
+        for (int k = 0; k < count; k++) {
+            nullWords[k * wordCount + (i >>> 6)] |= 1L << i;
+        }
+
+        switch (meta.meta.type) {
+            case STRING:
+            case BINARY:
+                VariableColumn vc = (VariableColumn) columns[i];
+                for (int k = 0; k < count; k++) {
+                    vc.putNull();
+                    vc.commit();
+                }
+                break;
+            case SYMBOL:
+                int keys[] = batchKeys(count);
+                Arrays.fill(keys, 0, count, SymbolTable.VALUE_IS_NULL);
+                ((FixedColumn) columns[i]).putArray(keys, Unsafe.INT_ARRAY_OFFSET, count);
+                break;
+            default:
+                ((FixedColumn) columns[i]).putNulls(count);
+        }
+
+        if (fingerprints[i] != null) {
+            for (int k = 0; k < count; k++) {
+                fingerprints[i].putLong(0);
+            }
+        }
+
+        if (meta.meta.indexed) {
+            KVIndex index = columnIndexProxies.get(i).getIndex();
+            for (int k = 0; k < count; k++) {
+                index.add(SymbolTable.VALUE_IS_NULL, localRowID + k);
+            }
+        }
+    }
+
+    private void appendBatchSym(String[] values, int lo, int count, int i, Journal.ColumnMetadata meta, long localRowID, long[] nullWords, int wordCount) throws JournalException {
+        int keys[] = batchKeys(count);
+        for (int k = 0; k < count; k++) {
+            String sym = values[lo + k];
+            if (sym == null) {
+                nullWords[k * wordCount + (i >>> 6)] |= 1L << i;
+                keys[k] = SymbolTable.VALUE_IS_NULL;
+            } else {
+                keys[k] = meta.symbolTable.put(sym);
+            }
+        }
+        ((FixedColumn) columns[i]).putArray(keys, Unsafe.INT_ARRAY_OFFSET, count);
+
+        if (meta.meta.indexed) {
+            KVIndex index = columnIndexProxies.get(i).getIndex();
+            for (int k = 0; k < count; k++) {
+                index.add(keys[k], localRowID + k);
+            }
+        }
+    }
+
+    private void appendBatchStr(String[] values, int lo, int count, int i, Journal.ColumnMetadata meta, long localRowID, long[] nullWords, int wordCount) throws JournalException {
+        VariableColumn column = (VariableColumn) columns[i];
+        FixedColumn fingerprint = fingerprints[i];
+        KVIndex index = meta.meta.indexed ? columnIndexProxies.get(i).getIndex() : null;
+        for (int k = 0; k < count; k++) {
+            String s = values[lo + k];
+            // string offsets depend on previous value, so each one has to be committed on the column
+            if (s == null) {
+                nullWords[k * wordCount + (i >>> 6)] |= 1L << i;
+                column.putNull();
+            } else {
+                column.putString(s);
+            }
+            column.commit();
+            if (fingerprint != null) {
+                long fp = Checksum.fingerprint(s);
+                fingerprint.putLong(fp);
+                index.add(s == null ? SymbolTable.VALUE_IS_NULL : Checksum.hash(fp, meta.meta.distinctCountHint), localRowID + k);
+            } else if (index != null) {
+                index.add(s == null ? SymbolTable.VALUE_IS_NULL : Checksum.hash(s, meta.meta.distinctCountHint), localRowID + k);
+            }
+        }
+    }
+
+    private void appendBatchFixedStr(String[] values, int lo, int count, int i, Journal.ColumnMetadata meta, long localRowID, long[] nullWords, int wordCount) throws JournalException {
+        FixedStringColumn column = (FixedStringColumn) columns[i];
+        KVIndex index = meta.meta.indexed ? columnIndexProxies.get(i).getIndex() : null;
+        for (int k = 0; k < count; k++) {
+            String s = values[lo + k];
+            if (s == null) {
+                nullWords[k * wordCount + (i >>> 6)] |= 1L << i;
+            }
+            column.putString(s);
+            if (index != null) {
+                index.add(s == null ? SymbolTable.VALUE_IS_NULL : Checksum.hash(s, meta.meta.distinctCountHint), localRowID + k);
+            }
+        }
+    }
+
+    private void appendBatchBin(ByteBuffer[] values, int lo, int count, int i, long[] nullWords, int wordCount) {
+        VariableColumn column = (VariableColumn) columns[i];
+        for (int k = 0; k < count; k++) {
+            ByteBuffer buf = values[lo + k];
+            if (buf == null || buf.remaining() == 0) {
+                nullWords[k * wordCount + (i >>> 6)] |= 1L << i;
+                column.putNull();
+            } else {
+                column.putBuffer(buf);
+            }
+            column.commit();
+        }
+    }
+
+    private long[] batchNulls(int len) {
+        if (batchNulls == null || batchNulls.length < len) {
+            batchNulls = new long[len];
+        } else {
+            Arrays.fill(batchNulls, 0, len, 0L);
+        }
+        return batchNulls;
+    }
+
+    private int[] batchKeys(int len) {
+        if (batchKeys == null || batchKeys.length < len) {
+            batchKeys = new int[len];
+        }
+        return batchKeys;
+    }
+
     private boolean setNulls(int i, Journal.ColumnMetadata meta) {
         if (nulls.get(i)) {
             switch (meta.meta.type) {
@@ -637,8 +1340,98 @@ public class Partition<T> implements Iterable<T>, Closeable {
         return false;
     }
 
+    private int indexKey(AbstractColumn col, int columnIndex, long localRowID) {
+        if (col instanceof VariableColumn) {
+            CharSequence s = ((VariableColumn) col).getStr(localRowID);
+            return s == null ? SymbolTable.VALUE_IS_NULL : Checksum.hash(s, journal.getColumnMetadata(columnIndex).meta);
+        }
+        if (col instanceof FixedStringColumn) {
+            return isNullInternal(localRowID, columnIndex) ? SymbolTable.VALUE_IS_NULL
+                    : Checksum.hash(((FixedStringColumn) col).getStr(localRowID), journal.getColumnMetadata(columnIndex).meta);
+        }
+        return ((FixedColumn) col).getInt(localRowID);
+    }
+
+    private void updateFingerprints(int columnIndex, long newSize) {
+        FixedColumn fingerprint = fingerprints[columnIndex];
+        if (fingerprint != null && fingerprint.size() < newSize) {
+            VariableColumn col = (VariableColumn) columns[columnIndex];
+            for (long i = fingerprint.size(); i < newSize; i++) {
+                fingerprint.putLong(Checksum.fingerprint(col.getStr(i)));
+            }
+            fingerprint.commit();
+        }
+    }
+
+    private boolean isNullInternal(long localRowID, int columnIndex) {
+        return nullsColumn != null
+                && !journal.getColumnMetadata(columnIndex).meta.notNull
+                && nullsColumn.getBitSet(localRowID).get(columnIndex);
+    }
+
+    private void checkValues(T obj, boolean checkNulls) throws JournalException {
+        for (int i = 0; i < checkedColumns.length; i++) {
+            Journal.ColumnMetadata meta = journal.getColumnMetadata(checkedColumns[i]);
+            boolean isNull;
+            switch (meta.meta.type) {
+                case STRING:
+                case SYMBOL:
+                    isNull = Unsafe.getUnsafe().getObject(obj, meta.meta.offset) == null;
+                    break;
+                case FIXED_STRING:
+                    String s = (String) Unsafe.getUnsafe().getObject(obj, meta.meta.offset);
+                    checkWidth(s, meta.meta);
+                    isNull = s == null;
+                    break;
+                case BINARY:
+                    ByteBuffer buf = (ByteBuffer) Unsafe.getUnsafe().getObject(obj, meta.meta.offset);
+                    isNull = buf == null || buf.remaining() == 0;
+                    break;
+                default:
+                    isNull = checkNulls && nulls.get(checkedColumns[i]);
+            }
+
+            if (isNull && meta.meta.notNull) {
+                throw new JournalException("NULL value for NOT NULL column %s", meta.meta.name);
+            }
+        }
+    }
+
+    private void checkValues(ColumnBatch batch, int lo, int hi) throws JournalException {
+        for (int i = 0; i < checkedColumns.length; i++) {
+            ColumnMetadata meta = journal.getMetadata().getColumnMetadata(checkedColumns[i]);
+            Object values = batch.getValues(checkedColumns[i]);
+            boolean isNull = !batch.isSet(checkedColumns[i]);
+            if (values instanceof Object[]) {
+                Object objects[] = (Object[]) values;
+                for (int k = lo; k < hi; k++) {
+                    Object v = objects[k];
+                    if (meta.type == ColumnType.FIXED_STRING) {
+                        checkWidth((String) v, meta);
+                    }
+                    isNull |= v == null || (v instanceof ByteBuffer && ((ByteBuffer) v).remaining() == 0);
+                }
+            }
+
+            if (isNull && meta.notNull) {
+                throw new JournalException("NULL value for NOT NULL column %s", meta.name);
+            }
+        }
+    }
+
+    private static void checkWidth(String s, ColumnMetadata meta) throws JournalException {
+        if (s != null && s.length() > meta.size) {
+            throw new JournalException("Value '%s' is longer than %d chars of column %s", s, meta.size, meta.name);
+        }
+
+        int invalid = FixedStringColumn.invalidCharAt(s);
+        if (invalid != -1) {
+            throw new JournalException("Char 0x%x at %d of value '%s' cannot be stored in column %s", (int) s.charAt(invalid), invalid, s, meta.name);
+        }
+    }
+
     private FixedColumn getFixedColumnOrNull(long localRowID, int columnIndex) {
-        if (getNullsColumn().getBitSet(localRowID).get(columnIndex)) {
+        if (isNullInternal(localRowID, columnIndex)) {
             return null;
         } else {
             return getFixedWidthColumn(columnIndex);
@@ -677,12 +1470,88 @@ public class Partition<T> implements Iterable<T>, Closeable {
             case STRING:
             case BINARY:
                 columns[columnIndex] = new VariableColumn(
-                        new MappedFileImpl(new File(partitionDir, m.name + ".d"), m.bitHint, journal.getMode())
-                        , new MappedFileImpl(new File(partitionDir, m.name + ".i"), m.indexBitHint, journal.getMode()));
+                        openMappedFile(new File(partitionDir, m.name + ".d"), m.bitHint)
+                        , openMappedFile(new File(partitionDir, m.name + ".i"), m.indexBitHint)
+                        , m.encoding);
+                if (m.fingerprint) {
+                    File fingerprintFile = new File(partitionDir, m.name + ".fp");
+                    if (fingerprintFile.exists() || (journal.getMode() != JournalMode.READ && journal.getMode() != JournalMode.BULK_READ)) {
+                        fingerprints[columnIndex] = new FixedColumn(openMappedFile(fingerprintFile, m.indexBitHint), 8);
+                    }
+                }
+                break;
+            case FIXED_STRING:
+                columns[columnIndex] = new FixedStringColumn(openMappedFile(new File(partitionDir, m.name + ".d"), m.bitHint), m.size);
                 break;
             default:
-                columns[columnIndex] = new FixedColumn(
-                        new MappedFileImpl(new File(partitionDir, m.name + ".d"), m.bitHint, journal.getMode()), m.size);
+                File compressed = new File(partitionDir, m.name + ".z");
+                if (compressed.exists()) {
+                    columns[columnIndex] = new CompressedFixedColumn(
+                            openMappedFile(compressed, m.bitHint, JournalMode.READ), m.size);
+                } else {
+                    columns[columnIndex] = new FixedColumn(
+                            openMappedFile(new File(partitionDir, m.name + ".d"), m.bitHint), m.size);
+                }
+
+                if (ZoneMap.supports(m.type)) {
+                    // zone map that exists has to be maintained even when not configured, otherwise it goes stale
+                    File zoneFile = new File(partitionDir, m.name + ".zm");
+                    if (zoneFile.exists() || (m.zoneMap && journal.getMode() != JournalMode.READ && journal.getMode() != JournalMode.BULK_READ)) {
+                        zoneMaps[columnIndex] = new ZoneMap(openMappedFile(zoneFile, ZONE_MAP_BIT_HINT), m.type, columnIndex);
+                    }
+                }
+
+                if (RangeIndex.supports(m.type)) {
+                    File rangeFile = new File(partitionDir, m.name + ".ri");
+                    if (rangeFile.exists() || (m.rangeIndex && journal.getMode() != JournalMode.READ && journal.getMode() != JournalMode.BULK_READ)) {
+                        rangeIndexes[columnIndex] = new RangeIndex(openMappedFile(rangeFile, m.bitHint), m.type);
+                    }
+                }
+        }
+    }
+
+    private File getIndexStatisticsFile(int columnIndex) {
+        return new File(partitionDir, journal.getMetadata().getColumnMetadata(columnIndex).name + ".ks");
+    }
+
+    private File getBloomFilterFile(int columnIndex) {
+        return new File(partitionDir, journal.getMetadata().getColumnMetadata(columnIndex).name + ".bf");
+    }
+
+    /**
+     * Releases mappings columns replaced while growing. Addresses of values are not expected to outlive
+     * transaction they were read in, column windows remap on their own.
+     */
+    private void releaseRetired() {
+        if (!isOpen()) {
+            return;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                columns[i].releaseRetired();
+            }
+            if (zoneMaps[i] != null) {
+                zoneMaps[i].releaseRetired();
+            }
+            if (fingerprints[i] != null) {
+                fingerprints[i].releaseRetired();
+            }
+        }
+        if (nullsColumn != null) {
+            nullsColumn.releaseRetired();
+        }
+    }
+
+    private MappedFile openMappedFile(File file, int bitHint) throws JournalException {
+        return openMappedFile(file, bitHint, journal.getMode());
+    }
+
+    private MappedFile openMappedFile(File file, int bitHint, JournalMode mode) throws JournalException {
+        switch (journal.getMetadata().getMappedFileType()) {
+            case CONTIGUOUS:
+                return new ContiguousMappedFile(file, bitHint, mode);
+            default:
+                return new MappedFileImpl(file, bitHint, mode, journal.getPrefetcher());
         }
     }
 
@@ -713,6 +1582,28 @@ public class Partition<T> implements Iterable<T>, Closeable {
                 }
             }
 
+            if (nullsColumn != null) {
+                nullsColumn.truncate(newSize);
+            }
+
+            for (ZoneMap zoneMap : zoneMaps) {
+                if (zoneMap != null) {
+                    zoneMap.truncate(newSize);
+                }
+            }
+
+            for (RangeIndex rangeIndex : rangeIndexes) {
+                if (rangeIndex != null) {
+                    rangeIndex.truncate(newSize);
+                }
+            }
+
+            for (FixedColumn fingerprint : fingerprints) {
+                if (fingerprint != null) {
+                    fingerprint.truncate(newSize);
+                }
+            }
+
             commitColumns();
             clearTx();
         }
@@ -740,6 +1631,14 @@ public class Partition<T> implements Iterable<T>, Closeable {
             SymbolIndexProxy<T> proxy = indexProxies.get(i);
             proxy.getIndex().commit();
         }
+
+        if (zoneMaps != null) {
+            for (int i = 0; i < zoneMaps.length; i++) {
+                if (zoneMaps[i] != null) {
+                    zoneMaps[i].update((FixedColumn) columns[i], journal.getColumnMetadata(i).meta.notNull ? null : nullsColumn);
+                }
+            }
+        }
     }
 
     void force() throws JournalException {
@@ -755,7 +1654,21 @@ public class Partition<T> implements Iterable<T>, Closeable {
                     column.force();
                 }
             }
-            nullsColumn.force();
+            if (nullsColumn != null) {
+                nullsColumn.force();
+            }
+
+            for (int i = 0; i < zoneMaps.length; i++) {
+                if (zoneMaps[i] != null) {
+                    zoneMaps[i].force();
+                }
+                if (rangeIndexes[i] != null) {
+                    rangeIndexes[i].force();
+                }
+                if (fingerprints[i] != null) {
+                    fingerprints[i].force();
+                }
+            }
         }
     }
 
@@ -781,9 +1694,30 @@ public class Partition<T> implements Iterable<T>, Closeable {
         this.txLimit = txLimit;
         this.columnCount = journal.getMetadata().getColumnCount();
         this.nulls = new BitSet(columnCount);
+        this.readNulls = new BitSet(columnCount);
+        int checkedCount = 0;
+        boolean nullable = false;
+        for (int i = 0; i < columnCount; i++) {
+            ColumnMetadata m = journal.getMetadata().getColumnMetadata(i);
+            if (m.notNull || m.type == ColumnType.FIXED_STRING) {
+                checkedCount++;
+            }
+            nullable |= !m.notNull;
+        }
+        this.nullable = nullable;
+        this.checkedColumns = new int[checkedCount];
+        for (int i = 0, k = 0; i < columnCount; i++) {
+            ColumnMetadata m = journal.getMetadata().getColumnMetadata(i);
+            if (m.notNull || m.type == ColumnType.FIXED_STRING) {
+                checkedColumns[k++] = i;
+            }
+        }
         this.nullsAdaptor = journal.getMetadata().getNullsAdaptor();
         this.appendKeyCache = new int[columnCount];
         this.appendSizeCache = new long[columnCount];
+        this.bloomFilters = new BloomFilter[columnCount];
+        this.bloomFiltersLoaded = new boolean[columnCount];
+        this.indexStatistics = new IndexStatistics[columnCount];
         Arrays.fill(appendKeyCache, -3);
 
         String dateStr = Dates.dirNameForIntervalStart(interval, journal.getMetadata().getPartitionType());
@@ -17,6 +17,7 @@
 package com.nfsdb.journal;
 
 import com.nfsdb.journal.collections.LongArrayList;
+import com.nfsdb.journal.column.DirectCharSequence;
 import com.nfsdb.journal.column.SymbolTable;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.iterators.ConcurrentIterator;
@@ -26,12 +27,16 @@ import com.nfsdb.journal.iterators.ResultSetIterator;
 import com.nfsdb.journal.utils.Rows;
 import gnu.trove.list.TLongList;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Random;
 
 public class ResultSet<T> implements Iterable<T> {
     private final Journal<T> journal;
     private final TLongList rowIDs;
+    private final DirectCharSequence leftCs = new DirectCharSequence();
+    private final StringBuilder leftStr = new StringBuilder();
+    private final DirectCharSequence rightCs = new DirectCharSequence();
 
     public T[] read() throws JournalException {
         return journal.read(rowIDs);
@@ -108,6 +113,11 @@ public class ResultSet<T> implements Iterable<T> {
         return journal.getPartition(Rows.toPartitionIndex(rowID), true).getString(Rows.toLocalRowID(rowID), columnIndex);
     }
 
+    public ByteBuffer getBin(int rsIndex, int columnIndex) throws JournalException {
+        long rowID = rowIDs.get(rsIndex);
+        return journal.getPartition(Rows.toPartitionIndex(rowID), true).getBin(Rows.toLocalRowID(rowID), columnIndex);
+    }
+
     public String getSymbol(int rsIndex, int columnIndex) throws JournalException {
         long rowID = rowIDs.get(rsIndex);
         return journal.getPartition(Rows.toPartitionIndex(rowID), true).getSymbol(Rows.toLocalRowID(rowID), columnIndex);
@@ -175,7 +185,7 @@ public class ResultSet<T> implements Iterable<T> {
         return new ResultSet<>(journal, rows);
     }
 
-    private static <T> int compare(Journal<T> journal, int[] columns, long rightRowID, long leftRowID) throws JournalException {
+    private int compare(int[] columns, long rightRowID, long leftRowID) throws JournalException {
         int result = 0;
         long leftLocalRowID = Rows.toLocalRowID(leftRowID);
         long rightLocalRowID = Rows.toLocalRowID(rightRowID);
@@ -191,17 +201,25 @@ public class ResultSet<T> implements Iterable<T> {
 
             switch (meta.meta.type) {
                 case STRING:
-                    leftStr = leftPart.getString(leftLocalRowID, column);
-                    rightStr = rightPart.getString(rightLocalRowID, column);
+                case FIXED_STRING:
+                    // flyweights avoid materializing strings for every comparison. Left value is copied
+                    // out before right one is read because in bulk modes reading right value can unmap
+                    // buffer left flyweight points to.
+                    DirectCharSequence leftCs = leftPart.getStr(leftLocalRowID, column, this.leftCs);
+                    if (leftCs != null) {
+                        this.leftStr.setLength(0);
+                        this.leftStr.append(leftCs);
+                    }
+                    DirectCharSequence rightCs = rightPart.getStr(rightLocalRowID, column, this.rightCs);
 
-                    if (leftStr == null && rightStr == null) {
+                    if (leftCs == null && rightCs == null) {
                         result = 0;
-                    } else if (leftStr == null) {
+                    } else if (leftCs == null) {
                         result = 1;
-                    } else if (rightStr == null) {
+                    } else if (rightCs == null) {
                         result = -1;
                     } else {
-                        result = rightStr.compareTo(leftStr);
+                        result = rightCs.compareTo(this.leftStr);
                     }
                     break;
                 default:
@@ -299,11 +317,11 @@ public class ResultSet<T> implements Iterable<T> {
 
         while (i <= j) {
 
-            while (multiplier * compare(journal, columnIndices, rowIDs.get(i), pivot) < 0) {
+            while (multiplier * compare(columnIndices, rowIDs.get(i), pivot) < 0) {
                 i++;
             }
 
-            while (multiplier * compare(journal, columnIndices, pivot, rowIDs.get(j)) < 0) {
+            while (multiplier * compare(columnIndices, pivot, rowIDs.get(j)) < 0) {
                 j--;
             }
 
@@ -18,11 +18,14 @@ package com.nfsdb.journal;
 
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.index.BitmapIndex;
+import com.nfsdb.journal.index.IndexStatistics;
 import com.nfsdb.journal.index.KVIndex;
 import com.nfsdb.journal.logging.Logger;
 import com.nfsdb.journal.utils.Dates;
 
 import java.io.Closeable;
+import java.io.File;
 
 class SymbolIndexProxy<T> implements Closeable {
 
@@ -30,6 +33,7 @@ class SymbolIndexProxy<T> implements Closeable {
     private final Partition<T> partition;
     private final int columnIndex;
     private KVIndex index;
+    private BitmapIndex bitmapIndex;
     private volatile long lastAccessed;
     private long txAddress;
 
@@ -39,6 +43,7 @@ class SymbolIndexProxy<T> implements Closeable {
             index.close();
             index = null;
         }
+        bitmapIndex = null;
         lastAccessed = 0L;
     }
 
@@ -69,18 +74,55 @@ class SymbolIndexProxy<T> implements Closeable {
         lastAccessed = partition.getJournal().getTimerCache().getCachedMillis();
         if (index == null) {
             JournalMetadata<T> meta = partition.getJournal().getMetadata();
+            File base = meta.getColumnIndexBase(partition.getPartitionDir(), columnIndex);
+            long keyCountHint = meta.getColumnMetadata(columnIndex).distinctCountHint;
+            long recordCountHint = meta.getRecordHint();
+            int blockGrowth = 0;
+
+            IndexStatistics stats = getPreviousStatistics(base);
+            if (stats != null && stats.getKeyCount() > 0) {
+                int rowBlockLen = stats.getRowBlockLen();
+                keyCountHint = stats.getKeyCount();
+                recordCountHint = keyCountHint * rowBlockLen;
+                blockGrowth = stats.getBlockGrowth(rowBlockLen);
+            }
+
             index = new KVIndex(
-                    meta.getColumnIndexBase(partition.getPartitionDir(), columnIndex),
-                    meta.getColumnMetadata(columnIndex).distinctCountHint,
-                    meta.getRecordHint(),
+                    base,
+                    keyCountHint,
+                    recordCountHint,
                     meta.getTxCountHint(),
                     partition.getJournal().getMode(),
-                    txAddress
+                    txAddress,
+                    blockGrowth
             );
         }
         return index;
     }
 
+    BitmapIndex getBitmapIndex() throws JournalException {
+        KVIndex index = getIndex();
+        if (bitmapIndex == null) {
+            bitmapIndex = new BitmapIndex(index);
+        }
+        return bitmapIndex;
+    }
+
+    /**
+     * Index of new partition is sized after key distribution in previous partition, which is a better
+     * guess than static hints as keys tend to have similar frequencies from one partition to the next.
+     *
+     * @return statistics of previous partition or null when index already exists or there is no previous partition
+     */
+    private IndexStatistics getPreviousStatistics(File base) throws JournalException {
+        Journal<T> journal = partition.getJournal();
+        if ((journal.getMode() != JournalMode.APPEND && journal.getMode() != JournalMode.BULK_APPEND)
+                || new File(base.getParentFile(), base.getName() + ".k").exists()) {
+            return null;
+        }
+        return partition.getPreviousIndexStatistics(columnIndex);
+    }
+
     SymbolIndexProxy(Partition<T> partition, int columnIndex, long txAddress) {
         this.partition = partition;
         this.columnIndex = columnIndex;
@@ -51,6 +51,10 @@ public abstract class AbstractColumn implements Closeable {
         mappedFile.force();
     }
 
+    public void releaseRetired() {
+        mappedFile.releaseRetired();
+    }
+
     @Override
     public String toString() {
         return this.getClass().getName() + "[file=" + mappedFile.toString() + ", size=" + size() + "]";
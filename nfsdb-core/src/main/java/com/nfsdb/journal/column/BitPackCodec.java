@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Encodes INT values as offsets from block minimum packed into as many bits as the range of block requires.
+ * Symbol keys, which are small non-negative numbers, typically take a few bits per value.
+ */
+final class BitPackCodec implements BlockCodec {
+
+    @Override
+    public void encode(long address, int count, BitWriter writer) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int v = Unsafe.getUnsafe().getInt(address + i * 4L);
+            if (v < min) {
+                min = v;
+            }
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        int bits = 64 - Long.numberOfLeadingZeros((long) max - min);
+        writer.write(min, 32);
+        writer.write(bits, 6);
+
+        if (bits > 0) {
+            for (int i = 0; i < count; i++) {
+                writer.write((long) Unsafe.getUnsafe().getInt(address + i * 4L) - min, bits);
+            }
+        }
+    }
+
+    @Override
+    public void decode(BitReader reader, int count, long address) {
+        int min = (int) reader.read(32);
+        int bits = (int) reader.read(6);
+
+        if (bits == 0) {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putInt(address + i * 4L, min);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putInt(address + i * 4L, (int) (min + reader.read(bits)));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Reads bit stream written by BitWriter.
+ */
+final class BitReader {
+    private long address;
+    private long word;
+    private int bits;
+
+    void of(long address) {
+        this.address = address;
+        this.word = 0;
+        this.bits = 0;
+    }
+
+    /**
+     * @param n number of bits to read, 1 to 64
+     * @return value with n low bits set from stream
+     */
+    long read(int n) {
+        long value;
+        if (n <= bits) {
+            value = word;
+            word = n == 64 ? 0 : word >>> n;
+            bits -= n;
+        } else {
+            long next = Unsafe.getUnsafe().getLong(address);
+            address += 8;
+            value = bits == 0 ? next : word | (next << bits);
+            int taken = n - bits;
+            word = taken == 64 ? 0 : next >>> taken;
+            bits = 64 - taken;
+        }
+        return n == 64 ? value : value & ((1L << n) - 1);
+    }
+
+    boolean readBit() {
+        return read(1) == 1;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Writes bit stream into memory in little-endian 64-bit words. Lower bits of value are written first.
+ * Stream length is always multiple of 8 bytes, which allows reader to fetch whole words without running
+ * over the end of stream.
+ */
+final class BitWriter {
+    private long start;
+    private long address;
+    private long word;
+    private int bits;
+
+    void of(long address) {
+        this.start = this.address = address;
+        this.word = 0;
+        this.bits = 0;
+    }
+
+    /**
+     * @param value value to write
+     * @param n     number of low bits of value to write, 1 to 64
+     */
+    void write(long value, int n) {
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        word |= value << bits;
+        int free = 64 - bits;
+        if (n < free) {
+            bits += n;
+        } else {
+            Unsafe.getUnsafe().putLong(address, word);
+            address += 8;
+            word = free == 64 ? 0 : value >>> free;
+            bits = n - free;
+        }
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes out partially filled word.
+     *
+     * @return length of stream in bytes
+     */
+    long flush() {
+        if (bits > 0) {
+            Unsafe.getUnsafe().putLong(address, word);
+            address += 8;
+            word = 0;
+            bits = 0;
+        }
+        return address - start;
+    }
+}
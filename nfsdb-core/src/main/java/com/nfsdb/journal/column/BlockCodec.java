@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+interface BlockCodec {
+    /**
+     * Encodes block of values.
+     *
+     * @param address address of first value
+     * @param count   number of values in block
+     * @param writer  destination of encoded bits
+     */
+    void encode(long address, int count, BitWriter writer);
+
+    /**
+     * Decodes block of values previously encoded by this codec.
+     *
+     * @param reader  source of encoded bits
+     * @param count   number of values in block
+     * @param address address to write decoded values to
+     */
+    void decode(BitReader reader, int count, long address);
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+/**
+ * Compression codecs for fixed width columns of sealed partitions. Codec is applied by Partition.compress()
+ * and recorded in compressed file itself, so readers do not need to be configured with it.
+ */
+public enum ColumnCodec {
+    NONE,
+    /**
+     * Delta-of-delta encoding for monotonic LONG values, such as timestamps.
+     */
+    DELTA_OF_DELTA,
+    /**
+     * XOR of consecutive DOUBLE values with leading and trailing zero elimination.
+     */
+    XOR,
+    /**
+     * Bit packing of INT and SYMBOL values relative to block minimum.
+     */
+    BITPACK;
+
+    public boolean supports(ColumnType type) {
+        switch (this) {
+            case DELTA_OF_DELTA:
+                return type == ColumnType.LONG;
+            case XOR:
+                return type == ColumnType.DOUBLE;
+            case BITPACK:
+                return type == ColumnType.INT || type == ColumnType.SYMBOL;
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.column;
+
+/**
+ * Run of rows of fixed column, values of which are laid out contiguously in memory. Address of value in
+ * window is computed from address of first row, other rows move window to their own run.
+ * <p/>
+ * Window holds raw address of mapped memory, it moves to current mapping of its run when column releases
+ * buffers, which other readers of the same column can make it do at any time.
+ */
+public final class ColumnWindow {
+    private FixedColumn column;
+    private int width;
+    private long lo;
+    private long hi;
+    private long address;
+    private int unmapCount;
+
+    public ColumnWindow of(FixedColumn column) {
+        this.column = column;
+        this.width = column.width;
+        reset();
+        return this;
+    }
+
+    public void reset() {
+        lo = hi = 0;
+    }
+
+    public long address(long localRowID) {
+        if (localRowID < lo || localRowID >= hi || column.getUnmapCount() != unmapCount) {
+            hi = column.getRunHi(localRowID);
+            address = column.getAddress(localRowID, width);
+            lo = localRowID;
+            unmapCount = column.getUnmapCount();
+        }
+        return address + (localRowID - lo) * width;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.utils.ByteBuffers;
+import com.nfsdb.journal.utils.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Read-only fixed width column, which stores values in blocks compressed by one of ColumnCodec methods.
+ * Blocks are decoded on access, last decoded block is cached, so sequential reads decode each block once.
+ * Buffers that cross block boundary are decoded into separate buffer, which is reused by such reads.
+ * <p/>
+ * File layout:
+ * <pre>
+ * int      codec
+ * int      number of rows in block
+ * long     number of rows in column
+ * long[]   offsets of blocks, followed by end offset of last block
+ * ...      blocks
+ * </pre>
+ * Column presents values and buffers as if they were stored uncompressed, which keeps replication
+ * of sealed partitions unaware of compression.
+ */
+public class CompressedFixedColumn extends FixedColumn {
+
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+    private static final int HEADER_SIZE = 16;
+    private final ColumnCodec codec;
+    private final BlockCodec blockCodec;
+    private final int blockRows;
+    private final int blockBits;
+    private final long rowCount;
+    private final BitReader reader = new BitReader();
+    private ByteBuffer block;
+    private long blockAddress;
+    private long cachedBlock = -1;
+    private ByteBuffer span;
+
+    public CompressedFixedColumn(MappedFile mappedFile, int width) {
+        super(mappedFile, width);
+        this.codec = ColumnCodec.values()[Unsafe.getUnsafe().getInt(mappedFile.getAddress(0, 8))];
+        this.blockCodec = getBlockCodec(codec);
+        this.blockRows = Unsafe.getUnsafe().getInt(mappedFile.getAddress(4, 4));
+        this.blockBits = Integer.numberOfTrailingZeros(blockRows);
+        this.rowCount = Unsafe.getUnsafe().getLong(mappedFile.getAddress(8, 8));
+        this.block = ByteBuffer.allocateDirect(blockRows * width).order(ByteOrder.LITTLE_ENDIAN);
+        this.blockAddress = ((DirectBuffer) block).address();
+    }
+
+    /**
+     * Writes content of column in compressed form.
+     *
+     * @param src       column to compress
+     * @param dst       empty file to write compressed column to
+     * @param codec     codec applicable to column type
+     * @param blockRows number of rows in block, must be power of 2
+     */
+    public static void compress(FixedColumn src, MappedFile dst, ColumnCodec codec, int blockRows) {
+        if (Integer.bitCount(blockRows) != 1) {
+            throw new JournalRuntimeException("Block row count must be power of 2: %d", blockRows);
+        }
+
+        BlockCodec blockCodec = getBlockCodec(codec);
+        int width = src.width;
+        long rowCount = src.size();
+        long blockCount = (rowCount + blockRows - 1) / blockRows;
+        long offset = HEADER_SIZE + (blockCount + 1) * 8;
+
+        // worst case for all codecs is under 10 bytes per value
+        ByteBuffer buf = ByteBuffer.allocateDirect(blockRows * 10 + 64);
+        try {
+            long bufAddress = ((DirectBuffer) buf).address();
+            BitWriter writer = new BitWriter();
+
+            Unsafe.getUnsafe().putInt(dst.getAddress(0, 4), codec.ordinal());
+            Unsafe.getUnsafe().putInt(dst.getAddress(4, 4), blockRows);
+            Unsafe.getUnsafe().putLong(dst.getAddress(8, 8), rowCount);
+
+            for (long b = 0; b < blockCount; b++) {
+                long lo = b * blockRows;
+                int count = (int) Math.min(blockRows, rowCount - lo);
+
+                writer.of(bufAddress);
+                blockCodec.encode(src.mappedFile.getAddress(src.getOffset(lo), count * width), count, writer);
+                long len = writer.flush();
+
+                Unsafe.getUnsafe().putLong(dst.getAddress(HEADER_SIZE + b * 8, 8), offset);
+                Unsafe.getUnsafe().copyMemory(bufAddress, dst.getAddress(offset, (int) len), len);
+                offset += len;
+            }
+            Unsafe.getUnsafe().putLong(dst.getAddress(HEADER_SIZE + blockCount * 8, 8), offset);
+            dst.setAppendOffset(offset);
+        } finally {
+            ByteBuffers.release(buf);
+        }
+    }
+
+    public ColumnCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        block = ByteBuffers.release(block);
+        span = ByteBuffers.release(span);
+    }
+
+    @Override
+    public long getOffset() {
+        return rowCount * width;
+    }
+
+    @Override
+    public long size() {
+        return rowCount;
+    }
+
+    @Override
+    public ByteBuffer getBuffer(long offset, int size) {
+        long localRowID = offset / width;
+        long b = localRowID >>> blockBits;
+        decode(b);
+        int pos = (int) (offset - (b << blockBits) * width);
+        if (pos + size > block.limit()) {
+            return getSpan(offset, size);
+        }
+        block.position(pos);
+        return block;
+    }
+
+    @Override
+    public void truncate(long size) {
+        if (size < rowCount) {
+            throw new JournalRuntimeException("Cannot truncate compressed column: %s", this);
+        }
+    }
+
+    @Override
+    public void putArray(Object array, long arrayOffset, int count) {
+        throw readOnly();
+    }
+
+    @Override
+    public long putNull() {
+        throw readOnly();
+    }
+
+    @Override
+    public void putNulls(int count) {
+        throw readOnly();
+    }
+
+    @Override
+    long getAddress(long localRowID, int size) {
+        long b = localRowID >>> blockBits;
+        if (b != cachedBlock) {
+            decode(b);
+        }
+        return blockAddress + (localRowID & (blockRows - 1)) * width;
+    }
+
+    @Override
+    long getRunHi(long localRowID) {
+        // rows of decoded block are contiguous
+        return Math.min(rowCount, ((localRowID >>> blockBits) + 1) << blockBits);
+    }
+
+    @Override
+    long getAddress() {
+        throw readOnly();
+    }
+
+    private static BlockCodec getBlockCodec(ColumnCodec codec) {
+        switch (codec) {
+            case DELTA_OF_DELTA:
+                return new DeltaOfDeltaCodec();
+            case XOR:
+                return new XorCodec();
+            case BITPACK:
+                return new BitPackCodec();
+            default:
+                throw new JournalRuntimeException("Unsupported codec: %s", codec);
+        }
+    }
+
+    private void decode(long b) {
+        if (b == cachedBlock) {
+            return;
+        }
+
+        long lo = b << blockBits;
+        if (lo >= rowCount || lo < 0) {
+            throw new JournalRuntimeException("Row %d is out of bounds in %s", lo, this);
+        }
+
+        int count = (int) Math.min(blockRows, rowCount - lo);
+        long offset = Unsafe.getUnsafe().getLong(mappedFile.getAddress(HEADER_SIZE + b * 8, 8));
+        long len = Unsafe.getUnsafe().getLong(mappedFile.getAddress(HEADER_SIZE + b * 8 + 8, 8)) - offset;
+
+        reader.of(mappedFile.getAddress(offset, (int) len));
+        blockCodec.decode(reader, count, blockAddress);
+        block.limit(count * width);
+        cachedBlock = b;
+    }
+
+    /**
+     * Decodes blocks covering bytes from offset to offset + size into span buffer.
+     */
+    private ByteBuffer getSpan(long offset, int size) {
+        if (offset + size > getOffset()) {
+            throw new JournalRuntimeException("Cannot read %d bytes at %d: %s", size, offset, this);
+        }
+
+        if (span == null || span.capacity() < size) {
+            ByteBuffers.release(span);
+            span = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        long spanAddress = ((DirectBuffer) span).address();
+
+        int done = 0;
+        while (done < size) {
+            long o = offset + done;
+            long b = (o / width) >>> blockBits;
+            decode(b);
+            int pos = (int) (o - (b << blockBits) * width);
+            int len = Math.min(size - done, block.limit() - pos);
+            Unsafe.getUnsafe().copyMemory(blockAddress + pos, spanAddress + done, len);
+            done += len;
+        }
+        span.limit(size);
+        span.position(0);
+        return span;
+    }
+
+    private JournalRuntimeException readOnly() {
+        return new JournalRuntimeException("Compressed column is read-only: %s", this);
+    }
+}
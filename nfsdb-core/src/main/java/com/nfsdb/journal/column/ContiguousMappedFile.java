@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.JournalMode;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalNoSuchFileException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.logging.Logger;
+import com.nfsdb.journal.utils.ByteBuffers;
+import com.nfsdb.journal.utils.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Alternative to MappedFileImpl, which maps file in regions of up to 1GB each. Region is a single mapping
+ * of contiguous part of file, which is re-mapped with larger size when file grows. Regions are allowed to
+ * extend past their nominal 1GB boundary to accommodate values that start inside region, so there are no stitch
+ * buffers and address of any value is base address of region plus offset.
+ * <p/>
+ * Mappings replaced by larger ones are retained because addresses obtained from them can still be in use.
+ * They are released when file is closed, when bulk mode releases lower regions and by releaseRetired(), which
+ * journal calls when it moves to next transaction. File layout is identical to MappedFileImpl, so both implementations can
+ * read each other's files.
+ */
+public class ContiguousMappedFile implements MappedFile {
+
+    private static final Logger LOGGER = Logger.getLogger(ContiguousMappedFile.class);
+    private static final int REGION_BITS = 30;
+    private static final long REGION_SIZE = 1L << REGION_BITS;
+    private static final int PAGE_SIZE = 4096;
+    private final File file;
+    private final JournalMode mode;
+    private final long initialSize;
+    // reserve first 8 bytes in the file for storing pointer to logical end of file
+    private final int dataOffset = 8;
+    private final List<MappedByteBuffer> retired = new ArrayList<>();
+    private FileChannel channel;
+    private MappedByteBuffer offsetBuffer;
+    private long offsetDirectAddr;
+    private long cachedAppendOffset = -1;
+    private MappedByteBuffer regions[] = new MappedByteBuffer[0];
+    private long addresses[] = new long[0];
+    private long limits[] = new long[0];
+    private int unmapCount;
+
+    public ContiguousMappedFile(File file, int bitHint, JournalMode mode) throws JournalException {
+        this.file = file;
+        this.mode = mode;
+        if (bitHint < 2) {
+            LOGGER.warn("BitHint is too small for %s", file);
+        }
+        this.initialSize = Math.min(REGION_SIZE, Math.max(PAGE_SIZE, 1L << bitHint));
+        open();
+    }
+
+    @Override
+    public MappedByteBuffer getBuffer(long offset, int size) {
+        int r = (int) (offset >>> REGION_BITS);
+        long lo = offset - ((long) r << REGION_BITS);
+        if (r >= limits.length || lo + size > limits[r]) {
+            map(r, lo + size);
+        }
+        MappedByteBuffer buffer = regions[r];
+        buffer.position((int) lo);
+        return buffer;
+    }
+
+    @Override
+    public long getAddress(long offset, int size) {
+        int r = (int) (offset >>> REGION_BITS);
+        long lo = offset - ((long) r << REGION_BITS);
+        if (r < limits.length && lo + size <= limits[r]) {
+            return addresses[r] + lo;
+        }
+        map(r, lo + size);
+        return addresses[r] + lo;
+    }
+
+    @Override
+    public void close() {
+        unmap();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new JournalRuntimeException("Cannot close file", e);
+        }
+        offsetBuffer = ByteBuffers.release(offsetBuffer);
+    }
+
+    @Override
+    public long getAppendOffset() {
+        if (mode == JournalMode.READ || mode == JournalMode.BULK_READ || cachedAppendOffset == -1L) {
+            if (offsetBuffer != null) {
+                return cachedAppendOffset = Unsafe.getUnsafe().getLong(offsetDirectAddr);
+            }
+            return -1L;
+        } else {
+            return cachedAppendOffset;
+        }
+    }
+
+    @Override
+    public void setAppendOffset(long offset) {
+        Unsafe.getUnsafe().putLong(offsetDirectAddr, cachedAppendOffset = offset);
+    }
+
+    @Override
+    public void compact() throws JournalException {
+        close();
+        try {
+            openInternal("rw");
+            try {
+                long newSize = getAppendOffset() + dataOffset;
+                offsetBuffer = ByteBuffers.release(offsetBuffer);
+                LOGGER.debug("Compacting %s to %d bytes", this, newSize);
+                channel.truncate(newSize).close();
+            } catch (IOException e) {
+                throw new JournalException("Could not compact %s to %d bytes", e, file.getAbsolutePath(), getAppendOffset());
+            } finally {
+                close();
+            }
+        } finally {
+            open();
+        }
+    }
+
+    @Override
+    public void force() {
+        offsetBuffer.force();
+        for (int i = 0; i < regions.length; i++) {
+            if (regions[i] != null) {
+                regions[i].force();
+            }
+        }
+    }
+
+    @Override
+    public int getUnmapCount() {
+        return unmapCount;
+    }
+
+    @Override
+    public void releaseRetired() {
+        if (retired.size() > 0) {
+            releaseRetiredInternal();
+            unmapCount++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getName() + "[file=" + file + ", appendOffset=" + getAppendOffset() + "]";
+    }
+
+    private void map(int region, long minSize) {
+        if (minSize > Integer.MAX_VALUE) {
+            throw new JournalRuntimeException("Value is too large to map: %d in %s", minSize, file);
+        }
+
+        if (region >= limits.length) {
+            int len = region + 1;
+            regions = Arrays.copyOf(regions, len);
+            addresses = Arrays.copyOf(addresses, len);
+            limits = Arrays.copyOf(limits, len);
+        }
+
+        // grow region geometrically up to its nominal size, beyond that only by as much as requested
+        long size = Math.max(initialSize, Math.max(minSize, Math.min(REGION_SIZE, limits[region] * 2)));
+        size = Math.min(Integer.MAX_VALUE, (size + PAGE_SIZE - 1) & -PAGE_SIZE);
+
+        long regionOffset = ((long) region << REGION_BITS) + dataOffset;
+        MappedByteBuffer buffer;
+
+        try {
+            switch (mode) {
+                case READ:
+                case BULK_READ:
+                    // make sure size does not extend beyond actual file size, otherwise
+                    // java would assume we want to write and throw an exception
+                    size = Math.min(size, channel.size() - regionOffset);
+                    if (size < minSize) {
+                        throw new JournalRuntimeException("Cannot map %d bytes at %d, file is too small: %s", minSize, regionOffset, file);
+                    }
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, regionOffset, size);
+                    break;
+                default:
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionOffset, size);
+            }
+        } catch (IOException e) {
+            throw new JournalRuntimeException("Failed to memory map: %s", e, file.getAbsolutePath());
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (regions[region] != null) {
+            retired.add(regions[region]);
+        }
+        regions[region] = buffer;
+        addresses[region] = ((DirectBuffer) buffer).address();
+        limits[region] = size;
+
+        switch (mode) {
+            case BULK_READ:
+            case BULK_APPEND:
+                // for bulk operations unmap all regions below current one
+                // this is to prevent OS paging large files.
+                for (int i = region - 1; i >= 0; i--) {
+                    if (regions[i] != null) {
+                        regions[i] = ByteBuffers.release(regions[i]);
+                        limits[i] = 0;
+                    }
+                }
+                releaseRetiredInternal();
+                unmapCount++;
+        }
+    }
+
+    private void open() throws JournalException {
+        switch (mode) {
+            case READ:
+            case BULK_READ:
+                openInternal("r");
+                break;
+            default:
+                openInternal("rw");
+        }
+    }
+
+    private void openInternal(String mode) throws JournalException {
+
+        if (!file.getParentFile().exists()) {
+            if (!file.getParentFile().mkdirs()) {
+                throw new JournalException("Could not create directories: %s", file.getParentFile().getAbsolutePath());
+            }
+        }
+
+        try {
+            this.channel = new RandomAccessFile(file, mode).getChannel();
+            if ("r".equals(mode)) {
+                this.offsetBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 8));
+            } else {
+                this.offsetBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 8);
+            }
+            offsetBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            offsetDirectAddr = ((DirectBuffer) offsetBuffer).address();
+        } catch (FileNotFoundException e) {
+            throw new JournalNoSuchFileException(e);
+        } catch (IOException e) {
+            throw new JournalException(e);
+        }
+    }
+
+    private void releaseRetiredInternal() {
+        for (int i = 0, n = retired.size(); i < n; i++) {
+            ByteBuffers.release(retired.get(i));
+        }
+        retired.clear();
+    }
+
+    private void unmap() {
+        for (int i = 0; i < regions.length; i++) {
+            if (regions[i] != null) {
+                ByteBuffers.release(regions[i]);
+            }
+        }
+        releaseRetiredInternal();
+        unmapCount++;
+        regions = new MappedByteBuffer[0];
+        addresses = new long[0];
+        limits = new long[0];
+    }
+}
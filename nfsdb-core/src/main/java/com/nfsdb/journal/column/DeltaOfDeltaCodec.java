@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Encodes LONG values as difference between consecutive deltas. Zig-zag encoded delta-of-delta is written
+ * with prefix code selecting its width: "0" for zero, "10" for 7 bits, "110" for 9 bits, "1110" for 12 bits
+ * and "1111" for full 64 bits. Timestamps at regular intervals take one bit per value.
+ */
+final class DeltaOfDeltaCodec implements BlockCodec {
+
+    @Override
+    public void encode(long address, int count, BitWriter writer) {
+        long prev = Unsafe.getUnsafe().getLong(address);
+        writer.write(prev, 64);
+        if (count == 1) {
+            return;
+        }
+
+        long value = Unsafe.getUnsafe().getLong(address + 8);
+        long delta = value - prev;
+        writer.write(delta, 64);
+        prev = value;
+
+        for (int i = 2; i < count; i++) {
+            value = Unsafe.getUnsafe().getLong(address + i * 8L);
+            long d = value - prev;
+            long dod = d - delta;
+            long z = (dod << 1) ^ (dod >> 63);
+
+            if (z == 0) {
+                writer.write(0, 1);
+            } else if ((z >>> 7) == 0) {
+                writer.write(1, 2);
+                writer.write(z, 7);
+            } else if ((z >>> 9) == 0) {
+                writer.write(3, 3);
+                writer.write(z, 9);
+            } else if ((z >>> 12) == 0) {
+                writer.write(7, 4);
+                writer.write(z, 12);
+            } else {
+                writer.write(15, 4);
+                writer.write(z, 64);
+            }
+            delta = d;
+            prev = value;
+        }
+    }
+
+    @Override
+    public void decode(BitReader reader, int count, long address) {
+        long prev = reader.read(64);
+        Unsafe.getUnsafe().putLong(address, prev);
+        if (count == 1) {
+            return;
+        }
+
+        long delta = reader.read(64);
+        prev += delta;
+        Unsafe.getUnsafe().putLong(address + 8, prev);
+
+        for (int i = 2; i < count; i++) {
+            long z;
+            if (!reader.readBit()) {
+                z = 0;
+            } else if (!reader.readBit()) {
+                z = reader.read(7);
+            } else if (!reader.readBit()) {
+                z = reader.read(9);
+            } else if (!reader.readBit()) {
+                z = reader.read(12);
+            } else {
+                z = reader.read(64);
+            }
+            delta += (z >>> 1) ^ -(z & 1);
+            prev += delta;
+            Unsafe.getUnsafe().putLong(address + i * 8L, prev);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Flyweight view of a string value in mapped memory. VariableColumn re-points the same instance
+ * on every read, so the value is only valid until the next read and must not be retained or used
+ * as a key in hash based collections. Call toString() to take a copy.
+ * <p/>
+ * hashCode() is compatible with String.hashCode() and equals() compares content with any CharSequence.
+ */
+public class DirectCharSequence implements CharSequence, Comparable<CharSequence> {
+    private long address;
+    private int len;
+    private StringEncoding encoding = StringEncoding.UTF16;
+    private char chars[] = new char[32];
+
+    public static boolean equals(CharSequence a, CharSequence b) {
+        int l = a.length();
+        if (l != b.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < l; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int compare(CharSequence a, CharSequence b) {
+        int la = a.length();
+        int lb = b.length();
+        for (int i = 0, l = Math.min(la, lb); i < l; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                return ca - cb;
+            }
+        }
+        return la - lb;
+    }
+
+    @Override
+    public int length() {
+        return len;
+    }
+
+    @Override
+    public char charAt(int index) {
+        switch (encoding) {
+            case UTF8:
+                return chars[index];
+            case LATIN1:
+                return (char) (Unsafe.getUnsafe().getByte(address + index) & 0xFF);
+            default:
+                return Unsafe.getUnsafe().getChar(address + (index << 1));
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public int compareTo(CharSequence o) {
+        return compare(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + charAt(i);
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof CharSequence && equals(this, (CharSequence) obj);
+    }
+
+    @Override
+    public String toString() {
+        if (encoding == StringEncoding.UTF8) {
+            return new String(chars, 0, len);
+        }
+
+        char buf[] = new char[len];
+        for (int i = 0; i < len; i++) {
+            buf[i] = charAt(i);
+        }
+        return new String(buf);
+    }
+
+    DirectCharSequence of(long address, int len, StringEncoding encoding) {
+        if (encoding == StringEncoding.UTF8) {
+            // variable width chars cannot be addressed directly, decode them once
+            if (chars.length < len) {
+                chars = new char[len];
+            }
+            this.len = VariableColumn.decodeUtf8(address, len, chars);
+        } else {
+            this.len = len;
+        }
+        this.address = address;
+        this.encoding = encoding;
+        return this;
+    }
+}
@@ -17,6 +17,9 @@
 package com.nfsdb.journal.column;
 
 import com.nfsdb.journal.utils.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+import java.nio.ByteBuffer;
 
 public class FixedColumn extends AbstractColumn {
     protected final int width;
@@ -27,31 +30,31 @@ public class FixedColumn extends AbstractColumn {
     }
 
     public boolean getBool(long localRowID) {
-        return Unsafe.getUnsafe().getByte(mappedFile.getAddress(getOffset(localRowID), 1)) == 1;
+        return Unsafe.getUnsafe().getByte(getAddress(localRowID, 1)) == 1;
     }
 
     public byte getByte(long localRowID) {
-        return Unsafe.getUnsafe().getByte(mappedFile.getAddress(getOffset(localRowID), 1));
+        return Unsafe.getUnsafe().getByte(getAddress(localRowID, 1));
     }
 
     public double getDouble(long localRowID) {
-        return Unsafe.getUnsafe().getDouble(mappedFile.getAddress(getOffset(localRowID), 8));
+        return Unsafe.getUnsafe().getDouble(getAddress(localRowID, 8));
     }
 
     public float getFloat(long localRowID) {
-        return Unsafe.getUnsafe().getFloat(mappedFile.getAddress(getOffset(localRowID), 4));
+        return Unsafe.getUnsafe().getFloat(getAddress(localRowID, 4));
     }
 
     public int getInt(long localRowID) {
-        return Unsafe.getUnsafe().getInt(mappedFile.getAddress(getOffset(localRowID), 4));
+        return Unsafe.getUnsafe().getInt(getAddress(localRowID, 4));
     }
 
     public long getLong(long localRowID) {
-        return Unsafe.getUnsafe().getLong(mappedFile.getAddress(getOffset(localRowID), 8));
+        return Unsafe.getUnsafe().getLong(getAddress(localRowID, 8));
     }
 
     public short getShort(long localRowID) {
-        return Unsafe.getUnsafe().getShort(mappedFile.getAddress(getOffset(localRowID), 2));
+        return Unsafe.getUnsafe().getShort(getAddress(localRowID, 2));
     }
 
     public void putBool(boolean value) {
@@ -66,6 +69,85 @@ public class FixedColumn extends AbstractColumn {
         Unsafe.getUnsafe().copyMemory(obj, offset, null, getAddress(), len);
     }
 
+    /**
+     * Appends count values from array in a single pass. Values are copied in chunks bounded by
+     * mapped buffer limits, which avoids per-value address lookup. Value at arrayOffset becomes
+     * the first appended row.
+     *
+     * @param array       primitive array or null for off-heap source
+     * @param arrayOffset offset of first value, either Unsafe array offset or absolute address
+     * @param count       number of values to append
+     */
+    public void putArray(Object array, long arrayOffset, int count) {
+        long appendOffset = mappedFile.getAppendOffset();
+        long len = (long) count * width;
+        preCommit(appendOffset + len);
+        while (len > 0) {
+            ByteBuffer buf = mappedFile.getBuffer(appendOffset, 1);
+            int n = (int) Math.min(len, buf.remaining());
+            Unsafe.getUnsafe().copyMemory(array, arrayOffset, null, ((DirectBuffer) buf).address() + buf.position(), n);
+            arrayOffset += n;
+            appendOffset += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Narrows selection of rows to those with int value equal to given value, keeping order of rows. Address of
+     * value is looked up once per run of contiguously mapped rows, rows within run are read by offset.
+     *
+     * @param rows  selection vector
+     * @param count number of rows in selection
+     * @param value value to compare to
+     * @return number of selected rows, which are moved to start of array
+     */
+    public int selectIntEquals(long[] rows, int count, int value) {
+        int n = 0;
+        long lo = 0;
+        long hi = 0;
+        long address = 0;
+        for (int i = 0; i < count; i++) {
+            long row = rows[i];
+            if (row < lo || row >= hi) {
+                hi = getRunHi(row);
+                address = getAddress(row, width);
+                lo = row;
+            }
+            if (Unsafe.getUnsafe().getInt(address + (row - lo) * width) == value) {
+                rows[n++] = row;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Narrows selection of rows to those with double value greater than given value, keeping order of rows.
+     *
+     * @param rows  selection vector
+     * @param count number of rows in selection
+     * @param value value to compare to
+     * @return number of selected rows, which are moved to start of array
+     * @see #selectIntEquals(long[], int, int)
+     */
+    public int selectDoubleGreaterThan(long[] rows, int count, double value) {
+        int n = 0;
+        long lo = 0;
+        long hi = 0;
+        long address = 0;
+        for (int i = 0; i < count; i++) {
+            long row = rows[i];
+            if (row < lo || row >= hi) {
+                hi = getRunHi(row);
+                address = getAddress(row, width);
+                lo = row;
+            }
+            if (Unsafe.getUnsafe().getDouble(address + (row - lo) * width) > value) {
+                rows[n++] = row;
+            }
+        }
+        return n;
+    }
+
     public void putDouble(double value) {
         Unsafe.getUnsafe().putDouble(getAddress(), value);
     }
@@ -95,6 +177,12 @@ public class FixedColumn extends AbstractColumn {
         return appendOffset;
     }
 
+    public void putNulls(int count) {
+        long appendOffset = mappedFile.getAppendOffset() + (long) count * width;
+        mappedFile.getAddress(appendOffset - width, width);
+        preCommit(appendOffset);
+    }
+
     @Override
     public long getOffset(long localRowID) {
         return localRowID * width;
@@ -113,6 +201,27 @@ public class FixedColumn extends AbstractColumn {
         preCommit(size * width);
     }
 
+    /**
+     * Address of value in row. Subclasses storing values in other than plain form
+     * provide address of decoded value.
+     */
+    long getAddress(long localRowID, int size) {
+        return mappedFile.getAddress(getOffset(localRowID), size);
+    }
+
+    int getUnmapCount() {
+        return mappedFile.getUnmapCount();
+    }
+
+    /**
+     * Exclusive upper bound of run of rows, values of which are laid out contiguously from value of given row.
+     * Address of any row in run is address of given row plus offset of row within run.
+     */
+    long getRunHi(long localRowID) {
+        ByteBuffer buf = mappedFile.getBuffer(getOffset(localRowID), width);
+        return localRowID + Math.max(1, buf.remaining() / width);
+    }
+
     long getAddress() {
         long appendOffset = mappedFile.getAppendOffset();
         preCommit(appendOffset + width);
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Strings of bounded length stored inline, one byte per char and zero padded to column width.
+ * Values with chars outside of ISO-8859-1 or with '\0', which would end stored value, are rejected.
+ * Column does not tell null from empty string, nulls are tracked by nulls column of partition.
+ */
+public class FixedStringColumn extends FixedColumn {
+    private final DirectCharSequence flyweight = new DirectCharSequence();
+    private final char buffer[];
+
+    public FixedStringColumn(MappedFile mappedFile, int width) {
+        super(mappedFile, width);
+        this.buffer = new char[width];
+    }
+
+    public String getString(long localRowID) {
+        long address = getAddress(localRowID, width);
+        int len = length(address);
+        for (int i = 0; i < len; i++) {
+            buffer[i] = (char) (Unsafe.getUnsafe().getByte(address + i) & 0xFF);
+        }
+        return new String(buffer, 0, len);
+    }
+
+    /**
+     * @see VariableColumn#getStr(long)
+     */
+    public DirectCharSequence getStr(long localRowID) {
+        return getStr(localRowID, flyweight);
+    }
+
+    public DirectCharSequence getStr(long localRowID, DirectCharSequence cs) {
+        long address = getAddress(localRowID, width);
+        return cs.of(address, length(address), StringEncoding.LATIN1);
+    }
+
+    public boolean equalsString(long localRowID, String value) {
+        int l = value.length();
+        if (l > width) {
+            return false;
+        }
+
+        long address = getAddress(localRowID, width);
+        for (int i = 0; i < l; i++) {
+            if ((char) (Unsafe.getUnsafe().getByte(address + i) & 0xFF) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return l == width || Unsafe.getUnsafe().getByte(address + l) == 0;
+    }
+
+    /**
+     * Value can be stored only when it reads back unchanged, otherwise it could not be found by equality
+     * and would be indexed under different key once index is rebuilt from stored bytes.
+     *
+     * @param value value to check, null is valid
+     * @return index of first char that cannot be stored or -1 when value can be stored
+     */
+    public static int invalidCharAt(String value) {
+        for (int i = 0, l = value == null ? 0 : value.length(); i < l; i++) {
+            char c = value.charAt(i);
+            if (c == 0 || c > 0xFF) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long putString(String value) {
+        int l = value == null ? 0 : value.length();
+        if (l > width) {
+            throw new JournalRuntimeException("Value of %d chars does not fit column of width %d", l, width);
+        }
+        int invalid = invalidCharAt(value);
+        if (invalid != -1) {
+            throw new JournalRuntimeException("Char 0x%x at %d of value '%s' cannot be stored in fixed string column", (int) value.charAt(invalid), invalid, value);
+        }
+
+        long address = getAddress();
+        for (int i = 0; i < l; i++) {
+            Unsafe.getUnsafe().putByte(address + i, (byte) value.charAt(i));
+        }
+
+        if (l < width) {
+            Unsafe.getUnsafe().setMemory(address + l, width - l, (byte) 0);
+        }
+        return txAppendOffset / width - 1;
+    }
+
+    @Override
+    public long putNull() {
+        long appendOffset = mappedFile.getAppendOffset();
+        putString(null);
+        return appendOffset;
+    }
+
+    @Override
+    public void putNulls(int count) {
+        // space of truncated rows can be reused, so it has to be cleared
+        for (int i = 0; i < count; i++) {
+            putString(null);
+        }
+    }
+
+    private int length(long address) {
+        int len = 0;
+        while (len < width && Unsafe.getUnsafe().getByte(address + len) != 0) {
+            len++;
+        }
+        return len;
+    }
+}
@@ -35,4 +35,15 @@ public interface MappedFile extends Closeable {
     void compact() throws JournalException;
 
     void force();
+
+    /**
+     * @return number of times file released mapped buffers, addresses obtained before count changed may be invalid.
+     */
+    int getUnmapCount();
+
+    /**
+     * Releases mappings, which were replaced by larger ones, but kept because addresses obtained from them could
+     * still be in use. Unmap count changes when anything is released.
+     */
+    void releaseRetired();
 }
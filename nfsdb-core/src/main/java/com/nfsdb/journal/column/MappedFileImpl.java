@@ -17,6 +17,7 @@
 package com.nfsdb.journal.column;
 
 import com.nfsdb.journal.JournalMode;
+import com.nfsdb.journal.concurrent.Prefetcher;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalNoSuchFileException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
@@ -46,6 +47,9 @@ public class MappedFileImpl implements MappedFile {
     // reserve first 8 bytes in the file for storing pointer to logical end of file
     // so the actual data begins from "dataOffset"
     private final int dataOffset = 8;
+    private final Prefetcher prefetcher;
+    // index of buffer after the last one handed to prefetcher
+    private int prefetchHi;
     private FileChannel channel;
     private MappedByteBuffer offsetBuffer;
     private List<MappedByteBuffer> buffers;
@@ -56,9 +60,19 @@ public class MappedFileImpl implements MappedFile {
     private long cachedAppendOffset = -1;
     private long cachedAddress;
     private long offsetDirectAddr;
+    private int unmapCount;
 
     public MappedFileImpl(File file, int bitHint, JournalMode mode) throws JournalException {
+        this(file, bitHint, mode, null);
+    }
+
+    /**
+     * @param prefetcher when not null and mode is BULK_READ, buffers ahead of the one being mapped are
+     *                   prefetched in background.
+     */
+    public MappedFileImpl(File file, int bitHint, JournalMode mode, Prefetcher prefetcher) throws JournalException {
         this.file = file;
+        this.prefetcher = mode == JournalMode.BULK_READ && prefetcher != null && prefetcher.getDepth() > 0 ? prefetcher : null;
         this.mode = mode;
         if (bitHint < 2) {
             LOGGER.warn("BitHint is too small for %s", file);
@@ -150,6 +164,16 @@ public class MappedFileImpl implements MappedFile {
         }
     }
 
+    @Override
+    public void releaseRetired() {
+        // buffers are never replaced, only released
+    }
+
+    @Override
+    public int getUnmapCount() {
+        return unmapCount;
+    }
+
     public String getFullFileName() {
         return this.file.getAbsolutePath();
     }
@@ -186,6 +210,7 @@ public class MappedFileImpl implements MappedFile {
 
         if (buffer != null && buffer.limit() < bufferPos) {
             buffer = ByteBuffers.release(buffer);
+            unmapCount++;
         }
 
         if (buffer == null) {
@@ -199,6 +224,7 @@ public class MappedFileImpl implements MappedFile {
                     // this is to prevent OS paging large files.
                     cachedBuffer = null;
                     cachedBufferLo = cachedBufferHi = -1;
+                    unmapCount++;
                     int ssz = stitches.size();
                     for (int i = bufferIndex - 1; i >= 0; i--) {
                         MappedByteBuffer b = buffers.get(i);
@@ -214,6 +240,10 @@ public class MappedFileImpl implements MappedFile {
                             }
                         }
                     }
+
+                    if (prefetcher != null) {
+                        prefetch(bufferIndex);
+                    }
             }
         }
 
@@ -235,6 +265,7 @@ public class MappedFileImpl implements MappedFile {
                 if (bufferWrapper.getOffset() != stitchOffset || bufferWrapper.getByteBuffer().limit() < size) {
                     bufferWrapper.release();
                     bufferWrapper = null;
+                    unmapCount++;
                 } else {
                     bufferWrapper.getByteBuffer().rewind();
                 }
@@ -250,6 +281,19 @@ public class MappedFileImpl implements MappedFile {
         return buffer;
     }
 
+    private void prefetch(int bufferIndex) {
+        long bufferSize = 1L << bitHint;
+        long hi = getAppendOffset() + dataOffset;
+        for (int i = Math.max(prefetchHi, bufferIndex + 1), n = bufferIndex + 1 + prefetcher.getDepth(); i < n; i++) {
+            long offset = i * bufferSize + dataOffset;
+            if (offset >= hi) {
+                break;
+            }
+            prefetcher.prefetch(channel, offset, Math.min(bufferSize, hi - offset));
+            prefetchHi = i + 1;
+        }
+    }
+
     private long size() throws JournalException {
         try {
             return channel.size();
@@ -259,6 +303,7 @@ public class MappedFileImpl implements MappedFile {
     }
 
     void open() throws JournalException {
+        prefetchHi = 0;
         String m;
         switch (mode) {
             case READ:
@@ -342,5 +387,8 @@ public class MappedFileImpl implements MappedFile {
         cachedBufferLo = cachedBufferHi = -1;
         buffers.clear();
         stitches.clear();
+        unmapCount++;
+        // buffers are mapped again from scratch, so is prefetching
+        prefetchHi = 0;
     }
 }
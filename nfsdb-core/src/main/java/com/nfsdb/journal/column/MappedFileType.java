@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+public enum MappedFileType {
+    /**
+     * File is mapped in fixed size pages, values crossing page boundary are accessed via stitch buffers.
+     */
+    PAGED,
+    /**
+     * File is mapped in large contiguous regions, which are re-mapped to grow with the file.
+     */
+    CONTIGUOUS
+}
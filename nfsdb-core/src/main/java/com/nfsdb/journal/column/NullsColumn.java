@@ -43,6 +43,10 @@ public class NullsColumn extends FixedColumn {
         return bitSet;
     }
 
+    public int getWordCount() {
+        return wordCount;
+    }
+
     public void putBitSet(BitSet bitSet) {
         long address = getAddress();
         long[] words = BitSetAccessor.getWords(bitSet);
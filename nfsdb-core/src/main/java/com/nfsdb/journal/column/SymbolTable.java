@@ -13,7 +13,6 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.nfsdb.journal.column;
 
 import com.nfsdb.journal.JournalMode;
@@ -21,38 +20,55 @@ import com.nfsdb.journal.collections.AbstractImmutableIterator;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalInvalidSymbolValueException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
-import com.nfsdb.journal.index.Cursor;
-import com.nfsdb.journal.index.KVIndex;
 import com.nfsdb.journal.utils.ByteBuffers;
 import com.nfsdb.journal.utils.Checksum;
-import com.nfsdb.journal.utils.Lists;
-import gnu.trove.map.hash.TObjectIntHashMap;
+import com.nfsdb.journal.utils.Unsafe;
 
 import java.io.Closeable;
 import java.io.File;
-import java.util.ArrayList;
-
+import java.util.Arrays;
+
+/**
+ * Symbol values are stored in data column in order of their keys. Value to key lookups go through open addressing
+ * hash file, entries of which are pairs of 64-bit value fingerprint and key. Hash file is append-only: when current
+ * table grows above half of its capacity a table of double the capacity is appended and published via file header,
+ * so readers never see table being rewritten. Key candidates are always verified against data column, entries of
+ * keys beyond committed size are ignored, which makes table safe to read while writer is appending.
+ * <p/>
+ * Recently used values and keys are kept in bounded on-heap caches. Caches are direct-mapped arrays of immutable
+ * entries, so that lookups can run concurrently: reader sees either whole entry or none and lookups never reorder
+ * anything.
+ */
 public class SymbolTable implements Closeable {
 
     public static final int VALUE_NOT_FOUND = -2;
     public static final int VALUE_IS_NULL = -1;
     private static final String DATA_FILE_SUFFIX = ".symd";
     private static final String INDEX_FILE_SUFFIX = ".symi";
-    private static final String HASH_INDEX_FILE_SUFFIX = ".symr";
-    private static final float CACHE_LOAD_FACTOR = 0.2f;
-    private final int hashKeyCount;
+    private static final String HASH_FILE_SUFFIX = ".symh";
+    private static final int MAX_CACHE_SIZE = 1 << 16;
+    private static final int MIN_TABLE_CAPACITY = 16;
+    private static final int MIN_HASH_BIT_HINT = 16;
+    // hash file header: offset of current table
+    private static final long HEADER_SIZE = 16;
+    // table header: capacity and entry count, followed by capacity of (fingerprint, key) entries
+    private static final long TABLE_HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 16;
     private final String column;
-    private final TObjectIntHashMap<String> valueCache;
-    private final ArrayList<String> keyCache;
+    private final File hashFile;
+    private final JournalMode mode;
+    private final int hashBitHint;
+    private final int capacityHint;
+    private final CacheEntry[] valueCache;
+    private final CacheEntry[] keyCache;
+    private final int cacheMask;
     private VariableColumn data;
-    private KVIndex index;
+    private MappedFile hash;
     private int size;
 
-    public SymbolTable(int capacity, int avgStringSize, int txCountHint, File directory, String column, JournalMode mode, int size, long indexTxAddress) throws JournalException {
-        // number of hash keys stored in index
-        // assume it is 20% of stated capacity
-        this.hashKeyCount = Math.max(1, (int) (capacity * CACHE_LOAD_FACTOR));
+    public SymbolTable(int capacity, int avgStringSize, File directory, String column, JournalMode mode, int size) throws JournalException {
         this.column = column;
+        this.capacityHint = capacity;
         JournalMode m;
 
         switch (mode) {
@@ -65,6 +81,7 @@ public class SymbolTable implements Closeable {
             default:
                 m = mode;
         }
+        this.mode = m;
 
         MappedFile dataFile = new MappedFileImpl(new File(directory, column + DATA_FILE_SUFFIX), ByteBuffers.getBitHint(avgStringSize * 2 + 4, capacity), m);
         MappedFile indexFile = new MappedFileImpl(new File(directory, column + INDEX_FILE_SUFFIX), ByteBuffers.getBitHint(8, capacity), m);
@@ -72,14 +89,26 @@ public class SymbolTable implements Closeable {
         this.data = new VariableColumn(dataFile, indexFile);
         this.size = size;
 
-        this.index = new KVIndex(new File(directory, column + HASH_INDEX_FILE_SUFFIX), this.hashKeyCount, capacity, txCountHint, mode, indexTxAddress);
-        this.valueCache = new TObjectIntHashMap<>(capacity, CACHE_LOAD_FACTOR, VALUE_NOT_FOUND);
-        this.keyCache = new ArrayList<>(capacity);
+        final int cacheSize = Math.min(MAX_CACHE_SIZE, ceilPow2(Math.max(1, capacity)));
+        this.valueCache = new CacheEntry[cacheSize];
+        this.keyCache = new CacheEntry[cacheSize];
+        this.cacheMask = cacheSize - 1;
+
+        this.hashFile = new File(directory, column + HASH_FILE_SUFFIX);
+        // table may outgrow capacity hint many times over, keep number of mapped pages reasonable
+        this.hashBitHint = Math.max(MIN_HASH_BIT_HINT, ByteBuffers.getBitHint(ENTRY_SIZE, (int) tableCapacity(capacity)));
+        openHash();
     }
 
-    public void applyTx(int size, long indexTxAddress) {
+    public void applyTx(int size) {
         this.size = size;
-        this.index.setTxAddress(indexTxAddress);
+        if (hash == null) {
+            try {
+                openHash();
+            } catch (JournalException e) {
+                throw new JournalRuntimeException(e);
+            }
+        }
     }
 
     public void alignSize() {
@@ -93,8 +122,8 @@ public class SymbolTable implements Closeable {
             data.putString(value);
             data.commit();
             key = (int) (data.size() - 1);
-            index.add(hashKey(value), key);
             size++;
+            addHash(Checksum.hash64(value), key);
             cache(key, value);
         }
 
@@ -102,27 +131,20 @@ public class SymbolTable implements Closeable {
     }
 
     public int getQuick(String value) {
-        int key = value == null ? VALUE_IS_NULL : this.valueCache.get(value);
-
-        if (key != VALUE_NOT_FOUND) {
-            return key;
+        if (value == null) {
+            return VALUE_IS_NULL;
         }
 
-        int hashKey = hashKey(value);
-
-        if (!index.contains(hashKey)) {
-            return VALUE_NOT_FOUND;
+        CacheEntry cached = valueCache[value.hashCode() & cacheMask];
+        if (cached != null && cached.value.equals(value)) {
+            return cached.key;
         }
 
-        Cursor cursor = index.cachedCursor(hashKey);
-        while (cursor.hasNext()) {
-            key = (int) cursor.next();
-            if (data.equalsString(key, value)) {
-                cache(key, value);
-                return key;
-            }
+        int key = hash == null ? scan(value) : lookup(value);
+        if (key != VALUE_NOT_FOUND) {
+            cache(key, value);
         }
-        return VALUE_NOT_FOUND;
+        return key;
     }
 
     public int get(String value) {
@@ -142,11 +164,12 @@ public class SymbolTable implements Closeable {
         if (key >= size) {
             throw new JournalRuntimeException("Invalid symbol key: " + key);
         }
-        String value = key < keyCache.size() ? keyCache.get(key) : null;
-        if (value == null) {
-            value = data.getString(key);
-            cache(key, value);
+        CacheEntry cached = keyCache[key & cacheMask];
+        if (cached != null && cached.key == key) {
+            return cached.value;
         }
+        String value = data.getString(key);
+        keyCache[key & cacheMask] = new CacheEntry(key, value);
         return value;
     }
 
@@ -177,10 +200,10 @@ public class SymbolTable implements Closeable {
         if (data != null) {
             data.close();
         }
-        if (index != null) {
-            index.close();
+        if (hash != null) {
+            hash.close();
         }
-        index = null;
+        hash = null;
         data = null;
     }
 
@@ -191,17 +214,18 @@ public class SymbolTable implements Closeable {
     public void truncate(int size) {
         if (size() > size) {
             data.truncate(size);
-            index.truncate(size);
             data.commit();
             clearCache();
             this.size = size;
+            // entries of truncated keys are ignored by lookups and dropped when table grows,
+            // new table would be appended to hash file on every rollback
         }
     }
 
     public void updateIndex(int oldSize, int newSize) {
         if (oldSize < newSize) {
             for (int i = oldSize; i < newSize; i++) {
-                index.add(hashKey(data.getString(i)), i);
+                addHash(Checksum.hash64(data.getStr(i)), i);
             }
         }
     }
@@ -211,41 +235,169 @@ public class SymbolTable implements Closeable {
     }
 
     public SymbolTable preLoad() {
-        for (int key = 0, size = (int) data.size(); key < size; key++) {
-            String value = data.getString(key);
-            valueCache.putIfAbsent(value, key);
-            keyCache.add(value);
-
+        for (int key = 0, n = Math.min(size, keyCache.length); key < n; key++) {
+            cache(key, data.getString(key));
         }
         return this;
     }
 
-    public long getIndexTxAddress() {
-        return index.getTxAddress();
-    }
-
     public void commit() {
         data.commit();
-        index.commit();
     }
 
     public void force() {
         data.force();
-        index.force();
+        if (hash != null) {
+            hash.force();
+        }
+    }
+
+    private static int ceilPow2(int value) {
+        int v = Integer.highestOneBit(value);
+        return v == value ? v : v << 1;
+    }
+
+    private static long tableCapacity(long count) {
+        return Math.max(MIN_TABLE_CAPACITY, Long.highestOneBit(Math.max(1, count)) << 2);
+    }
+
+    private static long fingerprint(long hash) {
+        // zero marks empty entry
+        return hash == 0 ? 1 : hash;
+    }
+
+    private void openHash() throws JournalException {
+        boolean readOnly = mode == JournalMode.READ;
+        if (readOnly && !hashFile.exists()) {
+            // journal created before hash file was introduced, values are looked up by scanning data
+            return;
+        }
+        hash = new MappedFileImpl(hashFile, hashBitHint, mode);
+        if (!readOnly && hash.getAppendOffset() <= 0) {
+            rebuildHash();
+        }
+    }
+
+    private int lookup(String value) {
+        if (hash.getAppendOffset() <= 0) {
+            return scan(value);
+        }
+
+        long fp = fingerprint(Checksum.hash64(value));
+        long offset = Unsafe.getUnsafe().getLong(hash.getAddress(0, 8));
+        long mask = Unsafe.getUnsafe().getLong(hash.getAddress(offset, 8)) - 1;
+        long slot = fp & mask;
+
+        while (true) {
+            long address = hash.getAddress(offset + TABLE_HEADER_SIZE + slot * ENTRY_SIZE, ENTRY_SIZE);
+            long f = Unsafe.getUnsafe().getLong(address);
+            if (f == 0) {
+                return VALUE_NOT_FOUND;
+            }
+            if (f == fp) {
+                long key = Unsafe.getUnsafe().getLong(address + 8);
+                if (key < size && data.equalsString(key, value)) {
+                    return (int) key;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int scan(String value) {
+        for (int key = 0; key < size; key++) {
+            if (data.equalsString(key, value)) {
+                return key;
+            }
+        }
+        return VALUE_NOT_FOUND;
+    }
+
+    private void addHash(long hashCode, long key) {
+        long offset = Unsafe.getUnsafe().getLong(hash.getAddress(0, 8));
+        long capacity = Unsafe.getUnsafe().getLong(hash.getAddress(offset, 8));
+        long count = Unsafe.getUnsafe().getLong(hash.getAddress(offset + 8, 8));
+
+        if ((count + 1) << 1 > capacity) {
+            long newOffset = createTable(capacity << 1);
+            // stored fingerprints let us rehash without reading values
+            for (long i = 0; i < capacity; i++) {
+                long address = hash.getAddress(offset + TABLE_HEADER_SIZE + i * ENTRY_SIZE, ENTRY_SIZE);
+                long f = Unsafe.getUnsafe().getLong(address);
+                long k = Unsafe.getUnsafe().getLong(address + 8);
+                if (f != 0 && k < size) {
+                    insert(newOffset, f, k);
+                }
+            }
+            publishTable(newOffset);
+            offset = newOffset;
+        }
+        insert(offset, fingerprint(hashCode), key);
+    }
+
+    private void rebuildHash() {
+        long offset = createTable(tableCapacity(Math.max(size, capacityHint)));
+        for (int key = 0; key < size; key++) {
+            insert(offset, fingerprint(Checksum.hash64(data.getStr(key))), key);
+        }
+        publishTable(offset);
+    }
+
+    private long createTable(long capacity) {
+        long offset = Math.max(HEADER_SIZE, hash.getAppendOffset());
+        offset = (offset + ENTRY_SIZE - 1) & -ENTRY_SIZE;
+        Unsafe.getUnsafe().putLong(hash.getAddress(offset, 8), capacity);
+        Unsafe.getUnsafe().putLong(hash.getAddress(offset + 8, 8), 0);
+        // space beyond append offset may have been used by table, which was never published
+        for (long i = 0; i < capacity; i++) {
+            long address = hash.getAddress(offset + TABLE_HEADER_SIZE + i * ENTRY_SIZE, ENTRY_SIZE);
+            Unsafe.getUnsafe().putLong(address, 0);
+            Unsafe.getUnsafe().putLong(address + 8, 0);
+        }
+        return offset;
+    }
+
+    private void publishTable(long offset) {
+        long capacity = Unsafe.getUnsafe().getLong(hash.getAddress(offset, 8));
+        hash.setAppendOffset(offset + TABLE_HEADER_SIZE + capacity * ENTRY_SIZE);
+        Unsafe.getUnsafe().putLong(hash.getAddress(0, 8), offset);
+    }
+
+    private void insert(long offset, long fp, long key) {
+        long mask = Unsafe.getUnsafe().getLong(hash.getAddress(offset, 8)) - 1;
+        long slot = fp & mask;
+        while (true) {
+            long address = hash.getAddress(offset + TABLE_HEADER_SIZE + slot * ENTRY_SIZE, ENTRY_SIZE);
+            if (Unsafe.getUnsafe().getLong(address) == 0) {
+                // key goes first, so that concurrent reader never sees fingerprint without key
+                Unsafe.getUnsafe().putLong(address + 8, key);
+                Unsafe.getUnsafe().putLong(address, fp);
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        long countAddress = hash.getAddress(offset + 8, 8);
+        Unsafe.getUnsafe().putLong(countAddress, Unsafe.getUnsafe().getLong(countAddress) + 1);
     }
 
     private void cache(int key, String value) {
-        valueCache.put(value, key);
-        Lists.advance(keyCache, key);
-        keyCache.set(key, value);
+        CacheEntry entry = new CacheEntry(key, value);
+        valueCache[value.hashCode() & cacheMask] = entry;
+        keyCache[key & cacheMask] = entry;
     }
 
     private void clearCache() {
-        valueCache.clear();
-        keyCache.clear();
+        Arrays.fill(valueCache, null);
+        Arrays.fill(keyCache, null);
     }
 
-    private int hashKey(String value) {
-        return Checksum.hash(value, hashKeyCount);
+    private static class CacheEntry {
+        private final int key;
+        private final String value;
+
+        private CacheEntry(int key, String value) {
+            this.key = key;
+            this.value = value;
+        }
     }
 }
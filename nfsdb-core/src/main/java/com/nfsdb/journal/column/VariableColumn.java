@@ -26,11 +26,18 @@ import java.nio.ByteBuffer;
 
 public class VariableColumn extends AbstractColumn {
     private final FixedColumn indexColumn;
+    private final StringEncoding encoding;
+    private final DirectCharSequence flyweight = new DirectCharSequence();
     private char buffer[] = new char[32];
 
     public VariableColumn(MappedFile dataFile, MappedFile indexFile) {
+        this(dataFile, indexFile, StringEncoding.UTF16);
+    }
+
+    public VariableColumn(MappedFile dataFile, MappedFile indexFile, StringEncoding encoding) {
         super(dataFile);
         this.indexColumn = new FixedColumn(indexFile, 8);
+        this.encoding = encoding;
     }
 
     @Override
@@ -45,6 +52,12 @@ public class VariableColumn extends AbstractColumn {
         indexColumn.force();
     }
 
+    @Override
+    public void releaseRetired() {
+        super.releaseRetired();
+        indexColumn.releaseRetired();
+    }
+
     @Override
     public void close() {
         indexColumn.close();
@@ -82,7 +95,47 @@ public class VariableColumn extends AbstractColumn {
         if (len == -1) {
             return null;
         }
-        return asString(mappedFile.getAddress(indexColumn.getLong(localRowID), len * 2 + 4) + 4, len);
+
+        switch (encoding) {
+            case UTF8:
+                return asUtf8String(mappedFile.getAddress(indexColumn.getLong(localRowID), len + 4) + 4, len);
+            case LATIN1:
+                return asLatin1String(mappedFile.getAddress(indexColumn.getLong(localRowID), len + 4) + 4, len);
+            default:
+                return asString(mappedFile.getAddress(indexColumn.getLong(localRowID), len * 2 + 4) + 4, len);
+        }
+    }
+
+    /**
+     * Allocation free alternative to getString(). Returns flyweight owned by this column, which
+     * is only valid until next call to this method.
+     *
+     * @param localRowID row id local to partition
+     * @return flyweight pointing at column data or null if value is null
+     */
+    public DirectCharSequence getStr(long localRowID) {
+        return getStr(localRowID, flyweight);
+    }
+
+    public DirectCharSequence getStr(long localRowID, DirectCharSequence cs) {
+        long address = getAddrInternal(localRowID, 4);
+        int len = Unsafe.getUnsafe().getInt(address);
+
+        if (len == -1) {
+            return null;
+        }
+
+        switch (encoding) {
+            case UTF8:
+            case LATIN1:
+                return cs.of(getAddrInternal(localRowID, len + 4) + 4, len, encoding);
+            default:
+                return cs.of(getAddrInternal(localRowID, len * 2 + 4) + 4, len, encoding);
+        }
+    }
+
+    public StringEncoding getEncoding() {
+        return encoding;
     }
 
     public boolean equalsString(long localRowID, String value) {
@@ -90,6 +143,14 @@ public class VariableColumn extends AbstractColumn {
         long address = getAddrInternal(localRowID, 4);
         int len = Unsafe.getUnsafe().getInt(address);
 
+        switch (encoding) {
+            case UTF8:
+                return len != -1 && equalsUtf8(getAddrInternal(localRowID, len + 4) + 4, len, value);
+            case LATIN1:
+                return len == value.length() && equalsLatin1(getAddrInternal(localRowID, len + 4) + 4, len, value);
+            default:
+        }
+
         if (len != value.length()) {
             return false;
         }
@@ -108,19 +169,30 @@ public class VariableColumn extends AbstractColumn {
     public long putString(String value) {
         if (value == null) {
             return putNull();
-        } else {
-            int l;
-            int len = (l = value.length()) * 2 + 4;
-            long offset = getOffset();
-            long address = mappedFile.getAddress(offset, len);
-            Unsafe.getUnsafe().putInt(address, l);
-            address += 4;
-            for (int i = 0; i < l; i++) {
-                Unsafe.getUnsafe().putChar(address, value.charAt(i));
-                address += 2;
-            }
-            return commitAppend(offset, len);
         }
+
+        switch (encoding) {
+            case UTF8:
+                return putUtf8(value);
+            case LATIN1:
+                return putLatin1(value);
+            default:
+                return putUtf16(value);
+        }
+    }
+
+    private long putUtf16(String value) {
+        int l;
+        int len = (l = value.length()) * 2 + 4;
+        long offset = getOffset();
+        long address = mappedFile.getAddress(offset, len);
+        Unsafe.getUnsafe().putInt(address, l);
+        address += 4;
+        for (int i = 0; i < l; i++) {
+            Unsafe.getUnsafe().putChar(address, value.charAt(i));
+            address += 2;
+        }
+        return commitAppend(offset, len);
     }
 
     @Override
@@ -171,6 +243,42 @@ public class VariableColumn extends AbstractColumn {
         }
     }
 
+    /**
+     * Read-only view of binary value straight over mapped column data. No bytes are copied.
+     * View is only valid until next read of the same column, after which underlying
+     * memory can be remapped or released.
+     *
+     * @param localRowID row id within partition
+     * @return view positioned at first byte of value or null when value is null.
+     */
+    public ByteBuffer getBin(long localRowID) {
+        int size = getBufferSize(localRowID);
+        if (size < 0) {
+            return null;
+        }
+        ByteBuffer bb = getBuffer(getOffset(localRowID), size + 4);
+        int lo = bb.position() + 4;
+        ByteBuffer view = bb.asReadOnlyBuffer();
+        view.limit(lo + size);
+        view.position(lo);
+        return view;
+    }
+
+    /**
+     * Address of first byte of binary value. Value occupies getBufferSize(localRowID) contiguous
+     * bytes from this address. Address is only valid until next read of the same column.
+     *
+     * @param localRowID row id within partition
+     * @return address of value or 0 when value is null, callers must check for 0 before reading.
+     */
+    public long getBinAddress(long localRowID) {
+        int size = getBufferSize(localRowID);
+        if (size < 0) {
+            return 0;
+        }
+        return mappedFile.getAddress(getOffset(localRowID), size + 4) + 4;
+    }
+
     public long putNull() {
         long offset = getOffset();
         Unsafe.getUnsafe().putInt(mappedFile.getAddress(offset, 4), -1);
@@ -188,6 +296,150 @@ public class VariableColumn extends AbstractColumn {
         return new String(buffer, 0, len);
     }
 
+    private long putLatin1(String value) {
+        int l = value.length();
+        for (int i = 0; i < l; i++) {
+            if (value.charAt(i) > 0xFF) {
+                throw new JournalRuntimeException("Char 0x%x at %d of value '%s' cannot be stored in LATIN1 column %s", (int) value.charAt(i), i, value, this);
+            }
+        }
+        long offset = getOffset();
+        long address = mappedFile.getAddress(offset, l + 4);
+        Unsafe.getUnsafe().putInt(address, l);
+        address += 4;
+        for (int i = 0; i < l; i++) {
+            Unsafe.getUnsafe().putByte(address++, (byte) value.charAt(i));
+        }
+        return commitAppend(offset, l + 4);
+    }
+
+    private long putUtf8(String value) {
+        int l = value.length();
+        int len = utf8Length(value);
+        long offset = getOffset();
+        long address = mappedFile.getAddress(offset, len + 4);
+        Unsafe.getUnsafe().putInt(address, len);
+        address += 4;
+        for (int i = 0; i < l; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                Unsafe.getUnsafe().putByte(address++, (byte) c);
+            } else if (c < 0x800) {
+                Unsafe.getUnsafe().putByte(address++, (byte) (0xC0 | (c >> 6)));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < l && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0xF0 | (cp >> 18)));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0x80 | ((cp >> 12) & 0x3F)));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0x80 | ((cp >> 6) & 0x3F)));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0x80 | (cp & 0x3F)));
+            } else {
+                // unpaired surrogates are encoded as is to keep round trip exact
+                Unsafe.getUnsafe().putByte(address++, (byte) (0xE0 | (c >> 12)));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                Unsafe.getUnsafe().putByte(address++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return commitAppend(offset, len + 4);
+    }
+
+    private static int utf8Length(String value) {
+        int len = 0;
+        for (int i = 0, l = value.length(); i < l; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                len++;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < l && Character.isLowSurrogate(value.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Decodes UTF-8 bytes into char array, which must be at least len long.
+     *
+     * @return number of decoded chars
+     */
+    static int decodeUtf8(long address, int len, char[] chars) {
+        long hi = address + len;
+        int n = 0;
+        while (address < hi) {
+            int b = Unsafe.getUnsafe().getByte(address++) & 0xFF;
+            if (b < 0x80) {
+                chars[n++] = (char) b;
+            } else if (b < 0xE0) {
+                chars[n++] = (char) (((b & 0x1F) << 6) | (Unsafe.getUnsafe().getByte(address++) & 0x3F));
+            } else if (b < 0xF0) {
+                int b1 = Unsafe.getUnsafe().getByte(address++) & 0x3F;
+                int b2 = Unsafe.getUnsafe().getByte(address++) & 0x3F;
+                chars[n++] = (char) (((b & 0x0F) << 12) | (b1 << 6) | b2);
+            } else {
+                int b1 = Unsafe.getUnsafe().getByte(address++) & 0x3F;
+                int b2 = Unsafe.getUnsafe().getByte(address++) & 0x3F;
+                int b3 = Unsafe.getUnsafe().getByte(address++) & 0x3F;
+                int cp = ((b & 0x07) << 18) | (b1 << 12) | (b2 << 6) | b3;
+                chars[n++] = Character.highSurrogate(cp);
+                chars[n++] = Character.lowSurrogate(cp);
+            }
+        }
+        return n;
+    }
+
+    private String asLatin1String(long address, int len) {
+        if (buffer.length < len) {
+            buffer = new char[len];
+        }
+        for (int i = 0; i < len; i++) {
+            buffer[i] = (char) (Unsafe.getUnsafe().getByte(address++) & 0xFF);
+        }
+        return new String(buffer, 0, len);
+    }
+
+    private String asUtf8String(long address, int len) {
+        if (buffer.length < len) {
+            buffer = new char[len];
+        }
+        return new String(buffer, 0, decodeUtf8(address, len, buffer));
+    }
+
+    private boolean equalsLatin1(long address, int len, String value) {
+        for (int i = 0; i < len; i++) {
+            if ((char) (Unsafe.getUnsafe().getByte(address++) & 0xFF) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equalsUtf8(long address, int len, String value) {
+        int l = value.length();
+        // every char takes between 1 and 3 bytes, surrogate pairs take 4 bytes for 2 chars
+        if (l > len || len > l * 3) {
+            return false;
+        }
+
+        if (buffer.length < len) {
+            buffer = new char[len];
+        }
+
+        if (decodeUtf8(address, len, buffer) != l) {
+            return false;
+        }
+
+        for (int i = 0; i < l; i++) {
+            if (buffer[i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private ByteBuffer getBufferInternal(long localRowID, int recordLength) {
         long max = indexColumn.size();
 
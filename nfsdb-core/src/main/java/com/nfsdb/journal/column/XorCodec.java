@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.utils.Unsafe;
+
+/**
+ * Encodes DOUBLE values as XOR with previous value. Identical values take one bit, "10" reuses
+ * meaningful bit window of previous value and "11" is followed by 5 bits of leading zero count,
+ * 6 bits of meaningful bit count and meaningful bits themselves.
+ */
+final class XorCodec implements BlockCodec {
+
+    @Override
+    public void encode(long address, int count, BitWriter writer) {
+        long prev = Unsafe.getUnsafe().getLong(address);
+        writer.write(prev, 64);
+
+        int prevLead = -1;
+        int prevTrail = 0;
+
+        for (int i = 1; i < count; i++) {
+            long value = Unsafe.getUnsafe().getLong(address + i * 8L);
+            long x = value ^ prev;
+            if (x == 0) {
+                writer.write(0, 1);
+            } else {
+                int lead = Math.min(31, Long.numberOfLeadingZeros(x));
+                int trail = Long.numberOfTrailingZeros(x);
+                if (prevLead != -1 && lead >= prevLead && trail >= prevTrail) {
+                    writer.write(1, 2);
+                    writer.write(x >>> prevTrail, 64 - prevLead - prevTrail);
+                } else {
+                    int significant = 64 - lead - trail;
+                    writer.write(3, 2);
+                    writer.write(lead, 5);
+                    writer.write(significant - 1, 6);
+                    writer.write(x >>> trail, significant);
+                    prevLead = lead;
+                    prevTrail = trail;
+                }
+            }
+            prev = value;
+        }
+    }
+
+    @Override
+    public void decode(BitReader reader, int count, long address) {
+        long prev = reader.read(64);
+        Unsafe.getUnsafe().putLong(address, prev);
+
+        int significant = 0;
+        int trail = 0;
+
+        for (int i = 1; i < count; i++) {
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    int lead = (int) reader.read(5);
+                    significant = (int) reader.read(6) + 1;
+                    trail = 64 - lead - significant;
+                }
+                prev ^= reader.read(significant) << trail;
+            }
+            Unsafe.getUnsafe().putLong(address + i * 8L, prev);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.column;
+
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.utils.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Minimum, maximum and null count of fixed width column values in blocks of rows. Zone map is
+ * maintained by writer on commit and allows filters to reject whole blocks without reading column.
+ * <p/>
+ * Minimum and maximum are computed over stored values, including those of null rows, so that
+ * they hold for any filter reading column values directly. NaN values are not included.
+ * <p/>
+ * File layout:
+ * <pre>
+ * int      block size as power of 2
+ * int      reserved
+ * long     number of rows covered by zone map
+ * ...      24-byte block entries: minimum, maximum, null count
+ * </pre>
+ * Entry of block may only be relied on when it covers all rows of block visible to reader.
+ */
+public class ZoneMap implements Closeable {
+
+    public static final int DEFAULT_BLOCK_BITS = 10;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 24;
+    private final MappedFile mappedFile;
+    private final ColumnType type;
+    private final int columnIndex;
+    private int blockBits;
+
+    public ZoneMap(MappedFile mappedFile, ColumnType type, int columnIndex) {
+        this.mappedFile = mappedFile;
+        this.type = type;
+        this.columnIndex = columnIndex;
+        if (mappedFile.getAppendOffset() <= 0) {
+            this.blockBits = DEFAULT_BLOCK_BITS;
+        } else {
+            this.blockBits = Unsafe.getUnsafe().getInt(mappedFile.getAddress(0, 4));
+        }
+    }
+
+    public static boolean supports(ColumnType type) {
+        switch (type) {
+            case INT:
+            case LONG:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public int getBlockBits() {
+        return blockBits;
+    }
+
+    /**
+     * @return number of rows zone map has been updated with
+     */
+    public long size() {
+        if (mappedFile.getAppendOffset() <= 0) {
+            return 0;
+        }
+        return Unsafe.getUnsafe().getLong(mappedFile.getAddress(8, 8));
+    }
+
+    /**
+     * Checks if entry of block covers all rows of block, which are visible in partition of given size.
+     *
+     * @param block         block number
+     * @param partitionSize number of rows visible in partition
+     * @return true if block entry can be used to reject rows
+     */
+    public boolean isComplete(long block, long partitionSize) {
+        long lo = block << blockBits;
+        long hi = Math.min(lo + (1 << blockBits), partitionSize);
+        return lo < hi && hi <= size();
+    }
+
+    public long getLongMin(long block) {
+        return Unsafe.getUnsafe().getLong(entryAddress(block));
+    }
+
+    public long getLongMax(long block) {
+        return Unsafe.getUnsafe().getLong(entryAddress(block) + 8);
+    }
+
+    public double getDoubleMin(long block) {
+        return Unsafe.getUnsafe().getDouble(entryAddress(block));
+    }
+
+    public double getDoubleMax(long block) {
+        return Unsafe.getUnsafe().getDouble(entryAddress(block) + 8);
+    }
+
+    public int getNullCount(long block) {
+        return Unsafe.getUnsafe().getInt(entryAddress(block) + 16);
+    }
+
+    /**
+     * Brings zone map up to date with column. Entries of blocks are updated from last covered row
+     * to the end of column.
+     *
+     * @param column column zone map describes
+     * @param nulls  nulls column of partition or null when column cannot have nulls
+     */
+    public void update(FixedColumn column, NullsColumn nulls) {
+        long covered = size();
+        long size = column.size();
+        if (covered >= size) {
+            return;
+        }
+
+        if (mappedFile.getAppendOffset() <= 0) {
+            Unsafe.getUnsafe().putInt(mappedFile.getAddress(0, 4), blockBits);
+            Unsafe.getUnsafe().putInt(mappedFile.getAddress(4, 4), 0);
+        }
+
+        long row = covered;
+        while (row < size) {
+            long block = row >>> blockBits;
+            long hi = Math.min((block + 1) << blockBits, size);
+            long address = entryAddress(block);
+            boolean first = (row & ((1 << blockBits) - 1)) == 0;
+            int nullCount = first ? 0 : Unsafe.getUnsafe().getInt(address + 16);
+
+            if (nulls != null) {
+                for (long r = row; r < hi; r++) {
+                    if (nulls.getBitSet(r).get(columnIndex)) {
+                        nullCount++;
+                    }
+                }
+            }
+
+            if (type == ColumnType.DOUBLE) {
+                double min = first ? Double.POSITIVE_INFINITY : Unsafe.getUnsafe().getDouble(address);
+                double max = first ? Double.NEGATIVE_INFINITY : Unsafe.getUnsafe().getDouble(address + 8);
+                for (long r = row; r < hi; r++) {
+                    double v = column.getDouble(r);
+                    if (v < min) {
+                        min = v;
+                    }
+                    if (v > max) {
+                        max = v;
+                    }
+                }
+                Unsafe.getUnsafe().putDouble(address, min);
+                Unsafe.getUnsafe().putDouble(address + 8, max);
+            } else {
+                long min = first ? Long.MAX_VALUE : Unsafe.getUnsafe().getLong(address);
+                long max = first ? Long.MIN_VALUE : Unsafe.getUnsafe().getLong(address + 8);
+                for (long r = row; r < hi; r++) {
+                    long v = type == ColumnType.INT ? column.getInt(r) : column.getLong(r);
+                    if (v < min) {
+                        min = v;
+                    }
+                    if (v > max) {
+                        max = v;
+                    }
+                }
+                Unsafe.getUnsafe().putLong(address, min);
+                Unsafe.getUnsafe().putLong(address + 8, max);
+            }
+            Unsafe.getUnsafe().putInt(address + 16, nullCount);
+            row = hi;
+        }
+
+        // covered row count is written last, so that readers never see entries that are not up to date
+        Unsafe.getUnsafe().putLong(mappedFile.getAddress(8, 8), size);
+        mappedFile.setAppendOffset(HEADER_SIZE + (((size - 1) >>> blockBits) + 1) * ENTRY_SIZE);
+    }
+
+    /**
+     * Discards entries beyond given number of rows. Entry of partially retained block is discarded too
+     * and is rebuilt by next update.
+     *
+     * @param size number of rows to retain
+     */
+    public void truncate(long size) {
+        if (size < size()) {
+            long covered = (size >>> blockBits) << blockBits;
+            Unsafe.getUnsafe().putLong(mappedFile.getAddress(8, 8), covered);
+            mappedFile.setAppendOffset(HEADER_SIZE + (covered >>> blockBits) * ENTRY_SIZE);
+        }
+    }
+
+    public void force() {
+        mappedFile.force();
+    }
+
+    public void compact() throws JournalException {
+        mappedFile.compact();
+    }
+
+    public void releaseRetired() {
+        mappedFile.releaseRetired();
+    }
+
+    @Override
+    public void close() {
+        mappedFile.close();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getName() + "[file=" + mappedFile + ", size=" + size() + "]";
+    }
+
+    private long entryAddress(long block) {
+        return mappedFile.getAddress(HEADER_SIZE + block * ENTRY_SIZE, ENTRY_SIZE);
+    }
+}
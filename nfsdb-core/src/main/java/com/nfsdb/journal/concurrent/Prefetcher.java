@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.concurrent;
+
+import com.nfsdb.journal.logging.Logger;
+import com.nfsdb.journal.utils.ByteBuffers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Warms up OS page cache ahead of sequential scans. Regions are mapped and touched on background
+ * thread, so that by the time reader maps the same region its pages are already resident.
+ * <p/>
+ * Prefetcher never interrupts its thread: interrupting thread blocked on file channel would close
+ * the channel, which is shared with the reader.
+ */
+public class Prefetcher implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(Prefetcher.class);
+    private final ExecutorService executor;
+    private final int depth;
+    private volatile boolean closed = false;
+
+    public Prefetcher(String name, int depth) {
+        this.executor = Executors.newSingleThreadExecutor(new NamedDaemonThreadFactory("jj-prefetch-" + name, true));
+        this.depth = depth;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void prefetch(final FileChannel channel, final long offset, final long size) {
+        if (closed) {
+            return;
+        }
+
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (closed || !channel.isOpen()) {
+                        return;
+                    }
+
+                    try {
+                        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                        buf.load();
+                        ByteBuffers.release(buf);
+                    } catch (IOException e) {
+                        // reader closed the file, nothing to prefetch
+                        LOGGER.debug("Cannot prefetch %d bytes at %d: %s", size, offset, e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ignore) {
+            // closed concurrently
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+    }
+}
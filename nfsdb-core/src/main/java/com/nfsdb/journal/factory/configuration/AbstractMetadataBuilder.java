@@ -41,6 +41,14 @@ public abstract class AbstractMetadataBuilder<T> {
         return parent.$int(name);
     }
 
+    public LongBuilder $long(String name) {
+        return parent.$long(name);
+    }
+
+    public DoubleBuilder $double(String name) {
+        return parent.$double(name);
+    }
+
     public JournalMetadataBuilder<T> $ts(String name) {
         return parent.$ts(name);
     }
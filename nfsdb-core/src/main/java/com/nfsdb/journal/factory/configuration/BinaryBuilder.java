@@ -27,4 +27,9 @@ public class BinaryBuilder<T> extends AbstractMetadataBuilder<T> {
         this.meta.size = size;
         return this;
     }
+
+    public BinaryBuilder<T> notNull() {
+        this.meta.notNull = true;
+        return this;
+    }
 }
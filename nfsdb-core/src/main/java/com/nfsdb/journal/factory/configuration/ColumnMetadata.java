@@ -16,7 +16,9 @@
 
 package com.nfsdb.journal.factory.configuration;
 
+import com.nfsdb.journal.column.ColumnCodec;
 import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.StringEncoding;
 
 public class ColumnMetadata {
     public String name;
@@ -29,6 +31,14 @@ public class ColumnMetadata {
     public int indexBitHint;
     public int distinctCountHint;
     public String sameAs;
+    public ColumnCodec codec = ColumnCodec.NONE;
+    public boolean zoneMap;
+    public StringEncoding encoding = StringEncoding.UTF16;
+    public boolean notNull;
+    public boolean bitmap;
+    public boolean rangeIndex;
+    public boolean fingerprint;
+    public boolean latestRowIDs;
 
     @Override
     public String toString() {
@@ -43,6 +53,14 @@ public class ColumnMetadata {
                 ", indexBitHint=" + indexBitHint +
                 ", distinctCountHint*=" + distinctCountHint +
                 ", sameAs*='" + sameAs + '\'' +
+                ", codec=" + codec +
+                ", zoneMap=" + zoneMap +
+                ", encoding*=" + encoding +
+                ", notNull*=" + notNull +
+                ", bitmap=" + bitmap +
+                ", rangeIndex=" + rangeIndex +
+                ", fingerprint*=" + fingerprint +
+                ", latestRowIDs=" + latestRowIDs +
                 '}';
     }
 
@@ -57,5 +75,13 @@ public class ColumnMetadata {
         this.indexBitHint = from.indexBitHint;
         this.distinctCountHint = from.distinctCountHint;
         this.sameAs = from.sameAs;
+        this.codec = from.codec;
+        this.zoneMap = from.zoneMap;
+        this.encoding = from.encoding;
+        this.notNull = from.notNull;
+        this.bitmap = from.bitmap;
+        this.rangeIndex = from.rangeIndex;
+        this.fingerprint = from.fingerprint;
+        this.latestRowIDs = from.latestRowIDs;
     }
 }
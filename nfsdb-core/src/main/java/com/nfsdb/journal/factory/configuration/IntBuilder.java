@@ -16,6 +16,8 @@
 
 package com.nfsdb.journal.factory.configuration;
 
+import com.nfsdb.journal.column.ColumnCodec;
+
 public class IntBuilder<T> extends AbstractMetadataBuilder<T> {
 
     public IntBuilder(JournalMetadataBuilder<T> parent, ColumnMetadata meta) {
@@ -32,4 +34,24 @@ public class IntBuilder<T> extends AbstractMetadataBuilder<T> {
         this.meta.distinctCountHint = buckets;
         return this;
     }
+
+    public IntBuilder<T> codec(ColumnCodec codec) {
+        this.meta.codec = codec;
+        return this;
+    }
+
+    public IntBuilder<T> zoneMap() {
+        this.meta.zoneMap = true;
+        return this;
+    }
+
+    public IntBuilder<T> rangeIndex() {
+        this.meta.rangeIndex = true;
+        return this;
+    }
+
+    public IntBuilder<T> notNull() {
+        this.meta.notNull = true;
+        return this;
+    }
 }
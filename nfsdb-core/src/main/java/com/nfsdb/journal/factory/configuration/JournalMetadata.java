@@ -17,6 +17,7 @@
 package com.nfsdb.journal.factory.configuration;
 
 import com.nfsdb.journal.PartitionType;
+import com.nfsdb.journal.column.MappedFileType;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.factory.NullsAdaptor;
 import com.nfsdb.journal.factory.NullsAdaptorFactory;
@@ -62,4 +63,8 @@ public interface JournalMetadata<T> {
     String getKey();
 
     String getKeyQuiet();
+
+    MappedFileType getMappedFileType();
+
+    int getPrefetchDepth();
 }
@@ -18,7 +18,11 @@ package com.nfsdb.journal.factory.configuration;
 
 import com.nfsdb.journal.PartitionType;
 import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.MappedFileType;
+import com.nfsdb.journal.column.StringEncoding;
+import com.nfsdb.journal.column.ZoneMap;
 import com.nfsdb.journal.exceptions.JournalConfigurationException;
+import com.nfsdb.journal.index.RangeIndex;
 import com.nfsdb.journal.factory.NullsAdaptorFactory;
 import com.nfsdb.journal.utils.ByteBuffers;
 import com.nfsdb.journal.utils.Unsafe;
@@ -46,6 +50,8 @@ public class JournalMetadataBuilder<T> {
     private long openFileTTL = TimeUnit.MINUTES.toMillis(3);
     private int lag = -1;
     private NullsAdaptorFactory<T> nullsFactory;
+    private MappedFileType mappedFileType = MappedFileType.PAGED;
+    private int prefetchDepth = 0;
 
     public JournalMetadataBuilder(Class<T> modelClass) {
         this.modelClass = modelClass;
@@ -64,6 +70,8 @@ public class JournalMetadataBuilder<T> {
         this.openFileTTL = model.getOpenFileTTL();
         this.lag = model.getLag();
         this.nullsFactory = model.getNullsAdaptorFactory();
+        this.mappedFileType = model.getMappedFileType();
+        this.prefetchDepth = model.getPrefetchDepth();
 
         for (int i = 0; i < model.getColumnCount(); i++) {
             ColumnMetadata from = model.getColumnMetadata(i);
@@ -88,6 +96,14 @@ public class JournalMetadataBuilder<T> {
         return new IntBuilder<>(this, getMeta(name));
     }
 
+    public LongBuilder<T> $long(String name) {
+        return new LongBuilder<>(this, getMeta(name));
+    }
+
+    public DoubleBuilder<T> $double(String name) {
+        return new DoubleBuilder<>(this, getMeta(name));
+    }
+
     public JournalMetadataBuilder<T> $ts() {
         return $ts("timestamp");
     }
@@ -140,6 +156,20 @@ public class JournalMetadataBuilder<T> {
         return this;
     }
 
+    public JournalMetadataBuilder<T> mappedFileType(MappedFileType type) {
+        this.mappedFileType = type;
+        return this;
+    }
+
+    /**
+     * Number of buffers bulk readers map ahead of sequential scan on a background thread.
+     * Zero, which is the default, disables prefetching.
+     */
+    public JournalMetadataBuilder<T> prefetchDepth(int depth) {
+        this.prefetchDepth = depth;
+        return this;
+    }
+
     public String getLocation() {
         return location;
     }
@@ -167,6 +197,30 @@ public class JournalMetadataBuilder<T> {
                 throw new JournalConfigurationException("Invalid size for column %s.%s", modelClass.getName(), meta.name);
             }
 
+            if (!meta.codec.supports(meta.type)) {
+                throw new JournalConfigurationException("Codec %s is not applicable to column %s.%s", meta.codec, modelClass.getName(), meta.name);
+            }
+
+            if (meta.zoneMap && !ZoneMap.supports(meta.type)) {
+                throw new JournalConfigurationException("Zone map is not supported for column %s.%s", modelClass.getName(), meta.name);
+            }
+
+            if (meta.fingerprint && meta.type != ColumnType.STRING) {
+                throw new JournalConfigurationException("Fingerprint is only supported for STRING column %s.%s", modelClass.getName(), meta.name);
+            }
+
+            if (meta.rangeIndex && !RangeIndex.supports(meta.type)) {
+                throw new JournalConfigurationException("Range index is not supported for column %s.%s", modelClass.getName(), meta.name);
+            }
+
+            if (meta.type == ColumnType.FIXED_STRING && meta.size <= 0) {
+                throw new JournalConfigurationException("Invalid width %d of fixed string column %s.%s", meta.size, modelClass.getName(), meta.name);
+            }
+
+            if (meta.encoding != StringEncoding.UTF16 && meta.type != ColumnType.STRING) {
+                throw new JournalConfigurationException("Encoding %s is not applicable to column %s.%s", meta.encoding, modelClass.getName(), meta.name);
+            }
+
             // distinctCount
             if (meta.distinctCountHint <= 0) {
                 meta.distinctCountHint = (int) (recordCountHint * 0.2); //20%
@@ -203,6 +257,8 @@ public class JournalMetadataBuilder<T> {
                 , txCountHint
                 , lag
                 , nullsFactory
+                , mappedFileType
+                , prefetchDepth
         );
     }
 
@@ -17,6 +17,7 @@
 package com.nfsdb.journal.factory.configuration;
 
 import com.nfsdb.journal.PartitionType;
+import com.nfsdb.journal.column.MappedFileType;
 import com.nfsdb.journal.exceptions.JournalConfigurationException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.factory.NullsAdaptor;
@@ -49,6 +50,8 @@ public class JournalMetadataImpl<T> implements JournalMetadata<T> {
     private final TObjectIntMap<String> columnIndexLookup;
     private final int timestampColumnIndex;
     private final int lag;
+    private final MappedFileType mappedFileType;
+    private final int prefetchDepth;
 
     public JournalMetadataImpl(
             Class<T> modelClass
@@ -63,6 +66,8 @@ public class JournalMetadataImpl<T> implements JournalMetadata<T> {
             , int ioBlockTxCount
             , int lag
             , NullsAdaptorFactory<T> nullsAdaptorFactory
+            , MappedFileType mappedFileType
+            , int prefetchDepth
     ) {
         this.modelClass = modelClass;
         this.nullsAdaptorFactory = nullsAdaptorFactory;
@@ -84,6 +89,8 @@ public class JournalMetadataImpl<T> implements JournalMetadata<T> {
             columnIndexLookup.put(columnMetadata[i].name, i);
         }
         this.lag = lag;
+        this.mappedFileType = mappedFileType;
+        this.prefetchDepth = prefetchDepth;
     }
 
     @Override
@@ -196,6 +203,16 @@ public class JournalMetadataImpl<T> implements JournalMetadata<T> {
         return nullsAdaptorFactory;
     }
 
+    @Override
+    public MappedFileType getMappedFileType() {
+        return mappedFileType;
+    }
+
+    @Override
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
     @Override
     public String toString() {
         return "JournalMetaImpl{" +
@@ -216,6 +233,8 @@ public class JournalMetadataImpl<T> implements JournalMetadata<T> {
                 ", columnIndexLookup=" + columnIndexLookup +
                 ", timestampColumnIndex=" + timestampColumnIndex +
                 ", lag=" + lag +
+                ", mappedFileType=" + mappedFileType +
+                ", prefetchDepth=" + prefetchDepth +
                 '}';
     }
 }
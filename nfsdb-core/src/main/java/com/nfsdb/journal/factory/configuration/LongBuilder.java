@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.nfsdb.journal.factory.configuration;
+
+import com.nfsdb.journal.column.ColumnCodec;
+
+public class LongBuilder<T> extends AbstractMetadataBuilder<T> {
+
+    public LongBuilder(JournalMetadataBuilder<T> parent, ColumnMetadata meta) {
+        super(parent, meta);
+    }
+
+    public LongBuilder<T> codec(ColumnCodec codec) {
+        this.meta.codec = codec;
+        return this;
+    }
+
+    public LongBuilder<T> zoneMap() {
+        this.meta.zoneMap = true;
+        return this;
+    }
+
+    public LongBuilder<T> rangeIndex() {
+        this.meta.rangeIndex = true;
+        return this;
+    }
+
+    public LongBuilder<T> notNull() {
+        this.meta.notNull = true;
+        return this;
+    }
+}
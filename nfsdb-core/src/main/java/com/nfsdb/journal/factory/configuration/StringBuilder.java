@@ -16,6 +16,9 @@
 
 package com.nfsdb.journal.factory.configuration;
 
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.StringEncoding;
+
 public class StringBuilder<T> extends AbstractMetadataBuilder<T> {
 
     public StringBuilder(JournalMetadataBuilder<T> parent, ColumnMetadata meta) {
@@ -28,14 +31,48 @@ public class StringBuilder<T> extends AbstractMetadataBuilder<T> {
         return this;
     }
 
+    /**
+     * Indexes column and keeps 64-bit hash of each value next to column data. Index buckets are derived from
+     * the hash, so their number is not limited to 65536, and filters reject most values of the same bucket
+     * by comparing hashes instead of reading strings.
+     */
+    public StringBuilder<T> fingerprint() {
+        this.meta.indexed = true;
+        this.meta.fingerprint = true;
+        return this;
+    }
+
     public StringBuilder<T> buckets(int buckets) {
         this.meta.distinctCountHint = buckets;
         return this;
     }
 
+    /**
+     * Stores values inline in fixed width column instead of variable length data and index files.
+     * Each char takes one byte, values must not be longer than width.
+     *
+     * @param width maximum length of value
+     */
+    public StringBuilder<T> fixed(int width) {
+        this.meta.type = ColumnType.FIXED_STRING;
+        this.meta.size = width;
+        this.meta.avgSize = width;
+        return this;
+    }
+
+    public StringBuilder<T> encoding(StringEncoding encoding) {
+        this.meta.encoding = encoding;
+        return this;
+    }
+
     public StringBuilder<T> size(int size) {
         this.meta.avgSize = size;
         this.meta.size = size + 4;
         return this;
     }
+
+    public StringBuilder<T> notNull() {
+        this.meta.notNull = true;
+        return this;
+    }
 }
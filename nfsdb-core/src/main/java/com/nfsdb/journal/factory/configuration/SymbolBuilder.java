@@ -16,6 +16,7 @@
 
 package com.nfsdb.journal.factory.configuration;
 
+import com.nfsdb.journal.column.ColumnCodec;
 import com.nfsdb.journal.column.ColumnType;
 import com.nfsdb.journal.exceptions.JournalConfigurationException;
 
@@ -48,4 +49,34 @@ public class SymbolBuilder<T> extends AbstractMetadataBuilder<T> {
         this.meta.indexed = true;
         return this;
     }
+
+    /**
+     * Indexes column and keeps compressed bitmaps of index keys in memory, which makes
+     * filter combinations on this column cheap. Index files are the same as for #index().
+     */
+    public SymbolBuilder<T> bitmap() {
+        this.meta.indexed = true;
+        this.meta.bitmap = true;
+        return this;
+    }
+
+    /**
+     * Indexes column and has writer keep latest row ID of each key in a table next to symbol files, so that
+     * head queries on this column do not walk partitions backwards.
+     */
+    public SymbolBuilder<T> latestRowIDs() {
+        this.meta.indexed = true;
+        this.meta.latestRowIDs = true;
+        return this;
+    }
+
+    public SymbolBuilder<T> codec(ColumnCodec codec) {
+        this.meta.codec = codec;
+        return this;
+    }
+
+    public SymbolBuilder<T> notNull() {
+        this.meta.notNull = true;
+        return this;
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.index;
+
+import java.util.ArrayList;
+
+/**
+ * Compressed bitmap view of KVIndex. Bitmaps are built from index values on first access to a key and
+ * kept in memory, subsequent accesses only add values appended to index since. Bitmaps are rebuilt when
+ * index shrinks, e.g. after truncate or when reader is moved to older transaction.
+ */
+public class BitmapIndex {
+    private static final int ROW_BUFFER_SIZE = 256;
+    private final KVIndex index;
+    private final ArrayList<Entry> entries = new ArrayList<>();
+
+    public BitmapIndex(KVIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Builds bitmap of all values of key in index.
+     *
+     * @param index index to read values from
+     * @param key   value of key
+     * @return new bitmap, empty if key does not exist
+     */
+    public static RoaringBitmap build(KVIndex index, int key) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        KVIndex.ForwardIndexCursor cursor = index.cachedForwardCursor(key);
+        long rows[] = new long[(int) Math.min(cursor.size(), ROW_BUFFER_SIZE)];
+        int n;
+        while ((n = cursor.read(rows)) > 0) {
+            for (int i = 0; i < n; i++) {
+                bitmap.add(rows[i]);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Bitmap of values of key. Returned instance is shared and must not be modified.
+     *
+     * @param key value of key
+     * @return bitmap, empty if key does not exist
+     */
+    public RoaringBitmap getBitmap(int key) {
+        if (key < 0) {
+            return new RoaringBitmap();
+        }
+
+        while (entries.size() <= key) {
+            entries.add(null);
+        }
+
+        Entry e = entries.get(key);
+        int count = index.getValueCount(key);
+
+        if (e == null || count < e.count || (e.count > 0 && index.getValueQuick(key, e.count - 1) != e.bitmap.last())) {
+            e = new Entry();
+            e.bitmap = build(index, key);
+            e.count = count;
+            entries.set(key, e);
+        } else {
+            for (int i = e.count; i < count; i++) {
+                e.bitmap.add(index.getValueQuick(key, i));
+            }
+            e.count = count;
+        }
+        return e.bitmap;
+    }
+
+    public KVIndex getIndex() {
+        return index;
+    }
+
+    private static class Entry {
+        RoaringBitmap bitmap;
+        int count;
+    }
+}
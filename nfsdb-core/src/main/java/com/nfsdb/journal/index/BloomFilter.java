@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.index;
+
+import com.nfsdb.journal.exceptions.JournalException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Set of index keys present in partition, with false positives but no false negatives. Writer builds filter
+ * when partition is sealed, so that keyed queries can skip partitions that definitely don't contain a key
+ * without mapping index files. Filter is small and read into heap in one go.
+ * <p/>
+ * File layout:
+ * <pre>
+ * int      number of hash functions
+ * int      number of 64bit words
+ * ...      long words of bit array
+ * </pre>
+ */
+public class BloomFilter {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_COUNT = 7;
+    private final long words[];
+    private final int hashCount;
+    private final long bitCount;
+
+    public BloomFilter(int keyCount) {
+        this(HASH_COUNT, new long[Math.max(1, (int) (((long) Math.max(keyCount, 1) * BITS_PER_KEY + 63) >>> 6))]);
+    }
+
+    private BloomFilter(int hashCount, long words[]) {
+        this.hashCount = hashCount;
+        this.words = words;
+        this.bitCount = (long) words.length << 6;
+    }
+
+    /**
+     * Builds filter of all keys that have values in index.
+     *
+     * @param index the index
+     * @return filter
+     */
+    public static BloomFilter build(KVIndex index) {
+        int n = index.getKeyCount();
+        int count = 0;
+        for (int key = -1; key < n; key++) {
+            if (index.contains(key)) {
+                count++;
+            }
+        }
+
+        BloomFilter filter = new BloomFilter(count);
+        for (int key = -1; key < n; key++) {
+            if (index.contains(key)) {
+                filter.add(key);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Reads filter from file.
+     *
+     * @param file the file
+     * @return filter or null if file doesn't exist
+     * @throws JournalException if file cannot be read
+     */
+    public static BloomFilter read(File file) throws JournalException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel ch = fis.getChannel();
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buf.hasRemaining() && ch.read(buf) != -1) {
+                // read whole file
+            }
+            buf.flip();
+            if (buf.remaining() < HEADER_SIZE) {
+                throw new JournalException("Truncated bloom filter: %s", file);
+            }
+            int hashCount = buf.getInt();
+            int wordCount = buf.getInt();
+            if (hashCount < 1 || wordCount < 1 || buf.remaining() != wordCount * 8) {
+                throw new JournalException("Corrupt bloom filter: %s", file);
+            }
+            long words[] = new long[wordCount];
+            buf.asLongBuffer().get(words);
+            return new BloomFilter(hashCount, words);
+        } catch (IOException e) {
+            throw new JournalException("Cannot read from %s", e, file.getAbsolutePath());
+        }
+    }
+
+    public void add(int key) {
+        long h = mix(key);
+        long h1 = h & Long.MAX_VALUE;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            words[((int) (bit >>> 6))] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int key) {
+        long h = mix(key);
+        long h1 = h & Long.MAX_VALUE;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((words[((int) (bit >>> 6))] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes filter to temporary file and renames it, so that readers never see partially written filter.
+     *
+     * @param file the file
+     * @throws JournalException if file cannot be written
+     */
+    public void write(File file) throws JournalException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + words.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(hashCount);
+        buf.putInt(words.length);
+        buf.asLongBuffer().put(words);
+        buf.clear();
+
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                FileChannel ch = fos.getChannel();
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+            }
+        } catch (IOException e) {
+            throw new JournalException("Cannot write to %s", e, tmp.getAbsolutePath());
+        }
+
+        if (!tmp.renameTo(file)) {
+            throw new JournalException("Cannot rename %s to %s", tmp, file);
+        }
+    }
+
+    private static long mix(int key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -22,7 +22,7 @@ import com.nfsdb.journal.exceptions.JournalException;
 import java.nio.ByteBuffer;
 
 public class IndexCursor implements Cursor {
-    private int remainingBlockCount;
+    private int block;
     private int remainingRowCount;
     private long rowBlockOffset;
     private ByteBuffer buffer;
@@ -41,7 +41,7 @@ public class IndexCursor implements Cursor {
         }
         this.index = partition.getIndexForColumn(columnIndex);
 
-        this.remainingBlockCount = 0;
+        this.block = 0;
         this.remainingRowCount = 0;
 
         if (key < 0) {
@@ -53,7 +53,7 @@ public class IndexCursor implements Cursor {
             return;
         }
 
-        ByteBuffer buf = index.kData.getBuffer(keyOffset, KVIndex.ENTRY_SIZE);
+        ByteBuffer buf = index.kData.getBuffer(keyOffset, index.entrySize);
         this.rowBlockOffset = buf.getLong();
         this.size = buf.getLong();
 
@@ -61,15 +61,9 @@ public class IndexCursor implements Cursor {
             return;
         }
 
-        this.remainingBlockCount = (int) (this.size / index.rowBlockLen) + 1;
-        this.remainingRowCount = (int) (this.size % index.rowBlockLen);
-
-        if (remainingRowCount == 0) {
-            remainingBlockCount--;
-            remainingRowCount = index.rowBlockLen;
-        }
-
-        this.buffer = index.rData.getBuffer(this.rowBlockOffset - index.rowBlockSize, index.rowBlockSize);
+        this.block = index.blockOf(size - 1);
+        this.remainingRowCount = (int) (size - index.blockStart(block));
+        this.buffer = index.rData.getBuffer(this.rowBlockOffset - index.blockSize(block), index.blockSize(block));
         this.bufPos = buffer.position();
     }
 
@@ -80,22 +74,19 @@ public class IndexCursor implements Cursor {
     }
 
     public boolean hasNext() {
-        return this.remainingRowCount > 0 || this.remainingBlockCount > 0;
+        return this.remainingRowCount > 0 || this.block > 0;
     }
 
     public long next() {
         if (remainingRowCount == 0) {
-            this.buffer = index.rData.getBuffer(rowBlockOffset - index.rowBlockSize, index.rowBlockSize);
+            this.rowBlockOffset = this.buffer.getLong(this.bufPos + index.blockLen(block) * 8);
+            this.block--;
+            this.buffer = index.rData.getBuffer(rowBlockOffset - index.blockSize(block), index.blockSize(block));
             this.bufPos = buffer.position();
-            this.remainingRowCount = index.rowBlockLen;
+            this.remainingRowCount = index.blockLen(block);
         }
 
-        long result = this.buffer.getLong(this.bufPos + --this.remainingRowCount * 8);
-
-        if (remainingRowCount == 0 && --this.remainingBlockCount > 0) {
-            this.rowBlockOffset = this.buffer.getLong(this.bufPos + index.rowBlockLen * 8);
-        }
-        return result;
+        return this.buffer.getLong(this.bufPos + --this.remainingRowCount * 8);
     }
 
     public long size() {
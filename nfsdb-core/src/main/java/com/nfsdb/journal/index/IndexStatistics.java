@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.index;
+
+import com.nfsdb.journal.exceptions.JournalException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Exact summary of how index values are distributed between keys: number of keys that have values, total number
+ * of values, value count of the largest key and histogram of keys by log2 of their value count. Writer keeps
+ * statistics of sealed partitions next to their index, so that they can be used for query planning and for sizing
+ * row blocks of index in next partition.
+ * <p/>
+ * File layout:
+ * <pre>
+ * int      number of keys with values
+ * long     number of values
+ * long     value count of the largest key
+ * int      number of histogram buckets
+ * ...      int key count of each bucket, bucket i counts keys with 2^i to 2^(i+1)-1 values
+ * </pre>
+ */
+public class IndexStatistics {
+
+    public static final int BUCKET_COUNT = 64;
+    private static final int HEADER_SIZE = 24;
+    // first row block is expected to hold all values of this share of keys
+    private static final int ROW_BLOCK_PERCENTILE = 50;
+    // number of full length row blocks of the largest key
+    private static final int LARGEST_KEY_BLOCKS = 8;
+    private final int histogram[] = new int[BUCKET_COUNT];
+    private int keyCount;
+    private long valueCount;
+    private long maxValueCount;
+
+    /**
+     * Counts values of every key in index.
+     *
+     * @param index the index
+     * @return statistics of index
+     */
+    public static IndexStatistics build(KVIndex index) {
+        IndexStatistics stats = new IndexStatistics();
+        for (int key = -1, n = index.getKeyCount(); key < n; key++) {
+            stats.add(index.getValueCount(key));
+        }
+        return stats;
+    }
+
+    /**
+     * Reads statistics from file.
+     *
+     * @param file the file
+     * @return statistics or null if file doesn't exist
+     * @throws JournalException if file cannot be read
+     */
+    public static IndexStatistics read(File file) throws JournalException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel ch = fis.getChannel();
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buf.hasRemaining() && ch.read(buf) != -1) {
+                // read whole file
+            }
+            buf.flip();
+            if (buf.remaining() < HEADER_SIZE) {
+                throw new JournalException("Truncated index statistics: %s", file);
+            }
+            IndexStatistics stats = new IndexStatistics();
+            stats.keyCount = buf.getInt();
+            stats.valueCount = buf.getLong();
+            stats.maxValueCount = buf.getLong();
+            int bucketCount = buf.getInt();
+            if (bucketCount != BUCKET_COUNT || buf.remaining() != bucketCount * 4) {
+                throw new JournalException("Corrupt index statistics: %s", file);
+            }
+            buf.asIntBuffer().get(stats.histogram);
+            return stats;
+        } catch (IOException e) {
+            throw new JournalException("Cannot read from %s", e, file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Adds key to statistics. Keys without values are not counted.
+     *
+     * @param count number of values of key
+     */
+    public void add(long count) {
+        if (count <= 0) {
+            return;
+        }
+        keyCount++;
+        valueCount += count;
+        if (count > maxValueCount) {
+            maxValueCount = count;
+        }
+        histogram[63 - Long.numberOfLeadingZeros(count)]++;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    public long getMaxValueCount() {
+        return maxValueCount;
+    }
+
+    /**
+     * @param bucket histogram bucket
+     * @return number of keys with 2^bucket to 2^(bucket+1)-1 values
+     */
+    public int getKeyCount(int bucket) {
+        return histogram[bucket];
+    }
+
+    /**
+     * Upper bound of value count of keys at given percentile. Bound is a power of two, which is at most twice
+     * the actual count.
+     *
+     * @param percent the percentile, 0 to 100
+     * @return value count, which given percentage of keys doesn't exceed. 0 when there are no keys.
+     */
+    public long getValueCountBound(int percent) {
+        long rank = Math.max(1, ((long) keyCount * percent + 99) / 100);
+        long keys = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            keys += histogram[i];
+            if (keys >= rank) {
+                return i < 62 ? (1L << (i + 1)) - 1 : Long.MAX_VALUE;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Length of first row block for index of similar distribution. First block holds all values of
+     * a typical key, so that most keys never allocate second block.
+     *
+     * @return number of values
+     */
+    public int getRowBlockLen() {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, getValueCountBound(ROW_BLOCK_PERCENTILE)));
+    }
+
+    /**
+     * Number of times row blocks should double in length for index of similar distribution. Blocks grow until
+     * the largest key fits into a few full length blocks.
+     *
+     * @param rowBlockLen length of first row block
+     * @return block growth for {@link KVIndex}
+     */
+    public int getBlockGrowth(int rowBlockLen) {
+        long target = maxValueCount / LARGEST_KEY_BLOCKS;
+        int growth = 0;
+        while (growth < KVIndex.MAX_BLOCK_GROWTH && ((long) rowBlockLen << (growth + 1)) <= target) {
+            growth++;
+        }
+        return growth;
+    }
+
+    /**
+     * Writes statistics to temporary file and renames it, so that readers never see partially written file.
+     *
+     * @param file the file
+     * @throws JournalException if file cannot be written
+     */
+    public void write(File file) throws JournalException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + BUCKET_COUNT * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(keyCount);
+        buf.putLong(valueCount);
+        buf.putLong(maxValueCount);
+        buf.putInt(BUCKET_COUNT);
+        buf.asIntBuffer().put(histogram);
+        buf.clear();
+
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                FileChannel ch = fos.getChannel();
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+            }
+        } catch (IOException e) {
+            throw new JournalException("Cannot write to %s", e, tmp.getAbsolutePath());
+        }
+
+        if (!tmp.renameTo(file)) {
+            throw new JournalException("Cannot rename %s to %s", tmp, file);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStatistics{" +
+                "keyCount=" + keyCount +
+                ", valueCount=" + valueCount +
+                ", maxValueCount=" + maxValueCount +
+                '}';
+    }
+}
@@ -36,34 +36,72 @@ public class KVIndex implements Closeable {
         storage for row count and offset
         block structure in kData is [int, long] for header and [long, long] for [offset, count]
         struct kdata{
-           int rowBlockSize
+           int rowBlockLen
+           byte version
+           byte blockGrowth // version 1 and above
+           short reserved
            long firstEntryOffset
            struct kdataEntry {
                  long offsetOfTail
                  long rowCount
+                 long directoryOffset // version 1 and above
            }
         }
     */
 
     public static final int ENTRY_SIZE = 16;
+    /*
+        format version 1 keeps block directory for each key in bData. Directory is an array of row block
+        offsets in order blocks were allocated, which makes locating block of any value a constant time
+        operation. When array fills up it is copied to a new array of twice the size at the end of bData,
+        so that directories visible to older transactions are never modified.
+    */
+    public static final int VERSION_BLOCK_DIRECTORY = 1;
+    /*
+        row blocks of a key double in length from rowBlockLen until they are 2^blockGrowth times longer,
+        after which all blocks are of that length. Growth of 0 gives the original fixed length blocks.
+    */
+    public static final int MAX_BLOCK_GROWTH = 20;
+    private static final int MAX_ROW_BLOCK_LEN = 134217728;
+    private static final int DIRECTORY_ENTRY_SIZE = 24;
+    private static final int MIN_DIRECTORY_CAPACITY = 4;
 
     MappedFileImpl kData;
     // storage for rows
     // block structure is [ rowid1, rowid2 ..., rowidn, prevBlockOffset]
     MappedFileImpl rData;
-    int rowBlockSize;
+    // storage for block directories, null for indexes created without them
+    MappedFileImpl bData;
+    int entrySize;
     int rowBlockLen;
+    int blockGrowth;
     long firstEntryOffset;
     long keyBlockSize;
     private final IndexCursor cachedCursor = new IndexCursor();
+    private final ForwardIndexCursor cachedForwardCursor = new ForwardIndexCursor();
     private long keyBlockAddressOffset;
     private long keyBlockSizeOffset;
     private long maxValue;
     private boolean inTransaction = false;
 
     public KVIndex(File baseName, long keyCountHint, long recordCountHint, int txCountHint, JournalMode mode, long txAddress) throws JournalException {
+        this(baseName, keyCountHint, recordCountHint, txCountHint, mode, txAddress, 0);
+    }
+
+    /**
+     * Opens or creates index. Length of first row block of each key is recordCountHint / keyCountHint, further
+     * blocks are twice as long as previous until they reach 2^blockGrowth times the length of first block.
+     * Both block length and growth are ignored for existing index files, which keep values they were created with.
+     *
+     * @param blockGrowth number of times row block length doubles for each key, 0 for fixed length blocks.
+     */
+    public KVIndex(File baseName, long keyCountHint, long recordCountHint, int txCountHint, JournalMode mode, long txAddress, int blockGrowth) throws JournalException {
         int bitHint = (int) Math.min(Integer.MAX_VALUE, Math.max(keyCountHint, 1));
-        this.rowBlockLen = (int) Math.min(134217728, Math.max(recordCountHint / bitHint, 1));
+        this.rowBlockLen = (int) Math.min(MAX_ROW_BLOCK_LEN, Math.max(recordCountHint / bitHint, 1));
+        this.blockGrowth = Math.max(0, Math.min(MAX_BLOCK_GROWTH, blockGrowth));
+        while (this.blockGrowth > 0 && ((long) rowBlockLen << this.blockGrowth) > MAX_ROW_BLOCK_LEN) {
+            this.blockGrowth--;
+        }
         this.kData = new MappedFileImpl(new File(baseName.getParentFile(), baseName.getName() + ".k"), ByteBuffers.getBitHint(8, bitHint * txCountHint), mode);
         this.keyBlockAddressOffset = 8;
 
@@ -71,27 +109,39 @@ public class KVIndex implements Closeable {
         this.keyBlockSize = 0;
         this.maxValue = 0;
 
+        File dirFile = new File(baseName.getParentFile(), baseName.getName() + ".b");
+        boolean directory;
+
         if (kData.getAppendOffset() > 0) {
-            this.rowBlockLen = (int) getLong(kData, 0);
+            long header = getLong(kData, 0);
+            this.rowBlockLen = (int) header;
+            this.blockGrowth = (int) ((header >>> 40) & 0xFF);
+            directory = ((header >>> 32) & 0xFF) >= VERSION_BLOCK_DIRECTORY;
             this.keyBlockSizeOffset = txAddress == 0 ? getLong(kData, keyBlockAddressOffset) : txAddress;
             this.keyBlockSize = getLong(kData, keyBlockSizeOffset);
             this.maxValue = getLong(kData, keyBlockSizeOffset + 8);
         } else if (mode == JournalMode.APPEND || mode == JournalMode.BULK_APPEND) {
-            putLong(kData, 0, this.rowBlockLen); // 8
+            putLong(kData, 0, ((long) blockGrowth << 40) | ((long) VERSION_BLOCK_DIRECTORY << 32) | this.rowBlockLen); // 8
+            directory = true;
             putLong(kData, keyBlockAddressOffset, keyBlockSizeOffset); // 8
             putLong(kData, keyBlockSizeOffset, keyBlockSize); // 8
             putLong(kData, keyBlockSizeOffset + 8, maxValue); // 8
             kData.setAppendOffset(8 + 8 + 8 + 8);
+        } else {
+            directory = dirFile.exists();
+            this.blockGrowth = 0;
         }
 
         this.firstEntryOffset = keyBlockSizeOffset + 16;
-        this.rowBlockSize = rowBlockLen * 8 + 8;
-        this.rData = new MappedFileImpl(new File(baseName.getParentFile(), baseName.getName() + ".r"), ByteBuffers.getBitHint(rowBlockSize, bitHint), mode);
+        this.rData = new MappedFileImpl(new File(baseName.getParentFile(), baseName.getName() + ".r"), ByteBuffers.getBitHint(blockSize(0), bitHint), mode);
+        this.bData = directory ? new MappedFileImpl(dirFile, ByteBuffers.getBitHint(8 * MIN_DIRECTORY_CAPACITY, bitHint), mode) : null;
+        this.entrySize = directory ? DIRECTORY_ENTRY_SIZE : ENTRY_SIZE;
     }
 
     public static void delete(File base) {
         Files.delete(new File(base.getParentFile(), base.getName() + ".k"));
         Files.delete(new File(base.getParentFile(), base.getName() + ".r"));
+        Files.delete(new File(base.getParentFile(), base.getName() + ".b"));
     }
 
     /**
@@ -112,35 +162,39 @@ public class KVIndex implements Closeable {
 
         if (keyOffset >= firstEntryOffset + keyBlockSize) {
             long oldSize = keyBlockSize;
-            keyBlockSize = keyOffset + ENTRY_SIZE - firstEntryOffset;
+            keyBlockSize = keyOffset + entrySize - firstEntryOffset;
             // if keys are added in random order there will be gaps in key block with possibly random values
-            // to mitigate that as soon as we see an attempt to extend key block past ENTRY_SIZE we need to
+            // to mitigate that as soon as we see an attempt to extend key block past entrySize we need to
             // fill created gap with zeroes.
-            if (keyBlockSize - oldSize > ENTRY_SIZE) {
+            if (keyBlockSize - oldSize > entrySize) {
                 Unsafe.getUnsafe().setMemory(
                         kData.getAddress(
                                 firstEntryOffset + oldSize
-                                , (int) (keyBlockSize - oldSize - ENTRY_SIZE)
+                                , (int) (keyBlockSize - oldSize - entrySize)
                         )
-                        , keyBlockSize - oldSize - ENTRY_SIZE
+                        , keyBlockSize - oldSize - entrySize
                         , (byte) 0
                 );
             }
         }
 
-        long address = kData.getAddress(keyOffset, ENTRY_SIZE);
+        long address = kData.getAddress(keyOffset, entrySize);
         rowBlockOffset = Unsafe.getUnsafe().getLong(address);
         rowCount = Unsafe.getUnsafe().getLong(address + 8);
 
-        int cellIndex = (int) (rowCount % rowBlockLen);
+        int block = blockOf(rowCount);
+        int cellIndex = (int) (rowCount - blockStart(block));
         if (rowBlockOffset == 0 || cellIndex == 0) {
             long prevBlockOffset = rowBlockOffset;
-            rowBlockOffset = rData.getAppendOffset() + rowBlockSize;
+            rowBlockOffset = rData.getAppendOffset() + blockSize(block);
             rData.setAppendOffset(rowBlockOffset);
             Unsafe.getUnsafe().putLong(rData.getAddress(rowBlockOffset - 8, 8), prevBlockOffset);
             Unsafe.getUnsafe().putLong(address, rowBlockOffset);
+            if (bData != null) {
+                addToDirectory(address, block, rowBlockOffset);
+            }
         }
-        Unsafe.getUnsafe().putLong(rData.getAddress(rowBlockOffset - rowBlockSize + 8 * cellIndex, 8), value);
+        Unsafe.getUnsafe().putLong(rData.getAddress(rowBlockOffset - blockSize(block) + 8L * cellIndex, 8), value);
         Unsafe.getUnsafe().putLong(address + 8, rowCount + 1);
 
         if (maxValue <= value) {
@@ -186,7 +240,8 @@ public class KVIndex implements Closeable {
     }
 
     /**
-     * Searches for indexed value of a key. This method will lookup newest values much faster then oldest.
+     * Searches for indexed value of a key. Indexes with block directory locate value in constant time, older
+     * indexes will lookup newest values much faster then oldest.
      * If either key doesn't exist in index or value index is out of bounds an exception will be thrown.
      *
      * @param key value of key
@@ -203,13 +258,13 @@ public class KVIndex implements Closeable {
             throw new JournalRuntimeException("Index out of bounds: %d, max: %d", i, rowCount - 1);
         }
 
-        int rowBlockCount = (int) (rowCount / rowBlockLen + 1);
-        if (rowCount % rowBlockLen == 0) {
-            rowBlockCount--;
-        }
+        int rowBlockCount = blockOf(rowCount - 1) + 1;
+        int targetBlock = blockOf(i);
+        int cellIndex = (int) (i - blockStart(targetBlock));
 
-        int targetBlock = i / rowBlockLen;
-        int cellIndex = i % rowBlockLen;
+        if (bData != null) {
+            return getLong(rData, getBlockOffset(Unsafe.getUnsafe().getLong(address + 16), targetBlock) - blockSize(targetBlock) + 8L * cellIndex);
+        }
 
         while (targetBlock < --rowBlockCount) {
             rowBlockOffset = getLong(rData, rowBlockOffset - 8);
@@ -218,7 +273,7 @@ public class KVIndex implements Closeable {
             }
         }
 
-        return getLong(rData, rowBlockOffset - rowBlockSize + 8 * cellIndex);
+        return getLong(rData, rowBlockOffset - blockSize(targetBlock) + 8L * cellIndex);
     }
 
     /**
@@ -270,8 +325,9 @@ public class KVIndex implements Closeable {
         long address = keyAddressOrError(key);
         long rowBlockOffset = Unsafe.getUnsafe().getLong(address);
         long rowCount = Unsafe.getUnsafe().getLong(address + 8);
-        int cellIndex = (int) ((rowCount - 1) % rowBlockLen);
-        return getLong(rData, rowBlockOffset - rowBlockSize + 8 * cellIndex);
+        int block = blockOf(rowCount - 1);
+        int cellIndex = (int) (rowCount - 1 - blockStart(block));
+        return getLong(rData, rowBlockOffset - blockSize(block) + 8L * cellIndex);
     }
 
     /**
@@ -309,7 +365,7 @@ public class KVIndex implements Closeable {
         if (keyOffset >= firstEntryOffset + keyBlockSize) {
             return;
         }
-        ByteBuffer buf = kData.getBuffer(keyOffset, ENTRY_SIZE);
+        ByteBuffer buf = kData.getBuffer(keyOffset, entrySize);
         int pos = buf.position();
         long rowBlockOffset = buf.getLong(pos);
         long rowCount = buf.getLong(pos + 8);
@@ -317,25 +373,23 @@ public class KVIndex implements Closeable {
         values.setCapacity((int) rowCount);
         values.setPos((int) rowCount);
 
-        int rowBlockCount = (int) (rowCount / rowBlockLen) + 1;
-        int len = (int) (rowCount % rowBlockLen);
-        if (len == 0) {
-            rowBlockCount--;
-            len = rowBlockLen;
+        if (rowCount == 0) {
+            return;
         }
 
-        for (int i = rowBlockCount - 1; i >= 0; i--) {
-            ByteBuffer b = rData.getBuffer(rowBlockOffset - rowBlockSize, rowBlockSize);
-            int z = i * rowBlockLen;
-            int p = b.position();
+        int block = blockOf(rowCount - 1);
+        int len = (int) (rowCount - blockStart(block));
+
+        for (int i = block; i >= 0; i--) {
+            long address = rData.getAddress(rowBlockOffset - blockSize(i), blockSize(i));
+            int z = (int) blockStart(i);
             for (int k = 0; k < len; k++) {
-                values.setQuick(z + k, b.getLong(p));
-                p += 8;
+                values.setQuick(z + k, Unsafe.getUnsafe().getLong(address + 8L * k));
             }
             if (i > 0) {
-                rowBlockOffset = b.getLong(p + (rowBlockLen - len) * 8);
+                rowBlockOffset = Unsafe.getUnsafe().getLong(address + 8L * blockLen(i));
+                len = blockLen(i - 1);
             }
-            len = rowBlockLen;
         }
     }
 
@@ -343,6 +397,28 @@ public class KVIndex implements Closeable {
         return this.cachedCursor.setKey(key);
     }
 
+    /**
+     * Cursor over values of key in order they were added. Unlike #cachedCursor, which starts from newest value,
+     * this cursor starts from oldest.
+     *
+     * @param key key value
+     * @return cached cursor instance
+     */
+    public ForwardIndexCursor cachedForwardCursor(int key) {
+        return this.cachedForwardCursor.setKey(key);
+    }
+
+    /**
+     * Same as #cachedForwardCursor, except that cursor is a new instance. This is for iterating several keys
+     * side by side.
+     *
+     * @param key key value
+     * @return new cursor instance
+     */
+    public ForwardIndexCursor forwardCursor(int key) {
+        return new ForwardIndexCursor().setKey(key);
+    }
+
     /**
      * Size of index is in fact maximum of all row IDs. This is useful to keep it in same units of measure as
      * size of columns.
@@ -353,12 +429,24 @@ public class KVIndex implements Closeable {
         return maxValue;
     }
 
+    /**
+     * Number of key entries in index. Keys from -1 to count - 1 may have values.
+     *
+     * @return upper bound of keys, exclusive.
+     */
+    public int getKeyCount() {
+        return (int) (keyBlockSize / entrySize) - 1;
+    }
+
     /**
      * Closes underlying files.
      */
     public void close() {
         rData.close();
         kData.close();
+        if (bData != null) {
+            bData.close();
+        }
     }
 
     /**
@@ -370,61 +458,100 @@ public class KVIndex implements Closeable {
     public void compact() throws JournalException {
         kData.compact();
         rData.compact();
+        if (bData != null) {
+            bData.compact();
+        }
     }
 
     public void truncate(long size) {
         long offset = firstEntryOffset;
         long sz = 0;
         while (offset < firstEntryOffset + keyBlockSize) {
-            ByteBuffer buffer = kData.getBuffer(offset, ENTRY_SIZE);
-            buffer.mark();
-            long rowBlockOffset = buffer.getLong();
-            long rowCount = buffer.getLong();
-            int len = (int) (rowCount % rowBlockLen);
-
-            if (len == 0) {
-                len = rowBlockLen;
-            }
-            while (rowBlockOffset > 0) {
-                ByteBuffer buf = rData.getBuffer(rowBlockOffset - rowBlockSize, rowBlockSize);
-                buf.mark();
-                int pos = 0;
-                long max = -1;
-                while (pos < len) {
-                    long v = buf.getLong();
-                    if (v >= size) {
-                        break;
+            long keyAddress = kData.getAddress(offset, entrySize);
+            long rowBlockOffset = Unsafe.getUnsafe().getLong(keyAddress);
+            long rowCount = Unsafe.getUnsafe().getLong(keyAddress + 8);
+
+            if (rowCount > 0) {
+                int block = blockOf(rowCount - 1);
+                int len = (int) (rowCount - blockStart(block));
+
+                while (rowBlockOffset > 0) {
+                    long address = rData.getAddress(rowBlockOffset - blockSize(block), blockSize(block));
+                    int pos = 0;
+                    long max = -1;
+                    while (pos < len) {
+                        long v = Unsafe.getUnsafe().getLong(address + 8L * pos);
+                        if (v >= size) {
+                            break;
+                        }
+                        pos++;
+                        max = v;
                     }
-                    pos++;
-                    max = v;
-                }
 
-                if (max >= sz) {
-                    sz = max + 1;
-                }
+                    if (max >= sz) {
+                        sz = max + 1;
+                    }
 
-                if (pos == 0) {
-                    // discard whole block
-                    buf.reset();
-                    buf.position(buf.position() + rowBlockSize - 8);
-                    rowBlockOffset = buf.getLong();
-                    rowCount -= len;
-                    len = rowBlockLen;
-                } else {
-                    rowCount -= len - pos;
-                    break;
+                    if (pos == 0) {
+                        // discard whole block
+                        rowBlockOffset = Unsafe.getUnsafe().getLong(address + 8L * blockLen(block));
+                        rowCount -= len;
+                        if (--block >= 0) {
+                            len = blockLen(block);
+                        }
+                    } else {
+                        rowCount -= len - pos;
+                        break;
+                    }
                 }
+                Unsafe.getUnsafe().putLong(keyAddress, rowBlockOffset);
+                Unsafe.getUnsafe().putLong(keyAddress + 8, rowCount);
             }
-            buffer.reset();
-            buffer.putLong(rowBlockOffset);
-            buffer.putLong(rowCount);
-            offset += ENTRY_SIZE;
+            offset += entrySize;
         }
 
         maxValue = sz;
         commit();
     }
 
+    /**
+     * Number of values in row block of a key.
+     *
+     * @param block index of block in order blocks were allocated.
+     */
+    int blockLen(int block) {
+        return rowBlockLen << Math.min(block, blockGrowth);
+    }
+
+    /**
+     * Size of row block in bytes, including pointer to previous block.
+     */
+    int blockSize(int block) {
+        return blockLen(block) * 8 + 8;
+    }
+
+    /**
+     * Index of first value of key, which is stored in given row block.
+     */
+    long blockStart(int block) {
+        if (block <= blockGrowth) {
+            return (long) rowBlockLen * ((1L << block) - 1);
+        }
+        return (long) rowBlockLen * ((1L << blockGrowth) - 1 + ((long) (block - blockGrowth) << blockGrowth));
+    }
+
+    /**
+     * Index of row block, which stores value of key at given index.
+     */
+    int blockOf(long i) {
+        long q = i / rowBlockLen;
+        long s = (1L << blockGrowth) - 1;
+        if (q < s) {
+            return 63 - Long.numberOfLeadingZeros(q + 1);
+        }
+        return blockGrowth + (int) ((q - s) >>> blockGrowth);
+    }
+
     private long getLong(MappedFileImpl storage, long offset) {
         return Unsafe.getUnsafe().getLong(storage.getAddress(offset, 8));
     }
@@ -433,6 +560,27 @@ public class KVIndex implements Closeable {
         Unsafe.getUnsafe().putLong(storage.getAddress(offset, 8), value);
     }
 
+    private void addToDirectory(long keyAddress, int blockIndex, long rowBlockOffset) {
+        long dirOffset = Unsafe.getUnsafe().getLong(keyAddress + 16);
+        // directory capacity is the smallest power of two above block count,
+        // so it is full every time block count reaches power of two
+        if (blockIndex == 0 || (blockIndex >= MIN_DIRECTORY_CAPACITY && (blockIndex & (blockIndex - 1)) == 0)) {
+            int capacity = blockIndex == 0 ? MIN_DIRECTORY_CAPACITY : blockIndex << 1;
+            long newOffset = bData.getAppendOffset();
+            bData.setAppendOffset(newOffset + capacity * 8L);
+            for (int i = 0; i < blockIndex; i++) {
+                putLong(bData, newOffset + i * 8L, getLong(bData, dirOffset + i * 8L));
+            }
+            dirOffset = newOffset;
+            Unsafe.getUnsafe().putLong(keyAddress + 16, dirOffset);
+        }
+        putLong(bData, dirOffset + blockIndex * 8L, rowBlockOffset);
+    }
+
+    private long getBlockOffset(long dirOffset, int blockIndex) {
+        return getLong(bData, dirOffset + blockIndex * 8L);
+    }
+
     private void tx() {
         if (!inTransaction) {
             this.keyBlockSizeOffset = kData.getAppendOffset();
@@ -471,7 +619,7 @@ public class KVIndex implements Closeable {
     }
 
     long getKeyOffset(long key) {
-        return firstEntryOffset + (key + 1) * ENTRY_SIZE;
+        return firstEntryOffset + (key + 1) * entrySize;
     }
 
     private long keyAddressOrError(int key) {
@@ -479,19 +627,18 @@ public class KVIndex implements Closeable {
         if (keyOffset >= firstEntryOffset + keyBlockSize) {
             throw new JournalRuntimeException("Key doesn't exist: %d", key);
         }
-        return kData.getAddress(keyOffset, ENTRY_SIZE);
+        return kData.getAddress(keyOffset, entrySize);
     }
 
     public class IndexCursor implements Cursor {
-        private int remainingBlockCount;
+        private int block;
         private int remainingRowCount;
         private long rowBlockOffset;
-        private ByteBuffer buffer;
-        private int bufPos;
+        private long address;
         private long size;
 
         public IndexCursor setKey(int key) {
-            this.remainingBlockCount = 0;
+            this.block = 0;
             this.remainingRowCount = 0;
 
             if (key < 0) {
@@ -503,42 +650,190 @@ public class KVIndex implements Closeable {
                 return this;
             }
 
-            ByteBuffer buf = kData.getBuffer(keyOffset, ENTRY_SIZE);
-            this.rowBlockOffset = buf.getLong();
-            this.size = buf.getLong();
+            long keyAddress = kData.getAddress(keyOffset, entrySize);
+            this.rowBlockOffset = Unsafe.getUnsafe().getLong(keyAddress);
+            this.size = Unsafe.getUnsafe().getLong(keyAddress + 8);
 
             if (size == 0) {
                 return this;
             }
 
-            this.remainingBlockCount = (int) (this.size / rowBlockLen);
-            this.remainingRowCount = (int) (this.size % rowBlockLen);
+            this.block = blockOf(size - 1);
+            this.remainingRowCount = (int) (size - blockStart(block));
+            this.address = rData.getAddress(this.rowBlockOffset - blockSize(block), blockSize(block));
+
+            return this;
+        }
 
+        public boolean hasNext() {
+            return this.remainingRowCount > 0 || this.block > 0;
+        }
+
+        public long next() {
             if (remainingRowCount == 0) {
-                remainingBlockCount--;
-                remainingRowCount = rowBlockLen;
+                nextBlock();
+            }
+            return Unsafe.getUnsafe().getLong(address + --this.remainingRowCount * 8L);
+        }
+
+        /**
+         * Copies values to array in the same order #next would return them. Values are read straight from
+         * mapped memory and never across row block boundary, so a call copies at most one row block.
+         *
+         * @param rows array to copy values to, from position 0
+         * @return number of values copied, 0 when cursor is exhausted
+         */
+        public int read(long[] rows) {
+            if (remainingRowCount == 0) {
+                if (block == 0) {
+                    return 0;
+                }
+                nextBlock();
+            }
+
+            int n = Math.min(rows.length, remainingRowCount);
+            long p = address + (remainingRowCount - 1) * 8L;
+            for (int i = 0; i < n; i++, p -= 8) {
+                rows[i] = Unsafe.getUnsafe().getLong(p);
+            }
+            remainingRowCount -= n;
+            return n;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void configure(Partition partition) throws JournalException {
+            // nothing to do
+        }
+
+        private void nextBlock() {
+            this.rowBlockOffset = Unsafe.getUnsafe().getLong(address + blockLen(block) * 8L);
+            this.block--;
+            this.address = rData.getAddress(rowBlockOffset - blockSize(block), blockSize(block));
+            this.remainingRowCount = blockLen(block);
+        }
+    }
+
+    public class ForwardIndexCursor implements Cursor {
+        private final LongArrayList blocks = new LongArrayList();
+        private long dirOffset;
+        private int blockIndex;
+        private int cellIndex;
+        private int blockLen;
+        private long remaining;
+        private long address;
+        private long size;
+
+        public ForwardIndexCursor setKey(int key) {
+            this.remaining = 0;
+            this.size = 0;
+
+            if (key < 0) {
+                return this;
             }
 
-            this.buffer = rData.getBuffer(this.rowBlockOffset - rowBlockSize, rowBlockSize);
-            this.bufPos = buffer.position();
+            long keyOffset = getKeyOffset(key);
+            if (keyOffset >= firstEntryOffset + keyBlockSize) {
+                return this;
+            }
 
+            long address = kData.getAddress(keyOffset, entrySize);
+            long rowBlockOffset = Unsafe.getUnsafe().getLong(address);
+            this.size = this.remaining = Unsafe.getUnsafe().getLong(address + 8);
+
+            if (size == 0) {
+                return this;
+            }
+
+            if (bData != null) {
+                this.dirOffset = Unsafe.getUnsafe().getLong(address + 16);
+            } else {
+                // without directory we have to collect block offsets walking the chain once
+                int blockCount = blockOf(size - 1) + 1;
+                blocks.resetQuick();
+                blocks.setCapacity(blockCount);
+                blocks.setPos(blockCount);
+                for (int i = blockCount - 1; i >= 0; i--) {
+                    blocks.setQuick(i, rowBlockOffset);
+                    rowBlockOffset = getLong(rData, rowBlockOffset - 8);
+                }
+            }
+            this.blockIndex = -1;
+            this.cellIndex = this.blockLen = 0;
             return this;
         }
 
         public boolean hasNext() {
-            return this.remainingRowCount > 0 || this.remainingBlockCount > 0;
+            return remaining > 0;
         }
 
         public long next() {
-            if (remainingRowCount > 0) {
-                return this.buffer.getLong(this.bufPos + --this.remainingRowCount * 8);
-            } else {
-                remainingBlockCount--;
-                this.rowBlockOffset = this.buffer.getLong(this.bufPos + rowBlockLen * 8);
-                this.buffer = rData.getBuffer(rowBlockOffset - rowBlockSize, rowBlockSize);
-                this.bufPos = buffer.position();
-                this.remainingRowCount = rowBlockLen;
-                return this.buffer.getLong(this.bufPos + --this.remainingRowCount * 8);
+            if (cellIndex == blockLen) {
+                nextBlock();
+            }
+            remaining--;
+            return Unsafe.getUnsafe().getLong(address + 8L * cellIndex++);
+        }
+
+        /**
+         * Copies values to array in the same order #next would return them, at most one row block per call.
+         *
+         * @param rows array to copy values to, from position 0
+         * @return number of values copied, 0 when cursor is exhausted
+         */
+        public int read(long[] rows) {
+            if (remaining == 0) {
+                return 0;
+            }
+            if (cellIndex == blockLen) {
+                nextBlock();
+            }
+
+            int n = Math.min(rows.length, blockLen - cellIndex);
+            long p = address + 8L * cellIndex;
+            for (int i = 0; i < n; i++, p += 8) {
+                rows[i] = Unsafe.getUnsafe().getLong(p);
+            }
+            cellIndex += n;
+            remaining -= n;
+            return n;
+        }
+
+        /**
+         * Moves cursor to first value, which is greater or equal to given value. Values of key must be ascending,
+         * which is the case for row IDs. Blocks are skipped after looking at their last value only and position
+         * within block is found by binary search.
+         *
+         * @param value value to move to
+         */
+        public void seek(long value) {
+            while (remaining > 0) {
+                if (cellIndex == blockLen) {
+                    nextBlock();
+                }
+
+                if (Unsafe.getUnsafe().getLong(address + 8L * (blockLen - 1)) < value) {
+                    remaining -= blockLen - cellIndex;
+                    cellIndex = blockLen;
+                    continue;
+                }
+
+                int lo = cellIndex;
+                int hi = blockLen - 1;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (Unsafe.getUnsafe().getLong(address + 8L * mid) < value) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                remaining -= lo - cellIndex;
+                cellIndex = lo;
+                return;
             }
         }
 
@@ -550,5 +845,12 @@ public class KVIndex implements Closeable {
         public void configure(Partition partition) throws JournalException {
             // nothing to do
         }
+
+        private void nextBlock() {
+            long rowBlockOffset = bData != null ? getBlockOffset(dirOffset, ++blockIndex) : blocks.getQuick(++blockIndex);
+            this.address = rData.getAddress(rowBlockOffset - blockSize(blockIndex), blockSize(blockIndex));
+            this.blockLen = (int) Math.min(blockLen(blockIndex), remaining);
+            this.cellIndex = 0;
+        }
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.index;
+
+import com.nfsdb.journal.collections.IntArrayList;
+import com.nfsdb.journal.column.MappedFile;
+import com.nfsdb.journal.utils.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Latest global row ID of each key of symbol column. Writer updates table on commit with rows
+ * appended to regular partitions, so that head queries find latest rows of all keys without walking
+ * partitions backwards. Rows of lag partition are newer than rows of regular partitions, head queries
+ * look keys up in lag partition index first.
+ * <p/>
+ * Entries are updated in place, readers must ignore row IDs that are not visible in their transaction.
+ * When rows are removed writer looks previous rows of affected keys up in partition indexes.
+ * <p/>
+ * File layout:
+ * <pre>
+ * long     journal max row ID covered by table, every row below it is accounted for
+ * ...      long entry for each key: row ID + 1, 0 when key has no rows
+ * </pre>
+ */
+public class LatestRowIDTable implements Closeable {
+
+    public static final long NOT_FOUND = -1;
+    private static final int HEADER_SIZE = 8;
+    private final MappedFile mappedFile;
+
+    public LatestRowIDTable(MappedFile mappedFile) {
+        this.mappedFile = mappedFile;
+    }
+
+    /**
+     * @return max row ID, exclusive, up to which table is up to date.
+     */
+    public long getCoveredRowID() {
+        if (mappedFile.getAppendOffset() < HEADER_SIZE) {
+            return 0;
+        }
+        return Unsafe.getUnsafe().getLong(mappedFile.getAddress(0, HEADER_SIZE));
+    }
+
+    public void setCoveredRowID(long rowID) {
+        if (mappedFile.getAppendOffset() < HEADER_SIZE) {
+            mappedFile.setAppendOffset(HEADER_SIZE);
+        }
+        Unsafe.getUnsafe().putLong(mappedFile.getAddress(0, HEADER_SIZE), rowID);
+    }
+
+    /**
+     * @param key symbol key
+     * @return latest row ID of key or NOT_FOUND if key has no rows
+     */
+    public long get(int key) {
+        long offset = HEADER_SIZE + key * 8L;
+        if (key < 0 || offset >= mappedFile.getAppendOffset()) {
+            return NOT_FOUND;
+        }
+        return Unsafe.getUnsafe().getLong(mappedFile.getAddress(offset, 8)) - 1;
+    }
+
+    public void put(int key, long rowID) {
+        long offset = HEADER_SIZE + key * 8L;
+        long appendOffset = Math.max(mappedFile.getAppendOffset(), HEADER_SIZE);
+        if (offset >= appendOffset) {
+            // keys between old end of table and this one have no rows yet
+            for (long o = appendOffset; o < offset; o += 8) {
+                Unsafe.getUnsafe().putLong(mappedFile.getAddress(o, 8), 0);
+            }
+            mappedFile.setAppendOffset(offset + 8);
+        }
+        Unsafe.getUnsafe().putLong(mappedFile.getAddress(offset, 8), rowID + 1);
+    }
+
+    /**
+     * Forgets row IDs at and above maxRowID, which is what writer has to do when rows are removed.
+     * Keys that lose their row ID are left without rows until caller puts their previous row IDs back.
+     *
+     * @param maxRowID new max row ID, exclusive
+     * @param keys     list to add keys that lost their row ID to
+     */
+    public void truncate(long maxRowID, IntArrayList keys) {
+        for (long o = HEADER_SIZE, hi = mappedFile.getAppendOffset(); o < hi; o += 8) {
+            long address = mappedFile.getAddress(o, 8);
+            if (Unsafe.getUnsafe().getLong(address) - 1 >= maxRowID) {
+                Unsafe.getUnsafe().putLong(address, 0);
+                keys.add((int) ((o - HEADER_SIZE) >> 3));
+            }
+        }
+        setCoveredRowID(maxRowID);
+    }
+
+    /**
+     * Removes all entries, so that table is built again from first row of journal on next update.
+     */
+    public void clear() {
+        mappedFile.setAppendOffset(HEADER_SIZE);
+        setCoveredRowID(0);
+    }
+
+    public void force() {
+        mappedFile.force();
+    }
+
+    public void releaseRetired() {
+        mappedFile.releaseRetired();
+    }
+
+    @Override
+    public void close() {
+        mappedFile.close();
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.index;
+
+import com.nfsdb.journal.collections.LongArrayList;
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.column.MappedFile;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.utils.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Row IDs of partition ordered by value of INT, LONG or DOUBLE column. Range predicates find first and last
+ * matching position with binary search and read only row IDs in between. Index is built by writer when
+ * partition is sealed, rows beyond those covered by index have to be scanned.
+ * <p/>
+ * Values are compared as sortable longs, doubles are mapped so that their order is preserved and NaN
+ * values sort outside of any range of real numbers.
+ * <p/>
+ * File layout:
+ * <pre>
+ * long     number of rows covered by index
+ * long     reserved
+ * ...      long row IDs in ascending order of column value
+ * </pre>
+ */
+public class RangeIndex implements Closeable {
+
+    private static final int HEADER_SIZE = 16;
+    private final MappedFile mappedFile;
+    private final ColumnType type;
+
+    public RangeIndex(MappedFile mappedFile, ColumnType type) {
+        this.mappedFile = mappedFile;
+        this.type = type;
+    }
+
+    public static boolean supports(ColumnType type) {
+        switch (type) {
+            case INT:
+            case LONG:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Maps double to long in a way that preserves order of doubles.
+     */
+    public static long toKey(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    public static long key(ColumnType type, FixedColumn column, long localRowID) {
+        switch (type) {
+            case INT:
+                return column.getInt(localRowID);
+            case DOUBLE:
+                return toKey(column.getDouble(localRowID));
+            default:
+                return column.getLong(localRowID);
+        }
+    }
+
+    /**
+     * @return number of rows covered by index
+     */
+    public long size() {
+        if (mappedFile.getAppendOffset() <= 0) {
+            return 0;
+        }
+        return Unsafe.getUnsafe().getLong(mappedFile.getAddress(0, 8));
+    }
+
+    /**
+     * Sorts first size rows of column and stores their row IDs.
+     *
+     * @param column column to index
+     * @param size   number of rows to index
+     */
+    public void build(FixedColumn column, long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new JournalRuntimeException("Too many rows for range index: %d", size);
+        }
+
+        int n = (int) size;
+        long keys[] = new long[n];
+        int rows[] = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key(type, column, i);
+            rows[i] = i;
+        }
+        sort(keys, rows, 0, n - 1);
+
+        // readers must not use index while it is being rewritten
+        Unsafe.getUnsafe().putLong(mappedFile.getAddress(0, 8), 0);
+        Unsafe.getUnsafe().putLong(mappedFile.getAddress(8, 8), 0);
+        mappedFile.setAppendOffset(HEADER_SIZE);
+        for (int i = 0; i < n; i++) {
+            Unsafe.getUnsafe().putLong(mappedFile.getAddress(HEADER_SIZE + i * 8L, 8), rows[i]);
+        }
+        Unsafe.getUnsafe().putLong(mappedFile.getAddress(0, 8), n);
+        mappedFile.setAppendOffset(HEADER_SIZE + n * 8L);
+    }
+
+    /**
+     * Finds covered rows with keys between lo and hi inclusive.
+     *
+     * @param column indexed column
+     * @param lo     lowest key
+     * @param hi     highest key
+     * @param rows   list to copy matching row IDs to in ascending order, list is cleared first
+     */
+    public void find(FixedColumn column, long lo, long hi, LongArrayList rows) {
+        rows.resetQuick();
+        long size = size();
+        if (lo > hi || size == 0) {
+            return;
+        }
+
+        long from = lowerBound(column, size, lo, false);
+        long to = lowerBound(column, size, hi, true);
+        int n = (int) (to - from);
+        if (n <= 0) {
+            return;
+        }
+
+        rows.setCapacity(n);
+        rows.setPos(n);
+        for (int i = 0; i < n; i++) {
+            rows.setQuick(i, rowAt(from + i));
+        }
+        rows.sort(0, n);
+    }
+
+    /**
+     * Invalidates index when rows it covers are removed. Index is rebuilt when partition is sealed again.
+     *
+     * @param size number of rows to retain
+     */
+    public void truncate(long size) {
+        if (size < size()) {
+            Unsafe.getUnsafe().putLong(mappedFile.getAddress(0, 8), 0);
+            mappedFile.setAppendOffset(HEADER_SIZE);
+        }
+    }
+
+    public void force() {
+        mappedFile.force();
+    }
+
+    public void compact() throws JournalException {
+        mappedFile.compact();
+    }
+
+    @Override
+    public void close() {
+        mappedFile.close();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getName() + "[file=" + mappedFile + ", size=" + size() + "]";
+    }
+
+    private static void sort(long keys[], int rows[], int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            // median of three as pivot
+            if (keys[mid] < keys[lo]) {
+                swap(keys, rows, mid, lo);
+            }
+            if (keys[hi] < keys[lo]) {
+                swap(keys, rows, hi, lo);
+            }
+            if (keys[hi] < keys[mid]) {
+                swap(keys, rows, hi, mid);
+            }
+            long pivot = keys[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, rows, i++, j--);
+                }
+            }
+            // recurse into smaller half to bound stack depth
+            if (j - lo < hi - i) {
+                sort(keys, rows, lo, j);
+                lo = i;
+            } else {
+                sort(keys, rows, i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            long k = keys[i];
+            int r = rows[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] > k) {
+                keys[j + 1] = keys[j];
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            keys[j + 1] = k;
+            rows[j + 1] = r;
+        }
+    }
+
+    private static void swap(long keys[], int rows[], int a, int b) {
+        long k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+        int r = rows[a];
+        rows[a] = rows[b];
+        rows[b] = r;
+    }
+
+    private long rowAt(long position) {
+        return Unsafe.getUnsafe().getLong(mappedFile.getAddress(HEADER_SIZE + position * 8, 8));
+    }
+
+    /**
+     * @return first position with key greater than given key when after is true, otherwise greater or equal
+     */
+    private long lowerBound(FixedColumn column, long size, long key, boolean after) {
+        long lo = 0;
+        long hi = size;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long k = key(type, column, rowAt(mid));
+            if (k < key || (after && k == key)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.index;
+
+import com.nfsdb.journal.collections.LongArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap of non-negative long values in the spirit of Roaring bitmaps. Values are split into
+ * high bits, which select container, and low 16 bits, which are stored in container. Sparse containers
+ * are sorted char arrays, dense containers are plain 64K bitmaps. Intersection, union and difference
+ * operate on containers directly without expanding values.
+ */
+public class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private int keys[];
+    // char[] for sparse containers and long[] for dense ones
+    private Object containers[];
+    private int cardinalities[];
+    private int size;
+
+    public RoaringBitmap() {
+        this(4);
+    }
+
+    private RoaringBitmap(int capacity) {
+        this.keys = new int[capacity];
+        this.containers = new Object[capacity];
+        this.cardinalities = new int[capacity];
+    }
+
+    /**
+     * Adds value to bitmap. Adding values in ascending order is fastest.
+     *
+     * @param value non-negative value
+     */
+    public void add(long value) {
+        int high = (int) (value >>> 16);
+        int low = (int) (value & 0xffff);
+        int i;
+        if (size > 0 && keys[size - 1] == high) {
+            i = size - 1;
+        } else {
+            i = Arrays.binarySearch(keys, 0, size, high);
+            if (i < 0) {
+                i = -i - 1;
+                insert(i, high, new char[4], 0);
+            }
+        }
+        addLow(i, low);
+    }
+
+    public boolean contains(long value) {
+        int i = Arrays.binarySearch(keys, 0, size, (int) (value >>> 16));
+        return i >= 0 && contains(containers[i], cardinalities[i], (int) (value & 0xffff));
+    }
+
+    public long cardinality() {
+        long c = 0;
+        for (int i = 0; i < size; i++) {
+            c += cardinalities[i];
+        }
+        return c;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return last (largest) value or -1 if bitmap is empty.
+     */
+    public long last() {
+        if (size == 0) {
+            return -1;
+        }
+        Object c = containers[size - 1];
+        long base = ((long) keys[size - 1]) << 16;
+        if (c instanceof char[]) {
+            return base | ((char[]) c)[cardinalities[size - 1] - 1];
+        }
+        long words[] = (long[]) c;
+        for (int w = BITMAP_WORDS - 1; ; w--) {
+            if (words[w] != 0) {
+                return base | (w << 6) + 63 - Long.numberOfLeadingZeros(words[w]);
+            }
+        }
+    }
+
+    /**
+     * Copies values in ascending order to list. List is cleared before values are copied.
+     *
+     * @param values list to copy values to
+     */
+    public void toList(LongArrayList values) {
+        values.resetQuick();
+        long c = cardinality();
+        values.setCapacity((int) c);
+        values.setPos((int) c);
+        int p = 0;
+        for (int i = 0; i < size; i++) {
+            long base = ((long) keys[i]) << 16;
+            Object container = containers[i];
+            if (container instanceof char[]) {
+                char lows[] = (char[]) container;
+                for (int k = 0, n = cardinalities[i]; k < n; k++) {
+                    values.setQuick(p++, base | lows[k]);
+                }
+            } else {
+                long words[] = (long[]) container;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        values.setQuick(p++, base | (w << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public RoaringBitmap and(RoaringBitmap that) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, Math.min(this.size, that.size)));
+        int i = 0, k = 0;
+        while (i < this.size && k < that.size) {
+            if (this.keys[i] < that.keys[k]) {
+                i++;
+            } else if (this.keys[i] > that.keys[k]) {
+                k++;
+            } else {
+                result.and(this.keys[i], this.containers[i], this.cardinalities[i], that.containers[k], that.cardinalities[k]);
+                i++;
+                k++;
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap or(RoaringBitmap that) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, this.size + that.size));
+        int i = 0, k = 0;
+        while (i < this.size || k < that.size) {
+            if (k == that.size || (i < this.size && this.keys[i] < that.keys[k])) {
+                result.append(this.keys[i], copy(this.containers[i]), this.cardinalities[i]);
+                i++;
+            } else if (i == this.size || this.keys[i] > that.keys[k]) {
+                result.append(that.keys[k], copy(that.containers[k]), that.cardinalities[k]);
+                k++;
+            } else {
+                result.or(this.keys[i], this.containers[i], this.cardinalities[i], that.containers[k], that.cardinalities[k]);
+                i++;
+                k++;
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap andNot(RoaringBitmap that) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, this.size));
+        int k = 0;
+        for (int i = 0; i < this.size; i++) {
+            while (k < that.size && that.keys[k] < this.keys[i]) {
+                k++;
+            }
+            if (k < that.size && that.keys[k] == this.keys[i]) {
+                result.andNot(this.keys[i], this.containers[i], this.cardinalities[i], that.containers[k], that.cardinalities[k]);
+            } else {
+                result.append(this.keys[i], copy(this.containers[i]), this.cardinalities[i]);
+            }
+        }
+        return result;
+    }
+
+    private static boolean contains(Object container, int cardinality, int low) {
+        if (container instanceof char[]) {
+            return Arrays.binarySearch((char[]) container, 0, cardinality, (char) low) >= 0;
+        }
+        return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    private static Object copy(Object container) {
+        return container instanceof char[] ? ((char[]) container).clone() : ((long[]) container).clone();
+    }
+
+    private static long[] toWords(char lows[], int cardinality) {
+        long words[] = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            words[lows[i] >>> 6] |= 1L << lows[i];
+        }
+        return words;
+    }
+
+    private static char[] toLows(long words[], int cardinality) {
+        char lows[] = new char[Math.max(cardinality, 1)];
+        int p = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                lows[p++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return lows;
+    }
+
+    private void addLow(int i, int low) {
+        Object container = containers[i];
+        int card = cardinalities[i];
+        if (container instanceof long[]) {
+            long words[] = (long[]) container;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinalities[i]++;
+            }
+            return;
+        }
+
+        char lows[] = (char[]) container;
+        int pos;
+        if (card == 0 || lows[card - 1] < low) {
+            pos = card;
+        } else {
+            pos = Arrays.binarySearch(lows, 0, card, (char) low);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+        }
+
+        if (card == ARRAY_MAX) {
+            long words[] = toWords(lows, card);
+            words[low >>> 6] |= 1L << low;
+            containers[i] = words;
+        } else {
+            if (card == lows.length) {
+                lows = Arrays.copyOf(lows, Math.min(card * 2, ARRAY_MAX));
+                containers[i] = lows;
+            }
+            System.arraycopy(lows, pos, lows, pos + 1, card - pos);
+            lows[pos] = (char) low;
+        }
+        cardinalities[i]++;
+    }
+
+    private void and(int key, Object a, int aCard, Object b, int bCard) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long wa[] = (long[]) a;
+            long wb[] = (long[]) b;
+            long words[] = new long[BITMAP_WORDS];
+            int card = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                card += Long.bitCount(words[w] = wa[w] & wb[w]);
+            }
+            appendWords(key, words, card);
+        } else {
+            // walk sparse container and probe the other one
+            if (a instanceof long[] || (b instanceof char[] && bCard < aCard)) {
+                Object t = a;
+                a = b;
+                b = t;
+                int tc = aCard;
+                aCard = bCard;
+                bCard = tc;
+            }
+            char la[] = (char[]) a;
+            char lows[] = new char[Math.max(aCard, 1)];
+            int card = 0;
+            for (int i = 0; i < aCard; i++) {
+                if (contains(b, bCard, la[i])) {
+                    lows[card++] = la[i];
+                }
+            }
+            if (card > 0) {
+                append(key, lows, card);
+            }
+        }
+    }
+
+    private void or(int key, Object a, int aCard, Object b, int bCard) {
+        if (a instanceof char[] && b instanceof char[] && aCard + bCard <= ARRAY_MAX) {
+            char la[] = (char[]) a;
+            char lb[] = (char[]) b;
+            char lows[] = new char[aCard + bCard];
+            int i = 0, k = 0, card = 0;
+            while (i < aCard || k < bCard) {
+                if (k == bCard || (i < aCard && la[i] < lb[k])) {
+                    lows[card++] = la[i++];
+                } else if (i == aCard || la[i] > lb[k]) {
+                    lows[card++] = lb[k++];
+                } else {
+                    lows[card++] = la[i++];
+                    k++;
+                }
+            }
+            append(key, lows, card);
+        } else {
+            long wa[] = a instanceof long[] ? (long[]) a : toWords((char[]) a, aCard);
+            long wb[] = b instanceof long[] ? (long[]) b : toWords((char[]) b, bCard);
+            long words[] = new long[BITMAP_WORDS];
+            int card = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                card += Long.bitCount(words[w] = wa[w] | wb[w]);
+            }
+            appendWords(key, words, card);
+        }
+    }
+
+    private void andNot(int key, Object a, int aCard, Object b, int bCard) {
+        if (a instanceof char[]) {
+            char la[] = (char[]) a;
+            char lows[] = new char[Math.max(aCard, 1)];
+            int card = 0;
+            for (int i = 0; i < aCard; i++) {
+                if (!contains(b, bCard, la[i])) {
+                    lows[card++] = la[i];
+                }
+            }
+            if (card > 0) {
+                append(key, lows, card);
+            }
+        } else {
+            long wa[] = (long[]) a;
+            long wb[] = b instanceof long[] ? (long[]) b : toWords((char[]) b, bCard);
+            long words[] = new long[BITMAP_WORDS];
+            int card = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                card += Long.bitCount(words[w] = wa[w] & ~wb[w]);
+            }
+            appendWords(key, words, card);
+        }
+    }
+
+    private void appendWords(int key, long words[], int card) {
+        if (card > ARRAY_MAX) {
+            append(key, words, card);
+        } else if (card > 0) {
+            append(key, toLows(words, card), card);
+        }
+    }
+
+    private void append(int key, Object container, int card) {
+        insert(size, key, container, card);
+    }
+
+    private void insert(int i, int key, Object container, int card) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        if (i < size) {
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(containers, i, containers, i + 1, size - i);
+            System.arraycopy(cardinalities, i, cardinalities, i + 1, size - i);
+        }
+        keys[i] = key;
+        containers[i] = container;
+        cardinalities[i] = card;
+        size++;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst;
+
+import com.nfsdb.journal.Journal;
+import com.nfsdb.journal.Partition;
+
+/**
+ * Accumulates values of rows into groups identified by symbol keys. Key of null symbol is -1.
+ * Groups that have no rows, including keys added to symbol table after aggregation, read as 0, or as NaN
+ * for average, see GroupBy.getCount().
+ */
+public interface Aggregator {
+    /**
+     * Discards accumulated values and prepares for given number of keys.
+     */
+    void reset(Journal journal, int keyCount);
+
+    void setPartition(Partition partition);
+
+    void accumulate(int key, long localRowID);
+
+    long getLong(int key);
+
+    double getDouble(int key);
+}
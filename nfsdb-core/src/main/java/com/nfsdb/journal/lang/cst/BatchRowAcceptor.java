@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst;
+
+/**
+ * Acceptor, which can filter a batch of rows at a time in a tight loop.
+ */
+public interface BatchRowAcceptor extends RowAcceptor {
+    /**
+     * Narrows selection vector to rows that filter accepts. Accepted rows are moved to start of array in the
+     * order they were in. Batch filtering never asks to skip rest of partition, rows per-row acceptor would
+     * pick with PICK_AND_SKIP_PARTITION are kept and partition is carried on with.
+     *
+     * @param rows  selection vector
+     * @param count number of rows in selection
+     * @return number of accepted rows
+     */
+    int accept(long[] rows, int count);
+}
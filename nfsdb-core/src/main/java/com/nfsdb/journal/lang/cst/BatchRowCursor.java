@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst;
+
+/**
+ * Cursor, which can return rows a batch at a time. Batch consumers call #read instead of #hasNext and #next
+ * for every row, which saves a virtual call per row at every level of row source tree. Both ways of reading
+ * consume the same rows and can be mixed.
+ */
+public interface BatchRowCursor extends RowCursor {
+    /**
+     * Copies rows to selection vector in the order #next would return them.
+     *
+     * @param rows array to copy rows to, from position 0
+     * @return number of rows copied, 0 when cursor is exhausted
+     */
+    int read(long[] rows);
+}
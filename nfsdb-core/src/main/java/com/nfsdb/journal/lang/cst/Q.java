@@ -17,6 +17,7 @@
 package com.nfsdb.journal.lang.cst;
 
 import com.nfsdb.journal.Journal;
+import com.nfsdb.journal.factory.JournalReaderFactory;
 import com.nfsdb.journal.lang.cst.impl.ref.IntRef;
 import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
 import org.joda.time.Interval;
@@ -31,6 +32,8 @@ public interface Q {
 
     JournalSource forEachPartition(PartitionSource iterator, RowSource source);
 
+    ParallelJournalSource forEachPartition(PartitionSource iterator, RowSourceFactory factory, JournalReaderFactory readerFactory, int parallelism, boolean ordered);
+
     RowSource forEachRow(RowSource source, RowFilter rowFilter);
 
     RowSource top(int count, RowSource rowSource);
@@ -39,18 +42,28 @@ public interface Q {
 
     RowSource union(RowSource... source);
 
-    RowSource mergeSorted(RowSource source1, RowSource source2);
+    RowSource mergeSorted(RowSource... sources);
 
     RowSource join(RowSource source1, RowSource source2);
 
+    RowSource intersect(RowSource... sources);
+
+    RowSource difference(RowSource source, RowSource excluded);
+
     RowSource kvSource(StringRef indexName, KeySource keySource);
 
+    RowSource kvForwardSource(StringRef indexName, KeySource keySource);
+
     RowSource headEquals(StringRef column, StringRef value);
 
     RowSource headEquals(StringRef column, IntRef value);
 
     RowSource all();
 
+    RowSource range(String column, long lo, long hi);
+
+    RowSource range(String column, double lo, double hi);
+
     RowSource kvSource(StringRef indexName, KeySource keySource, int count, int tail, RowFilter filter);
 
     PartitionSource source(Journal journal, boolean open);
@@ -77,6 +90,24 @@ public interface Q {
 
     RowFilter not(RowFilter rowFilter);
 
+    RowFilter compile(RowFilter rowFilter);
+
+    GroupBy groupBy(JournalSource source, String symbol, Aggregator... aggregators);
+
+    Aggregator count();
+
+    Aggregator sum(String column);
+
+    Aggregator min(String column);
+
+    Aggregator max(String column);
+
+    Aggregator avg(String column);
+
+    Aggregator first(String column);
+
+    Aggregator last(String column);
+
     KeySource symbolTableSource(StringRef sym, List<String> values);
 
     KeySource singleKeySource(IntRef key);
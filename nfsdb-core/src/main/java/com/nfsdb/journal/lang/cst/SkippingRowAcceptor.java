@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.lang.cst;
+
+/**
+ * Acceptor that can tell rows it rejects without reading them, for example from column zone map.
+ */
+public interface SkippingRowAcceptor extends RowAcceptor {
+    /**
+     * Finds first row at or after given row that may be accepted. All rows from localRowIDA
+     * up to returned row are rejected by accept().
+     *
+     * @param localRowIDA row to start from
+     * @return localRowIDA if row may be accepted, otherwise row to continue from
+     */
+    long skip(long localRowIDA);
+}
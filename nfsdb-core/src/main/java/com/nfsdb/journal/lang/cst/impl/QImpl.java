@@ -18,11 +18,14 @@ package com.nfsdb.journal.lang.cst.impl;
 
 import com.nfsdb.journal.Journal;
 import com.nfsdb.journal.collections.IntArrayList;
+import com.nfsdb.journal.factory.JournalReaderFactory;
 import com.nfsdb.journal.lang.cst.*;
+import com.nfsdb.journal.lang.cst.impl.agg.*;
 import com.nfsdb.journal.lang.cst.impl.dsrc.DataSourceImpl;
 import com.nfsdb.journal.lang.cst.impl.fltr.*;
 import com.nfsdb.journal.lang.cst.impl.join.SymbolJoin;
 import com.nfsdb.journal.lang.cst.impl.jsrc.JournalSourceImpl;
+import com.nfsdb.journal.lang.cst.impl.jsrc.ParallelJournalSourceImpl;
 import com.nfsdb.journal.lang.cst.impl.jsrc.TopJournalSource;
 import com.nfsdb.journal.lang.cst.impl.ksrc.*;
 import com.nfsdb.journal.lang.cst.impl.psrc.IntervalPartitionSource;
@@ -53,6 +56,11 @@ public class QImpl implements Q {
         return new JournalSourceImpl(iterator, source);
     }
 
+    @Override
+    public ParallelJournalSource forEachPartition(PartitionSource iterator, RowSourceFactory factory, JournalReaderFactory readerFactory, int parallelism, boolean ordered) {
+        return new ParallelJournalSourceImpl(iterator, factory, readerFactory, parallelism, ordered);
+    }
+
     @Override
     public RowSource forEachRow(RowSource source, RowFilter rowFilter) {
         return new FilteredRowSource(source, rowFilter);
@@ -74,13 +82,23 @@ public class QImpl implements Q {
     }
 
     @Override
-    public RowSource mergeSorted(RowSource source1, RowSource source2) {
-        return null;
+    public RowSource mergeSorted(RowSource... sources) {
+        return new MergingRowSource(sources);
     }
 
     @Override
     public RowSource join(RowSource source1, RowSource source2) {
-        return null;
+        return intersect(source1, source2);
+    }
+
+    @Override
+    public RowSource intersect(RowSource... sources) {
+        return new IntersectingRowSource(sources);
+    }
+
+    @Override
+    public RowSource difference(RowSource source, RowSource excluded) {
+        return new DifferenceRowSource(source, excluded);
     }
 
     @Override
@@ -88,6 +106,11 @@ public class QImpl implements Q {
         return new KvIndexRowSource(indexName, keySource);
     }
 
+    @Override
+    public RowSource kvForwardSource(StringRef indexName, KeySource keySource) {
+        return new KvIndexForwardRowSource(indexName, keySource);
+    }
+
     @Override
     public RowSource headEquals(StringRef column, StringRef value) {
         return kvSource(column, hashSource(column, value), 1, 0, equalsConst(column, value));
@@ -102,6 +125,16 @@ public class QImpl implements Q {
         return new AllRowSource();
     }
 
+    @Override
+    public RowSource range(String column, long lo, long hi) {
+        return new RangeIndexRowSource(column, lo, hi);
+    }
+
+    @Override
+    public RowSource range(String column, double lo, double hi) {
+        return new RangeIndexRowSource(column, lo, hi);
+    }
+
     @Override
     public RowSource kvSource(StringRef indexName, KeySource keySource, int count, int tail, RowFilter filter) {
         return new KvIndexTailRowSource(indexName, keySource, count, tail, filter);
@@ -144,7 +177,9 @@ public class QImpl implements Q {
 
     @Override
     public RowFilter equals(String column, int value) {
-        return null;
+        IntRef ref = new IntRef();
+        ref.value = value;
+        return new IntEqualsRowFilter(new StringRef(column), ref);
     }
 
     @Override
@@ -159,12 +194,57 @@ public class QImpl implements Q {
 
     @Override
     public RowFilter any(RowFilter... rowFilters) {
-        return null;
+        return new AnyRowFilter(rowFilters);
     }
 
     @Override
     public RowFilter not(RowFilter rowFilter) {
-        return null;
+        return new NotRowFilter(rowFilter);
+    }
+
+    @Override
+    public RowFilter compile(RowFilter rowFilter) {
+        return new CompiledRowFilter(rowFilter);
+    }
+
+    @Override
+    public GroupBy groupBy(JournalSource source, String symbol, Aggregator... aggregators) {
+        return new SymbolGroupBy(source, symbol, aggregators);
+    }
+
+    @Override
+    public Aggregator count() {
+        return new CountAggregator();
+    }
+
+    @Override
+    public Aggregator sum(String column) {
+        return new SumAggregator(column);
+    }
+
+    @Override
+    public Aggregator min(String column) {
+        return new MinAggregator(column);
+    }
+
+    @Override
+    public Aggregator max(String column) {
+        return new MaxAggregator(column);
+    }
+
+    @Override
+    public Aggregator avg(String column) {
+        return new AvgAggregator(column);
+    }
+
+    @Override
+    public Aggregator first(String column) {
+        return new FirstAggregator(column);
+    }
+
+    @Override
+    public Aggregator last(String column) {
+        return new LastAggregator(column);
     }
 
     @Override
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.agg;
+
+import com.nfsdb.journal.Journal;
+import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.column.AbstractColumn;
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.Aggregator;
+
+import java.util.Arrays;
+
+/**
+ * Keeps values of groups in primitive arrays indexed by symbol key plus one, so that null symbol
+ * has slot 0. Values of DOUBLE columns are accumulated as doubles, values of INT and LONG columns as longs.
+ * <p/>
+ * Rows with null in aggregated column are skipped, counts hold number of non-null values of each group.
+ * Group without any values reads as 0, or as NaN for average.
+ */
+public abstract class AbstractAggregator implements Aggregator {
+    private final String column;
+    protected long counts[];
+    protected double doubles[];
+    protected long longs[];
+    protected boolean doubleValues;
+    protected FixedColumn columnRef;
+    private ColumnType type;
+    private int columnIndex = -1;
+    private boolean nullable;
+    private Partition partition;
+
+    protected AbstractAggregator(String column) {
+        this.column = column;
+    }
+
+    @Override
+    public void reset(Journal journal, int keyCount) {
+        if (column != null) {
+            columnIndex = journal.getMetadata().getColumnIndex(column);
+            type = journal.getMetadata().getColumnMetadata(columnIndex).type;
+            nullable = !journal.getMetadata().getColumnMetadata(columnIndex).notNull;
+            switch (type) {
+                case INT:
+                case LONG:
+                    doubleValues = false;
+                    break;
+                case DOUBLE:
+                    doubleValues = true;
+                    break;
+                default:
+                    throw new JournalRuntimeException("Cannot aggregate %s column: %s", type, column);
+            }
+        }
+
+        int size = keyCount + 1;
+        counts = new long[size];
+        doubles = doubleValues ? new double[size] : null;
+        longs = doubleValues ? null : new long[size];
+    }
+
+    @Override
+    public void setPartition(Partition partition) {
+        if (column != null) {
+            AbstractColumn col = partition.getAbstractColumn(columnIndex);
+            if (!(col instanceof FixedColumn)) {
+                throw new JournalRuntimeException("Invalid column type");
+            }
+            columnRef = (FixedColumn) col;
+            this.partition = partition;
+        }
+    }
+
+    @Override
+    public void accumulate(int key, long localRowID) {
+        int slot = key + 1;
+        if (slot >= counts.length) {
+            // symbol table grew after reset
+            grow(slot + 1);
+        }
+        if (nullable && partition.isNull(localRowID, columnIndex)) {
+            return;
+        }
+        add(slot, localRowID, ++counts[slot] == 1);
+    }
+
+    @Override
+    public long getLong(int key) {
+        if (key + 1 >= counts.length) {
+            return 0;
+        }
+        return doubleValues ? (long) doubles[key + 1] : longs[key + 1];
+    }
+
+    @Override
+    public double getDouble(int key) {
+        if (key + 1 >= counts.length) {
+            return 0;
+        }
+        return doubleValues ? doubles[key + 1] : longs[key + 1];
+    }
+
+    /**
+     * Adds value of row to group.
+     *
+     * @param slot       slot of group in arrays
+     * @param localRowID row in current partition
+     * @param first      true when row is first row of group
+     */
+    protected abstract void add(int slot, long localRowID, boolean first);
+
+    protected final long readLong(long localRowID) {
+        return type == ColumnType.INT ? columnRef.getInt(localRowID) : columnRef.getLong(localRowID);
+    }
+
+    private void grow(int size) {
+        size = Math.max(size, counts.length * 2);
+        counts = Arrays.copyOf(counts, size);
+        if (doubleValues) {
+            doubles = Arrays.copyOf(doubles, size);
+        } else {
+            longs = Arrays.copyOf(longs, size);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.agg;
+
+public class CountAggregator extends AbstractAggregator {
+
+    public CountAggregator() {
+        super(null);
+    }
+
+    @Override
+    protected void add(int slot, long localRowID, boolean first) {
+        // rows are counted by base class
+    }
+
+    @Override
+    public long getLong(int key) {
+        return key + 1 < counts.length ? counts[key + 1] : 0;
+    }
+
+    @Override
+    public double getDouble(int key) {
+        return getLong(key);
+    }
+}
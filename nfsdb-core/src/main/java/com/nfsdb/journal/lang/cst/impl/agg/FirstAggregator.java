@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.agg;
+
+public class FirstAggregator extends AbstractAggregator {
+
+    public FirstAggregator(String column) {
+        super(column);
+    }
+
+    @Override
+    protected void add(int slot, long localRowID, boolean first) {
+        if (!first) {
+            return;
+        }
+
+        if (doubleValues) {
+            doubles[slot] = columnRef.getDouble(localRowID);
+        } else {
+            longs[slot] = readLong(localRowID);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.agg;
+
+import com.nfsdb.journal.Journal;
+import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.column.AbstractColumn;
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.Aggregator;
+import com.nfsdb.journal.lang.cst.DataItem;
+import com.nfsdb.journal.lang.cst.GroupBy;
+import com.nfsdb.journal.lang.cst.JournalSource;
+
+import java.util.Arrays;
+
+/**
+ * Groups rows of journal source by int key of symbol column. Keys and values are read from columns
+ * of partitions, no objects are created per row.
+ */
+public class SymbolGroupBy implements GroupBy {
+    private final JournalSource source;
+    private final String symbol;
+    private final Aggregator[] aggregators;
+    private long counts[] = new long[1];
+    private int keyCount;
+
+    public SymbolGroupBy(JournalSource source, String symbol, Aggregator... aggregators) {
+        this.source = source;
+        this.symbol = symbol;
+        this.aggregators = aggregators;
+    }
+
+    @Override
+    public GroupBy aggregate() {
+        source.reset();
+        Journal journal = source.getJournal();
+        int columnIndex = journal.getMetadata().getColumnIndex(symbol);
+        if (journal.getMetadata().getColumnMetadata(columnIndex).type != ColumnType.SYMBOL) {
+            throw new JournalRuntimeException("Not a symbol column: %s", symbol);
+        }
+
+        keyCount = journal.getSymbolTable(symbol).size();
+        counts = new long[keyCount + 1];
+        for (int i = 0; i < aggregators.length; i++) {
+            aggregators[i].reset(journal, keyCount);
+        }
+
+        Partition partition = null;
+        FixedColumn keys = null;
+        for (DataItem d : source) {
+            if (d.partition != partition) {
+                partition = d.partition;
+                keys = keyColumn(partition, columnIndex);
+                for (int i = 0; i < aggregators.length; i++) {
+                    aggregators[i].setPartition(partition);
+                }
+            }
+
+            int key = keys.getInt(d.rowid);
+            if (key >= keyCount) {
+                keyCount = key + 1;
+                counts = Arrays.copyOf(counts, keyCount + 1);
+            }
+            counts[key + 1]++;
+            for (int i = 0; i < aggregators.length; i++) {
+                aggregators[i].accumulate(key, d.rowid);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    @Override
+    public long getCount(int key) {
+        return key + 1 < counts.length ? counts[key + 1] : 0;
+    }
+
+    private static FixedColumn keyColumn(Partition partition, int columnIndex) {
+        try {
+            partition.open();
+            AbstractColumn col = partition.getAbstractColumn(columnIndex);
+            if (!(col instanceof FixedColumn)) {
+                throw new JournalRuntimeException("Invalid column type");
+            }
+            return (FixedColumn) col;
+        } catch (JournalException e) {
+            throw new JournalRuntimeException(e);
+        }
+    }
+}
@@ -16,12 +16,14 @@
 
 package com.nfsdb.journal.lang.cst.impl.fltr;
 
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
 import com.nfsdb.journal.lang.cst.Choice;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowAcceptor;
 import com.nfsdb.journal.lang.cst.RowFilter;
+import com.nfsdb.journal.lang.cst.SkippingRowAcceptor;
 
-public class AllRowFilter implements RowFilter, RowAcceptor {
+public class AllRowFilter implements RowFilter, SkippingRowAcceptor, BatchRowAcceptor {
 
     private final RowFilter[] filters;
     private final RowAcceptor[] acceptors;
@@ -31,6 +33,10 @@ public class AllRowFilter implements RowFilter, RowAcceptor {
         this.acceptors = new RowAcceptor[filters.length];
     }
 
+    RowFilter[] getFilters() {
+        return filters;
+    }
+
     @Override
     public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
         for (int i = 0; i < filters.length; i++) {
@@ -52,4 +58,45 @@ public class AllRowFilter implements RowFilter, RowAcceptor {
         }
         return Choice.PICK;
     }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        // each filter narrows what is left by the previous one
+        for (int i = 0; i < acceptors.length && count > 0; i++) {
+            RowAcceptor acceptor = acceptors[i];
+            if (acceptor instanceof BatchRowAcceptor) {
+                count = ((BatchRowAcceptor) acceptor).accept(rows, count);
+            } else {
+                int n = 0;
+                for (int k = 0; k < count; k++) {
+                    if (acceptor.accept(rows[k], -1) != Choice.SKIP) {
+                        rows[n++] = rows[k];
+                    }
+                }
+                count = n;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long localRowIDA) {
+        // row is skipped if any of filters skips it, keep going until none of filters can skip further
+        long row = localRowIDA;
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int i = 0; i < acceptors.length; i++) {
+                RowAcceptor acceptor = acceptors[i];
+                if (acceptor instanceof SkippingRowAcceptor) {
+                    long next = ((SkippingRowAcceptor) acceptor).skip(row);
+                    if (next > row) {
+                        row = next;
+                        moved = true;
+                    }
+                }
+            }
+        }
+        return row;
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.fltr;
+
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
+import com.nfsdb.journal.lang.cst.Choice;
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowAcceptor;
+import com.nfsdb.journal.lang.cst.RowFilter;
+import com.nfsdb.journal.lang.cst.SkippingRowAcceptor;
+
+public class AnyRowFilter implements RowFilter, SkippingRowAcceptor, BatchRowAcceptor {
+
+    private final RowFilter[] filters;
+    private final RowAcceptor[] acceptors;
+    private boolean skipping;
+
+    public AnyRowFilter(RowFilter[] filters) {
+        this.filters = filters;
+        this.acceptors = new RowAcceptor[filters.length];
+    }
+
+    RowFilter[] getFilters() {
+        return filters;
+    }
+
+    @Override
+    public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
+        skipping = filters.length > 0;
+        for (int i = 0; i < filters.length; i++) {
+            acceptors[i] = filters[i].acceptor(a, b);
+            skipping &= acceptors[i] instanceof SkippingRowAcceptor;
+        }
+        return this;
+    }
+
+    @Override
+    public Choice accept(long localRowIDA, long localRowIDB) {
+        for (int i = 0; i < acceptors.length; i++) {
+            Choice choice = acceptors[i].accept(localRowIDA, localRowIDB);
+            if (choice != Choice.SKIP) {
+                return choice;
+            }
+        }
+        return Choice.SKIP;
+    }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        // row is accepted by first filter that picks it, remaining filters are not asked
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            long row = rows[k];
+            for (int i = 0; i < acceptors.length; i++) {
+                if (acceptors[i].accept(row, -1) != Choice.SKIP) {
+                    rows[n++] = row;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long localRowIDA) {
+        // row can be skipped only as far as the nearest row any of filters may accept
+        if (!skipping) {
+            return localRowIDA;
+        }
+        long row = Long.MAX_VALUE;
+        for (int i = 0; i < acceptors.length && row > localRowIDA; i++) {
+            row = Math.min(row, ((SkippingRowAcceptor) acceptors[i]).skip(localRowIDA));
+        }
+        return row;
+    }
+}
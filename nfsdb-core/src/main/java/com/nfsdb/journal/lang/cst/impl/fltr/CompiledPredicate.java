@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.fltr;
+
+import com.nfsdb.journal.column.ColumnWindow;
+import com.nfsdb.journal.lang.cst.Choice;
+import com.nfsdb.journal.lang.cst.RowAcceptor;
+
+/**
+ * Base class of predicates generated by FilterCompiler. Generated code reads values of filter leaves
+ * from column windows and compares them to constants in int and double slots. Leaves that compiler
+ * cannot translate are evaluated by their acceptors.
+ * <p/>
+ * Generated classes are loaded by their own class loaders, hence members they use must be public or protected.
+ */
+public abstract class CompiledPredicate {
+    protected ColumnWindow[] columns;
+    protected int[] ints;
+    protected double[] doubles;
+    protected RowAcceptor[] acceptors;
+
+    public abstract boolean test(long localRowID);
+
+    protected final boolean call(int acceptor, long localRowID) {
+        return acceptors[acceptor].accept(localRowID, -1) != Choice.SKIP;
+    }
+}
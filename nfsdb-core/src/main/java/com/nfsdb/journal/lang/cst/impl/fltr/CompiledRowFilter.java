@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.fltr;
+
+import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.column.AbstractColumn;
+import com.nfsdb.journal.column.ColumnWindow;
+import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.lang.cst.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates filter tree with predicate generated by FilterCompiler. Tree is compiled when first partition
+ * is seen and again when journal metadata changes. When tree cannot be compiled, acceptor of filter itself
+ * is used.
+ * <p/>
+ * Interpreted acceptor is created for every partition regardless, it binds leaf filters and provides
+ * skipping of blocks.
+ */
+public class CompiledRowFilter implements RowFilter, SkippingRowAcceptor, BatchRowAcceptor {
+    private final RowFilter filter;
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<FilterCompiler.Node> leaves = new ArrayList<>();
+    private JournalMetadata metadata;
+    private CompiledPredicate predicate;
+    private int columnIndexes[];
+    private RowAcceptor interpreted;
+
+    public CompiledRowFilter(RowFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
+        interpreted = filter.acceptor(a, b);
+
+        Partition partition = a.partition;
+        if (partition.getJournal().getMetadata() != metadata) {
+            compile(partition.getJournal().getMetadata());
+        }
+
+        if (predicate == null) {
+            return interpreted;
+        }
+
+        try {
+            partition.open();
+            for (int i = 0; i < columnIndexes.length; i++) {
+                AbstractColumn col = partition.getAbstractColumn(columnIndexes[i]);
+                if (!(col instanceof FixedColumn)) {
+                    throw new JournalRuntimeException("Invalid column type");
+                }
+                predicate.columns[i].of((FixedColumn) col);
+            }
+        } catch (JournalException e) {
+            throw new JournalRuntimeException(e);
+        }
+
+        for (int i = 0, n = leaves.size(); i < n; i++) {
+            FilterCompiler.Node leaf = leaves.get(i);
+            switch (leaf.kind) {
+                case FilterCompiler.INT_EQUALS:
+                    predicate.ints[leaf.slot] = ((IntEqualsRowFilter) leaf.filter).getValue().value;
+                    break;
+                case FilterCompiler.SYMBOL_EQUALS:
+                    predicate.ints[leaf.slot] = ((SymbolEqualsRowFilter) leaf.filter).getKey();
+                    break;
+                case FilterCompiler.DOUBLE_GREATER_THAN:
+                    predicate.doubles[leaf.slot] = ((DoubleGreaterThanRowFilter) leaf.filter).getValue();
+                    break;
+                default:
+                    predicate.acceptors[leaf.slot] = leaf.filter.acceptor(a, b);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return true when filter is evaluated by generated code
+     */
+    public boolean isCompiled() {
+        return predicate != null;
+    }
+
+    @Override
+    public Choice accept(long localRowIDA, long localRowIDB) {
+        return predicate.test(localRowIDA) ? Choice.PICK : Choice.SKIP;
+    }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (predicate.test(rows[i])) {
+                rows[n++] = rows[i];
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long localRowIDA) {
+        return interpreted instanceof SkippingRowAcceptor ? ((SkippingRowAcceptor) interpreted).skip(localRowIDA) : localRowIDA;
+    }
+
+    private void compile(JournalMetadata metadata) {
+        this.metadata = metadata;
+        columnNames.clear();
+        leaves.clear();
+        FilterCompiler.Node root = FilterCompiler.analyse(filter, metadata, columnNames, leaves);
+        predicate = FilterCompiler.newPredicate(root);
+        if (predicate == null) {
+            return;
+        }
+
+        columnIndexes = new int[columnNames.size()];
+        predicate.columns = new ColumnWindow[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columnIndexes[i] = metadata.getColumnIndex(columnNames.get(i));
+            predicate.columns[i] = new ColumnWindow();
+        }
+
+        int ints = 0;
+        int doubles = 0;
+        int calls = 0;
+        for (int i = 0, n = leaves.size(); i < n; i++) {
+            switch (FilterCompiler.slotType(leaves.get(i).kind)) {
+                case FilterCompiler.INT_EQUALS:
+                    ints++;
+                    break;
+                case FilterCompiler.DOUBLE_GREATER_THAN:
+                    doubles++;
+                    break;
+                default:
+                    calls++;
+            }
+        }
+        predicate.ints = new int[ints];
+        predicate.doubles = new double[doubles];
+        predicate.acceptors = new RowAcceptor[calls];
+    }
+}
@@ -18,29 +18,48 @@ package com.nfsdb.journal.lang.cst.impl.fltr;
 
 import com.nfsdb.journal.column.AbstractColumn;
 import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.column.ZoneMap;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
 import com.nfsdb.journal.lang.cst.Choice;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowAcceptor;
 import com.nfsdb.journal.lang.cst.RowFilter;
+import com.nfsdb.journal.lang.cst.SkippingRowAcceptor;
 
-public class DoubleGreaterThanRowFilter implements RowFilter, RowAcceptor {
+public class DoubleGreaterThanRowFilter implements RowFilter, SkippingRowAcceptor, BatchRowAcceptor {
     private final String column;
     private final double value;
     private FixedColumn columnRef;
+    private ZoneMap zoneMap;
+    private long size;
+    private long blockLo;
+    private long blockHi;
 
     public DoubleGreaterThanRowFilter(String column, double value) {
         this.column = column;
         this.value = value;
     }
 
+    String getColumn() {
+        return column;
+    }
+
+    double getValue() {
+        return value;
+    }
+
     @Override
     public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
-        AbstractColumn col = a.partition.getAbstractColumn(a.partition.getJournal().getMetadata().getColumnIndex(column));
+        int columnIndex = a.partition.getJournal().getMetadata().getColumnIndex(column);
+        AbstractColumn col = a.partition.getAbstractColumn(columnIndex);
         if (!(col instanceof FixedColumn)) {
             throw new JournalRuntimeException("Invalid column type");
         }
         columnRef = (FixedColumn) col;
+        zoneMap = a.partition.getZoneMap(columnIndex);
+        size = a.partition.size();
+        blockLo = blockHi = 0;
 
         return this;
     }
@@ -49,4 +68,25 @@ public class DoubleGreaterThanRowFilter implements RowFilter, RowAcceptor {
     public Choice accept(long localRowIDA, long localRowIDB) {
         return columnRef.getDouble(localRowIDA) > value ? Choice.PICK : Choice.SKIP;
     }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        return columnRef.selectDoubleGreaterThan(rows, count, value);
+    }
+
+    @Override
+    public long skip(long localRowIDA) {
+        if (zoneMap == null || localRowIDA >= size || (localRowIDA >= blockLo && localRowIDA < blockHi)) {
+            return localRowIDA;
+        }
+
+        int bits = zoneMap.getBlockBits();
+        long block = localRowIDA >>> bits;
+        while (zoneMap.isComplete(block, size) && !(zoneMap.getDoubleMax(block) > value)) {
+            block++;
+        }
+        blockLo = block << bits;
+        blockHi = blockLo + (1L << bits);
+        return Math.max(blockLo, localRowIDA);
+    }
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.fltr;
+
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.ColumnWindow;
+import com.nfsdb.journal.factory.configuration.JournalMetadata;
+import com.nfsdb.journal.lang.cst.RowFilter;
+import com.nfsdb.journal.logging.Logger;
+import com.nfsdb.journal.utils.Unsafe;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Translates filter trees into classes, which evaluate whole tree in one method. Int, double and symbol
+ * comparisons become direct reads of column memory, conjunctions, disjunctions and negations become
+ * branches. Other filters are called through their acceptors.
+ * <p/>
+ * Generated code depends only on shape of tree: kinds of its nodes, which are resolved against
+ * journal metadata, and slots their columns and constants occupy. Classes are cached by shape, so that
+ * filters that differ in constants only share class. Shapes that fail to compile are remembered and
+ * evaluated by interpreter.
+ */
+public final class FilterCompiler {
+    static final char INT_EQUALS = 'i';
+    static final char DOUBLE_GREATER_THAN = 'd';
+    static final char SYMBOL_EQUALS = 's';
+    static final char CALL = 'c';
+    static final char ALL = 'A';
+    static final char ANY = 'O';
+    static final char NOT = 'N';
+
+    private static final Logger LOGGER = Logger.getLogger(FilterCompiler.class);
+    private static final ConcurrentHashMap<String, Class<? extends CompiledPredicate>> classes = new ConcurrentHashMap<>();
+    private static final Set<String> failures = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private static final AtomicInteger classCount = new AtomicInteger();
+    private static final String BASE = Type.getInternalName(CompiledPredicate.class);
+    private static final String WINDOW = Type.getInternalName(ColumnWindow.class);
+    private static final String UNSAFE = "sun/misc/Unsafe";
+
+    private FilterCompiler() {
+    }
+
+    static Node analyse(RowFilter filter, JournalMetadata metadata, List<String> columns, List<Node> leaves) {
+        Node node;
+        if (filter instanceof AllRowFilter || filter instanceof AnyRowFilter) {
+            RowFilter children[] = filter instanceof AllRowFilter ? ((AllRowFilter) filter).getFilters() : ((AnyRowFilter) filter).getFilters();
+            node = new Node(filter instanceof AllRowFilter ? ALL : ANY, filter);
+            node.children = new Node[children.length];
+            for (int i = 0; i < children.length; i++) {
+                node.children[i] = analyse(children[i], metadata, columns, leaves);
+            }
+            return node;
+        }
+
+        if (filter instanceof NotRowFilter) {
+            node = new Node(NOT, filter);
+            node.children = new Node[]{analyse(((NotRowFilter) filter).getFilter(), metadata, columns, leaves)};
+            return node;
+        }
+
+        String column = null;
+        if (filter instanceof IntEqualsRowFilter && type(metadata, column = ((IntEqualsRowFilter) filter).getColumn().value) == ColumnType.INT) {
+            node = new Node(INT_EQUALS, filter);
+        } else if (filter instanceof DoubleGreaterThanRowFilter && type(metadata, column = ((DoubleGreaterThanRowFilter) filter).getColumn()) == ColumnType.DOUBLE) {
+            node = new Node(DOUBLE_GREATER_THAN, filter);
+        } else if (filter instanceof SymbolEqualsRowFilter && type(metadata, column = ((SymbolEqualsRowFilter) filter).getColumn().value) == ColumnType.SYMBOL) {
+            node = new Node(SYMBOL_EQUALS, filter);
+        } else {
+            node = new Node(CALL, filter);
+            column = null;
+        }
+
+        if (column != null) {
+            // leaves of the same column share window
+            node.column = columns.indexOf(column);
+            if (node.column == -1) {
+                node.column = columns.size();
+                columns.add(column);
+            }
+        }
+
+        int slot = 0;
+        for (int i = 0, n = leaves.size(); i < n; i++) {
+            if (slotType(leaves.get(i).kind) == slotType(node.kind)) {
+                slot++;
+            }
+        }
+        node.slot = slot;
+        leaves.add(node);
+        return node;
+    }
+
+    static char slotType(char kind) {
+        return kind == SYMBOL_EQUALS ? INT_EQUALS : kind;
+    }
+
+    /**
+     * Creates instance of predicate for tree of given shape.
+     *
+     * @return new instance or null when tree cannot be compiled
+     */
+    static CompiledPredicate newPredicate(Node root) {
+        String shape = root.toString();
+        if (failures.contains(shape)) {
+            return null;
+        }
+
+        try {
+            Class<? extends CompiledPredicate> clazz = classes.get(shape);
+            if (clazz == null) {
+                clazz = define(root);
+                Class<? extends CompiledPredicate> other = classes.putIfAbsent(shape, clazz);
+                if (other != null) {
+                    clazz = other;
+                }
+            }
+            return clazz.newInstance();
+        } catch (Exception | LinkageError e) {
+            LOGGER.info("Cannot compile filter %s, it will be interpreted: %s", shape, e.toString());
+            failures.add(shape);
+            return null;
+        }
+    }
+
+    private static ColumnType type(JournalMetadata metadata, String column) {
+        return metadata.getColumnMetadata(column).type;
+    }
+
+    private static Class<? extends CompiledPredicate> define(Node root) {
+        String name = BASE + "$" + classCount.incrementAndGet();
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // frames merge only primitives and this
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V1_7, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, null, BASE, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", "()V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "test", "(J)Z", null, null);
+        mv.visitCode();
+        Label rejected = new Label();
+        emit(mv, root, false, rejected);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        mv.visitLabel(rejected);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return new PredicateLoader().define(name.replace('/', '.'), cw.toByteArray());
+    }
+
+    /**
+     * Emits code that jumps to target when node evaluates to jumpIf and falls through otherwise.
+     */
+    private static void emit(MethodVisitor mv, Node node, boolean jumpIf, Label target) {
+        switch (node.kind) {
+            case INT_EQUALS:
+                emitInt(mv, node);
+                mv.visitJumpInsn(jumpIf ? IF_ICMPEQ : IF_ICMPNE, target);
+                break;
+            case SYMBOL_EQUALS:
+                // key -1 means value is not in symbol table, it must not match null symbols
+                Label missing = jumpIf ? new Label() : target;
+                emitSlot(mv, "ints", "[I", node.slot, IALOAD);
+                mv.visitInsn(ICONST_M1);
+                mv.visitJumpInsn(IF_ICMPEQ, missing);
+                emitInt(mv, node);
+                mv.visitJumpInsn(jumpIf ? IF_ICMPEQ : IF_ICMPNE, target);
+                if (jumpIf) {
+                    mv.visitLabel(missing);
+                }
+                break;
+            case DOUBLE_GREATER_THAN:
+                mv.visitFieldInsn(GETSTATIC, Type.getInternalName(Unsafe.class), "UNSAFE", "L" + UNSAFE + ";");
+                emitAddress(mv, node);
+                mv.visitMethodInsn(INVOKEVIRTUAL, UNSAFE, "getDouble", "(J)D", false);
+                emitSlot(mv, "doubles", "[D", node.slot, DALOAD);
+                // NaN compares as less, same as in interpreter
+                mv.visitInsn(DCMPL);
+                mv.visitJumpInsn(jumpIf ? IFGT : IFLE, target);
+                break;
+            case CALL:
+                mv.visitVarInsn(ALOAD, 0);
+                push(mv, node.slot);
+                mv.visitVarInsn(LLOAD, 1);
+                mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "call", "(IJ)Z", false);
+                mv.visitJumpInsn(jumpIf ? IFNE : IFEQ, target);
+                break;
+            case NOT:
+                emit(mv, node.children[0], !jumpIf, target);
+                break;
+            case ALL:
+            case ANY:
+                // all() is true unless one of children is false, any() is false unless one of children is true
+                boolean shortCircuit = node.kind == ANY;
+                int n = node.children.length;
+                if (n == 0) {
+                    if (jumpIf != shortCircuit) {
+                        mv.visitJumpInsn(GOTO, target);
+                    }
+                } else if (jumpIf == shortCircuit) {
+                    for (int i = 0; i < n; i++) {
+                        emit(mv, node.children[i], jumpIf, target);
+                    }
+                } else {
+                    Label done = new Label();
+                    for (int i = 0; i < n - 1; i++) {
+                        emit(mv, node.children[i], shortCircuit, done);
+                    }
+                    emit(mv, node.children[n - 1], jumpIf, target);
+                    mv.visitLabel(done);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown node: " + node.kind);
+        }
+    }
+
+    private static void emitInt(MethodVisitor mv, Node node) {
+        mv.visitFieldInsn(GETSTATIC, Type.getInternalName(Unsafe.class), "UNSAFE", "L" + UNSAFE + ";");
+        emitAddress(mv, node);
+        mv.visitMethodInsn(INVOKEVIRTUAL, UNSAFE, "getInt", "(J)I", false);
+        emitSlot(mv, "ints", "[I", node.slot, IALOAD);
+    }
+
+    private static void emitAddress(MethodVisitor mv, Node node) {
+        emitSlot(mv, "columns", "[L" + WINDOW + ";", node.column, AALOAD);
+        mv.visitVarInsn(LLOAD, 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, WINDOW, "address", "(J)J", false);
+    }
+
+    private static void emitSlot(MethodVisitor mv, String field, String desc, int slot, int load) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, BASE, field, desc);
+        push(mv, slot);
+        mv.visitInsn(load);
+    }
+
+    private static void push(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    static class Node {
+        final char kind;
+        final RowFilter filter;
+        Node children[];
+        int column = -1;
+        int slot = -1;
+
+        Node(char kind, RowFilter filter) {
+            this.kind = kind;
+            this.filter = filter;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder b = new StringBuilder().append(kind);
+            if (children != null) {
+                b.append('(');
+                for (int i = 0; i < children.length; i++) {
+                    if (i > 0) {
+                        b.append(',');
+                    }
+                    b.append(children[i]);
+                }
+                b.append(')');
+            } else {
+                b.append(slot);
+                if (column != -1) {
+                    b.append(':').append(column);
+                }
+            }
+            return b.toString();
+        }
+    }
+
+    private static class PredicateLoader extends ClassLoader {
+        private PredicateLoader() {
+            super(CompiledPredicate.class.getClassLoader());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Class<? extends CompiledPredicate> define(String name, byte[] bytes) {
+            return (Class<? extends CompiledPredicate>) defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
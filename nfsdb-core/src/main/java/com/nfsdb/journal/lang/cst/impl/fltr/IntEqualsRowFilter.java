@@ -18,34 +18,53 @@ package com.nfsdb.journal.lang.cst.impl.fltr;
 
 import com.nfsdb.journal.column.AbstractColumn;
 import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.column.ZoneMap;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
 import com.nfsdb.journal.lang.cst.Choice;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowAcceptor;
 import com.nfsdb.journal.lang.cst.RowFilter;
+import com.nfsdb.journal.lang.cst.SkippingRowAcceptor;
 import com.nfsdb.journal.lang.cst.impl.ref.IntRef;
 import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
 
-public class IntEqualsRowFilter implements RowFilter, RowAcceptor {
+public class IntEqualsRowFilter implements RowFilter, SkippingRowAcceptor, BatchRowAcceptor {
     private final StringRef column;
     private final IntRef value;
     private FixedColumn columnRef;
+    private ZoneMap zoneMap;
+    private long size;
+    private long blockLo;
+    private long blockHi;
 
     public IntEqualsRowFilter(StringRef column, IntRef value) {
         this.column = column;
         this.value = value;
     }
 
+    StringRef getColumn() {
+        return column;
+    }
+
+    IntRef getValue() {
+        return value;
+    }
+
     @Override
     public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
         try {
             a.partition.open();
-            AbstractColumn col = a.partition.getAbstractColumn(a.partition.getJournal().getMetadata().getColumnIndex(column.value));
+            int columnIndex = a.partition.getJournal().getMetadata().getColumnIndex(column.value);
+            AbstractColumn col = a.partition.getAbstractColumn(columnIndex);
             if (!(col instanceof FixedColumn)) {
                 throw new JournalRuntimeException("Invalid column type");
             }
             columnRef = (FixedColumn) col;
+            zoneMap = a.partition.getZoneMap(columnIndex);
+            size = a.partition.size();
+            blockLo = blockHi = 0;
 
             return this;
         } catch (JournalException e) {
@@ -57,4 +76,25 @@ public class IntEqualsRowFilter implements RowFilter, RowAcceptor {
     public Choice accept(long localRowIDA, long localRowIDB) {
         return columnRef.getInt(localRowIDA) == value.value ? Choice.PICK : Choice.SKIP;
     }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        return columnRef.selectIntEquals(rows, count, value.value);
+    }
+
+    @Override
+    public long skip(long localRowIDA) {
+        if (zoneMap == null || localRowIDA >= size || (localRowIDA >= blockLo && localRowIDA < blockHi)) {
+            return localRowIDA;
+        }
+
+        int bits = zoneMap.getBlockBits();
+        long block = localRowIDA >>> bits;
+        while (zoneMap.isComplete(block, size) && (value.value < zoneMap.getLongMin(block) || value.value > zoneMap.getLongMax(block))) {
+            block++;
+        }
+        blockLo = block << bits;
+        blockHi = blockLo + (1L << bits);
+        return Math.max(blockLo, localRowIDA);
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.fltr;
+
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
+import com.nfsdb.journal.lang.cst.Choice;
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowAcceptor;
+import com.nfsdb.journal.lang.cst.RowFilter;
+
+public class NotRowFilter implements RowFilter, BatchRowAcceptor {
+
+    private final RowFilter filter;
+    private RowAcceptor acceptor;
+    private long accepted[] = new long[0];
+
+    public NotRowFilter(RowFilter filter) {
+        this.filter = filter;
+    }
+
+    RowFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
+        this.acceptor = filter.acceptor(a, b);
+        return this;
+    }
+
+    @Override
+    public Choice accept(long localRowIDA, long localRowIDB) {
+        // rows after the one picked by filter are not known to be rejected, hence no partition skipping
+        return acceptor.accept(localRowIDA, localRowIDB) == Choice.SKIP ? Choice.PICK : Choice.SKIP;
+    }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        int n = 0;
+        if (!(acceptor instanceof BatchRowAcceptor)) {
+            for (int i = 0; i < count; i++) {
+                if (acceptor.accept(rows[i], -1) == Choice.SKIP) {
+                    rows[n++] = rows[i];
+                }
+            }
+            return n;
+        }
+
+        if (accepted.length < count) {
+            accepted = new long[count];
+        }
+        System.arraycopy(rows, 0, accepted, 0, count);
+        int m = ((BatchRowAcceptor) acceptor).accept(accepted, count);
+
+        // rows accepted by filter are subsequence of selection, keep the rest
+        for (int i = 0, j = 0; i < count; i++) {
+            if (j < m && accepted[j] == rows[i]) {
+                j++;
+            } else {
+                rows[n++] = rows[i];
+            }
+        }
+        return n;
+    }
+}
@@ -16,20 +16,30 @@
 
 package com.nfsdb.journal.lang.cst.impl.fltr;
 
+import com.nfsdb.journal.Partition;
 import com.nfsdb.journal.column.AbstractColumn;
+import com.nfsdb.journal.column.DirectCharSequence;
+import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.column.FixedStringColumn;
 import com.nfsdb.journal.column.VariableColumn;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
 import com.nfsdb.journal.lang.cst.Choice;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowAcceptor;
 import com.nfsdb.journal.lang.cst.RowFilter;
 import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
+import com.nfsdb.journal.utils.Checksum;
 
-public class StringEqualsRowFilter implements RowFilter, RowAcceptor {
+public class StringEqualsRowFilter implements RowFilter, BatchRowAcceptor {
     private final StringRef column;
     private final StringRef value;
-    private VariableColumn columnRef;
+    private final DirectCharSequence cs = new DirectCharSequence();
+    private Partition partition;
+    private int columnIndex;
+    private FixedColumn fingerprints;
+    private long fingerprint;
 
     public StringEqualsRowFilter(StringRef column, StringRef value) {
         this.column = column;
@@ -40,11 +50,15 @@ public class StringEqualsRowFilter implements RowFilter, RowAcceptor {
     public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
         try {
             a.partition.open();
-            AbstractColumn col = a.partition.getAbstractColumn(a.partition.getJournal().getMetadata().getColumnIndex(column.value));
-            if (!(col instanceof VariableColumn)) {
+            columnIndex = a.partition.getJournal().getMetadata().getColumnIndex(column.value);
+            AbstractColumn col = a.partition.getAbstractColumn(columnIndex);
+            if (!(col instanceof VariableColumn) && !(col instanceof FixedStringColumn)) {
                 throw new JournalRuntimeException("Invalid column type");
             }
-            columnRef = (VariableColumn) col;
+            partition = a.partition;
+            // value hashes let us skip reading strings that cannot match
+            fingerprints = value.value == null ? null : a.partition.getFingerprintColumn(columnIndex);
+            fingerprint = fingerprints == null ? 0 : Checksum.fingerprint(value.value);
 
             return this;
         } catch (JournalException e) {
@@ -54,6 +68,33 @@ public class StringEqualsRowFilter implements RowFilter, RowAcceptor {
 
     @Override
     public Choice accept(long localRowIDA, long localRowIDB) {
-        return columnRef.equalsString(localRowIDA, value.value) ? Choice.PICK : Choice.SKIP;
+        if (fingerprints != null && fingerprints.getLong(localRowIDA) != fingerprint) {
+            return Choice.SKIP;
+        }
+        DirectCharSequence cs = partition.getStr(localRowIDA, columnIndex, this.cs);
+        return cs != null && cs.equals(value.value) ? Choice.PICK : Choice.SKIP;
+    }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        int n = 0;
+        // fingerprints narrow selection first, strings are read only for rows that are left
+        if (fingerprints != null) {
+            for (int i = 0; i < count; i++) {
+                if (fingerprints.getLong(rows[i]) == fingerprint) {
+                    rows[n++] = rows[i];
+                }
+            }
+            count = n;
+            n = 0;
+        }
+
+        for (int i = 0; i < count; i++) {
+            DirectCharSequence cs = partition.getStr(rows[i], columnIndex, this.cs);
+            if (cs != null && cs.equals(value.value)) {
+                rows[n++] = rows[i];
+            }
+        }
+        return n;
     }
 }
@@ -21,13 +21,14 @@ import com.nfsdb.journal.column.FixedColumn;
 import com.nfsdb.journal.column.SymbolTable;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.BatchRowAcceptor;
 import com.nfsdb.journal.lang.cst.Choice;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowAcceptor;
 import com.nfsdb.journal.lang.cst.RowFilter;
 import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
 
-public class SymbolEqualsRowFilter implements RowFilter, RowAcceptor {
+public class SymbolEqualsRowFilter implements RowFilter, BatchRowAcceptor {
     private final StringRef column;
     private final StringRef value;
     private FixedColumn columnRef;
@@ -40,6 +41,17 @@ public class SymbolEqualsRowFilter implements RowFilter, RowAcceptor {
         this.value = value;
     }
 
+    StringRef getColumn() {
+        return column;
+    }
+
+    /**
+     * Key of symbol value, -1 when value is not in symbol table. Key is known once acceptor is created.
+     */
+    int getKey() {
+        return key;
+    }
+
     @Override
     public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
         try {
@@ -76,4 +88,12 @@ public class SymbolEqualsRowFilter implements RowFilter, RowAcceptor {
         }
         return columnRef.getInt(localRowIDA) == key ? Choice.PICK : Choice.SKIP;
     }
+
+    @Override
+    public int accept(long[] rows, int count) {
+        if (key == -1) {
+            return 0;
+        }
+        return columnRef.selectIntEquals(rows, count, key);
+    }
 }
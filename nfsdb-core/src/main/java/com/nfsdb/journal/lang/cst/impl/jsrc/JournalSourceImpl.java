@@ -21,10 +21,16 @@ import com.nfsdb.journal.collections.AbstractImmutableIterator;
 import com.nfsdb.journal.lang.cst.*;
 
 public class JournalSourceImpl extends AbstractImmutableIterator<DataItem> implements JournalSource {
+    private static final int BATCH_SIZE = 1024;
     private final PartitionSource partitionSource;
     private final RowSource rowSource;
     private final DataItem item = new DataItem();
+    // rows of cursors that support batches are read a selection vector at a time
+    private final long batch[] = new long[BATCH_SIZE];
+    private int batchPos;
+    private int batchCount;
     private RowCursor cursor;
+    private BatchRowCursor batchCursor;
 
     public JournalSourceImpl(PartitionSource partitionSource, RowSource rowSource) {
         this.partitionSource = partitionSource;
@@ -33,7 +39,18 @@ public class JournalSourceImpl extends AbstractImmutableIterator<DataItem> imple
 
     @Override
     public boolean hasNext() {
-        return cursor != null && cursor.hasNext() || nextSlice();
+        return cursor != null && hasNextRow() || nextSlice();
+    }
+
+    private boolean hasNextRow() {
+        if (batchCursor == null) {
+            return cursor.hasNext();
+        }
+        if (batchPos == batchCount) {
+            batchPos = 0;
+            batchCount = batchCursor.read(batch);
+        }
+        return batchPos < batchCount;
     }
 
     private boolean nextSlice() {
@@ -45,19 +62,21 @@ public class JournalSourceImpl extends AbstractImmutableIterator<DataItem> imple
                 if (cursor == null) {
                     return false;
                 }
+                batchCursor = cursor instanceof BatchRowCursor ? (BatchRowCursor) cursor : null;
+                batchPos = batchCount = 0;
 
                 item.partition = slice.partition;
             } else {
                 return false;
             }
-        } while (!cursor.hasNext());
+        } while (!hasNextRow());
 
         return true;
     }
 
     @Override
     public DataItem next() {
-        item.rowid = cursor.next();
+        item.rowid = batchCursor == null ? cursor.next() : batch[batchPos++];
         return item;
     }
 
@@ -66,6 +85,7 @@ public class JournalSourceImpl extends AbstractImmutableIterator<DataItem> imple
         partitionSource.reset();
         rowSource.reset();
         cursor = null;
+        batchCursor = null;
         return this;
     }
 
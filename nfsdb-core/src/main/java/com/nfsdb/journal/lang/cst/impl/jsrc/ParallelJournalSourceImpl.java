@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.jsrc;
+
+import com.nfsdb.journal.Journal;
+import com.nfsdb.journal.JournalKey;
+import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.collections.AbstractImmutableIterator;
+import com.nfsdb.journal.collections.LongArrayList;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.factory.JournalReaderFactory;
+import com.nfsdb.journal.lang.cst.*;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scans partition slices concurrently and returns their rows to the caller's thread.
+ * <p/>
+ * Journal columns and row cursors are not thread-safe, so each slice is scanned by its own row source
+ * pipeline over a separate journal reader. At most "parallelism" slices are scanned at any time, so source
+ * keeps a pool of that many readers, which scans borrow and refresh rather than open their own. Readers are
+ * closed once source is exhausted or cancelled. Scans collect row IDs into buffers that are recycled after
+ * caller is done with their rows, which are returned against partitions of the source journal.
+ * <p/>
+ * Pooled readers see the latest transaction, which can be ahead of source journal. Scans resolve regular
+ * partitions by name and bound rows by what source journal sees. Lag partition can be merged away or
+ * replaced by the time reader is refreshed, so it is scanned on the caller's thread against source journal.
+ * <p/>
+ * Ordered source returns slices in the order partition source emits them, so that its output is the
+ * same as that of JournalSourceImpl. Unordered source returns slices as soon as their scans complete.
+ * Rows within a slice are always in cursor order.
+ */
+public class ParallelJournalSourceImpl extends AbstractImmutableIterator<DataItem> implements ParallelJournalSource {
+    private static final int CANCEL_CHECK_MASK = 1023;
+    private final PartitionSource partitionSource;
+    private final RowSourceFactory rowSourceFactory;
+    private final JournalReaderFactory readerFactory;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final boolean ordered;
+    private final DataItem item = new DataItem();
+    private final ArrayDeque<Future<Task>> pending = new ArrayDeque<>();
+    private final ArrayDeque<LongArrayList> freeRows = new ArrayDeque<>();
+    private final ArrayDeque<Task> local = new ArrayDeque<>();
+    private final BlockingQueue<Journal> readers;
+    private CompletionService<Task> completionService;
+    private AtomicBoolean cancelled;
+    private Task task;
+    private int rowPos;
+
+    public ParallelJournalSourceImpl(PartitionSource partitionSource, RowSourceFactory rowSourceFactory, JournalReaderFactory readerFactory, int parallelism, boolean ordered) {
+        this(partitionSource, rowSourceFactory, readerFactory, SharedPool.INSTANCE, parallelism, ordered);
+    }
+
+    public ParallelJournalSourceImpl(PartitionSource partitionSource, RowSourceFactory rowSourceFactory, JournalReaderFactory readerFactory, ExecutorService executor, int parallelism, boolean ordered) {
+        if (parallelism < 1) {
+            throw new JournalRuntimeException("Invalid parallelism: %d", parallelism);
+        }
+        this.partitionSource = partitionSource;
+        this.rowSourceFactory = rowSourceFactory;
+        this.readerFactory = readerFactory;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.cancelled = new AtomicBoolean();
+        this.readers = new ArrayBlockingQueue<>(parallelism);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (task == null || rowPos == task.rows.size()) {
+            if (task != null) {
+                freeRows.push(task.rows);
+                task = null;
+            }
+            if (cancelled.get() || (task = take()) == null) {
+                closeReaders();
+                return false;
+            }
+            rowPos = 0;
+            try {
+                item.partition = task.partition.open();
+            } catch (JournalException e) {
+                cancel();
+                throw new JournalRuntimeException(e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public DataItem next() {
+        item.rowid = task.rows.get(rowPos++);
+        return item;
+    }
+
+    @Override
+    public JournalSource reset() {
+        cancel();
+        partitionSource.reset();
+        cancelled = new AtomicBoolean();
+        completionService = null;
+        return this;
+    }
+
+    @Override
+    public Journal getJournal() {
+        return partitionSource.getJournal();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled.set(true);
+        for (Future<Task> f : pending) {
+            f.cancel(false);
+        }
+        pending.clear();
+        local.clear();
+        task = null;
+        closeReaders();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    private Task take() {
+        submit();
+        if (!ordered && local.size() > 0) {
+            return local.poll();
+        }
+
+        if (pending.size() == 0) {
+            return null;
+        }
+
+        try {
+            Future<Task> future;
+            if (ordered) {
+                future = pending.poll();
+            } else {
+                future = completionService.take();
+                pending.remove(future);
+            }
+            Task result = future.get();
+            submit();
+            return result;
+        } catch (InterruptedException e) {
+            throw new JournalRuntimeException(e);
+        } catch (ExecutionException e) {
+            cancel();
+            throw new JournalRuntimeException(e.getCause());
+        }
+    }
+
+    private void submit() {
+        if (completionService == null) {
+            completionService = new ExecutorCompletionService<>(executor);
+        }
+
+        while (pending.size() + local.size() < parallelism && partitionSource.hasNext()) {
+            PartitionSlice slice = partitionSource.next();
+            try {
+                // upper bound is fixed here, so that scans don't return rows this journal cannot see
+                long hi = slice.calcHi ? slice.partition.open().size() - 1 : slice.hi;
+                LongArrayList rows = freeRows.poll();
+                if (rows == null) {
+                    rows = new LongArrayList();
+                } else {
+                    rows.setPos(0);
+                }
+                Task t = new Task(slice.partition, slice.lo, hi, cancelled, rows);
+                if (slice.partition == slice.partition.getJournal().getIrregularPartition()) {
+                    FutureTask<Task> f = new FutureTask<>(t);
+                    f.run();
+                    if (ordered) {
+                        pending.add(f);
+                    } else {
+                        local.add(f.get());
+                    }
+                } else {
+                    pending.add(ordered ? executor.submit(t) : completionService.submit(t));
+                }
+            } catch (JournalException e) {
+                throw new JournalRuntimeException(e);
+            } catch (InterruptedException e) {
+                throw new JournalRuntimeException(e);
+            } catch (ExecutionException e) {
+                cancel();
+                throw new JournalRuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Reader of source journal for a scan, pooled reader is refreshed to see rows source journal can see.
+     */
+    private Journal borrowReader(Journal source) throws JournalException {
+        Journal journal = readers.poll();
+        if (journal == null) {
+            return readerFactory.reader((JournalKey) source.getKey());
+        }
+        journal.refresh();
+        return journal;
+    }
+
+    /**
+     * Partition of scan reader, which has the same name as partition of source journal.
+     */
+    private static Partition resolve(Journal journal, Partition partition) throws JournalException {
+        int index = partition.getPartitionIndex();
+        if (index < journal.nonLagPartitionCount() && partition.getName().equals(journal.getPartition(index, false).getName())) {
+            return journal.getPartition(index, true);
+        }
+
+        for (int i = 0, n = journal.nonLagPartitionCount(); i < n; i++) {
+            if (partition.getName().equals(journal.getPartition(i, false).getName())) {
+                return journal.getPartition(i, true);
+            }
+        }
+        throw new JournalRuntimeException("Partition %s is not found in %s", partition.getName(), journal);
+    }
+
+    private void returnReader(Journal journal, AtomicBoolean cancelled) {
+        if (cancelled.get() || !readers.offer(journal)) {
+            journal.close();
+        }
+    }
+
+    private void closeReaders() {
+        Journal journal;
+        while ((journal = readers.poll()) != null) {
+            journal.close();
+        }
+    }
+
+    private static class SharedPool {
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private class Task implements Callable<Task> {
+        private final Partition partition;
+        private final long lo;
+        private final long hi;
+        private final AtomicBoolean cancelled;
+        private final LongArrayList rows;
+
+        private Task(Partition partition, long lo, long hi, AtomicBoolean cancelled, LongArrayList rows) {
+            this.partition = partition;
+            this.lo = lo;
+            this.hi = hi;
+            this.cancelled = cancelled;
+            this.rows = rows;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Task call() throws JournalException {
+            if (cancelled.get()) {
+                return this;
+            }
+
+            Journal source = partition.getJournal();
+            if (partition == source.getIrregularPartition()) {
+                return scan(partition.open());
+            }
+
+            Journal journal = borrowReader(source);
+            try {
+                return scan(resolve(journal, partition));
+            } finally {
+                returnReader(journal, cancelled);
+            }
+        }
+
+        private Task scan(Partition partition) {
+            PartitionSlice slice = new PartitionSlice();
+            slice.partition = partition;
+            slice.lo = lo;
+            slice.hi = hi;
+            slice.calcHi = false;
+
+            RowCursor cursor = rowSourceFactory.newInstance().cursor(slice);
+            if (cursor == null) {
+                return this;
+            }
+
+            int n = 0;
+            while (cursor.hasNext()) {
+                if ((++n & CANCEL_CHECK_MASK) == 0 && cancelled.get()) {
+                    break;
+                }
+                long rowid = cursor.next();
+                if (rowid <= hi) {
+                    rows.add(rowid);
+                }
+            }
+            return this;
+        }
+    }
+}
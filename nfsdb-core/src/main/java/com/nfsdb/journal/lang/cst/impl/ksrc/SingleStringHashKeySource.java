@@ -16,6 +16,7 @@
 
 package com.nfsdb.journal.lang.cst.impl.ksrc;
 
+import com.nfsdb.journal.factory.configuration.ColumnMetadata;
 import com.nfsdb.journal.lang.cst.KeyCursor;
 import com.nfsdb.journal.lang.cst.KeySource;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
@@ -25,7 +26,7 @@ import com.nfsdb.journal.utils.Checksum;
 public class SingleStringHashKeySource implements KeySource, KeyCursor {
     private final StringRef column;
     private final StringRef value;
-    private int bucketCount = -1;
+    private ColumnMetadata meta;
     private boolean hasNext;
 
     public SingleStringHashKeySource(StringRef column, StringRef value) {
@@ -35,8 +36,8 @@ public class SingleStringHashKeySource implements KeySource, KeyCursor {
 
     @Override
     public KeyCursor cursor(PartitionSlice slice) {
-        if (bucketCount == -1) {
-            bucketCount = slice.partition.getJournal().getMetadata().getColumnMetadata(column.value).distinctCountHint;
+        if (meta == null) {
+            meta = slice.partition.getJournal().getMetadata().getColumnMetadata(column.value);
         }
         this.hasNext = true;
         return this;
@@ -50,7 +51,7 @@ public class SingleStringHashKeySource implements KeySource, KeyCursor {
     @Override
     public int next() {
         hasNext = false;
-        return Checksum.hash(value.value, bucketCount);
+        return Checksum.hash(value.value, meta);
     }
 
     @Override
@@ -60,6 +61,6 @@ public class SingleStringHashKeySource implements KeySource, KeyCursor {
 
     @Override
     public void reset() {
-        bucketCount = -1;
+        meta = null;
     }
 }
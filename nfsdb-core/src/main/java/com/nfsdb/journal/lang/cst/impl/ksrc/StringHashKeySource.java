@@ -16,6 +16,7 @@
 
 package com.nfsdb.journal.lang.cst.impl.ksrc;
 
+import com.nfsdb.journal.factory.configuration.ColumnMetadata;
 import com.nfsdb.journal.lang.cst.KeyCursor;
 import com.nfsdb.journal.lang.cst.KeySource;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
@@ -27,7 +28,7 @@ import java.util.List;
 public class StringHashKeySource implements KeySource, KeyCursor {
     private final StringRef column;
     private final List<String> values;
-    private int bucketCount = -1;
+    private ColumnMetadata meta;
     private int valueIndex;
 
     public StringHashKeySource(StringRef column, List<String> values) {
@@ -37,8 +38,8 @@ public class StringHashKeySource implements KeySource, KeyCursor {
 
     @Override
     public KeyCursor cursor(PartitionSlice slice) {
-        if (bucketCount == -1) {
-            bucketCount = slice.partition.getJournal().getMetadata().getColumnMetadata(column.value).distinctCountHint;
+        if (meta == null) {
+            meta = slice.partition.getJournal().getMetadata().getColumnMetadata(column.value);
         }
         this.valueIndex = 0;
         return this;
@@ -51,7 +52,7 @@ public class StringHashKeySource implements KeySource, KeyCursor {
 
     @Override
     public int next() {
-        return Checksum.hash(values.get(valueIndex++), bucketCount);
+        return Checksum.hash(values.get(valueIndex++), meta);
     }
 
     @Override
@@ -61,6 +62,6 @@ public class StringHashKeySource implements KeySource, KeyCursor {
 
     @Override
     public void reset() {
-        bucketCount = -1;
+        meta = null;
     }
 }
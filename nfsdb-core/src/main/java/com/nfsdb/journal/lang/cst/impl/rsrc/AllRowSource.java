@@ -2,11 +2,13 @@ package com.nfsdb.journal.lang.cst.impl.rsrc;
 
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.lang.cst.BatchRowCursor;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowCursor;
 import com.nfsdb.journal.lang.cst.RowSource;
+import com.nfsdb.journal.lang.cst.SeekableRowCursor;
 
-public class AllRowSource implements RowSource, RowCursor {
+public class AllRowSource implements RowSource, SeekableRowCursor, BatchRowCursor {
     private long lo;
     private long hi;
 
@@ -35,4 +37,21 @@ public class AllRowSource implements RowSource, RowCursor {
     public long next() {
         return lo++;
     }
+
+    @Override
+    public int read(long[] rows) {
+        int n = (int) Math.max(0, Math.min(rows.length, hi - lo + 1));
+        for (int i = 0; i < n; i++) {
+            rows[i] = lo + i;
+        }
+        lo += n;
+        return n;
+    }
+
+    @Override
+    public void seek(long localRowID) {
+        if (localRowID > lo) {
+            lo = localRowID;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowCursor;
+import com.nfsdb.journal.lang.cst.RowSource;
+import com.nfsdb.journal.lang.cst.SeekableRowCursor;
+
+/**
+ * Rows of source, which are not returned by excluded source. Both sources must return rows in ascending order.
+ * Excluded source is read alongside source and is moved forward only as far as the current row.
+ */
+public class DifferenceRowSource implements RowSource, SeekableRowCursor {
+    private final RowSource source;
+    private final RowSource excluded;
+    private RowCursor cursor;
+    private RowCursor excludedCursor;
+    private long excludedRow;
+    private long lo;
+    private long next;
+
+    public DifferenceRowSource(RowSource source, RowSource excluded) {
+        this.source = source;
+        this.excluded = excluded;
+    }
+
+    @Override
+    public RowCursor cursor(PartitionSlice slice) {
+        this.cursor = source.cursor(slice);
+        this.excludedCursor = excluded.cursor(slice);
+        this.excludedRow = -1;
+        this.lo = 0;
+        this.next = -1;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next > -1) {
+            return true;
+        }
+
+        while (cursor.hasNext()) {
+            long row = cursor.next();
+            if (row >= lo && !isExcluded(row)) {
+                next = row;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long next() {
+        long row = next;
+        next = -1;
+        return row;
+    }
+
+    @Override
+    public void seek(long localRowID) {
+        if (localRowID > lo) {
+            lo = localRowID;
+            if (next < localRowID) {
+                next = -1;
+            }
+            if (cursor instanceof SeekableRowCursor) {
+                ((SeekableRowCursor) cursor).seek(localRowID);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        source.reset();
+        excluded.reset();
+    }
+
+    private boolean isExcluded(long row) {
+        if (excludedRow < row) {
+            if (excludedCursor instanceof SeekableRowCursor) {
+                ((SeekableRowCursor) excludedCursor).seek(row);
+            }
+            excludedRow = Long.MAX_VALUE;
+            while (excludedCursor.hasNext()) {
+                long r = excludedCursor.next();
+                if (r >= row) {
+                    excludedRow = r;
+                    break;
+                }
+            }
+        }
+        return excludedRow == row;
+    }
+}
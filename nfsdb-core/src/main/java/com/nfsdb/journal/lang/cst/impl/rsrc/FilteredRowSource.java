@@ -13,17 +13,27 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.nfsdb.journal.lang.cst.impl.rsrc;
 
 import com.nfsdb.journal.lang.cst.*;
 
-public class FilteredRowSource implements RowSource, RowCursor {
+/**
+ * Rows of delegate source accepted by filter. When filter supports batches, rows are read from delegate and
+ * filtered a selection vector at a time, otherwise row by row.
+ */
+public class FilteredRowSource implements RowSource, BatchRowCursor {
 
+    private static final int BATCH_SIZE = 1024;
     private final RowSource delegate;
     private final RowFilter filter;
+    private final long batch[] = new long[BATCH_SIZE];
+    private int batchPos;
+    private int batchCount;
     private RowCursor underlying;
     private RowAcceptor acceptor;
+    private BatchRowAcceptor batchAcceptor;
+    private SkippingRowAcceptor skipper;
+    private SeekableRowCursor seekable;
     private long rowid;
     private boolean skip;
 
@@ -36,13 +46,25 @@ public class FilteredRowSource implements RowSource, RowCursor {
     public RowCursor cursor(PartitionSlice slice) {
         this.underlying = delegate.cursor(slice);
         this.acceptor = filter.acceptor(slice, null);
+        this.batchAcceptor = acceptor instanceof BatchRowAcceptor ? (BatchRowAcceptor) acceptor : null;
+        this.skipper = acceptor instanceof SkippingRowAcceptor ? (SkippingRowAcceptor) acceptor : null;
+        this.seekable = underlying instanceof SeekableRowCursor ? (SeekableRowCursor) underlying : null;
         this.rowid = -1;
         this.skip = false;
+        this.batchPos = this.batchCount = 0;
         return this;
     }
 
     @Override
     public boolean hasNext() {
+        if (batchAcceptor != null) {
+            if (batchPos == batchCount) {
+                batchPos = 0;
+                batchCount = fill(batch);
+            }
+            return batchPos < batchCount;
+        }
+
         if (this.rowid == -1) {
 
             if (skip) {
@@ -55,6 +77,16 @@ public class FilteredRowSource implements RowSource, RowCursor {
             while (underlying.hasNext()) {
                 rowid = underlying.next();
 
+                if (skipper != null) {
+                    long next = skipper.skip(rowid);
+                    if (next > rowid) {
+                        if (seekable != null) {
+                            seekable.seek(next);
+                        }
+                        continue;
+                    }
+                }
+
                 Choice choice = acceptor.accept(rowid, -1);
                 switch (choice) {
                     case SKIP:
@@ -75,13 +107,76 @@ public class FilteredRowSource implements RowSource, RowCursor {
 
     @Override
     public long next() {
+        if (batchAcceptor != null) {
+            return batch[batchPos++];
+        }
         long rowid = this.rowid;
         this.rowid = -1;
         return rowid;
     }
 
+    @Override
+    public int read(long[] rows) {
+        if (batchAcceptor == null) {
+            int n = 0;
+            while (n < rows.length && hasNext()) {
+                rows[n++] = next();
+            }
+            return n;
+        }
+
+        // rows left over from hasNext/next go first
+        if (batchPos < batchCount) {
+            int n = Math.min(rows.length, batchCount - batchPos);
+            System.arraycopy(batch, batchPos, rows, 0, n);
+            batchPos += n;
+            return n;
+        }
+        return fill(rows);
+    }
+
     @Override
     public void reset() {
         delegate.reset();
     }
+
+    /**
+     * Reads batches from underlying cursor until filter accepts some of rows.
+     *
+     * @return number of accepted rows, 0 when underlying cursor is exhausted
+     */
+    private int fill(long[] rows) {
+        int n;
+        do {
+            n = RowCursors.read(underlying, rows);
+            if (n == 0) {
+                return 0;
+            }
+            long last = rows[n - 1];
+
+            if (skipper != null) {
+                int k = 0;
+                for (int i = 0; i < n; i++) {
+                    long row = rows[i];
+                    if (skipper.skip(row) == row) {
+                        rows[k++] = row;
+                    }
+                }
+                n = k;
+
+                // rows are ascending when underlying cursor is seekable
+                if (seekable != null) {
+                    long next = skipper.skip(last + 1);
+                    if (next > last + 1) {
+                        seekable.seek(next);
+                    }
+                }
+            }
+
+            if (n > 0) {
+                n = batchAcceptor.accept(rows, n);
+            }
+        } while (n == 0);
+        return n;
+    }
 }
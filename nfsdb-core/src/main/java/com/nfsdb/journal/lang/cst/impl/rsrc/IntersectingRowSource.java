@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowCursor;
+import com.nfsdb.journal.lang.cst.RowSource;
+import com.nfsdb.journal.lang.cst.SeekableRowCursor;
+
+/**
+ * Rows returned by all of row sources, each of which must return rows in ascending order. Sources are
+ * intersected leapfrog style: every source in turn is moved to the largest row seen so far, until all of them
+ * agree on a row. Sources that implement {@link SeekableRowCursor} skip rows in between without returning them,
+ * so intersection of a rare key with a frequent one costs little more than reading the rare key.
+ */
+public class IntersectingRowSource implements RowSource, SeekableRowCursor {
+    private final RowSource[] sources;
+    private final RowCursor[] cursors;
+    // row each cursor is positioned at, -1 when cursor hasn't been read yet
+    private final long[] heads;
+    private long last;
+    private long next;
+
+    public IntersectingRowSource(RowSource[] sources) {
+        this.sources = sources;
+        this.cursors = new RowCursor[sources.length];
+        this.heads = new long[sources.length];
+    }
+
+    @Override
+    public RowCursor cursor(PartitionSlice slice) {
+        for (int i = 0; i < sources.length; i++) {
+            cursors[i] = sources[i].cursor(slice);
+            heads[i] = -1;
+        }
+        this.last = -1;
+        this.next = -1;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next > -1) {
+            return true;
+        }
+
+        if (cursors.length == 0) {
+            return false;
+        }
+
+        long target = advance(0, last + 1);
+        int matched = 1;
+        int i = 0;
+        while (target > -1 && matched < cursors.length) {
+            i = (i + 1) % cursors.length;
+            long row = advance(i, target);
+            if (row == target) {
+                matched++;
+            } else {
+                target = row;
+                matched = 1;
+            }
+        }
+
+        if (target == -1) {
+            return false;
+        }
+        next = target;
+        return true;
+    }
+
+    @Override
+    public long next() {
+        last = next;
+        next = -1;
+        return last;
+    }
+
+    @Override
+    public void seek(long localRowID) {
+        if (localRowID - 1 > last) {
+            last = localRowID - 1;
+            if (next < localRowID) {
+                next = -1;
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < sources.length; i++) {
+            sources[i].reset();
+        }
+    }
+
+    private long advance(int i, long target) {
+        if (heads[i] >= target) {
+            return heads[i];
+        }
+
+        RowCursor cursor = cursors[i];
+        if (cursor instanceof SeekableRowCursor) {
+            ((SeekableRowCursor) cursor).seek(target);
+        }
+        while (cursor.hasNext()) {
+            long row = cursor.next();
+            if (row >= target) {
+                return heads[i] = row;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.lang.cst.*;
+import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rows of index keys in ascending row ID order. Rows of several keys are merged as they are read, so that this
+ * source can be combined with other ascending sources by {@link MergingRowSource}, {@link IntersectingRowSource}
+ * and {@link DifferenceRowSource} without touching data columns. Seek skips whole row blocks of index.
+ */
+public class KvIndexForwardRowSource implements RowSource, SeekableRowCursor {
+
+    private final StringRef symbol;
+    private final KeySource keySource;
+    private final List<IndexRowCursor> pool = new ArrayList<>();
+    private final MergingRowCursor merger = new MergingRowCursor();
+    private RowCursor[] cursors = new RowCursor[0];
+    private SeekableRowCursor delegate;
+    private long hi;
+    private long next;
+
+    public KvIndexForwardRowSource(StringRef symbol, KeySource keySource) {
+        this.symbol = symbol;
+        this.keySource = keySource;
+    }
+
+    @Override
+    public RowCursor cursor(PartitionSlice slice) {
+        try {
+            Partition partition = slice.partition;
+            int columnIndex = partition.getJournal().getMetadata().getColumnIndex(symbol.value);
+            KeyCursor keyCursor = keySource.cursor(slice);
+            KVIndex index = null;
+            int n = 0;
+
+            while (keyCursor.hasNext()) {
+                int key = keyCursor.next();
+                // index is mapped only when bloom filter doesn't rule out a key
+                if (!partition.mightContain(columnIndex, key)) {
+                    continue;
+                }
+                if (index == null) {
+                    index = partition.getIndexForColumn(columnIndex);
+                }
+                if (!index.contains(key)) {
+                    continue;
+                }
+
+                if (n == pool.size()) {
+                    pool.add(new IndexRowCursor());
+                }
+                if (n == cursors.length) {
+                    cursors = Arrays.copyOf(cursors, Math.max(4, n << 1));
+                }
+                IndexRowCursor cursor = pool.get(n);
+                cursor.cursor = index.forwardCursor(key);
+                cursors[n++] = cursor;
+            }
+
+            this.delegate = n == 1 ? (SeekableRowCursor) cursors[0] : merger.of(cursors, n);
+            this.hi = slice.calcHi ? Long.MAX_VALUE : slice.hi;
+            this.next = -1;
+            if (slice.lo > 0) {
+                delegate.seek(slice.lo);
+            }
+            return this;
+        } catch (JournalException e) {
+            throw new JournalRuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next > -1) {
+            return true;
+        }
+        if (delegate.hasNext()) {
+            long row = delegate.next();
+            if (row <= hi) {
+                next = row;
+                return true;
+            }
+            // rows are ascending, none of remaining rows is in slice
+            hi = -1;
+        }
+        return false;
+    }
+
+    @Override
+    public long next() {
+        long row = next;
+        next = -1;
+        return row;
+    }
+
+    @Override
+    public void seek(long localRowID) {
+        if (next < localRowID) {
+            next = -1;
+            delegate.seek(localRowID);
+        }
+    }
+
+    @Override
+    public void reset() {
+        keySource.reset();
+    }
+
+    private static class IndexRowCursor implements SeekableRowCursor {
+        private KVIndex.ForwardIndexCursor cursor;
+
+        @Override
+        public boolean hasNext() {
+            return cursor.hasNext();
+        }
+
+        @Override
+        public long next() {
+            return cursor.next();
+        }
+
+        @Override
+        public void seek(long localRowID) {
+            cursor.seek(localRowID);
+        }
+    }
+}
@@ -16,19 +16,26 @@
 
 package com.nfsdb.journal.lang.cst.impl.rsrc;
 
+import com.nfsdb.journal.Partition;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
-import com.nfsdb.journal.index.Cursor;
 import com.nfsdb.journal.index.KVIndex;
 import com.nfsdb.journal.lang.cst.*;
 import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
 
-public class KvIndexRowSource implements RowSource, RowCursor {
+public class KvIndexRowSource implements RowSource, BatchRowCursor {
 
+    private static final int ROW_BUFFER_SIZE = 256;
     private final StringRef symbol;
     private final KeySource keySource;
+    // row IDs are copied from index a block at a time
+    private final long rows[] = new long[ROW_BUFFER_SIZE];
+    private int rowPos;
+    private int rowCount;
+    private Partition partition;
+    private int columnIndex;
     private KVIndex index;
-    private Cursor indexCursor;
+    private KVIndex.IndexCursor indexCursor;
     private KeyCursor keyCursor;
 
     public KvIndexRowSource(StringRef symbol, KeySource keySource) {
@@ -38,37 +45,71 @@ public class KvIndexRowSource implements RowSource, RowCursor {
 
     @Override
     public RowCursor cursor(PartitionSlice slice) {
-        try {
-            this.index = slice.partition.getIndexForColumn(symbol.value);
-            this.keyCursor = this.keySource.cursor(slice);
-            this.indexCursor = null;
-        } catch (JournalException e) {
-            throw new JournalRuntimeException(e);
-        }
+        this.partition = slice.partition;
+        this.columnIndex = partition.getJournal().getMetadata().getColumnIndex(symbol.value);
+        this.index = null;
+        this.keyCursor = this.keySource.cursor(slice);
+        this.indexCursor = null;
+        this.rowPos = this.rowCount = 0;
         return this;
     }
 
     @Override
     public boolean hasNext() {
+        while (rowPos == rowCount) {
+            if (indexCursor != null) {
+                rowPos = 0;
+                if ((rowCount = indexCursor.read(rows)) > 0) {
+                    return true;
+                }
+            }
 
-        if (indexCursor == null && !keyCursor.hasNext()) {
-            return false;
+            if (!nextKey()) {
+                return false;
+            }
         }
-
-        if (indexCursor == null) {
-            this.indexCursor = index.cachedCursor(keyCursor.next());
-        }
-
-        return indexCursor.hasNext();
+        return true;
     }
 
     @Override
     public long next() {
-        return indexCursor.next();
+        return rows[rowPos++];
+    }
+
+    @Override
+    public int read(long[] rows) {
+        if (!hasNext()) {
+            return 0;
+        }
+        int n = Math.min(rows.length, rowCount - rowPos);
+        System.arraycopy(this.rows, rowPos, rows, 0, n);
+        rowPos += n;
+        return n;
     }
 
     @Override
     public void reset() {
         keySource.reset();
     }
+
+    private boolean nextKey() {
+        try {
+            int key;
+            // index is mapped only when bloom filter doesn't rule out a key
+            do {
+                if (!keyCursor.hasNext()) {
+                    return false;
+                }
+                key = keyCursor.next();
+            } while (!partition.mightContain(columnIndex, key));
+
+            if (index == null) {
+                index = partition.getIndexForColumn(columnIndex);
+            }
+            this.indexCursor = index.cachedCursor(key);
+            return true;
+        } catch (JournalException e) {
+            throw new JournalRuntimeException(e);
+        }
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.nfsdb.journal.lang.cst.impl.rsrc;
 
+import com.nfsdb.journal.Partition;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.index.KVIndex;
@@ -34,6 +35,8 @@ public class KvIndexTailRowSource implements RowSource, RowCursor {
     private int remainingKeys[];
     private int remainingCounts[];
     private int remainingOffsets[];
+    private Partition partition;
+    private int columnIndex;
     private KVIndex index;
     private long lo;
     private long hi;
@@ -77,7 +80,9 @@ public class KvIndexTailRowSource implements RowSource, RowCursor {
         rowAcceptor = filter != null ? filter.acceptor(slice, null) : null;
 
         try {
-            this.index = slice.partition.getIndexForColumn(column.value);
+            this.partition = slice.partition;
+            this.columnIndex = partition.getJournal().getMetadata().getColumnIndex(column.value);
+            this.index = null;
             this.lo = slice.lo;
             this.hi = slice.calcHi ? slice.partition.open().size() - 1 : slice.hi;
             this.keyIndex = 0;
@@ -109,13 +114,26 @@ public class KvIndexTailRowSource implements RowSource, RowCursor {
     private boolean hasNextKey() {
         while (this.keyIndex < keyCount) {
 
+            int o = remainingOffsets[keyIndex];
+            int cnt = remainingCounts[keyIndex];
+
             // running first time for keyIndex?
-            if (indexCursor == null) {
+            if (indexCursor == null && cnt > 0) {
+                try {
+                    // key that bloom filter rules out doesn't need index to be mapped
+                    if (!partition.mightContain(columnIndex, remainingKeys[keyIndex])) {
+                        this.keyIndex++;
+                        continue;
+                    }
+                    if (index == null) {
+                        index = partition.getIndexForColumn(columnIndex);
+                    }
+                } catch (JournalException e) {
+                    throw new JournalRuntimeException(e);
+                }
                 indexCursor = index.cachedCursor(remainingKeys[this.keyIndex]);
             }
 
-            int o = remainingOffsets[keyIndex];
-            int cnt = remainingCounts[keyIndex];
             if (cnt > 0) {
                 while (indexCursor.hasNext()) {
                     if ((localRowID = indexCursor.next()) < lo) {
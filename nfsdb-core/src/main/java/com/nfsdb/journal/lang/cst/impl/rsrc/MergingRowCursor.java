@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.lang.cst.RowCursor;
+import com.nfsdb.journal.lang.cst.SeekableRowCursor;
+
+/**
+ * K-way merge of cursors over ascending row IDs. Rows are returned in ascending order, rows returned by more than
+ * one cursor are returned once. Cursors are kept in binary heap ordered by their current row.
+ */
+class MergingRowCursor implements SeekableRowCursor {
+    private RowCursor cursors[];
+    private long heads[] = new long[0];
+    private int heap[] = new int[0];
+    private int size;
+    private long last;
+
+    MergingRowCursor of(RowCursor[] cursors, int count) {
+        if (heads.length < count) {
+            heads = new long[count];
+            heap = new int[count];
+        }
+        this.cursors = cursors;
+        this.size = 0;
+        this.last = -1;
+        for (int i = 0; i < count; i++) {
+            if (cursors[i].hasNext()) {
+                heads[i] = cursors[i].next();
+                heap[size++] = i;
+            }
+        }
+        heapify();
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (size > 0 && heads[heap[0]] <= last) {
+            advance();
+        }
+        return size > 0;
+    }
+
+    @Override
+    public long next() {
+        last = heads[heap[0]];
+        advance();
+        return last;
+    }
+
+    @Override
+    public void seek(long localRowID) {
+        if (localRowID - 1 <= last) {
+            return;
+        }
+        last = localRowID - 1;
+
+        int n = size;
+        size = 0;
+        for (int k = 0; k < n; k++) {
+            int i = heap[k];
+            if (heads[i] < localRowID) {
+                RowCursor cursor = cursors[i];
+                if (cursor instanceof SeekableRowCursor) {
+                    ((SeekableRowCursor) cursor).seek(localRowID);
+                }
+                heads[i] = -1;
+                while (cursor.hasNext()) {
+                    long row = cursor.next();
+                    if (row >= localRowID) {
+                        heads[i] = row;
+                        break;
+                    }
+                }
+                if (heads[i] == -1) {
+                    continue;
+                }
+            }
+            heap[size++] = i;
+        }
+        heapify();
+    }
+
+    private void advance() {
+        int i = heap[0];
+        if (cursors[i].hasNext()) {
+            heads[i] = cursors[i].next();
+        } else {
+            heap[0] = heap[--size];
+        }
+        siftDown(0);
+    }
+
+    private void heapify() {
+        for (int p = size / 2 - 1; p >= 0; p--) {
+            siftDown(p);
+        }
+    }
+
+    private void siftDown(int p) {
+        if (p >= size) {
+            return;
+        }
+        int i = heap[p];
+        long v = heads[i];
+        int c;
+        while ((c = 2 * p + 1) < size) {
+            if (c + 1 < size && heads[heap[c + 1]] < heads[heap[c]]) {
+                c++;
+            }
+            if (heads[heap[c]] >= v) {
+                break;
+            }
+            heap[p] = heap[c];
+            p = c;
+        }
+        heap[p] = i;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowCursor;
+import com.nfsdb.journal.lang.cst.RowSource;
+
+/**
+ * Sorted union of row sources. Each source must return rows in ascending order, result is in ascending order
+ * without duplicates. Unlike {@link UnionRowSource}, which returns rows of one source after another, this
+ * source streams rows as they come and never materializes them.
+ */
+public class MergingRowSource implements RowSource {
+    private final RowSource[] sources;
+    private final RowCursor[] cursors;
+    private final MergingRowCursor cursor = new MergingRowCursor();
+
+    public MergingRowSource(RowSource[] sources) {
+        this.sources = sources;
+        this.cursors = new RowCursor[sources.length];
+    }
+
+    @Override
+    public RowCursor cursor(PartitionSlice slice) {
+        for (int i = 0; i < sources.length; i++) {
+            cursors[i] = sources[i].cursor(slice);
+        }
+        return cursor.of(cursors, cursors.length);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < sources.length; i++) {
+            sources[i].reset();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.collections.LongArrayList;
+import com.nfsdb.journal.column.AbstractColumn;
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.index.RangeIndex;
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowCursor;
+import com.nfsdb.journal.lang.cst.RowSource;
+
+/**
+ * Rows, value of which is between lo and hi inclusive, in ascending row ID order. Rows covered by range index
+ * of column are looked up in the index, remaining rows are scanned. Double bounds apply to DOUBLE columns only,
+ * long bounds to INT and LONG columns.
+ */
+public class RangeIndexRowSource implements RowSource, RowCursor {
+    private final String column;
+    private final long lo;
+    private final long hi;
+    private final boolean doubleBounds;
+    private final LongArrayList rows = new LongArrayList();
+    private FixedColumn columnRef;
+    private ColumnType type;
+    private int pos;
+    private long sliceLo;
+    private long sliceHi;
+    private long scanRow;
+    private long nextRow = -1;
+
+    public RangeIndexRowSource(String column, long lo, long hi) {
+        this(column, lo, hi, false);
+    }
+
+    public RangeIndexRowSource(String column, double lo, double hi) {
+        this(column, RangeIndex.toKey(lo), RangeIndex.toKey(hi), true);
+    }
+
+    private RangeIndexRowSource(String column, long lo, long hi, boolean doubleBounds) {
+        this.column = column;
+        this.lo = lo;
+        this.hi = hi;
+        this.doubleBounds = doubleBounds;
+    }
+
+    @Override
+    public RowCursor cursor(PartitionSlice slice) {
+        try {
+            Partition partition = slice.partition.open();
+            int columnIndex = partition.getJournal().getMetadata().getColumnIndex(column);
+            AbstractColumn col = partition.getAbstractColumn(columnIndex);
+            type = partition.getJournal().getMetadata().getColumnMetadata(columnIndex).type;
+            if (!(col instanceof FixedColumn) || !RangeIndex.supports(type)) {
+                throw new JournalRuntimeException("Invalid column type");
+            }
+            if (doubleBounds != (type == ColumnType.DOUBLE)) {
+                throw new JournalRuntimeException("%s bounds cannot be applied to %s column %s", doubleBounds ? "Double" : "Long", type, column);
+            }
+            columnRef = (FixedColumn) col;
+            sliceLo = slice.lo;
+            sliceHi = slice.calcHi ? partition.size() - 1 : slice.hi;
+
+            RangeIndex index = partition.getRangeIndex(columnIndex);
+            long covered = index == null ? 0 : Math.min(index.size(), partition.size());
+            if (covered > sliceLo) {
+                index.find(columnRef, lo, hi, rows);
+            } else {
+                rows.resetQuick();
+            }
+            pos = 0;
+            scanRow = Math.max(sliceLo, covered);
+            nextRow = -1;
+            return this;
+        } catch (JournalException e) {
+            throw new JournalRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow > -1) {
+            return true;
+        }
+
+        while (pos < rows.size()) {
+            long r = rows.getQuick(pos++);
+            if (r > sliceHi) {
+                pos = rows.size();
+            } else if (r >= sliceLo) {
+                nextRow = r;
+                return true;
+            }
+        }
+
+        while (scanRow <= sliceHi) {
+            long r = scanRow++;
+            long k = RangeIndex.key(type, columnRef, r);
+            if (k >= lo && k <= hi) {
+                nextRow = r;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long next() {
+        long r = nextRow;
+        nextRow = -1;
+        return r;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nfsdb.journal.lang.cst.impl.rsrc;
+
+import com.nfsdb.journal.lang.cst.BatchRowCursor;
+import com.nfsdb.journal.lang.cst.RowCursor;
+
+final class RowCursors {
+
+    private RowCursors() {
+    }
+
+    /**
+     * Reads batch of rows from cursor, one row at a time if cursor doesn't support batches.
+     *
+     * @param cursor cursor to read
+     * @param rows   array to copy rows to, from position 0
+     * @return number of rows copied, 0 when cursor is exhausted
+     */
+    static int read(RowCursor cursor, long[] rows) {
+        if (cursor instanceof BatchRowCursor) {
+            return ((BatchRowCursor) cursor).read(rows);
+        }
+
+        int n = 0;
+        while (n < rows.length && cursor.hasNext()) {
+            rows[n++] = cursor.next();
+        }
+        return n;
+    }
+}
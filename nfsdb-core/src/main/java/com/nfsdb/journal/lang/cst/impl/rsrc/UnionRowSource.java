@@ -16,14 +16,16 @@
 
 package com.nfsdb.journal.lang.cst.impl.rsrc;
 
+import com.nfsdb.journal.lang.cst.BatchRowCursor;
 import com.nfsdb.journal.lang.cst.PartitionSlice;
 import com.nfsdb.journal.lang.cst.RowCursor;
 import com.nfsdb.journal.lang.cst.RowSource;
 
-public class UnionRowSource implements RowSource, RowCursor {
+public class UnionRowSource implements RowSource, BatchRowCursor {
     private final RowSource[] sources;
     private final RowCursor[] cursors;
     private int cursorIndex;
+    private RowCursor cursor;
 
     public UnionRowSource(RowSource[] sources) {
         this.sources = sources;
@@ -37,17 +39,19 @@ public class UnionRowSource implements RowSource, RowCursor {
             cursors[i] = source.cursor(slice);
         }
         cursorIndex = 0;
+        cursor = cursors.length > 0 ? cursors[0] : null;
         return this;
     }
 
     @Override
     public boolean hasNext() {
 
-        while (cursorIndex < cursors.length) {
-            if (cursors[cursorIndex].hasNext()) {
+        // current cursor is kept in field, so that rows of one source are drained without array lookups
+        while (cursor != null) {
+            if (cursor.hasNext()) {
                 return true;
             }
-            cursorIndex++;
+            cursor = ++cursorIndex < cursors.length ? cursors[cursorIndex] : null;
         }
 
         return false;
@@ -55,7 +59,19 @@ public class UnionRowSource implements RowSource, RowCursor {
 
     @Override
     public long next() {
-        return cursors[cursorIndex].next();
+        return cursor.next();
+    }
+
+    @Override
+    public int read(long[] rows) {
+        while (cursor != null) {
+            int n = RowCursors.read(cursor, rows);
+            if (n > 0) {
+                return n;
+            }
+            cursor = ++cursorIndex < cursors.length ? cursors[cursorIndex] : null;
+        }
+        return 0;
     }
 
     @Override
@@ -45,10 +45,14 @@ public class PartitionDeltaConsumer extends ChannelConsumerGroup {
     }
 
     private static ChannelConsumer[] getColumnConsumers(Partition partition) {
-        ChannelConsumer consumers[] = new ChannelConsumer[partition.getJournal().getMetadata().getColumnCount() + 1];
-        consumers[0] = new FixedColumnDeltaConsumer(partition.getNullsColumn());
-        for (int i = 1; i < consumers.length; i++) {
-            AbstractColumn column = partition.getAbstractColumn(i - 1);
+        // nulls column goes first, journals without nullable columns do not have one
+        int k = partition.getNullsColumn() == null ? 0 : 1;
+        ChannelConsumer consumers[] = new ChannelConsumer[partition.getJournal().getMetadata().getColumnCount() + k];
+        if (k > 0) {
+            consumers[0] = new FixedColumnDeltaConsumer(partition.getNullsColumn());
+        }
+        for (int i = k; i < consumers.length; i++) {
+            AbstractColumn column = partition.getAbstractColumn(i - k);
             if (column instanceof VariableColumn) {
                 consumers[i] = new VariableColumnDeltaConsumer((VariableColumn) column);
             } else {
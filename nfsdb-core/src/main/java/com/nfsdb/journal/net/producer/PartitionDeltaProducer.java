@@ -27,7 +27,9 @@ public class PartitionDeltaProducer extends ChannelProducerGroup<ColumnDeltaProd
 
     public PartitionDeltaProducer(Partition partition) {
         this.partition = partition;
-        addProducer(new FixedColumnDeltaProducer(partition.getNullsColumn()));
+        if (partition.getNullsColumn() != null) {
+            addProducer(new FixedColumnDeltaProducer(partition.getNullsColumn()));
+        }
         for (int i = 0; i < partition.getJournal().getMetadata().getColumnCount(); i++) {
             AbstractColumn col = partition.getAbstractColumn(i);
             ColumnDeltaProducer producer;
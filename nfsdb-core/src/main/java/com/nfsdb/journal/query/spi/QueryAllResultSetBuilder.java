@@ -21,20 +21,26 @@ import com.nfsdb.journal.UnorderedResultSetBuilder;
 import com.nfsdb.journal.collections.IntArrayList;
 import com.nfsdb.journal.collections.LongArrayList;
 import com.nfsdb.journal.exceptions.JournalException;
-import com.nfsdb.journal.index.Cursor;
 import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.index.RoaringBitmap;
 import com.nfsdb.journal.utils.Rows;
 import org.joda.time.Interval;
 
 import java.util.List;
 
 public class QueryAllResultSetBuilder<T> extends UnorderedResultSetBuilder<T> {
+    private static final int ROW_BUFFER_SIZE = 256;
     private final IntArrayList symbolKeys;
     private final List<String> filterSymbols;
     private final IntArrayList filterSymbolKeys;
+    private final LongArrayList rows = new LongArrayList();
+    private final long buffer[] = new long[ROW_BUFFER_SIZE];
     final private String symbol;
     private KVIndex index;
     private KVIndex[] searchIndices;
+    private int symbolColumnIndex;
+    private int filterColumnIndices[];
+    private RoaringBitmap filters[];
 
     public QueryAllResultSetBuilder(Interval interval, String symbol, IntArrayList symbolKeys, List<String> filterSymbols, IntArrayList filterSymbolKeys) {
         super(interval);
@@ -49,13 +55,22 @@ public class QueryAllResultSetBuilder<T> extends UnorderedResultSetBuilder<T> {
         super.accept(partition);
         this.index = partition.open().getIndexForColumn(symbol);
 
+        if (filterColumnIndices == null) {
+            symbolColumnIndex = journal.getMetadata().getColumnIndex(symbol);
+            filterColumnIndices = new int[filterSymbols.size()];
+            for (int k = 0; k < filterColumnIndices.length; k++) {
+                filterColumnIndices[k] = journal.getMetadata().getColumnIndex(filterSymbols.get(k));
+            }
+            filters = new RoaringBitmap[filterColumnIndices.length];
+        }
+
         // check if partition has at least one symbol value
         if (symbolKeys.size() > 0) {
             for (int i = 0; i < symbolKeys.size(); i++) {
                 if (index.contains(symbolKeys.getQuick(i))) {
                     searchIndices = new KVIndex[filterSymbols.size()];
                     for (int k = 0; k < filterSymbols.size(); k++) {
-                        searchIndices[k] = partition.getIndexForColumn(filterSymbols.get(k));
+                        searchIndices[k] = partition.getIndexForColumn(filterColumnIndices[k]);
                     }
                     return Accept.CONTINUE;
                 }
@@ -66,34 +81,55 @@ public class QueryAllResultSetBuilder<T> extends UnorderedResultSetBuilder<T> {
     }
 
     @Override
-    public void read(long lo, long hi) {
+    public void read(long lo, long hi) throws JournalException {
+        // rows of each filter value, row matching several filters is returned once for each of them
+        boolean any = false;
+        for (int k = 0; k < searchIndices.length; k++) {
+            int filterKey = filterSymbolKeys.getQuick(k);
+            filters[k] = searchIndices[k].contains(filterKey) ? partition.getBitmap(filterColumnIndices[k], filterKey) : null;
+            any |= filters[k] != null;
+        }
+
+        if (searchIndices.length > 0 && !any) {
+            return;
+        }
+
         for (int i = 0; i < symbolKeys.size(); i++) {
             int symbolKey = symbolKeys.getQuick(i);
             if (index.contains(symbolKey)) {
-                if (searchIndices.length > 0) {
-                    for (int k = 0; k < searchIndices.length; k++) {
-                        if (searchIndices[k].contains(filterSymbolKeys.get(k))) {
-                            LongArrayList searchLocalRowIDs = searchIndices[k].getValues(filterSymbolKeys.get(k));
-
-                            Cursor cursor = index.cachedCursor(symbolKey);
-                            while (cursor.hasNext()) {
-                                long localRowID = cursor.next();
-                                if (localRowID < lo) {
-                                    break;
-                                }
-                                if (localRowID <= hi && searchLocalRowIDs.binarySearch(localRowID) >= 0) {
-                                    result.add(Rows.toRowID(partition.getPartitionIndex(), localRowID));
-                                }
+                if (any) {
+                    RoaringBitmap keyRows = partition.getBitmap(symbolColumnIndex, symbolKey);
+                    for (int k = 0; k < filters.length; k++) {
+                        if (filters[k] == null) {
+                            continue;
+                        }
+                        keyRows.and(filters[k]).toList(rows);
+                        for (int n = rows.size() - 1; n >= 0; n--) {
+                            long localRowID = rows.getQuick(n);
+                            if (localRowID < lo) {
+                                break;
+                            }
+                            if (localRowID <= hi) {
+                                result.add(Rows.toRowID(partition.getPartitionIndex(), localRowID));
                             }
                         }
                     }
                 } else {
                     KVIndex.IndexCursor cursor = index.cachedCursor(symbolKey);
                     result.setCapacity((int) cursor.size());
-                    while (cursor.hasNext()) {
-                        long localRowID = cursor.next();
-                        if (localRowID >= lo && localRowID <= hi) {
-                            result.add(Rows.toRowID(partition.getPartitionIndex(), localRowID));
+                    int partitionIndex = partition.getPartitionIndex();
+                    int n;
+                    // cursor returns newest rows first, so anything below lo ends the key
+                    READ:
+                    while ((n = cursor.read(buffer)) > 0) {
+                        for (int k = 0; k < n; k++) {
+                            long localRowID = buffer[k];
+                            if (localRowID < lo) {
+                                break READ;
+                            }
+                            if (localRowID <= hi) {
+                                result.add(Rows.toRowID(partitionIndex, localRowID));
+                            }
                         }
                     }
                 }
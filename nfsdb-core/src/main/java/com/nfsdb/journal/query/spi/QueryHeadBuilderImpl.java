@@ -25,6 +25,8 @@ import com.nfsdb.journal.collections.LongArrayList;
 import com.nfsdb.journal.column.SymbolTable;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.index.LatestRowIDTable;
+import com.nfsdb.journal.index.RoaringBitmap;
 import com.nfsdb.journal.query.api.QueryHeadBuilder;
 import com.nfsdb.journal.utils.Rows;
 import org.joda.time.Interval;
@@ -116,42 +118,67 @@ public class QueryHeadBuilderImpl<T> implements QueryHeadBuilder<T> {
         }
 
         final IntArrayList symbolKeys = new IntArrayList(this.symbolKeys);
+        final LongArrayList latestRowIDs = new LongArrayList();
+
+        if (interval == null && minRowID == -1L && filterSymbols.isEmpty()) {
+            resolveLatest(symbolKeys, latestRowIDs);
+            if (symbolKeys.isEmpty()) {
+                return new UnorderedResultSet<>(journal, latestRowIDs);
+            }
+        }
 
         return journal.iteratePartitionsDesc(
                 new UnorderedResultSetBuilder<T>(interval) {
-                    private final KVIndex filterKVIndexes[] = new KVIndex[filterSymbolKeys.size()];
-                    private final LongArrayList filterSymbolRows[] = new LongArrayList[filterSymbolKeys.size()];
-                    private IntArrayList keys = symbolKeys;
-                    private IntArrayList remainingKeys = new IntArrayList(keys.size());
-
                     {
-                        for (int i = 0; i < filterSymbolRows.length; i++) {
-                            filterSymbolRows[i] = new LongArrayList();
-                        }
+                        result.add(latestRowIDs);
                     }
 
+                    private IntArrayList keys = symbolKeys;
+                    private IntArrayList remainingKeys = new IntArrayList(keys.size());
+
                     @Override
                     public Accept accept(Partition<T> partition) throws JournalException {
                         super.accept(partition);
-                        return keys.isEmpty() || partition.getPartitionIndex() < minPartitionIndex ? Accept.BREAK : Accept.CONTINUE;
+                        if (keys.isEmpty() || partition.getPartitionIndex() < minPartitionIndex) {
+                            return Accept.BREAK;
+                        }
+                        return mightContain(partition) ? Accept.CONTINUE : Accept.SKIP;
+                    }
+
+                    // consults bloom filters, so that partitions without any of remaining keys are not opened
+                    private boolean mightContain(Partition<T> partition) throws JournalException {
+                        for (int i = 0; i < filterSymbols.size(); i++) {
+                            int filterColumnIndex = journal.getMetadata().getColumnIndex(filterSymbols.get(i));
+                            if (!partition.mightContain(filterColumnIndex, filterSymbolKeys.getQuick(i))) {
+                                return false;
+                            }
+                        }
+
+                        for (int k = 0; k < keys.size(); k++) {
+                            if (partition.mightContain(symbolColumnIndex, keys.getQuick(k))) {
+                                return true;
+                            }
+                        }
+                        return false;
                     }
 
                     @Override
                     public void read(long lo, long hi) throws JournalException {
                         KVIndex index = partition.getIndexForColumn(symbolColumnIndex);
 
+                        // rows matching all filter values
                         boolean filterOk = true;
+                        RoaringBitmap filter = null;
                         for (int i = 0; i < filterSymbols.size(); i++) {
-                            filterKVIndexes[i] = partition.getIndexForColumn(filterSymbols.get(i));
+                            int filterColumnIndex = journal.getMetadata().getColumnIndex(filterSymbols.get(i));
                             int filterKey = filterSymbolKeys.getQuick(i);
-                            if (filterKVIndexes[i].contains(filterKey)) {
-                                filterSymbolRows[i].setCapacity(filterKVIndexes[i].getValueCount(filterKey));
-                                filterKVIndexes[i].getValues(filterKey, filterSymbolRows[i]);
+                            if (partition.getIndexForColumn(filterColumnIndex).contains(filterKey)) {
+                                RoaringBitmap b = partition.getBitmap(filterColumnIndex, filterKey);
+                                filter = filter == null ? b : filter.and(b);
                             } else {
                                 filterOk = false;
                                 break;
                             }
-
                         }
 
                         if (filterOk) {
@@ -165,20 +192,12 @@ public class QueryHeadBuilderImpl<T> implements QueryHeadBuilder<T> {
                                     long localRowID = cursor.next();
                                     if (localRowID <= hi && localRowID >= lo && (partition.getPartitionIndex() > minPartitionIndex || localRowID > minLocalRowID)) {
 
-                                        boolean matches = true;
-                                        for (LongArrayList filterRows : filterSymbolRows) {
-                                            if (filterRows.binarySearch(localRowID) < 0) {
-                                                matches = false;
-                                                if (strict) {
-                                                    found = true;
-                                                    break NEXT_KEY;
-                                                } else {
-                                                    break;
-                                                }
+                                        if (filter != null && !filter.contains(localRowID)) {
+                                            if (strict) {
+                                                found = true;
+                                                break NEXT_KEY;
                                             }
-                                        }
-
-                                        if (matches) {
+                                        } else {
                                             result.add(Rows.toRowID(partition.getPartitionIndex(), localRowID));
                                             found = true;
                                             break;
@@ -205,4 +224,60 @@ public class QueryHeadBuilderImpl<T> implements QueryHeadBuilder<T> {
                 }
         );
     }
+
+    /**
+     * Looks keys up in table of latest row IDs. Table covers regular partitions only, so keys are looked up
+     * in index of lag partition first, as its rows are the latest. Keys that table cannot vouch for in current
+     * transaction are left in the list to be searched for in partitions.
+     */
+    private void resolveLatest(IntArrayList keys, LongArrayList rowIDs) throws JournalException {
+        LatestRowIDTable table = journal.getLatestRowIDTable(symbolColumnIndex);
+        if (table == null) {
+            return;
+        }
+
+        Partition<T> last = journal.lastNonEmptyNonLag();
+        long maxRowID = last == null ? 0 : Rows.toRowID(last.getPartitionIndex(), last.size());
+        if (table.getCoveredRowID() < maxRowID) {
+            return;
+        }
+
+        Partition<T> lag = journal.getIrregularPartition();
+        KVIndex lagIndex = null;
+        long lagSize = 0;
+        if (lag != null) {
+            lag.open();
+            lagSize = lag.size();
+            lagIndex = lagSize > 0 ? lag.getIndexForColumn(symbolColumnIndex) : null;
+        }
+
+        int k = 0;
+        NEXT_KEY:
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            int key = keys.getQuick(i);
+            if (lagIndex != null) {
+                KVIndex.IndexCursor cursor = lagIndex.cachedCursor(key);
+                while (cursor.hasNext()) {
+                    long localRowID = cursor.next();
+                    if (localRowID < lagSize) {
+                        rowIDs.add(Rows.toRowID(lag.getPartitionIndex(), localRowID));
+                        continue NEXT_KEY;
+                    }
+                }
+            }
+
+            long rowID = table.get(key);
+            if (rowID == LatestRowIDTable.NOT_FOUND) {
+                continue;
+            }
+
+            // row IDs above max are written by transactions this journal doesn't see yet
+            if (rowID < maxRowID) {
+                rowIDs.add(rowID);
+            } else {
+                keys.setQuick(k++, key);
+            }
+        }
+        keys.remove(k, keys.size() - k);
+    }
 }
@@ -16,6 +16,8 @@
 
 package com.nfsdb.journal.utils;
 
+import com.nfsdb.journal.column.ColumnType;
+import com.nfsdb.journal.column.StringEncoding;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.factory.configuration.ColumnMetadata;
 import com.nfsdb.journal.factory.configuration.JournalMetadata;
@@ -57,6 +59,21 @@ public final class Checksum {
                 if (m.sameAs != null) {
                     flushBuf(md, buf, m.sameAs.length() * 2).put(m.sameAs.getBytes(Files.UTF_8));
                 }
+                // UTF16 is the original on-disk format, keep checksum of existing journals intact
+                if (m.encoding != StringEncoding.UTF16) {
+                    flushBuf(md, buf, 1).put((byte) m.encoding.ordinal());
+                }
+                if (m.type == ColumnType.FIXED_STRING) {
+                    flushBuf(md, buf, 1).put((byte) 'F');
+                }
+                // NOT NULL columns change nulls file layout, nullable is the default
+                if (m.notNull) {
+                    flushBuf(md, buf, 1).put((byte) 'N');
+                }
+                // fingerprinted columns hash values to index keys differently and have extra file
+                if (m.fingerprint) {
+                    flushBuf(md, buf, 1).put((byte) 'H');
+                }
             }
             buf.flip();
             md.update(buf);
@@ -67,10 +84,53 @@ public final class Checksum {
         }
     }
 
-    public static int hash(String s, int M) {
+    public static int hash(CharSequence s, int M) {
         return s == null ? 0 : (s.hashCode() & 0xFFFF) % M;
     }
 
+    /**
+     * Index key of string value in column. Keys of fingerprinted columns are derived from 64-bit hash
+     * of value, others from 16-bit one.
+     */
+    public static int hash(CharSequence s, ColumnMetadata m) {
+        if (s == null) {
+            return 0;
+        }
+        return m.fingerprint ? hash(hash64(s), m.distinctCountHint) : hash(s, m.distinctCountHint);
+    }
+
+    public static int hash(long hash64, int M) {
+        return (int) ((hash64 >>> 1) % M);
+    }
+
+    /**
+     * 64-bit hash of value as it is stored by fingerprinted columns. Zero is reserved for null.
+     */
+    public static long fingerprint(CharSequence s) {
+        if (s == null) {
+            return 0;
+        }
+        long h = hash64(s);
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of characters followed by avalanche step, so that low bits of result are usable
+     * as hash table position.
+     */
+    public static long hash64(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     private Checksum() {
     }
 
@@ -22,6 +22,12 @@ import java.lang.reflect.Field;
 
 public final class Unsafe {
     public static final sun.misc.Unsafe UNSAFE;
+    public static final long BOOL_ARRAY_OFFSET = sun.misc.Unsafe.ARRAY_BOOLEAN_BASE_OFFSET;
+    public static final long BYTE_ARRAY_OFFSET = sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+    public static final long SHORT_ARRAY_OFFSET = sun.misc.Unsafe.ARRAY_SHORT_BASE_OFFSET;
+    public static final long INT_ARRAY_OFFSET = sun.misc.Unsafe.ARRAY_INT_BASE_OFFSET;
+    public static final long LONG_ARRAY_OFFSET = sun.misc.Unsafe.ARRAY_LONG_BASE_OFFSET;
+    public static final long DOUBLE_ARRAY_OFFSET = sun.misc.Unsafe.ARRAY_DOUBLE_BASE_OFFSET;
 
     public static sun.misc.Unsafe getUnsafe() {
         return UNSAFE;
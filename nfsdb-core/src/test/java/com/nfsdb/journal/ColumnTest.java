@@ -16,21 +16,33 @@
 
 package com.nfsdb.journal;
 
+import com.nfsdb.journal.column.ColumnCodec;
+import com.nfsdb.journal.column.ColumnWindow;
+import com.nfsdb.journal.column.CompressedFixedColumn;
+import com.nfsdb.journal.column.ContiguousMappedFile;
+import com.nfsdb.journal.column.DirectCharSequence;
 import com.nfsdb.journal.column.FixedColumn;
+import com.nfsdb.journal.column.FixedStringColumn;
 import com.nfsdb.journal.column.MappedFile;
 import com.nfsdb.journal.column.MappedFileImpl;
+import com.nfsdb.journal.column.StringEncoding;
 import com.nfsdb.journal.column.VariableColumn;
+import com.nfsdb.journal.concurrent.Prefetcher;
 import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.test.tools.RandomString;
 import com.nfsdb.journal.test.tools.TestUtils;
 import com.nfsdb.journal.utils.ByteBuffers;
 import com.nfsdb.journal.utils.Files;
+import com.nfsdb.journal.utils.Unsafe;
 import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ColumnTest {
     @Rule
@@ -78,6 +90,330 @@ public class ColumnTest {
         }
     }
 
+    @Test
+    public void testColumnWindowAfterUnmap() throws JournalException {
+        MappedFile mf = new MappedFileImpl(dataFile, 12, JournalMode.APPEND);
+        try (FixedColumn pcc = new FixedColumn(mf, 4)) {
+            for (int i = 0; i < 10000; i++) {
+                pcc.putInt(i);
+                pcc.commit();
+            }
+        }
+
+        for (int k = 0; k < 2; k++) {
+            MappedFile mf2 = k == 0 ? new MappedFileImpl(dataFile, 12, JournalMode.BULK_READ) : new ContiguousMappedFile(dataFile, 12, JournalMode.BULK_READ);
+            try (FixedColumn pcc2 = new FixedColumn(mf2, 4)) {
+                ColumnWindow window = new ColumnWindow().of(pcc2);
+                Assert.assertEquals(5, Unsafe.getUnsafe().getInt(window.address(5)));
+
+                // bulk read of distant row releases buffer window points at
+                int count = mf2.getUnmapCount();
+                Assert.assertEquals(9999, pcc2.getInt(9999));
+                Assert.assertTrue(k == 1 || mf2.getUnmapCount() > count);
+                Assert.assertEquals(6, Unsafe.getUnsafe().getInt(window.address(6)));
+                Assert.assertEquals(9998, Unsafe.getUnsafe().getInt(window.address(9998)));
+            }
+        }
+    }
+
+    @Test
+    public void testContiguousReleaseRetired() throws JournalException {
+        try (FixedColumn writer = new FixedColumn(new ContiguousMappedFile(dataFile, 12, JournalMode.APPEND), 4)) {
+            MappedFile mf = new ContiguousMappedFile(dataFile, 12, JournalMode.READ);
+            try (FixedColumn reader = new FixedColumn(mf, 4)) {
+                int count = mf.getUnmapCount();
+                mf.releaseRetired();
+                Assert.assertEquals(count, mf.getUnmapCount());
+
+                // reader mapping is capped by file size, so it is replaced each time file grows
+                for (int i = 0; i < 5000; i++) {
+                    writer.putInt(i);
+                    writer.commit();
+                    if (i % 1000 == 999) {
+                        writer.force();
+                        Assert.assertEquals(i, reader.getInt(i));
+                    }
+                }
+                Assert.assertEquals(count, mf.getUnmapCount());
+
+                ColumnWindow window = new ColumnWindow().of(reader);
+                Assert.assertEquals(10, Unsafe.getUnsafe().getInt(window.address(10)));
+                mf.releaseRetired();
+                Assert.assertEquals(count + 1, mf.getUnmapCount());
+                mf.releaseRetired();
+                Assert.assertEquals(count + 1, mf.getUnmapCount());
+                Assert.assertEquals(4999, reader.getInt(4999));
+                Assert.assertEquals(11, Unsafe.getUnsafe().getInt(window.address(11)));
+            }
+        }
+    }
+
+    @Test
+    public void testBulkReadWithPrefetch() throws JournalException {
+        int count = 100000;
+        try (FixedColumn pcc = new FixedColumn(new MappedFileImpl(dataFile, 12, JournalMode.APPEND), 8)) {
+            for (int i = 0; i < count; i++) {
+                pcc.putLong(i);
+                pcc.commit();
+            }
+        }
+
+        final AtomicInteger prefetched = new AtomicInteger();
+        try (Prefetcher prefetcher = new Prefetcher("test", 4) {
+            @Override
+            public void prefetch(FileChannel channel, long offset, long size) {
+                prefetched.incrementAndGet();
+                super.prefetch(channel, offset, size);
+            }
+        }) {
+            try (FixedColumn pcc = new FixedColumn(new MappedFileImpl(dataFile, 12, JournalMode.BULK_READ, prefetcher), 8)) {
+                Assert.assertEquals(count, pcc.size());
+                for (int i = 0; i < count; i++) {
+                    Assert.assertEquals(i, pcc.getLong(i));
+                }
+                int n = prefetched.get();
+                Assert.assertTrue(n > 0);
+
+                // file is mapped from scratch after compaction, prefetching starts over
+                pcc.compact();
+                for (int i = 0; i < count; i++) {
+                    Assert.assertEquals(i, pcc.getLong(i));
+                }
+                Assert.assertEquals(2 * n, prefetched.get());
+            }
+        }
+    }
+
+    @Test
+    public void testContiguousFixedWidthColumns() throws JournalException {
+        // small bit hint makes file remap many times as it grows
+        MappedFile mf = new ContiguousMappedFile(dataFile, 2, JournalMode.APPEND);
+
+        try (FixedColumn pcc = new FixedColumn(mf, 8)) {
+            pcc.putLong(0);
+            pcc.commit();
+            long address = mf.getAddress(8, 8);
+            for (int i = 1; i < 100000; i++) {
+                pcc.putLong(i);
+                pcc.commit();
+            }
+            // address obtained before file grew must remain valid
+            Assert.assertEquals(1, Unsafe.getUnsafe().getLong(address));
+        }
+
+        MappedFile mf2 = new MappedFileImpl(dataFile, 12, JournalMode.READ);
+        try (FixedColumn pcc2 = new FixedColumn(mf2, 8)) {
+            Assert.assertEquals(100000, pcc2.size());
+            Assert.assertEquals(4597, pcc2.getLong(4597));
+            Assert.assertEquals(99999, pcc2.getLong(99999));
+        }
+
+        MappedFile mf3 = new ContiguousMappedFile(dataFile, 12, JournalMode.READ);
+        try (FixedColumn pcc3 = new FixedColumn(mf3, 8)) {
+            for (int i = 0; i < 100000; i++) {
+                Assert.assertEquals(i, pcc3.getLong(i));
+            }
+        }
+    }
+
+    @Test
+    public void testContiguousVarcharColumn() throws JournalException {
+        final int recordCount = 10000;
+
+        try (VariableColumn varchar1 = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.APPEND), new MappedFileImpl(indexFile, 10, JournalMode.APPEND))) {
+            for (int i = 0; i < recordCount; i++) {
+                varchar1.putString("s" + i);
+                varchar1.commit();
+            }
+        }
+
+        try (VariableColumn varchar2 = new VariableColumn(new ContiguousMappedFile(dataFile, 10, JournalMode.APPEND), new ContiguousMappedFile(indexFile, 10, JournalMode.APPEND))) {
+            Assert.assertEquals(recordCount, varchar2.size());
+            for (int i = 0; i < recordCount; i++) {
+                varchar2.putString("c" + i);
+                varchar2.commit();
+            }
+        }
+
+        try (VariableColumn varchar3 = new VariableColumn(new ContiguousMappedFile(dataFile, 10, JournalMode.READ), new ContiguousMappedFile(indexFile, 10, JournalMode.READ))) {
+            Assert.assertEquals(2 * recordCount, varchar3.size());
+            for (int i = 0; i < recordCount; i++) {
+                Assert.assertEquals("s" + i, varchar3.getString(i));
+                Assert.assertEquals("c" + i, varchar3.getString(recordCount + i));
+            }
+        }
+    }
+
+    @Test
+    public void testUtf8VarcharColumn() throws JournalException {
+        String values[] = {"abc", "", null, "\u041f\u0440\u0438\u0432\u0435\u0442", "\u00e9t\u00e9", "\ud83d\ude00 smile", "lone \ud800 surrogate", "\u65e5\u672c\u8a9e"};
+
+        try (VariableColumn varchar = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.APPEND), new MappedFileImpl(indexFile, 10, JournalMode.APPEND), StringEncoding.UTF8)) {
+            for (String v : values) {
+                varchar.putString(v);
+                varchar.commit();
+            }
+        }
+
+        try (VariableColumn varchar = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.READ), new MappedFileImpl(indexFile, 10, JournalMode.READ), StringEncoding.UTF8)) {
+            Assert.assertEquals(values.length, varchar.size());
+            for (int i = 0; i < values.length; i++) {
+                Assert.assertEquals(values[i], varchar.getString(i));
+                if (values[i] != null) {
+                    Assert.assertTrue(varchar.equalsString(i, values[i]));
+                    Assert.assertFalse(varchar.equalsString(i, values[i] + "x"));
+                } else {
+                    Assert.assertFalse(varchar.equalsString(i, ""));
+                }
+            }
+            Assert.assertFalse(varchar.equalsString(3, "\u041f\u0440\u0438\u0432\u0435\u0434"));
+            // "abc" takes 3 bytes plus 4 bytes of length
+            Assert.assertEquals(7, varchar.getOffset(1));
+        }
+    }
+
+    @Test
+    public void testFixedStringColumn() throws JournalException {
+        try (FixedStringColumn col = new FixedStringColumn(new MappedFileImpl(dataFile, 10, JournalMode.APPEND), 6)) {
+            Assert.assertEquals(0, col.putString("abc"));
+            col.commit();
+            Assert.assertEquals(1, col.putString("caf\u00e9!"));
+            col.commit();
+            col.putNull();
+            col.commit();
+            Assert.assertEquals(3, col.putString(""));
+            col.commit();
+            try {
+                col.putString("abcdefg");
+                Assert.fail("Expected exception");
+            } catch (JournalRuntimeException ignore) {
+                // expected
+            }
+        }
+
+        try (FixedStringColumn col = new FixedStringColumn(new MappedFileImpl(dataFile, 10, JournalMode.READ), 6)) {
+            Assert.assertEquals(4, col.size());
+            Assert.assertEquals("abc", col.getString(0));
+            Assert.assertEquals("caf\u00e9!", col.getString(1));
+            Assert.assertEquals("", col.getString(2));
+            Assert.assertEquals("", col.getString(3));
+            Assert.assertTrue(col.equalsString(0, "abc"));
+            Assert.assertFalse(col.equalsString(0, "abcd"));
+            Assert.assertFalse(col.equalsString(0, "ab"));
+            Assert.assertTrue(col.equalsString(1, "caf\u00e9!"));
+
+            DirectCharSequence cs = new DirectCharSequence();
+            Assert.assertTrue(DirectCharSequence.equals("abc", col.getStr(0, cs)));
+            Assert.assertEquals("abc".hashCode(), col.getStr(0).hashCode());
+            Assert.assertEquals(0, col.getStr(3).length());
+        }
+    }
+
+    @Test
+    public void testLatin1VarcharColumn() throws JournalException {
+        try (VariableColumn varchar = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.APPEND), new MappedFileImpl(indexFile, 10, JournalMode.APPEND), StringEncoding.LATIN1)) {
+            varchar.putString("caf\u00e9");
+            varchar.commit();
+            varchar.putString(null);
+            varchar.commit();
+            try {
+                varchar.putString("\u0444x");
+                Assert.fail("Expected exception");
+            } catch (JournalRuntimeException e) {
+                Assert.assertTrue(e.getMessage().contains("col.d"));
+            }
+            varchar.putString("x");
+            varchar.commit();
+        }
+
+        try (VariableColumn varchar = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.READ), new MappedFileImpl(indexFile, 10, JournalMode.READ), StringEncoding.LATIN1)) {
+            Assert.assertEquals(3, varchar.size());
+            Assert.assertEquals("caf\u00e9", varchar.getString(0));
+            Assert.assertTrue(varchar.equalsString(0, "caf\u00e9"));
+            Assert.assertFalse(varchar.equalsString(0, "cafe"));
+            Assert.assertNull(varchar.getString(1));
+            Assert.assertEquals("x", varchar.getString(2));
+        }
+    }
+
+    @Test
+    public void testStrFlyweight() throws JournalException {
+        String values[] = {"abc", null, "", "caf\u00e9", "\u041f\u0440\u0438\u0432\u0435\u0442", "\ud83d\ude00"};
+
+        for (StringEncoding encoding : StringEncoding.values()) {
+            Files.delete(dataFile);
+            Files.delete(indexFile);
+
+            try (VariableColumn varchar = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.APPEND), new MappedFileImpl(indexFile, 10, JournalMode.APPEND), encoding)) {
+                for (String v : values) {
+                    // LATIN1 cannot store other chars, these rows are written as nulls
+                    varchar.putString(encoding == StringEncoding.LATIN1 && v != null && !v.matches("[\\u0000-\\u00ff]*") ? null : v);
+                    varchar.commit();
+                }
+
+                DirectCharSequence other = new DirectCharSequence();
+                for (int i = 0; i < values.length; i++) {
+                    String expected = varchar.getString(i);
+                    DirectCharSequence cs = varchar.getStr(i);
+                    if (expected == null) {
+                        Assert.assertNull(cs);
+                        continue;
+                    }
+                    Assert.assertEquals(expected, cs.toString());
+                    Assert.assertEquals(expected.hashCode(), cs.hashCode());
+                    Assert.assertTrue(cs.equals(expected));
+                    Assert.assertFalse(cs.equals(expected + "x"));
+                    Assert.assertEquals(0, cs.compareTo(expected));
+
+                    for (int j = 0; j < values.length; j++) {
+                        DirectCharSequence o = varchar.getStr(j, other);
+                        if (o != null) {
+                            Assert.assertEquals(Integer.signum(expected.compareTo(varchar.getString(j))), Integer.signum(cs.compareTo(o)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedColumns() throws JournalException {
+        File compressedFile = new File(temporaryFolder.getRoot(), "col.z");
+        Random r = new Random(123);
+        int count = 10000;
+
+        long longs[] = new long[count];
+        double doubles[] = new double[count];
+        int ints[] = new int[count];
+        long t = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            longs[i] = i % 7 == 0 ? r.nextLong() : (t += r.nextInt(3) * 1000);
+            doubles[i] = i % 11 == 0 ? Double.NaN : i % 5 == 0 ? r.nextDouble() : 1.5 + r.nextInt(10) * 0.25;
+            ints[i] = i % 13 == 0 ? (i % 2 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE) : r.nextInt(20) - 1;
+        }
+
+        assertCompressed(compressedFile, ColumnCodec.DELTA_OF_DELTA, 8, longs, Unsafe.LONG_ARRAY_OFFSET, new ValueAssert() {
+            @Override
+            public void check(FixedColumn column, int i, Object expected) {
+                Assert.assertEquals(((long[]) expected)[i], column.getLong(i));
+            }
+        });
+
+        assertCompressed(compressedFile, ColumnCodec.XOR, 8, doubles, Unsafe.DOUBLE_ARRAY_OFFSET, new ValueAssert() {
+            @Override
+            public void check(FixedColumn column, int i, Object expected) {
+                Assert.assertEquals(Double.doubleToRawLongBits(((double[]) expected)[i]), Double.doubleToRawLongBits(column.getDouble(i)));
+            }
+        });
+
+        assertCompressed(compressedFile, ColumnCodec.BITPACK, 4, ints, Unsafe.INT_ARRAY_OFFSET, new ValueAssert() {
+            @Override
+            public void check(FixedColumn column, int i, Object expected) {
+                Assert.assertEquals(((int[]) expected)[i], column.getInt(i));
+            }
+        });
+    }
+
     @Test
     public void testVarcharColumn() throws JournalException {
         final int recordCount = 10000;
@@ -235,6 +571,48 @@ public class ColumnTest {
         }
     }
 
+    @Test
+    public void testBinaryView() throws Exception {
+        // bit hint 10 = 1k buffer, 300 byte values will span page boundaries
+        int count = 20;
+        try (VariableColumn col = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.APPEND), new MappedFileImpl(indexFile, 10, JournalMode.APPEND))) {
+            for (int i = 0; i < count; i++) {
+                if (i == 5) {
+                    col.putNull();
+                } else {
+                    ByteBuffer buf = ByteBuffer.allocate(300);
+                    while (buf.hasRemaining()) {
+                        buf.put((byte) (i + buf.position()));
+                    }
+                    buf.flip();
+                    col.putBuffer(buf);
+                }
+                col.commit();
+            }
+        }
+
+        try (VariableColumn col = new VariableColumn(new MappedFileImpl(dataFile, 10, JournalMode.READ), new MappedFileImpl(indexFile, 10, JournalMode.READ))) {
+            Assert.assertNull(col.getBin(5));
+            Assert.assertEquals(0, col.getBinAddress(5));
+            for (int i = 0; i < count; i++) {
+                if (i == 5) {
+                    continue;
+                }
+                ByteBuffer view = col.getBin(i);
+                Assert.assertTrue(view.isReadOnly());
+                Assert.assertEquals(300, view.remaining());
+                for (int k = 0; view.hasRemaining(); k++) {
+                    Assert.assertEquals((byte) (i + k), view.get());
+                }
+
+                long address = col.getBinAddress(i);
+                for (int k = 0; k < 300; k++) {
+                    Assert.assertEquals((byte) (i + k), Unsafe.getUnsafe().getByte(address + k));
+                }
+            }
+        }
+    }
+
     @Test
     public void testTwoByteEdges() throws JournalException {
 
@@ -260,4 +638,49 @@ public class ColumnTest {
             Assert.assertEquals(s2, varchar2.getString(1));
         }
     }
+
+    private void assertCompressed(File compressedFile, ColumnCodec codec, int width, Object values, long arrayOffset, ValueAssert valueAssert) throws JournalException {
+        int count = java.lang.reflect.Array.getLength(values);
+        try (FixedColumn column = new FixedColumn(new MappedFileImpl(dataFile, 12, JournalMode.APPEND), width)) {
+            column.putArray(values, arrayOffset, count);
+            column.commit();
+
+            MappedFile mf = new MappedFileImpl(compressedFile, 12, JournalMode.APPEND);
+            try {
+                CompressedFixedColumn.compress(column, mf, codec, 1024);
+            } finally {
+                mf.close();
+            }
+        }
+
+        try (FixedColumn column = new CompressedFixedColumn(new MappedFileImpl(compressedFile, 12, JournalMode.READ), width)) {
+            Assert.assertEquals(count, column.size());
+            // random access
+            for (int i = count - 1; i >= 0; i -= 3) {
+                valueAssert.check(column, i, values);
+            }
+            // sequential access
+            for (int i = 0; i < count; i++) {
+                valueAssert.check(column, i, values);
+            }
+            // buffers present values uncompressed
+            ByteBuffer buf = column.getBuffer(column.getOffset(1500), 1);
+            Assert.assertEquals(width == 8 ? Unsafe.getUnsafe().getLong(values, arrayOffset + 1500L * 8) : Unsafe.getUnsafe().getInt(values, arrayOffset + 1500L * 4),
+                    width == 8 ? buf.getLong(buf.position()) : buf.getInt(buf.position()));
+
+            // buffer crossing block boundary, blocks are 1024 rows
+            buf = column.getBuffer(column.getOffset(1020), 10 * width);
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(width == 8 ? Unsafe.getUnsafe().getLong(values, arrayOffset + (1020L + i) * 8) : Unsafe.getUnsafe().getInt(values, arrayOffset + (1020L + i) * 4),
+                        width == 8 ? buf.getLong(buf.position() + i * 8) : buf.getInt(buf.position() + i * 4));
+            }
+        }
+
+        Files.deleteOrException(dataFile);
+        Files.deleteOrException(compressedFile);
+    }
+
+    private interface ValueAssert {
+        void check(FixedColumn column, int i, Object expected);
+    }
 }
@@ -19,13 +19,18 @@ package com.nfsdb.journal;
 import com.nfsdb.journal.collections.LongArrayList;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.index.BitmapIndex;
+import com.nfsdb.journal.index.IndexStatistics;
 import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.index.RoaringBitmap;
 import com.nfsdb.journal.test.tools.AbstractTest;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.BitSet;
+import java.util.Random;
 
 public class IndexTest extends AbstractTest {
     private static final int totalKeys = 10;
@@ -320,6 +325,262 @@ public class IndexTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testBlockDirectory() throws Exception {
+        // 6 values per row block, 3 keys with 1000 values each make directories grow several times
+        int keys = 3;
+        int count = 1000;
+        try (KVIndex index = new KVIndex(indexFile, 10, 60, 1, JournalMode.APPEND, 0)) {
+            long txAddress = 0;
+            for (int i = 0; i < count * keys; i++) {
+                index.add(i % keys, i);
+                if (i == count) {
+                    index.commit();
+                    txAddress = index.getTxAddress();
+                }
+            }
+            index.commit();
+
+            for (int k = 0; k < keys; k++) {
+                Assert.assertEquals(count, index.getValueCount(k));
+                for (int i = 0; i < count; i++) {
+                    Assert.assertEquals(i * keys + k, index.getValueQuick(k, i));
+                }
+
+                KVIndex.ForwardIndexCursor fwd = index.cachedForwardCursor(k);
+                Assert.assertEquals(count, fwd.size());
+                int n = 0;
+                while (fwd.hasNext()) {
+                    Assert.assertEquals(n++ * keys + k, fwd.next());
+                }
+                Assert.assertEquals(count, n);
+
+                KVIndex.IndexCursor bwd = index.cachedCursor(k);
+                while (bwd.hasNext()) {
+                    Assert.assertEquals(--n * keys + k, bwd.next());
+                }
+                Assert.assertEquals(0, n);
+            }
+
+            // reader at older transaction must not be affected by directories growing
+            try (KVIndex reader = new KVIndex(indexFile, 10, 60, 1, JournalMode.READ, txAddress)) {
+                Assert.assertEquals(334, reader.getValueCount(0));
+                Assert.assertEquals(334, reader.getValueCount(1));
+                Assert.assertEquals(333, reader.getValueCount(2));
+                for (int i = 0; i < 334; i++) {
+                    Assert.assertEquals(i * keys + 1, reader.getValueQuick(1, i));
+                }
+            }
+
+            index.truncate(100);
+            for (int i = count * keys; i < count * keys + 60; i++) {
+                index.add(0, i);
+            }
+            index.commit();
+
+            Assert.assertEquals(94, index.getValueCount(0));
+            KVIndex.ForwardIndexCursor fwd = index.cachedForwardCursor(0);
+            for (int i = 0; i < 94; i++) {
+                long expected = i < 34 ? i * keys : count * keys + i - 34;
+                Assert.assertEquals(expected, index.getValueQuick(0, i));
+                Assert.assertEquals(expected, fwd.next());
+            }
+            Assert.assertFalse(fwd.hasNext());
+        }
+    }
+
+    @Test
+    public void testCursorRead() throws Exception {
+        // 6 values per row block, key 3 doesn't exist
+        int keys = 4;
+        int count = 1000;
+        Random rnd = new Random(42);
+        try (KVIndex index = new KVIndex(indexFile, 10, 60, 1, JournalMode.APPEND, 0)) {
+            long[] counts = new long[keys];
+            for (int i = 0; i < count; i++) {
+                int key = rnd.nextInt(keys - 1);
+                index.add(key, i);
+                counts[key]++;
+            }
+            index.commit();
+
+            for (int bufferSize : new int[]{1, 4, 6, 256}) {
+                long[] buf = new long[bufferSize];
+                for (int k = 0; k < keys; k++) {
+                    LongArrayList expected = new LongArrayList();
+                    KVIndex.IndexCursor c = index.cachedCursor(k);
+                    while (c.hasNext()) {
+                        expected.add(c.next());
+                    }
+                    Assert.assertEquals(counts[k], expected.size());
+
+                    c = index.cachedCursor(k);
+                    int pos = 0;
+                    int n;
+                    while ((n = c.read(buf)) > 0) {
+                        Assert.assertTrue(n <= Math.min(bufferSize, 6));
+                        for (int i = 0; i < n; i++) {
+                            Assert.assertEquals(expected.getQuick(pos++), buf[i]);
+                        }
+                    }
+                    Assert.assertEquals(expected.size(), pos);
+                    Assert.assertFalse(c.hasNext());
+
+                    KVIndex.ForwardIndexCursor fwd = index.cachedForwardCursor(k);
+                    while ((n = fwd.read(buf)) > 0) {
+                        for (int i = 0; i < n; i++) {
+                            Assert.assertEquals(expected.getQuick(--pos), buf[i]);
+                        }
+                    }
+                    Assert.assertEquals(0, pos);
+                    Assert.assertFalse(fwd.hasNext());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGeometricRowBlocks() throws Exception {
+        // first block of each key holds 2 values, blocks double until they hold 16 values
+        int keys = 6;
+        int count = 3000;
+        LongArrayList[] expected = new LongArrayList[keys];
+        for (int k = 0; k < keys; k++) {
+            expected[k] = new LongArrayList();
+        }
+
+        Random rnd = new Random(7);
+        try (KVIndex index = new KVIndex(indexFile, 10, 20, 1, JournalMode.APPEND, 0, 3)) {
+            for (int i = 0; i < count; i++) {
+                // skewed keys, last key gets most values
+                int key = (int) Math.sqrt(rnd.nextInt(keys * keys));
+                index.add(key, i);
+                expected[key].add(i);
+            }
+            index.commit();
+            assertValues(index, expected);
+
+            IndexStatistics stats = IndexStatistics.build(index);
+            Assert.assertEquals(keys, stats.getKeyCount());
+            Assert.assertEquals(count, stats.getValueCount());
+            long max = 0;
+            for (int k = 0; k < keys; k++) {
+                max = Math.max(max, expected[k].size());
+                Assert.assertTrue(stats.getKeyCount(63 - Long.numberOfLeadingZeros(expected[k].size())) > 0);
+            }
+            Assert.assertEquals(max, stats.getMaxValueCount());
+            Assert.assertTrue(stats.getValueCountBound(100) >= max);
+
+            File statsFile = new File(indexFile.getParentFile(), "index-test.ks");
+            stats.write(statsFile);
+            IndexStatistics read = IndexStatistics.read(statsFile);
+            Assert.assertNotNull(read);
+            Assert.assertEquals(stats.getKeyCount(), read.getKeyCount());
+            Assert.assertEquals(stats.getMaxValueCount(), read.getMaxValueCount());
+            Assert.assertEquals(stats.getRowBlockLen(), read.getRowBlockLen());
+        }
+
+        // block growth is kept in file header, hints of existing index are ignored
+        try (KVIndex index = new KVIndex(indexFile, 1000, 1000, 1, JournalMode.APPEND, 0)) {
+            assertValues(index, expected);
+
+            index.truncate(count / 2);
+            for (int k = 0; k < keys; k++) {
+                LongArrayList values = expected[k];
+                int n = 0;
+                while (n < values.size() && values.getQuick(n) < count / 2) {
+                    n++;
+                }
+                values.setPos(n);
+            }
+            assertValues(index, expected);
+
+            for (int i = count / 2; i < count; i++) {
+                int key = i % keys;
+                index.add(key, i);
+                expected[key].add(i);
+            }
+            index.commit();
+            assertValues(index, expected);
+        }
+    }
+
+    @Test
+    public void testRoaringBitmap() throws Exception {
+        Random rnd = new Random(1234);
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+
+        // dense run in first container, sparse values further out and overlapping ranges in between
+        for (int i = 0; i < 300000; i++) {
+            int v = i < 10000 ? i : i < 200000 ? rnd.nextInt(200000) : 100000 + rnd.nextInt(1000000);
+            if ((i & 1) == 0) {
+                a.add(v);
+                expectedA.set(v);
+            } else {
+                b.add(v);
+                expectedB.set(v);
+            }
+        }
+
+        assertBitmap(expectedA, a);
+        assertBitmap(expectedB, b);
+
+        BitSet expected = (BitSet) expectedA.clone();
+        expected.and(expectedB);
+        assertBitmap(expected, a.and(b));
+
+        expected = (BitSet) expectedA.clone();
+        expected.or(expectedB);
+        assertBitmap(expected, a.or(b));
+
+        expected = (BitSet) expectedA.clone();
+        expected.andNot(expectedB);
+        assertBitmap(expected, a.andNot(b));
+
+        Assert.assertTrue(a.and(new RoaringBitmap()).isEmpty());
+        Assert.assertEquals(expectedA.length() - 1, a.last());
+    }
+
+    @Test
+    public void testBitmapIndex() throws Exception {
+        try (KVIndex index = new KVIndex(indexFile, 10, 60, 1, JournalMode.APPEND, 0)) {
+            BitmapIndex bitmaps = new BitmapIndex(index);
+            for (int i = 0; i < 100; i++) {
+                index.add(i % 3, i);
+            }
+            Assert.assertEquals(34, bitmaps.getBitmap(0).cardinality());
+            Assert.assertTrue(bitmaps.getBitmap(0).contains(99));
+            Assert.assertTrue(bitmaps.getBitmap(5).isEmpty());
+
+            // incremental update
+            index.add(0, 102);
+            Assert.assertEquals(35, bitmaps.getBitmap(0).cardinality());
+            Assert.assertTrue(bitmaps.getBitmap(0).contains(102));
+
+            // shrinking index rebuilds bitmap
+            index.truncate(50);
+            RoaringBitmap bitmap = bitmaps.getBitmap(0);
+            Assert.assertEquals(17, bitmap.cardinality());
+            Assert.assertFalse(bitmap.contains(51));
+            Assert.assertEquals(48, bitmap.last());
+        }
+    }
+
+    private void assertBitmap(BitSet expected, RoaringBitmap actual) {
+        Assert.assertEquals(expected.cardinality(), actual.cardinality());
+        LongArrayList values = new LongArrayList();
+        actual.toList(values);
+        Assert.assertEquals(expected.cardinality(), values.size());
+        for (int i = 0, v = expected.nextSetBit(0); i < values.size(); i++, v = expected.nextSetBit(v + 1)) {
+            Assert.assertEquals(v, values.getQuick(i));
+            Assert.assertTrue(actual.contains(v));
+            Assert.assertFalse(actual.contains(v + 1) != expected.get(v + 1));
+        }
+    }
+
     private void putValues(long values[][], KVIndex index) {
         for (int i = 0; i < values.length; i++) {
             for (int k = 0; k < values[i].length; k++) {
@@ -343,4 +604,71 @@ public class IndexTest extends AbstractTest {
             }
         }
     }
+
+    private void assertValues(KVIndex index, LongArrayList[] expected) {
+        long[] buf = new long[5];
+        for (int k = 0; k < expected.length; k++) {
+            LongArrayList values = expected[k];
+            int size = values.size();
+            Assert.assertEquals(size, index.getValueCount(k));
+
+            LongArrayList all = index.getValues(k);
+            Assert.assertEquals(size, all.size());
+            for (int i = 0; i < size; i++) {
+                Assert.assertEquals(values.getQuick(i), all.getQuick(i));
+                Assert.assertEquals(values.getQuick(i), index.getValueQuick(k, i));
+            }
+            if (size > 0) {
+                Assert.assertEquals(values.getQuick(size - 1), index.lastValue(k));
+            }
+
+            KVIndex.IndexCursor c = index.cachedCursor(k);
+            int pos = size;
+            while (c.hasNext()) {
+                Assert.assertEquals(values.getQuick(--pos), c.next());
+            }
+            Assert.assertEquals(0, pos);
+
+            c = index.cachedCursor(k);
+            int n;
+            pos = size;
+            while ((n = c.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    Assert.assertEquals(values.getQuick(--pos), buf[i]);
+                }
+            }
+            Assert.assertEquals(0, pos);
+
+            KVIndex.ForwardIndexCursor fwd = index.cachedForwardCursor(k);
+            while (fwd.hasNext()) {
+                Assert.assertEquals(values.getQuick(pos++), fwd.next());
+            }
+            Assert.assertEquals(size, pos);
+
+            fwd = index.cachedForwardCursor(k);
+            pos = 0;
+            while ((n = fwd.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    Assert.assertEquals(values.getQuick(pos++), buf[i]);
+                }
+            }
+            Assert.assertEquals(size, pos);
+
+            // seek lands on first value at or after target, values of key are ascending
+            fwd = index.cachedForwardCursor(k);
+            pos = 0;
+            for (long target = 0; target <= size * 2L; target += 37) {
+                fwd.seek(target);
+                while (pos < size && values.getQuick(pos) < target) {
+                    pos++;
+                }
+                if (pos == size) {
+                    Assert.assertFalse(fwd.hasNext());
+                    break;
+                }
+                Assert.assertTrue(fwd.hasNext());
+                Assert.assertEquals(values.getQuick(pos++), fwd.next());
+            }
+        }
+    }
 }
@@ -16,11 +16,23 @@
 
 package com.nfsdb.journal;
 
+import com.nfsdb.journal.collections.LongArrayList;
+import com.nfsdb.journal.column.ColumnCodec;
+import com.nfsdb.journal.column.MappedFileType;
+import com.nfsdb.journal.column.StringEncoding;
 import com.nfsdb.journal.column.SymbolTable;
+import com.nfsdb.journal.exceptions.JournalConfigurationException;
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
 import com.nfsdb.journal.factory.JournalFactory;
 import com.nfsdb.journal.factory.configuration.JournalConfigurationBuilder;
+import com.nfsdb.journal.index.IndexStatistics;
+import com.nfsdb.journal.index.KVIndex;
+import com.nfsdb.journal.lang.cst.DataSource;
+import com.nfsdb.journal.lang.cst.Q;
+import com.nfsdb.journal.lang.cst.RowSource;
+import com.nfsdb.journal.lang.cst.impl.QImpl;
+import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
 import com.nfsdb.journal.model.Quote;
 import com.nfsdb.journal.model.TestEntity;
 import com.nfsdb.journal.test.tools.AbstractTest;
@@ -29,13 +41,22 @@ import com.nfsdb.journal.test.tools.TestUtils;
 import com.nfsdb.journal.tx.TxAsyncListener;
 import com.nfsdb.journal.tx.TxFuture;
 import com.nfsdb.journal.tx.TxListener;
+import com.nfsdb.journal.utils.Checksum;
 import com.nfsdb.journal.utils.Dates;
 import com.nfsdb.journal.utils.Files;
 import com.nfsdb.journal.utils.Rows;
+import com.nfsdb.journal.utils.Unsafe;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -54,6 +75,110 @@ public class JournalTest extends AbstractTest {
         Assert.assertEquals(-1, journal.getMaxRowID());
     }
 
+    @Test
+    public void testAppendBatch() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 1000);
+
+        int size = (int) origin.size();
+        long timestamps[] = new long[size];
+        String syms[] = new String[size];
+        double bids[] = new double[size];
+        double asks[] = new double[size];
+        int bidSizes[] = new int[size];
+        int askSizes[] = new int[size];
+        String modes[] = new String[size];
+        String exs[] = new String[size];
+
+        int i = 0;
+        for (Quote q : origin) {
+            timestamps[i] = q.getTimestamp();
+            syms[i] = q.getSym();
+            bids[i] = q.getBid();
+            asks[i] = q.getAsk();
+            bidSizes[i] = q.getBidSize();
+            askSizes[i] = q.getAskSize();
+            modes[i] = q.getMode();
+            exs[i] = q.getEx();
+            i++;
+        }
+
+        JournalWriter<Quote> w = factory.writer(Quote.class, "batch");
+        ColumnBatch batch = new ColumnBatch(w.getMetadata())
+                .setLongs("timestamp", timestamps)
+                .setStrings("sym", syms)
+                .setDoubles("bid", bids)
+                .setDoubles("ask", asks)
+                .setInts("bidSize", bidSizes)
+                .setInts("askSize", askSizes)
+                .setStrings("mode", modes)
+                .setStrings("ex", exs);
+
+        w.appendBatch(batch);
+        w.commit();
+
+        TestUtils.assertEquals(origin, w);
+    }
+
+    @Test
+    public void testAppendBatchOffHeap() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 1000);
+
+        int size = (int) origin.size();
+        String syms[] = new String[size];
+        String modes[] = new String[size];
+        String exs[] = new String[size];
+        long timestamps = Unsafe.getUnsafe().allocateMemory(size * 8L);
+        long bids = Unsafe.getUnsafe().allocateMemory(size * 8L);
+        long asks = Unsafe.getUnsafe().allocateMemory(size * 8L);
+        long bidSizes = Unsafe.getUnsafe().allocateMemory(size * 4L);
+        long askSizes = Unsafe.getUnsafe().allocateMemory(size * 4L);
+        try {
+            int i = 0;
+            for (Quote q : origin) {
+                Unsafe.getUnsafe().putLong(timestamps + i * 8L, q.getTimestamp());
+                Unsafe.getUnsafe().putDouble(bids + i * 8L, q.getBid());
+                Unsafe.getUnsafe().putDouble(asks + i * 8L, q.getAsk());
+                Unsafe.getUnsafe().putInt(bidSizes + i * 4L, q.getBidSize());
+                Unsafe.getUnsafe().putInt(askSizes + i * 4L, q.getAskSize());
+                syms[i] = q.getSym();
+                modes[i] = q.getMode();
+                exs[i] = q.getEx();
+                i++;
+            }
+
+            JournalWriter<Quote> w = factory.writer(Quote.class, "batch");
+            w.appendBatch(new ColumnBatch(w.getMetadata())
+                            .setAddress("timestamp", timestamps, size)
+                            .setStrings("sym", syms)
+                            .setAddress("bid", bids, size)
+                            .setAddress("ask", asks, size)
+                            .setAddress("bidSize", bidSizes, size)
+                            .setAddress("askSize", askSizes, size)
+                            .setStrings("mode", modes)
+                            .setStrings("ex", exs)
+            );
+            w.commit();
+
+            TestUtils.assertEquals(origin, w);
+        } finally {
+            Unsafe.getUnsafe().freeMemory(timestamps);
+            Unsafe.getUnsafe().freeMemory(bids);
+            Unsafe.getUnsafe().freeMemory(asks);
+            Unsafe.getUnsafe().freeMemory(bidSizes);
+            Unsafe.getUnsafe().freeMemory(askSizes);
+        }
+    }
+
+    @Test(expected = JournalException.class)
+    public void testAppendBatchOutOfOrder() throws Exception {
+        JournalWriter<Quote> w = factory.writer(Quote.class);
+        w.appendBatch(new ColumnBatch(w.getMetadata())
+                        .setLongs("timestamp", new long[]{Dates.toMillis("2013-10-05T10:00:00.000Z"), Dates.toMillis("2013-10-04T10:00:00.000Z")})
+        );
+    }
+
     @Test
     public void testMaxRowID() throws JournalException {
         JournalWriter<Quote> w = factory.writer(Quote.class);
@@ -142,6 +267,38 @@ public class JournalTest extends AbstractTest {
         Assert.assertEquals(3, journal.query().head().withKeys().asResultSet().read().length);
     }
 
+    @Test
+    public void testParallelReindex() throws Exception {
+        try (JournalWriter<Quote> w = factory.writer(Quote.class)) {
+            TestUtils.generateQuoteData(w, 100000, Dates.toMillis("2013-01-01T00:00:00.000Z"), 100000);
+            w.commit();
+
+            String columns[] = {"sym", "ex"};
+            List<LongArrayList> expected = new ArrayList<>();
+            for (int i = 0; i < w.getPartitionCount(); i++) {
+                for (String c : columns) {
+                    KVIndex index = w.getPartition(i, true).getIndexForColumn(c);
+                    for (int k = 0, n = w.getSymbolTable(c).size(); k < n; k++) {
+                        expected.add(index.getValues(k));
+                    }
+                }
+            }
+
+            w.rebuildIndexes(4);
+
+            int e = 0;
+            for (int i = 0; i < w.getPartitionCount(); i++) {
+                for (String c : columns) {
+                    KVIndex index = w.getPartition(i, true).getIndexForColumn(c);
+                    for (int k = 0, n = w.getSymbolTable(c).size(); k < n; k++) {
+                        Assert.assertEquals(expected.get(e++).toString(), index.getValues(k).toString());
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(3, factory.reader(Quote.class).query().head().withKeys("BP.L", "WTB.L", "TLW.L").asResultSet().read().length);
+    }
+
     @Test
     public void testSizeAfterCompaction() throws JournalException {
         long sizeAfterCompaction;
@@ -444,6 +601,542 @@ public class JournalTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testNotNullColumns() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 10000, Dates.toMillis("2013-01-01T00:00:00.000Z"), 1000000);
+
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15).notNull()
+                    .$sym("ex").index().valueCountHint(5).notNull()
+                    .$sym("mode").notNull()
+                    .$double("bid").notNull()
+                    .$double("ask").notNull()
+                    .$int("bidSize").notNull()
+                    .$int("askSize").notNull()
+                    .$long("timestamp").notNull()
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "notnull")) {
+            for (Quote q : origin) {
+                w.append(q);
+            }
+            w.commit();
+
+            try {
+                w.append(new Quote().setTimestamp(w.getMaxTimestamp()).setSym("ABC").setEx("LXE"));
+                Assert.fail("Expected exception");
+            } catch (JournalException ignore) {
+                // mode is null
+            }
+            w.rollback();
+
+            for (int i = 0; i < w.getPartitionCount(); i++) {
+                Assert.assertFalse(new File(w.getPartition(i, false).getPartitionDir(), "_nulls.d").exists());
+            }
+        }
+
+        TestUtils.assertDataEquals(origin, f2.reader(Quote.class, "notnull"));
+    }
+
+    @Test
+    public void testNotNullColumnInNullableJournal() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .$sym("sym").notNull()
+                    .$sym("mode")
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "mixed")) {
+            w.append(new Quote().setTimestamp(1000).setSym("ABC"));
+            try {
+                w.append(new Quote().setTimestamp(2000).setMode("X"));
+                Assert.fail("Expected exception");
+            } catch (JournalException ignore) {
+                // sym is null
+            }
+            w.commit();
+
+            Assert.assertEquals(1, w.size());
+            Quote q = w.read(0);
+            Assert.assertEquals("ABC", q.getSym());
+            Assert.assertNull(q.getMode());
+            Assert.assertTrue(w.query().all().asResultSet().isNull(0, w.getMetadata().getColumnIndex("mode")));
+            Assert.assertFalse(w.query().all().asResultSet().isNull(0, w.getMetadata().getColumnIndex("sym")));
+        }
+    }
+
+    @Test
+    public void testContiguousMappedFiles() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 100000);
+
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$sym("ex").index().valueCountHint(5)
+                    .$sym("mode")
+                    .$ts()
+                    .mappedFileType(MappedFileType.CONTIGUOUS);
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "contiguous")) {
+            for (Quote q : origin) {
+                w.append(q);
+            }
+            w.commit();
+        }
+
+        TestUtils.assertEquals(origin, f2.reader(Quote.class, "contiguous"));
+        TestUtils.assertEquals(origin, factory.reader(Quote.class, "contiguous"));
+    }
+
+    @Test
+    public void testUtf8StringColumn() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 10000);
+
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$sym("ex").index().valueCountHint(5)
+                    .$str("mode").encoding(StringEncoding.UTF8)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "utf8")) {
+            for (Quote q : origin) {
+                w.append(q);
+            }
+            w.commit();
+        }
+
+        TestUtils.assertDataEquals(origin, f2.reader(Quote.class, "utf8"));
+    }
+
+    @Test
+    public void testFixedStringColumn() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 10000);
+
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$sym("ex").index().valueCountHint(5)
+                    .$str("mode").fixed(12).index().buckets(4)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "fixed")) {
+            for (Quote q : origin) {
+                w.append(q);
+            }
+            w.commit();
+
+            Quote q = new Quote().setSym("BP.L").setMode("Far too long mode").setTimestamp(w.getMaxTimestamp());
+            try {
+                w.append(q);
+                Assert.fail("Expected exception");
+            } catch (JournalException ignore) {
+                // expected
+            }
+            Assert.assertEquals(10000, w.size());
+
+            // chars that cannot be stored as they are must not be replaced or cut off
+            for (String mode : new String[]{"Fast \u0101", "Fast\u0000slow"}) {
+                try {
+                    w.append(q.setMode(mode));
+                    Assert.fail("Expected exception");
+                } catch (JournalException ignore) {
+                    // expected
+                }
+            }
+            Assert.assertEquals(10000, w.size());
+        }
+
+        Journal<Quote> r = f2.reader(Quote.class, "fixed");
+        TestUtils.assertDataEquals(origin, r);
+        Partition<Quote> p = r.getPartition(0, true);
+        Assert.assertFalse(new File(p.getPartitionDir(), "mode.i").exists());
+        Assert.assertEquals("Fast trading", p.getStr(0, r.getMetadata().getColumnIndex("mode")).toString());
+    }
+
+    @Test
+    public void testRangeIndex() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 100000, Dates.toMillis("2013-01-01T00:00:00.000Z"), 100000);
+
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$double("bid").rangeIndex()
+                    .$int("askSize").rangeIndex()
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "range")) {
+            int count = 0;
+            for (Quote q : origin) {
+                w.append(q);
+                if (++count == 50000) {
+                    w.commit();
+                }
+            }
+            w.commit();
+        }
+
+        Journal<Quote> r = f2.reader(Quote.class, "range");
+        Assert.assertTrue(r.getPartitionCount() > 2);
+        int bid = r.getMetadata().getColumnIndex("bid");
+        for (int i = 0; i < r.getPartitionCount() - 1; i++) {
+            Partition<Quote> p = r.getPartition(i, true);
+            Assert.assertTrue(new File(p.getPartitionDir(), "bid.ri").exists());
+            Assert.assertEquals(p.size(), p.getRangeIndex(bid).size());
+        }
+        Assert.assertEquals(0, r.getPartition(r.getPartitionCount() - 1, true).getRangeIndex(bid).size());
+
+        Q q = new QImpl();
+        assertRange(r, q.range("bid", 0.25, 0.5), "bid", 0.25, 0.5);
+        assertRange(r, q.range("askSize", 100000000L, 900000000L), "askSize", 100000000, 900000000);
+
+        // long bounds on double column and double bounds on int column would compare incompatible keys
+        try {
+            q.forEachPartition(q.source(r, false), q.range("bid", 0L, 1L)).hasNext();
+            Assert.fail("Expected exception");
+        } catch (JournalRuntimeException ignore) {
+            // expected
+        }
+        try {
+            q.forEachPartition(q.source(r, false), q.range("askSize", 1E8, 9E8)).hasNext();
+            Assert.fail("Expected exception");
+        } catch (JournalRuntimeException ignore) {
+            // expected
+        }
+    }
+
+    private static long readRowBlockLen(File kFile) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(kFile, "r")) {
+            ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+            // first long of file is its append offset, index header follows
+            raf.getChannel().read(buf, 8);
+            return buf.getLong(0) & 0xFFFFFFFFL;
+        }
+    }
+
+    private static void assertRange(Journal<Quote> r, RowSource src, String column, double lo, double hi) throws JournalException {
+        Q q = new QImpl();
+        List<Quote> expected = new ArrayList<>();
+        for (Quote quote : r) {
+            double v = "bid".equals(column) ? quote.getBid() : quote.getAskSize();
+            if (v >= lo && v <= hi) {
+                expected.add(quote);
+            }
+        }
+        Assert.assertTrue(expected.size() > 0);
+
+        int i = 0;
+        for (Quote quote : q.ds(q.forEachPartition(q.source(r, false), src), new Quote())) {
+            Assert.assertEquals(expected.get(i++).toString(), quote.toString());
+        }
+        Assert.assertEquals(expected.size(), i);
+    }
+
+    @Test
+    public void testFingerprintIndex() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$str("mode").fingerprint().buckets(1000000)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        int count = 20000;
+        long ts = Dates.toMillis("2013-01-01T00:00:00.000Z");
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "fp")) {
+            Quote quote = new Quote();
+            for (int i = 0; i < count; i++) {
+                quote.setSym("BP.L").setMode(i % 100 == 0 ? null : "ORDER" + i).setTimestamp(ts + i * 1000000L);
+                w.append(quote);
+            }
+            w.commit();
+            Assert.assertTrue(w.getPartitionCount() > 1);
+            w.rebuildIndexes();
+        }
+
+        Journal<Quote> r = f2.reader(Quote.class, "fp");
+        int mode = r.getMetadata().getColumnIndex("mode");
+        Partition<Quote> p = r.getPartition(0, true);
+        Assert.assertTrue(new File(p.getPartitionDir(), "mode.fp").exists());
+        Assert.assertEquals(p.size(), p.getFingerprintColumn(mode).size());
+        Assert.assertEquals(0, p.getFingerprintColumn(mode).getLong(0));
+
+        // keys are not limited to 16 bits
+        int maxKey = 0;
+        for (int i = 1; i < 1000; i++) {
+            maxKey = Math.max(maxKey, Checksum.hash("ORDER" + i, r.getMetadata().getColumnMetadata(mode)));
+        }
+        Assert.assertTrue(maxKey > 0xFFFF);
+
+        Q q = new QImpl();
+        StringRef column = new StringRef("mode");
+        StringRef value = new StringRef();
+
+        for (int i = 1; i < count; i += 997) {
+            value.value = "ORDER" + i;
+            DataSource<Quote> ds = q.ds(
+                    q.forEachPartition(
+                            q.source(r, false)
+                            , q.forEachRow(q.kvSource(column, q.hashSource(column, value)), q.equalsConst(column, value))
+                    )
+                    , new Quote()
+            );
+            int n = 0;
+            for (Quote quote : ds) {
+                Assert.assertEquals(value.value, quote.getMode());
+                Assert.assertEquals(ts + i * 1000000L, quote.getTimestamp());
+                n++;
+            }
+            Assert.assertEquals(i % 100 == 0 ? 0 : 1, n);
+        }
+    }
+
+    @Test(expected = JournalConfigurationException.class)
+    public void testFingerprintFixedString() throws Exception {
+        new JournalConfigurationBuilder() {{
+            $(Quote.class).$str("mode").fingerprint().fixed(10);
+        }}.build(factory.getConfiguration().getJournalBase());
+    }
+
+    @Test
+    public void testIndexStatistics() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        // HOT takes most rows, index of later partitions is sized after the earlier ones
+        String syms[] = {"HOT", "A", "B", "C", "D", "E", "F", "G"};
+        long ts = Dates.toMillis("2013-01-01T00:00:00.000Z");
+        Random rnd = new Random(11);
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "stats")) {
+            Quote quote = new Quote();
+            for (int i = 0; i < 3000; i++) {
+                int k = rnd.nextInt(20);
+                quote.setSym(syms[k < syms.length ? k : 0]).setTimestamp(ts + i * 3600000L);
+                w.append(quote);
+            }
+            w.commit();
+            Assert.assertEquals(5, w.getPartitionCount());
+        }
+
+        Journal<Quote> r = f2.reader(Quote.class, "stats");
+        int sym = r.getMetadata().getColumnIndex("sym");
+        for (int i = 0; i < r.getPartitionCount(); i++) {
+            Partition<Quote> p = r.getPartition(i, true);
+            Assert.assertEquals(i < r.getPartitionCount() - 1, new File(p.getPartitionDir(), "sym.ks").exists());
+
+            IndexStatistics stats = p.getIndexStatistics(sym);
+            Assert.assertEquals(p.size(), stats.getValueCount());
+
+            KVIndex index = p.getIndexForColumn(sym);
+            long max = 0;
+            int keyCount = 0;
+            for (int key = 0; key < syms.length; key++) {
+                int n = index.getValueCount(key);
+                if (n > 0) {
+                    keyCount++;
+                }
+                max = Math.max(max, n);
+
+                String s = r.getSymbolTable("sym").value(key);
+                KVIndex.IndexCursor c = index.cachedCursor(key);
+                while (c.hasNext()) {
+                    Assert.assertEquals(s, p.read(c.next()).getSym());
+                }
+            }
+            Assert.assertEquals(keyCount, stats.getKeyCount());
+            Assert.assertEquals(max, stats.getMaxValueCount());
+        }
+    }
+
+    @Test
+    public void testRebuildIndexOfLastPartition() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        // last partition gets only a few rows, most of them still to come
+        String syms[] = {"HOT", "A", "B", "C", "D", "E", "F", "G"};
+        long ts = Dates.toMillis("2013-01-01T00:00:00.000Z");
+        Random rnd = new Random(11);
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "rebuild")) {
+            Quote quote = new Quote();
+            for (int i = 0; i < 2200; i++) {
+                int k = rnd.nextInt(20);
+                quote.setSym(syms[k < syms.length ? k : 0]).setTimestamp(ts + i * 3600000L);
+                w.append(quote);
+            }
+            w.commit();
+
+            int sym = w.getMetadata().getColumnIndex("sym");
+            Partition<Quote> p = w.getPartition(w.getPartitionCount() - 1, true);
+            Assert.assertTrue(p.size() < 100);
+            File kFile = new File(p.getPartitionDir(), "sym.k");
+            long rowBlockLen = readRowBlockLen(kFile);
+            Assert.assertTrue(rowBlockLen > p.size());
+
+            // rebuilt index must be sized for partition that is still appended to, not for rows it has now
+            p.rebuildIndex(sym);
+            Assert.assertEquals(rowBlockLen, readRowBlockLen(kFile));
+
+            for (int i = 2200; i < 2400; i++) {
+                quote.setSym(syms[i % syms.length]).setTimestamp(ts + i * 3600000L);
+                w.append(quote);
+            }
+            w.commit();
+
+            KVIndex index = p.getIndexForColumn(sym);
+            long total = 0;
+            for (int key = 0; key < syms.length; key++) {
+                String s = w.getSymbolTable("sym").value(key);
+                KVIndex.IndexCursor c = index.cachedCursor(key);
+                while (c.hasNext()) {
+                    Assert.assertEquals(s, p.read(c.next()).getSym());
+                    total++;
+                }
+            }
+            Assert.assertEquals(p.size(), total);
+        }
+    }
+
+    @Test
+    public void testBloomFilter() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .key("sym")
+                    .$sym("sym").index().valueCountHint(15)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        // RARE is only in first partition, ABC in first and last
+        long ts = Dates.toMillis("2013-01-01T00:00:00.000Z");
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "bf")) {
+            Quote quote = new Quote();
+            for (int i = 0; i < 3000; i++) {
+                String sym = i == 10 ? "RARE" : i < 1000 && i % 2 == 0 || i >= 2000 ? "ABC" : "XYZ";
+                quote.setSym(sym).setTimestamp(ts + i * 3600000L);
+                w.append(quote);
+            }
+            w.commit();
+            Assert.assertEquals(5, w.getPartitionCount());
+        }
+
+        Journal<Quote> r = f2.reader(Quote.class, "bf");
+        int sym = r.getMetadata().getColumnIndex("sym");
+        int rare = r.getSymbolTable("sym").getQuick("RARE");
+        for (int i = 0; i < r.getPartitionCount(); i++) {
+            Partition<Quote> p = r.getPartition(i, false);
+            Assert.assertEquals(i < r.getPartitionCount() - 1, new File(p.getPartitionDir(), "sym.bf").exists());
+            // filter has no false negatives
+            KVIndex index = p.open().getIndexForColumn(sym);
+            for (int key = 0; key < r.getSymbolTable("sym").size(); key++) {
+                if (index.contains(key)) {
+                    Assert.assertTrue(p.mightContain(sym, key));
+                }
+            }
+        }
+        Assert.assertTrue(r.getPartition(0, false).mightContain(sym, rare));
+        Assert.assertFalse(r.getPartition(1, false).mightContain(sym, rare));
+        Assert.assertTrue(r.getPartition(r.getPartitionCount() - 1, false).mightContain(sym, rare));
+
+        Quote[] rows = r.query().head().withKeys("RARE").asResultSet().read();
+        Assert.assertEquals(1, rows.length);
+        Quote q = rows[0];
+        Assert.assertEquals("RARE", q.getSym());
+        Assert.assertEquals(ts + 10 * 3600000L, q.getTimestamp());
+        Assert.assertEquals(3, r.query().head().withKeys().asResultSet().read().length);
+
+        // keyed scan agrees with brute force count
+        Q qq = new QImpl();
+        StringRef column = new StringRef("sym");
+        DataSource<Quote> ds = qq.ds(
+                qq.forEachPartition(
+                        qq.source(r, false)
+                        , qq.kvSource(column, qq.symbolTableSource(column, Arrays.asList("RARE", "XYZ")))
+                )
+                , new Quote()
+        );
+        int n = 0;
+        for (Quote quote : ds) {
+            Assert.assertTrue("RARE".equals(quote.getSym()) || "XYZ".equals(quote.getSym()));
+            n++;
+        }
+        int expected = 0;
+        for (Quote quote : r) {
+            if ("RARE".equals(quote.getSym()) || "XYZ".equals(quote.getSym())) {
+                expected++;
+            }
+        }
+        Assert.assertEquals(expected, n);
+    }
+
+    @Test
+    public void testCompressSealedPartitions() throws Exception {
+        JournalWriter<Quote> origin = factory.writer(Quote.class, "origin");
+        TestUtils.generateQuoteData(origin, 100000, Dates.toMillis("2013-01-01T00:00:00.000Z"), 100000);
+
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .key("sym")
+                    .$sym("sym").index().valueCountHint(15).codec(ColumnCodec.BITPACK)
+                    .$sym("ex").index().valueCountHint(5)
+                    .$sym("mode")
+                    .$double("bid").codec(ColumnCodec.XOR)
+                    .$double("ask").codec(ColumnCodec.XOR)
+                    .$int("bidSize").codec(ColumnCodec.BITPACK)
+                    .$long("timestamp").codec(ColumnCodec.DELTA_OF_DELTA)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "compressed")) {
+            for (Quote q : origin) {
+                w.append(q);
+            }
+            w.commit();
+            w.compress();
+
+            Assert.assertTrue(w.getPartitionCount() > 1);
+            for (int i = 0; i < w.getPartitionCount() - 1; i++) {
+                File dir = w.getPartition(i, false).getPartitionDir();
+                Assert.assertTrue(new File(dir, "timestamp.z").exists());
+                Assert.assertFalse(new File(dir, "timestamp.d").exists());
+                Assert.assertFalse(new File(dir, "ask.d").exists());
+                Assert.assertTrue(new File(dir, "askSize.d").exists());
+            }
+            TestUtils.assertEquals(origin, w);
+            Assert.assertEquals(origin.query().all().withKeys("BP.L").asResultSet().size(), w.query().all().withKeys("BP.L").asResultSet().size());
+        }
+
+        // reader does not need codec configuration to read compressed partitions
+        TestUtils.assertEquals(origin, factory.reader(Quote.class, "compressed"));
+    }
+
     @Test
     public void testAppendBreak() throws Exception {
         Random random = new Random(System.nanoTime());
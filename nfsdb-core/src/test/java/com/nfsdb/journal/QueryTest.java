@@ -16,7 +16,11 @@
 
 package com.nfsdb.journal;
 
+import com.nfsdb.journal.column.SymbolTable;
 import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.factory.JournalFactory;
+import com.nfsdb.journal.factory.configuration.JournalConfigurationBuilder;
+import com.nfsdb.journal.index.LatestRowIDTable;
 import com.nfsdb.journal.iterators.ConcurrentIterator;
 import com.nfsdb.journal.iterators.JournalIterator;
 import com.nfsdb.journal.model.Quote;
@@ -27,12 +31,19 @@ import com.nfsdb.journal.test.tools.AbstractTest;
 import com.nfsdb.journal.test.tools.TestData;
 import com.nfsdb.journal.test.tools.TestUtils;
 import com.nfsdb.journal.utils.Dates;
+import com.nfsdb.journal.utils.Files;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public class QueryTest extends AbstractTest {
 
     private final long ts1 = Dates.toMillis("2013-04-28T17:20:00.000Z");
@@ -254,6 +265,14 @@ public class QueryTest extends AbstractTest {
         TestUtils.assertEquals(expected, rs.sort());
     }
 
+    @Test
+    public void testAllBySymbolValuesOverlappingFilters() throws Exception {
+        // row is returned once for every filter it matches
+        int once = q.all().withKeys("TLW.L", "BP.L").filter("ex", "GR").asResultSet().size();
+        Assert.assertTrue(once > 0);
+        Assert.assertEquals(2 * once, q.all().withKeys("TLW.L", "BP.L").filter("ex", "GR").filter("ex", "GR").asResultSet().size());
+    }
+
     @Test
     public void testAllBySymbolValuesFilterOverInterval() throws Exception {
         String expected = "2013-04-28T21:30:00.000Z\tBP.L\t0.31430399958862776\t0.7442052266426017\t1902801116\t1526668764\tFast trading\tGR\n" +
@@ -447,6 +466,121 @@ public class QueryTest extends AbstractTest {
         Assert.assertEquals(13, b.limit(-1L).asResultSet().size());
     }
 
+    @Test
+    public void testLatestRowIDTable() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(10000)
+                    .partitionBy(PartitionType.MONTH)
+                    .lag(12, TimeUnit.HOURS)
+                    .key("sym")
+                    .$sym("sym").latestRowIDs().valueCountHint(15)
+                    .$sym("ex").index().valueCountHint(5)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        long ts = Dates.toMillis("2013-01-01T00:00:00.000Z");
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "latest")) {
+            TestUtils.generateQuoteData(w, 10000, ts, 3600000L);
+            w.commit();
+            Assert.assertTrue(new File(w.getLocation(), "sym.lr").exists());
+            Assert.assertFalse(new File(w.getLocation(), "ex.lr").exists());
+            Assert.assertTrue(w.getPartitionCount() > 10);
+
+            Journal<Quote> r = f2.reader(Quote.class, "latest");
+            assertLatest(r);
+            assertLatestRowIDTable(w);
+
+            // reader must not see rows of transactions it hasn't caught up with
+            ts += 10000 * 3600000L;
+            Quote quote = new Quote().setSym("BP.L").setEx("LXE").setTimestamp(ts);
+            w.append(quote);
+            w.append(quote.setSym("NEW.L").setTimestamp(ts += 1000));
+            w.commit();
+            assertLatest(r);
+            assertLatest(w);
+            Assert.assertTrue(r.refresh());
+            assertLatest(r);
+
+            // uncommitted rows are not in table yet
+            w.append(quote.setSym("ABF.L").setTimestamp(ts += 1000));
+            assertLatest(w);
+            w.rollback();
+            assertLatest(w);
+
+            // rolling committed transaction back restores previous rows of its keys
+            w.append(quote.setSym("ABF.L").setTimestamp(ts += 1000));
+            w.append(quote.setSym("LLOY.L").setTimestamp(ts += 1000));
+            w.commit();
+            assertLatestRowIDTable(w);
+            w.rollback(w.txLog.prevAddress(w.txLog.headAddress()));
+            assertLatestRowIDTable(w);
+            assertLatest(w);
+
+            // rows of lag partition are the latest
+            final long lagTs = ts;
+            w.mergeAppend(new ArrayList<Quote>() {{
+                add(new Quote().setSym("BP.L").setEx("LXE").setTimestamp(lagTs + 3600000L));
+                add(new Quote().setSym("TLW.L").setEx("LXE").setTimestamp(lagTs + 7200000L));
+            }});
+            w.commit();
+            Assert.assertTrue(w.hasIrregularPartition());
+            assertLatest(w);
+            Assert.assertTrue(r.refresh());
+            assertLatest(r);
+
+            // reindex rebuilds table
+            Files.deleteOrException(new File(w.getLocation(), "sym.lr"));
+        }
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "latest")) {
+            w.rebuildIndexes();
+            assertLatestRowIDTable(w);
+            assertLatest(w);
+
+            w.truncate();
+            Assert.assertEquals(0, w.query().head().withKeys().asResultSet().size());
+        }
+    }
+
+    /**
+     * Checks that table vouches for every key with its latest row in regular partitions.
+     */
+    private static void assertLatestRowIDTable(Journal<Quote> journal) throws JournalException {
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0, n = journal.nonLagPartitionCount(); i < n; i++) {
+            for (Quote quote : journal.getPartition(i, true)) {
+                expected.put(quote.getSym(), quote.getTimestamp());
+            }
+        }
+
+        LatestRowIDTable table = journal.getLatestRowIDTable(journal.getMetadata().getColumnIndex("sym"));
+        SymbolTable tab = journal.getSymbolTable("sym");
+        for (int key = 0; key < tab.size(); key++) {
+            long rowID = table.get(key);
+            Long timestamp = expected.get(tab.value(key));
+            if (timestamp == null) {
+                Assert.assertEquals(LatestRowIDTable.NOT_FOUND, rowID);
+            } else {
+                Quote quote = journal.read(rowID);
+                Assert.assertEquals(tab.value(key), quote.getSym());
+                Assert.assertEquals(timestamp.longValue(), quote.getTimestamp());
+            }
+        }
+    }
+
+    private static void assertLatest(Journal<Quote> journal) throws JournalException {
+        Map<String, Long> expected = new HashMap<>();
+        for (Quote quote : journal) {
+            expected.put(quote.getSym(), quote.getTimestamp());
+        }
+
+        Map<String, Long> actual = new HashMap<>();
+        for (Quote quote : journal.query().head().withKeys().asResultSet()) {
+            Assert.assertNull(actual.put(quote.getSym(), quote.getTimestamp()));
+        }
+        Assert.assertEquals(expected, actual);
+    }
+
     @Test
     public void testLatestByKeyFilter() throws Exception {
         String expected = "2013-05-06T19:46:40.000Z\tLLOY.L\t0.7193355196302277\t0.9404701555734597\t704067095\t1668582762\tFast trading\tGR\n" +
@@ -457,6 +591,45 @@ public class QueryTest extends AbstractTest {
         TestUtils.assertEquals(expected, rs.sort());
     }
 
+    @Test
+    public void testBitmapIndexFilters() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class)
+                    .partitionBy(PartitionType.MONTH)
+                    .key("sym")
+                    .$sym("sym").index().valueCountHint(15)
+                    .$sym("ex").bitmap().valueCountHint(5)
+                    .$sym("mode")
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w2 = f2.writer(Quote.class, "bitmap")) {
+            w2.append(w);
+            w2.commit();
+
+            Query<Quote> q2 = w2.query();
+            TestUtils.assertEquals(
+                    q.head().withKeys().filter("ex", "GR").strict(true).asResultSet().sort().iterator()
+                    , q2.head().withKeys().filter("ex", "GR").strict(true).asResultSet().sort().iterator()
+            );
+            TestUtils.assertEquals(
+                    q.head().withKeys().filter("ex", "GR").strict(false).asResultSet().sort().iterator()
+                    , q2.head().withKeys().filter("ex", "GR").strict(false).asResultSet().sort().iterator()
+            );
+            TestUtils.assertEquals(
+                    q.all().withKeys("TLW.L", "BP.L").filter("ex", "SK").filter("ex", "GR").slice(Dates.interval(ts1, ts2)).asResultSet().sort().iterator()
+                    , q2.all().withKeys("TLW.L", "BP.L").filter("ex", "SK").filter("ex", "GR").slice(Dates.interval(ts1, ts2)).asResultSet().sort().iterator()
+            );
+            // bitmaps are cached and have to pick up rows appended after first query
+            w2.append(new Quote().setSym("BP.L").setEx("GR").setMode("Fast trading").setTimestamp(w2.getMaxTimestamp()));
+            w2.commit();
+            Assert.assertEquals(
+                    q.all().withKeys("BP.L").filter("ex", "GR").asResultSet().size() + 1
+                    , q2.all().withKeys("BP.L").filter("ex", "GR").asResultSet().size()
+            );
+        }
+    }
+
     @Test
     public void testLatestByKeyFilterNonStrict() throws Exception {
         String expected = "2013-05-02T14:23:20.000Z\tWTB.L\t0.7858327043313086\t0.7679013186397453\t150870909\t427886371\tFast trading\tGR\n" +
@@ -18,9 +18,13 @@ package com.nfsdb.journal;
 
 import com.nfsdb.journal.exceptions.JournalException;
 import com.nfsdb.journal.exceptions.JournalRuntimeException;
+import com.nfsdb.journal.factory.JournalFactory;
+import com.nfsdb.journal.factory.configuration.JournalConfigurationBuilder;
+import com.nfsdb.journal.model.Quote;
 import com.nfsdb.journal.model.TestEntity;
 import com.nfsdb.journal.query.api.Query;
 import com.nfsdb.journal.test.tools.AbstractTest;
+import com.nfsdb.journal.test.tools.RandomString;
 import com.nfsdb.journal.test.tools.TestUtils;
 import com.nfsdb.journal.utils.Dates;
 import org.junit.Assert;
@@ -113,4 +117,39 @@ public class SortTest extends AbstractTest {
             last = v.getBStr();
         }
     }
+
+    @Test
+    public void testSortStringsBulk() throws Exception {
+        // small hint spreads strings over many buffers, bulk reader unmaps them as it goes
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).recordCountHint(100)
+                    .$sym("sym")
+                    .$str("mode")
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        try (JournalWriter<Quote> w = f2.writer(Quote.class, "bulk-sort")) {
+            RandomString rnd = new RandomString(20);
+            Quote q = new Quote();
+            for (int i = 0; i < 20000; i++) {
+                q.clear();
+                q.setSym("BP.L");
+                q.setMode(rnd.nextString());
+                q.setTimestamp(i);
+                w.append(q);
+            }
+            w.commit();
+        }
+
+        Journal<Quote> r = f2.bulkReader(Quote.class, "bulk-sort");
+        String last = "";
+        int count = 0;
+        for (Quote v : r.query().all().asResultSet().sort("mode").bufferedIterator()) {
+            Assert.assertTrue("Journal records are out of order", last.compareTo(v.getMode()) <= 0);
+            last = v.getMode();
+            count++;
+        }
+        Assert.assertEquals(20000, count);
+        r.close();
+    }
 }
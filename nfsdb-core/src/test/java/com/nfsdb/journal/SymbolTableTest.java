@@ -24,6 +24,8 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+
 public class SymbolTableTest extends AbstractTest {
 
     private static final int DATA_SIZE = 500;
@@ -109,7 +111,7 @@ public class SymbolTableTest extends AbstractTest {
             }
 
             createTestTable(data2);
-            tab.applyTx(this.tab.size(), this.tab.getIndexTxAddress());
+            tab.applyTx(this.tab.size());
 
             Assert.assertEquals(data.length + data2.length, tab.size());
 
@@ -182,6 +184,63 @@ public class SymbolTableTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testHashGrowth() throws Exception {
+        int count = 200000;
+        // capacity hint is far below actual number of values, hash table has to grow several times
+        try (SymbolTable w = new SymbolTable(1000, 32, factory.getConfiguration().getJournalBase(), "growth", JournalMode.APPEND, 0)) {
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(i, w.put("ORDER" + i));
+            }
+            w.commit();
+
+            try (SymbolTable r = new SymbolTable(1000, 32, factory.getConfiguration().getJournalBase(), "growth", JournalMode.READ, w.size())) {
+                for (int i = count - 1; i >= 0; i--) {
+                    Assert.assertEquals(i, r.getQuick("ORDER" + i));
+                }
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, r.getQuick("ORDER" + count));
+                Assert.assertEquals("ORDER12345", r.value(12345));
+            }
+
+            w.truncate(100);
+            Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, w.getQuick("ORDER100"));
+            Assert.assertEquals(99, w.getQuick("ORDER99"));
+            Assert.assertEquals(100, w.put("NEW"));
+        }
+
+        try (SymbolTable w = new SymbolTable(1000, 32, factory.getConfiguration().getJournalBase(), "growth", JournalMode.APPEND, 101)) {
+            Assert.assertEquals(100, w.getQuick("NEW"));
+            Assert.assertEquals(101, w.put("ORDER100"));
+        }
+    }
+
+    @Test
+    public void testRepeatedTruncate() throws Exception {
+        File hashFile = new File(factory.getConfiguration().getJournalBase(), "rollback.symh");
+        try (SymbolTable w = new SymbolTable(100000, 32, factory.getConfiguration().getJournalBase(), "rollback", JournalMode.APPEND, 0)) {
+            for (int i = 0; i < 100; i++) {
+                w.put("ORDER" + i);
+            }
+            w.commit();
+            long length = hashFile.length();
+
+            // rolled back values must not leave anything behind in hash file
+            for (int k = 0; k < 50; k++) {
+                for (int i = 0; i < 10; i++) {
+                    Assert.assertEquals(100 + i, w.put("ROLLBACK" + k + "_" + i));
+                }
+                w.truncate(100);
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, w.getQuick("ROLLBACK" + k + "_0"));
+            }
+            Assert.assertEquals(length, hashFile.length());
+
+            Assert.assertEquals(100, w.put("ROLLBACK0_1"));
+            Assert.assertEquals(100, w.getQuick("ROLLBACK0_1"));
+            Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, w.getQuick("ROLLBACK0_0"));
+            Assert.assertEquals(99, w.getQuick("ORDER99"));
+        }
+    }
+
     private String[] createData() {
         String data[] = new String[DATA_SIZE];
         {
@@ -194,7 +253,7 @@ public class SymbolTableTest extends AbstractTest {
 
     private void createTestTable(String data[]) throws JournalException {
         if (tab == null) {
-            tab = new SymbolTable(DATA_SIZE, 256, 1, factory.getConfiguration().getJournalBase(), "test", JournalMode.APPEND, 0, 0);
+            tab = new SymbolTable(DATA_SIZE, 256, factory.getConfiguration().getJournalBase(), "test", JournalMode.APPEND, 0);
         }
 
         for (String s : data) {
@@ -204,10 +263,10 @@ public class SymbolTableTest extends AbstractTest {
     }
 
     private SymbolTable getReader() throws JournalException {
-        return new SymbolTable(DATA_SIZE, 256, 1, factory.getConfiguration().getJournalBase(), "test", JournalMode.READ, tab.size(), tab.getIndexTxAddress());
+        return new SymbolTable(DATA_SIZE, 256, factory.getConfiguration().getJournalBase(), "test", JournalMode.READ, tab.size());
     }
 
     private SymbolTable getWriter() throws JournalException {
-        return new SymbolTable(DATA_SIZE, 256, 1, factory.getConfiguration().getJournalBase(), "test", JournalMode.APPEND, tab.size(), tab.getIndexTxAddress());
+        return new SymbolTable(DATA_SIZE, 256, factory.getConfiguration().getJournalBase(), "test", JournalMode.APPEND, tab.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014. Vlad Ilyushchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nfsdb.journal;
+
+import com.nfsdb.journal.column.ZoneMap;
+import com.nfsdb.journal.factory.configuration.JournalConfigurationBuilder;
+import com.nfsdb.journal.lang.cst.PartitionSlice;
+import com.nfsdb.journal.lang.cst.RowCursor;
+import com.nfsdb.journal.lang.cst.RowFilter;
+import com.nfsdb.journal.lang.cst.SkippingRowAcceptor;
+import com.nfsdb.journal.lang.cst.impl.fltr.AllRowFilter;
+import com.nfsdb.journal.lang.cst.impl.fltr.DoubleGreaterThanRowFilter;
+import com.nfsdb.journal.lang.cst.impl.fltr.IntEqualsRowFilter;
+import com.nfsdb.journal.lang.cst.impl.ref.IntRef;
+import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
+import com.nfsdb.journal.lang.cst.impl.rsrc.AllRowSource;
+import com.nfsdb.journal.lang.cst.impl.rsrc.FilteredRowSource;
+import com.nfsdb.journal.model.Quote;
+import com.nfsdb.journal.test.tools.JournalTestFactory;
+import com.nfsdb.journal.utils.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ZoneMapTest {
+
+    @Rule
+    public final JournalTestFactory factory = new JournalTestFactory(
+            new JournalConfigurationBuilder() {{
+                $(Quote.class)
+                        .$sym("sym").index().valueCountHint(15)
+                        .$double("bid").zoneMap()
+                        .$int("bidSize").zoneMap()
+                        .$ts()
+                ;
+            }}.build(Files.makeTempDir())
+    );
+
+    @Test
+    public void testFilterSkipsBlocks() throws Exception {
+        JournalWriter<Quote> w = factory.writer(Quote.class);
+        append(w, 0, 10000, 0);
+
+        Partition<Quote> p = w.getPartition(0, true);
+        ZoneMap zoneMap = p.getZoneMap(w.getMetadata().getColumnIndex("bid"));
+        Assert.assertNotNull(zoneMap);
+        Assert.assertEquals(10000, zoneMap.size());
+        Assert.assertEquals(0d, zoneMap.getDoubleMin(0), 0);
+        Assert.assertEquals(1023d, zoneMap.getDoubleMax(0), 0);
+        Assert.assertEquals(9999d, zoneMap.getDoubleMax(9), 0);
+        Assert.assertTrue(zoneMap.isComplete(9, 10000));
+        Assert.assertFalse(zoneMap.isComplete(10, 10000));
+
+        RowFilter greaterThan = new DoubleGreaterThanRowFilter("bid", 9000.5);
+        SkippingRowAcceptor acceptor = (SkippingRowAcceptor) greaterThan.acceptor(slice(p), null);
+        Assert.assertEquals(8192, acceptor.skip(0));
+        Assert.assertEquals(9000, acceptor.skip(9000));
+
+        Assert.assertEquals(999, count(p, greaterThan));
+        Assert.assertEquals(1000, count(p, new IntEqualsRowFilter(new StringRef("bidSize"), intRef(3))));
+        Assert.assertEquals(0, count(p, new IntEqualsRowFilter(new StringRef("bidSize"), intRef(11))));
+        Assert.assertEquals(999, count(p, new AllRowFilter(new RowFilter[]{
+                new IntEqualsRowFilter(new StringRef("bidSize"), intRef(9)),
+                greaterThan
+        })));
+
+        // readers use zone maps written by writer
+        Partition<Quote> rp = factory.reader(Quote.class).getPartition(0, true);
+        Assert.assertNotNull(rp.getZoneMap(w.getMetadata().getColumnIndex("bid")));
+        Assert.assertEquals(999, count(rp, greaterThan));
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        JournalWriter<Quote> w = factory.writer(Quote.class);
+        append(w, 0, 1500, 0);
+
+        w.append(new Quote().setTimestamp(2000).setSym("BP.L").setBid(20000).setBidSize(20));
+        w.rollback();
+        append(w, 1500, 600, 1);
+
+        Partition<Quote> p = w.getPartition(0, true);
+        ZoneMap zoneMap = p.getZoneMap(w.getMetadata().getColumnIndex("bid"));
+        Assert.assertEquals(2100, zoneMap.size());
+        Assert.assertEquals(1499d, zoneMap.getDoubleMax(1), 0);
+        Assert.assertEquals(0, count(p, new DoubleGreaterThanRowFilter("bid", 1499)));
+        // 500 rows of first batch and all rows of second
+        Assert.assertEquals(1100, count(p, new IntEqualsRowFilter(new StringRef("bidSize"), intRef(1))));
+    }
+
+    private static void append(JournalWriter<Quote> w, int lo, int count, int bidSize) throws Exception {
+        Quote q = new Quote().setSym("BP.L");
+        for (int i = lo; i < lo + count; i++) {
+            // value of bid is row number for first batch and zero after that
+            q.setTimestamp(i).setBid(lo == 0 ? i : 0).setBidSize(lo == 0 ? i / 1000 : bidSize);
+            w.append(q);
+            if (i % 3333 == 0) {
+                w.commit();
+            }
+        }
+        w.commit();
+    }
+
+    private static PartitionSlice slice(Partition p) {
+        PartitionSlice slice = new PartitionSlice();
+        slice.partition = p;
+        slice.lo = 0;
+        slice.calcHi = true;
+        return slice;
+    }
+
+    private static IntRef intRef(int value) {
+        IntRef ref = new IntRef();
+        ref.value = value;
+        return ref;
+    }
+
+    private static int count(Partition p, RowFilter filter) {
+        RowCursor cursor = new FilteredRowSource(new AllRowSource(), filter).cursor(slice(p));
+        int count = 0;
+        while (cursor.hasNext()) {
+            cursor.next();
+            count++;
+        }
+        return count;
+    }
+}
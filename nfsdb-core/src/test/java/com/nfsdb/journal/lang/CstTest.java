@@ -16,14 +16,20 @@
 
 package com.nfsdb.journal.lang;
 
+import com.nfsdb.journal.ColumnBatch;
 import com.nfsdb.journal.Journal;
+import com.nfsdb.journal.JournalKey;
 import com.nfsdb.journal.JournalWriter;
 import com.nfsdb.journal.Partition;
+import com.nfsdb.journal.PartitionType;
 import com.nfsdb.journal.column.FixedColumn;
 import com.nfsdb.journal.column.SymbolTable;
+import com.nfsdb.journal.exceptions.JournalException;
+import com.nfsdb.journal.factory.JournalFactory;
 import com.nfsdb.journal.factory.configuration.JournalConfigurationBuilder;
 import com.nfsdb.journal.lang.cst.*;
 import com.nfsdb.journal.lang.cst.impl.QImpl;
+import com.nfsdb.journal.lang.cst.impl.fltr.CompiledRowFilter;
 import com.nfsdb.journal.lang.cst.impl.ref.IntRef;
 import com.nfsdb.journal.lang.cst.impl.ref.StringRef;
 import com.nfsdb.journal.model.Quote;
@@ -32,12 +38,17 @@ import com.nfsdb.journal.test.tools.TestData;
 import com.nfsdb.journal.test.tools.TestUtils;
 import com.nfsdb.journal.utils.Dates;
 import com.nfsdb.journal.utils.Files;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CstTest {
 
@@ -102,6 +113,405 @@ public class CstTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSortedSetOperations() throws Exception {
+        JournalWriter<Quote> w = factory.writer(Quote.class, "setops");
+        String syms[] = {"AGK.L", "BP.L", "TLW.L", "WTB.L", "RRS.L"};
+        String exs[] = {"LXE", "SK", "GR"};
+        long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+        Random rnd = new Random(13);
+        Quote quote = new Quote();
+        for (int i = 0; i < 5000; i++) {
+            quote.clear();
+            quote.setSym(syms[rnd.nextInt(syms.length)]).setEx(exs[rnd.nextInt(exs.length)]).setTimestamp(ts + i * 1800000L);
+            w.append(quote);
+        }
+        w.commit();
+
+        StringRef sym = new StringRef("sym");
+        StringRef ex = new StringRef("ex");
+
+        // (BP.L and SK) or WTB.L
+        RowSource union = q.mergeSorted(
+                q.intersect(
+                        q.kvForwardSource(sym, q.symbolTableSource(sym, Arrays.asList("BP.L")))
+                        , q.kvForwardSource(ex, q.symbolTableSource(ex, Arrays.asList("SK")))
+                )
+                , q.kvForwardSource(sym, q.symbolTableSource(sym, Arrays.asList("WTB.L")))
+        );
+        // neither AGK.L nor TLW.L
+        RowSource difference = q.difference(
+                q.all()
+                , q.kvForwardSource(sym, q.symbolTableSource(sym, Arrays.asList("AGK.L", "TLW.L")))
+        );
+        // RRS.L or not LXE
+        RowSource filtered = q.forEachRow(
+                q.all()
+                , q.any(q.equalsSymbol(sym, new StringRef("RRS.L")), q.not(q.equalsSymbol(ex, new StringRef("LXE"))))
+        );
+
+        StringBuilder expectedUnion = new StringBuilder();
+        StringBuilder expectedDifference = new StringBuilder();
+        StringBuilder expectedFiltered = new StringBuilder();
+        for (DataItem d : q.forEachPartition(q.source(w, false), q.all())) {
+            Quote row = ((Partition<Quote>) d.partition).read(d.rowid);
+            String line = d.partition.getPartitionIndex() + ":" + d.rowid + "\n";
+            if ("BP.L".equals(row.getSym()) && "SK".equals(row.getEx()) || "WTB.L".equals(row.getSym())) {
+                expectedUnion.append(line);
+            }
+            if (!"AGK.L".equals(row.getSym()) && !"TLW.L".equals(row.getSym())) {
+                expectedDifference.append(line);
+            }
+            if ("RRS.L".equals(row.getSym()) || !"LXE".equals(row.getEx())) {
+                expectedFiltered.append(line);
+            }
+        }
+
+        Assert.assertTrue(expectedUnion.length() > 0);
+        Assert.assertEquals(expectedUnion.toString(), rows(q.forEachPartition(q.source(w, false), union)));
+        Assert.assertEquals(expectedDifference.toString(), rows(q.forEachPartition(q.source(w, false), difference)));
+        Assert.assertEquals(expectedFiltered.toString(), rows(q.forEachPartition(q.source(w, false), filtered)));
+    }
+
+    @Test
+    public void testBatchFilter() throws Exception {
+        // small record hint makes columns span many mapped buffers
+        try (JournalWriter<Quote> w = factory.writer(Quote.class, "batch", 100)) {
+            String syms[] = {"AGK.L", "BP.L", "TLW.L", "WTB.L"};
+            long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+            Random rnd = new Random(17);
+            Quote quote = new Quote();
+            for (int i = 0; i < 20000; i++) {
+                quote.clear();
+                quote.setSym(syms[rnd.nextInt(syms.length)]).setTimestamp(ts + i * 60000L);
+                quote.setBid(rnd.nextDouble());
+                quote.setAsk(rnd.nextDouble());
+                quote.setAskSize(rnd.nextInt(5));
+                quote.setMode(rnd.nextBoolean() ? "Fast" : "Slow");
+                w.append(quote);
+            }
+            w.commit();
+
+            StringRef sym = new StringRef("sym");
+            StringRef mode = new StringRef("mode");
+            RowFilter filters[] = {
+                    q.all(q.equalsSymbol(sym, new StringRef("BP.L")), q.greaterThan("bid", 0.5))
+                    , q.any(q.equalsConst(mode, new StringRef("Slow")), q.not(q.greaterThan("ask", 0.3)))
+                    , q.all(q.equals("askSize", 3), q.not(q.equalsSymbol(sym, new StringRef("AGK.L"))))
+            };
+
+            for (RowFilter filter : filters) {
+                for (int i = 0; i < 2; i++) {
+                    // ascending scan and index lookup, which returns newest rows first
+                    RowSource batch = i == 0 ? q.all() : q.kvSource(sym, q.symbolTableSource(sym));
+                    RowSource perRow = i == 0 ? q.all() : q.kvSource(sym, q.symbolTableSource(sym));
+                    String expected = rows(q.forEachPartition(q.source(w, false), q.forEachRow(perRow, rowByRow(filter))));
+                    Assert.assertTrue(expected.length() > 0);
+                    Assert.assertEquals(expected, rows(q.forEachPartition(q.source(w, false), q.forEachRow(batch, filter))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallelScan() throws Exception {
+        JournalWriter<Quote> w = factory.writer(new JournalKey<>(Quote.class, "parallel", PartitionType.DAY));
+        String syms[] = {"AGK.L", "BP.L", "TLW.L", "WTB.L"};
+        long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+        Random rnd = new Random(21);
+        Quote quote = new Quote();
+        for (int i = 0; i < 20000; i++) {
+            quote.clear();
+            quote.setSym(syms[rnd.nextInt(syms.length)]).setTimestamp(ts + i * 60000L);
+            quote.setBid(rnd.nextDouble());
+            w.append(quote);
+        }
+        w.commit();
+        Assert.assertTrue(w.getPartitionCount() > 1);
+
+        final StringRef sym = new StringRef("sym");
+        final RowFilter filter = q.all(q.equalsSymbol(sym, new StringRef("BP.L")), q.greaterThan("bid", 0.5));
+        RowSourceFactory scan = new RowSourceFactory() {
+            @Override
+            public RowSource newInstance() {
+                return q.forEachRow(q.all(), filter);
+            }
+        };
+        RowSourceFactory lookup = new RowSourceFactory() {
+            @Override
+            public RowSource newInstance() {
+                return q.kvSource(sym, q.symbolTableSource(sym, Arrays.asList("BP.L", "TLW.L")));
+            }
+        };
+
+        for (RowSourceFactory f : new RowSourceFactory[]{scan, lookup}) {
+            String expected = rows(q.forEachPartition(q.source(w, false), f.newInstance()));
+            Assert.assertTrue(expected.length() > 0);
+            Assert.assertEquals(expected, rows(q.forEachPartition(q.source(w, false), f, factory, 3, true)));
+
+            String unordered[] = rows(q.forEachPartition(q.source(w, false), f, factory, 3, false)).split("\n");
+            String sorted[] = expected.split("\n");
+            Arrays.sort(unordered);
+            Arrays.sort(sorted);
+            Assert.assertArrayEquals(sorted, unordered);
+        }
+
+        // scans borrow pooled readers instead of opening one per partition
+        final AtomicInteger opened = new AtomicInteger();
+        JournalFactory counting = new JournalFactory(factory.getConfiguration()) {
+            @Override
+            public <T> Journal<T> reader(JournalKey<T> key) throws JournalException {
+                opened.incrementAndGet();
+                return super.reader(key);
+            }
+        };
+        Assert.assertEquals(rows(q.forEachPartition(q.source(w, false), scan.newInstance())), rows(q.forEachPartition(q.source(w, false), scan, counting, 3, false)));
+        Assert.assertTrue(opened.get() <= 3);
+
+        ParallelJournalSource src = q.forEachPartition(q.source(w, false), scan, factory, 2, true);
+        Assert.assertTrue(src.hasNext());
+        src.next();
+        src.cancel();
+        Assert.assertTrue(src.isCancelled());
+        Assert.assertFalse(src.hasNext());
+        src.reset();
+        Assert.assertFalse(src.isCancelled());
+        Assert.assertEquals(rows(q.forEachPartition(q.source(w, false), scan.newInstance())), rows(src));
+    }
+
+    @Test
+    public void testParallelScanConcurrentWriter() throws Exception {
+        JournalFactory f2 = new JournalFactory(new JournalConfigurationBuilder() {{
+            $(Quote.class).location("parallel-lag")
+                    .partitionBy(PartitionType.DAY)
+                    .lag(12, TimeUnit.HOURS)
+                    .$sym("sym").index().valueCountHint(15)
+                    .$ts();
+        }}.build(factory.getConfiguration().getJournalBase()));
+
+        String syms[] = {"AGK.L", "BP.L", "TLW.L", "WTB.L"};
+        long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+        Random rnd = new Random(23);
+        try (JournalWriter<Quote> w = f2.writer(Quote.class)) {
+            List<Quote> batch = new ArrayList<>();
+            int n = 0;
+            for (int k = 0; k < 6; k++) {
+                batch.clear();
+                for (int i = 0; i < 1000; i++) {
+                    batch.add(new Quote().setSym(syms[rnd.nextInt(syms.length)]).setTimestamp(ts + (n++) * 60000L));
+                }
+                w.mergeAppend(batch);
+                w.commit();
+            }
+
+            Journal<Quote> r = f2.reader(Quote.class);
+            Assert.assertTrue(r.hasIrregularPartition());
+
+            final StringRef sym = new StringRef("sym");
+            RowSourceFactory lookup = new RowSourceFactory() {
+                @Override
+                public RowSource newInstance() {
+                    return q.kvSource(sym, q.symbolTableSource(sym, Arrays.asList("BP.L", "TLW.L")));
+                }
+            };
+            String expected = rows(q.forEachPartition(q.source(r, false), lookup.newInstance()));
+
+            // writer moves on, so that lag of source journal is merged into new partitions and replaced
+            for (int k = 0; k < 3; k++) {
+                batch.clear();
+                for (int i = 0; i < 1000; i++) {
+                    batch.add(new Quote().setSym(syms[rnd.nextInt(syms.length)]).setTimestamp(ts + (n++) * 60000L));
+                }
+                w.mergeAppend(batch);
+                w.commit();
+            }
+            Assert.assertTrue(w.getPartitionCount() > r.getPartitionCount());
+
+            Assert.assertEquals(expected, rows(q.forEachPartition(q.source(r, false), lookup, f2, 3, true)));
+
+            String unordered[] = rows(q.forEachPartition(q.source(r, false), lookup, f2, 3, false)).split("\n");
+            String sorted[] = expected.split("\n");
+            Arrays.sort(unordered);
+            Arrays.sort(sorted);
+            Assert.assertArrayEquals(sorted, unordered);
+            r.close();
+        }
+    }
+
+    @Test
+    public void testCompiledFilter() throws Exception {
+        try (JournalWriter<Quote> w = factory.writer(Quote.class, "compiled", 100)) {
+            String syms[] = {"AGK.L", "BP.L", "TLW.L", "WTB.L"};
+            long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+            Random rnd = new Random(24);
+            Quote quote = new Quote();
+            for (int i = 0; i < 20000; i++) {
+                quote.clear();
+                quote.setSym(syms[rnd.nextInt(syms.length)]).setTimestamp(ts + i * 60000L);
+                quote.setBid(rnd.nextDouble());
+                quote.setAsk(rnd.nextDouble());
+                quote.setAskSize(rnd.nextInt(5));
+                quote.setMode(rnd.nextBoolean() ? "Fast" : "Slow");
+                w.append(quote);
+            }
+            w.commit();
+
+            StringRef sym = new StringRef("sym");
+            StringRef mode = new StringRef("mode");
+            RowFilter filters[] = {
+                    q.all(q.equalsSymbol(sym, new StringRef("BP.L")), q.greaterThan("bid", 0.5), q.greaterThan("ask", 0.2))
+                    , q.any(q.equalsConst(mode, new StringRef("Slow")), q.not(q.greaterThan("ask", 0.3)))
+                    , q.all(q.equals("askSize", 3), q.not(q.any(q.equalsSymbol(sym, new StringRef("AGK.L")), q.equalsSymbol(sym, new StringRef("XXX")))))
+                    , q.any(q.all(new RowFilter[0]), q.equals("askSize", 1))
+                    , q.not(q.all(q.any(new RowFilter[0]), q.equalsSymbol(sym, new StringRef("XXX"))))
+            };
+
+            for (RowFilter filter : filters) {
+                for (int i = 0; i < 2; i++) {
+                    RowSource compiled = i == 0 ? q.all() : q.kvSource(sym, q.symbolTableSource(sym));
+                    RowSource perRow = i == 0 ? q.all() : q.kvSource(sym, q.symbolTableSource(sym));
+                    RowFilter f = q.compile(filter);
+                    String expected = rows(q.forEachPartition(q.source(w, false), q.forEachRow(perRow, rowByRow(filter))));
+                    Assert.assertTrue(expected.length() > 0);
+                    Assert.assertEquals(expected, rows(q.forEachPartition(q.source(w, false), q.forEachRow(compiled, f))));
+                    Assert.assertTrue(((CompiledRowFilter) f).isCompiled());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGroupBy() throws Exception {
+        JournalWriter<Quote> w = factory.writer(Quote.class, "groupby");
+        String syms[] = {"AGK.L", "BP.L", "TLW.L", "WTB.L", null};
+        long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+        Random rnd = new Random(25);
+        Quote quote = new Quote();
+        for (int i = 0; i < 10000; i++) {
+            quote.clear();
+            quote.setSym(syms[rnd.nextInt(syms.length)]).setTimestamp(ts + i * 60000L);
+            quote.setBid(rnd.nextDouble());
+            quote.setAsk(rnd.nextDouble());
+            quote.setAskSize(rnd.nextInt(1000));
+            w.append(quote);
+        }
+        w.commit();
+
+        for (int f = 0; f < 2; f++) {
+            RowSource rows = f == 0 ? q.all() : q.forEachRow(q.all(), q.greaterThan("bid", 0.5));
+            Aggregator count = q.count();
+            Aggregator sum = q.sum("bid");
+            Aggregator min = q.min("askSize");
+            Aggregator max = q.max("ask");
+            Aggregator avg = q.avg("bid");
+            Aggregator first = q.first("askSize");
+            Aggregator last = q.last("timestamp");
+            GroupBy groupBy = q.groupBy(q.forEachPartition(q.source(w, false), rows), "sym", count, sum, min, max, avg, first, last).aggregate();
+            Assert.assertEquals(4, groupBy.getKeyCount());
+
+            SymbolTable tab = w.getSymbolTable("sym");
+            for (String sym : syms) {
+                int key = sym == null ? SymbolTable.VALUE_IS_NULL : tab.getQuick(sym);
+                long n = 0;
+                double bidSum = 0;
+                long askSizeMin = Long.MAX_VALUE;
+                double askMax = -1;
+                long askSizeFirst = -1;
+                long tsLast = -1;
+                for (Quote qt : w) {
+                    if ((sym == null ? qt.getSym() == null : sym.equals(qt.getSym())) && (f == 0 || qt.getBid() > 0.5)) {
+                        n++;
+                        bidSum += qt.getBid();
+                        askSizeMin = Math.min(askSizeMin, qt.getAskSize());
+                        askMax = Math.max(askMax, qt.getAsk());
+                        if (askSizeFirst == -1) {
+                            askSizeFirst = qt.getAskSize();
+                        }
+                        tsLast = qt.getTimestamp();
+                    }
+                }
+
+                Assert.assertTrue(n > 0);
+                Assert.assertEquals(n, groupBy.getCount(key));
+                Assert.assertEquals(n, count.getLong(key));
+                Assert.assertEquals(bidSum, sum.getDouble(key), 1e-9);
+                Assert.assertEquals(askSizeMin, min.getLong(key));
+                Assert.assertEquals(askMax, max.getDouble(key), 0);
+                Assert.assertEquals(bidSum / n, avg.getDouble(key), 1e-9);
+                Assert.assertEquals(askSizeFirst, first.getLong(key));
+                Assert.assertEquals(tsLast, last.getLong(key));
+            }
+
+            // keys past symbol table seen by aggregation have no rows
+            int unknown = tab.size() + 10;
+            Assert.assertEquals(0, groupBy.getCount(unknown));
+            Assert.assertEquals(0, count.getLong(unknown));
+            Assert.assertEquals(0, sum.getDouble(unknown), 0);
+            Assert.assertEquals(0, min.getLong(unknown));
+            Assert.assertTrue(Double.isNaN(avg.getDouble(unknown)));
+        }
+    }
+
+    @Test
+    public void testGroupByNulls() throws Exception {
+        JournalWriter<Quote> w = factory.writer(Quote.class, "groupbynulls");
+        String syms[] = {"AGK.L", "BP.L", "TLW.L"};
+        long ts = Dates.toMillis("2013-09-01T00:00:00.000Z");
+        Random rnd = new Random(26);
+        int batchSize = 100;
+        long counts[] = new long[syms.length];
+        long valueCounts[] = new long[syms.length];
+        double bidSums[] = new double[syms.length];
+        long askSizeMins[] = new long[syms.length];
+        Arrays.fill(askSizeMins, Long.MAX_VALUE);
+
+        // every other batch leaves bid and askSize out, so they are written as nulls
+        for (int b = 0; b < 10; b++) {
+            long timestamps[] = new long[batchSize];
+            String symbols[] = new String[batchSize];
+            double bids[] = new double[batchSize];
+            int askSizes[] = new int[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                int k = rnd.nextInt(syms.length);
+                timestamps[i] = ts + (b * batchSize + i) * 60000L;
+                symbols[i] = syms[k];
+                bids[i] = rnd.nextDouble();
+                askSizes[i] = 1000 + rnd.nextInt(1000);
+                counts[k]++;
+                if ((b & 1) == 0) {
+                    valueCounts[k]++;
+                    bidSums[k] += bids[i];
+                    askSizeMins[k] = Math.min(askSizeMins[k], askSizes[i]);
+                }
+            }
+            ColumnBatch batch = new ColumnBatch(w.getMetadata()).setLongs("timestamp", timestamps).setStrings("sym", symbols);
+            if ((b & 1) == 0) {
+                batch.setDoubles("bid", bids).setInts("askSize", askSizes);
+            }
+            w.appendBatch(batch);
+        }
+        w.commit();
+        Assert.assertTrue(w.query().all().asResultSet().isNull(batchSize, w.getMetadata().getColumnIndex("bid")));
+
+        Aggregator count = q.count();
+        Aggregator sum = q.sum("bid");
+        Aggregator min = q.min("askSize");
+        Aggregator avg = q.avg("bid");
+        GroupBy groupBy = q.groupBy(q.forEachPartition(q.source(w, false), q.all()), "sym", count, sum, min, avg).aggregate();
+
+        SymbolTable tab = w.getSymbolTable("sym");
+        for (int k = 0; k < syms.length; k++) {
+            int key = tab.getQuick(syms[k]);
+            Assert.assertTrue(valueCounts[k] < counts[k]);
+            Assert.assertEquals(counts[k], groupBy.getCount(key));
+            Assert.assertEquals(counts[k], count.getLong(key));
+            Assert.assertEquals(bidSums[k], sum.getDouble(key), 1e-9);
+            Assert.assertEquals(askSizeMins[k], min.getLong(key));
+            Assert.assertEquals(bidSums[k] / valueCounts[k], avg.getDouble(key), 1e-9);
+        }
+    }
+
     @Test
     public void testHead() throws Exception {
         StringRef sym = new StringRef("sym");
@@ -262,4 +672,30 @@ public class CstTest {
         System.out.println(System.nanoTime() - t);
 
     }
+
+    private static String rows(JournalSource source) {
+        StringBuilder b = new StringBuilder();
+        for (DataItem d : source) {
+            b.append(d.partition.getPartitionIndex()).append(':').append(d.rowid).append('\n');
+        }
+        return b.toString();
+    }
+
+    /**
+     * Hides batch and skipping capabilities of filter, so that rows are filtered one at a time.
+     */
+    private static RowFilter rowByRow(final RowFilter filter) {
+        return new RowFilter() {
+            @Override
+            public RowAcceptor acceptor(PartitionSlice a, PartitionSlice b) {
+                final RowAcceptor acceptor = filter.acceptor(a, b);
+                return new RowAcceptor() {
+                    @Override
+                    public Choice accept(long localRowIDA, long localRowIDB) {
+                        return acceptor.accept(localRowIDA, localRowIDB);
+                    }
+                };
+            }
+        };
+    }
 }
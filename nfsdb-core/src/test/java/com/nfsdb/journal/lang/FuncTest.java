@@ -64,6 +64,8 @@ public class FuncTest {
         Partition partition = createMock(Partition.class);
         expect(partition.getJournal()).andReturn(journal);
         expect(partition.getAbstractColumn(index)).andReturn(column);
+        expect(partition.getZoneMap(index)).andReturn(null);
+        expect(partition.size()).andReturn(1000L);
         replay(partition);
 
         PartitionSlice slice = new PartitionSlice();